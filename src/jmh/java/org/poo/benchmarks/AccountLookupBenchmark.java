@@ -0,0 +1,78 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.utils.Search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link org.poo.main.AccountRegistry} lookup with the linear scan over every
+ * user and every account that {@link Search#getAccountByIBAN} used to perform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class AccountLookupBenchmark {
+    private static final int ACCOUNTS_PER_USER = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int accounts;
+
+    private Application app;
+    private String[] ibans;
+    private int next;
+
+    /**
+     * Builds the bank once per trial.
+     */
+    @Setup
+    public void setup() {
+        app = Fixtures.newBank(accounts / ACCOUNTS_PER_USER, ACCOUNTS_PER_USER);
+        ibans = Fixtures.shuffledIbans(app);
+    }
+
+    /**
+     * @return the account found through the registry
+     */
+    @Benchmark
+    public Account registry() {
+        return Search.getAccountByIBAN(app.getRegistry(), nextIban());
+    }
+
+    /**
+     * @return the account found by scanning every user and every account
+     */
+    @Benchmark
+    public Account linearScan() {
+        String iban = nextIban();
+        for (User user : app.getUsers()) {
+            for (Account account : user.getAccounts()) {
+                if (account.getIban().equals(iban)) {
+                    return account;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String nextIban() {
+        next = next + 1 == ibans.length ? 0 : next + 1;
+        return ibans[next];
+    }
+}
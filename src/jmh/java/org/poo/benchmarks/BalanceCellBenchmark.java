@@ -0,0 +1,121 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.main.Money;
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.BalanceCell;
+import org.poo.main.accounts.BalanceLocks;
+import org.poo.main.accounts.ClassicAccount;
+import org.poo.utils.Utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the lock-free payments of {@link BalanceCell} with payments made under the striped
+ * lock of the account in {@link BalanceLocks}, with several threads paying from the same few
+ * hot accounts. Every operation takes an amount off a balance, checking the funds, then puts
+ * it back. Change the contention with {@code -t} and {@code -p accounts}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+@Threads(BalanceCellBenchmark.THREADS)
+public class BalanceCellBenchmark {
+    /**
+     * The default number of threads paying at once.
+     */
+    public static final int THREADS = 8;
+
+    private static final double START_BALANCE = 1_000_000;
+    private static final long AMOUNT = Money.toMicros(12.5);
+
+    @Param({"1", "16"})
+    private int accounts;
+
+    private Account[] hot;
+
+    /**
+     * Opens the hot accounts and funds them.
+     */
+    @Setup
+    public void setup() {
+        Utils.resetRandom();
+        CommandInput input = new CommandInput();
+        input.setCurrency("RON");
+        hot = new Account[accounts];
+        for (int i = 0; i < accounts; i++) {
+            hot[i] = new ClassicAccount(input);
+            hot[i].addFunds(START_BALANCE, null, 0);
+        }
+    }
+
+    /**
+     * The account the next operation of a thread pays from.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        final int next(final int size) {
+            next = next + 1 == size ? 0 : next + 1;
+            return next;
+        }
+    }
+
+    /**
+     * @param cursor the account of the thread
+     * @return whether the payment went through
+     */
+    @Benchmark
+    public boolean compareAndSet(final Cursor cursor) {
+        BalanceCell cell = hot[cursor.next(accounts)].getBalanceCell();
+        boolean paid = cell.withdraw(AMOUNT, 0);
+        cell.add(AMOUNT);
+        return paid;
+    }
+
+    /**
+     * @param cursor the account of the thread
+     * @return whether the payment went through
+     */
+    @Benchmark
+    public boolean stripedLock(final Cursor cursor) {
+        Account account = hot[cursor.next(accounts)];
+        BalanceCell cell = account.getBalanceCell();
+        ReentrantLock lock = BalanceLocks.lockFor(account);
+        boolean paid;
+        lock.lock();
+        try {
+            long balance = cell.get();
+            paid = balance >= AMOUNT;
+            if (paid) {
+                cell.set(balance - AMOUNT);
+            }
+        } finally {
+            lock.unlock();
+        }
+        lock.lock();
+        try {
+            cell.set(cell.get() + AMOUNT);
+        } finally {
+            lock.unlock();
+        }
+        return paid;
+    }
+}
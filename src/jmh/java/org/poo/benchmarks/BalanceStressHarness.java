@@ -0,0 +1,173 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.Money;
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.ClassicAccount;
+import org.poo.utils.Utils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hammers a few hot accounts from many threads at once, to check that the balances, changed
+ * through {@link org.poo.main.accounts.BalanceCell} and, for transfers,
+ * {@link org.poo.main.accounts.BalanceLocks}, lose no update.
+ * <p>
+ * Every thread deposits, pays fees and transfers money between random hot accounts, in both
+ * directions, counting what it deposited and paid. Once all of them are done, the total of
+ * the balances must be the initial one plus the deposits minus the fees, and no balance may
+ * be negative. The run fails if a check fails, or if the threads do not finish in time, which
+ * would mean two transfers deadlocked. Run with
+ * {@code -Dbench.main=org.poo.benchmarks.BalanceStressHarness} and
+ * {@code -Djmh.args="threads=64 accounts=4 operations=100000"}, where the operations are the
+ * ones of every thread.
+ */
+public final class BalanceStressHarness {
+    private static final int DEFAULT_THREADS = 64;
+    private static final int DEFAULT_ACCOUNTS = 4;
+    private static final int DEFAULT_OPERATIONS = 100_000;
+    private static final double INITIAL_BALANCE = 1_000;
+    private static final int MAX_TRANSFER = 5;
+    private static final int KINDS = 3;
+    private static final long TIMEOUT_MINUTES = 5;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private BalanceStressHarness() {
+    }
+
+    /**
+     * @param args {@code threads=N}, {@code accounts=N} and {@code operations=N}
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        int threads = DEFAULT_THREADS;
+        int size = DEFAULT_ACCOUNTS;
+        int operations = DEFAULT_OPERATIONS;
+        for (String arg : args) {
+            if (arg.startsWith("threads=")) {
+                threads = Integer.parseInt(arg.substring("threads=".length()));
+            } else if (arg.startsWith("accounts=")) {
+                size = Integer.parseInt(arg.substring("accounts=".length()));
+            } else if (arg.startsWith("operations=")) {
+                operations = Integer.parseInt(arg.substring("operations=".length()));
+            }
+        }
+
+        Utils.resetRandom();
+        CommandInput input = new CommandInput();
+        input.setCurrency("RON");
+        Account[] accounts = new Account[size];
+        for (int i = 0; i < size; i++) {
+            accounts[i] = new ClassicAccount(input);
+            accounts[i].addFunds(INITIAL_BALANCE, null, 0);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        Hammer[] hammers = new Hammer[threads];
+        for (int i = 0; i < threads; i++) {
+            hammers[i] = new Hammer(accounts, operations, start, done);
+            Thread.ofPlatform().name("hammer-" + i).daemon().start(hammers[i]);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        if (!done.await(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+            System.out.println("FAILED: the threads did not finish, two transfers deadlocked");
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - begin) / NANOS_PER_SECOND;
+
+        long expected = Money.toMicros(INITIAL_BALANCE) * size;
+        long transfers = 0;
+        long rejected = 0;
+        for (Hammer hammer : hammers) {
+            expected += hammer.deposited - hammer.paid;
+            transfers += hammer.transfers;
+            rejected += hammer.rejected;
+        }
+        long total = 0;
+        long lowest = Long.MAX_VALUE;
+        for (Account account : accounts) {
+            total += account.getBalanceMicros();
+            lowest = Math.min(lowest, account.getBalanceMicros());
+        }
+        long count = (long) threads * operations;
+        System.out.printf("%d threads, %d accounts: %,d operations in %.2f s (%,.0f/s), "
+                        + "%,d transfers, %,d rejected for lack of funds%n", threads, size,
+                count, seconds, count / seconds, transfers, rejected);
+        System.out.printf("total %s, expected %s, lowest balance %s%n", Money.toDouble(total),
+                Money.toDouble(expected), Money.toDouble(lowest));
+        if (total != expected || lowest < 0) {
+            System.out.println("FAILED: updates of the balances were lost");
+            System.exit(1);
+        }
+        System.out.println("OK: no update lost");
+    }
+
+    /**
+     * Deposits, pays fees and transfers money between the hot accounts.
+     */
+    private static final class Hammer implements Runnable {
+        private final Account[] accounts;
+        private final int operations;
+        private final CountDownLatch start;
+        private final CountDownLatch done;
+        private long deposited;
+        private long paid;
+        private long transfers;
+        private long rejected;
+
+        Hammer(final Account[] accounts, final int operations, final CountDownLatch start,
+               final CountDownLatch done) {
+            this.accounts = accounts;
+            this.operations = operations;
+            this.start = start;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                start.await();
+                for (int i = 0; i < operations; i++) {
+                    Account account = accounts[random.nextInt(accounts.length)];
+                    double amount = 1 + random.nextInt(MAX_TRANSFER);
+                    switch (random.nextInt(KINDS)) {
+                        case 0 -> {
+                            account.addFunds(amount, null, i);
+                            deposited += Money.toMicros(amount);
+                        }
+                        case 1 -> fee(account, amount);
+                        default -> transfer(account, amount,
+                                accounts[random.nextInt(accounts.length)]);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void fee(final Account account, final double amount) {
+            try {
+                account.deductFee(amount);
+                paid += Money.toMicros(amount);
+            } catch (Exception e) {
+                rejected++;
+            }
+        }
+
+        private void transfer(final Account from, final double amount, final Account to) {
+            Money money = Money.of(amount, from.getCurrencyId());
+            if (from.transferTo(to, money, money)) {
+                transfers++;
+            } else {
+                rejected++;
+            }
+        }
+    }
+}
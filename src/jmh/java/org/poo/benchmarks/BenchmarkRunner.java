@@ -0,0 +1,56 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the JMH benchmarks with the usual command line options, writing the results as JSON
+ * unless another format or file is given with {@code -rf} or {@code -rff}.
+ * <p>
+ * The results go to the file named by the {@code bench.result} property, which the
+ * {@code benchmark} profile points at {@code target/jmh/<artifact>-<version>.json}, so the
+ * runs of two releases can be compared.
+ */
+public final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "target/jmh/result.json";
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * @param args the JMH command line options
+     * @throws CommandLineOptionException if the options cannot be parsed
+     * @throws RunnerException            if a benchmark fails
+     * @throws IOException                if the benchmark list cannot be read
+     */
+    public static void main(final String[] args)
+            throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cli.getResult().hasValue()) {
+            File result = new File(System.getProperty("bench.result", DEFAULT_RESULT));
+            if (result.getParentFile() != null) {
+                result.getParentFile().mkdirs();
+            }
+            options.result(result.getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
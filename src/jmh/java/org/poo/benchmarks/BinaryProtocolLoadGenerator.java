@@ -0,0 +1,204 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.main.Application;
+import org.poo.server.BinaryCommandServer;
+import org.poo.server.BinaryEncoder;
+import org.poo.server.BinaryProtocol;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the throughput of the {@link BinaryCommandServer} on loopback, with the commands
+ * sent in the binary format and then as JSON frames, so the two decoders are compared on the
+ * same transport and the same commands.
+ * <p>
+ * For each format, a new bank is set up by the setup commands of a generated workload, see
+ * {@link WorkloadGenerator}, and the rest of its commands are encoded up front and spread
+ * over {@code connections=N} connections. Every connection has a thread writing its
+ * commands without waiting for the responses and a thread reading the responses, and the
+ * run ends when every command is answered. Run with
+ * {@code -Dbench.main=org.poo.benchmarks.BinaryProtocolLoadGenerator} and
+ * {@code -Djmh.args="commands=1000000 connections=4"}, adding {@code format=binary} or
+ * {@code format=json} to run only one of them.
+ */
+public final class BinaryProtocolLoadGenerator {
+    private static final int DEFAULT_CONNECTIONS = 4;
+    private static final int BUFFER = 1_048_576;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private BinaryProtocolLoadGenerator() {
+    }
+
+    /**
+     * @param args {@code connections=N}, {@code format=binary|json|both} and the settings of
+     *             the workload
+     * @throws IOException          if the server cannot listen
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int connections = DEFAULT_CONNECTIONS;
+        String format = "both";
+        for (String arg : args) {
+            if (arg.startsWith("connections=")) {
+                connections = Integer.parseInt(arg.substring("connections=".length()));
+            } else if (arg.startsWith("format=")) {
+                format = arg.substring("format=".length());
+            }
+        }
+        WorkloadSpec spec = WorkloadSpec.parse(args);
+        System.out.printf("%s connections=%d%n", spec, connections);
+        double binary = 0;
+        double json = 0;
+        if (!format.equals("json")) {
+            binary = run(spec, connections, false);
+        }
+        if (!format.equals("binary")) {
+            json = run(spec, connections, true);
+        }
+        if (binary > 0 && json > 0) {
+            System.out.printf("binary/json: %.2fx%n", binary / json);
+        }
+    }
+
+    private static double run(final WorkloadSpec spec, final int connections,
+                              final boolean json) throws IOException, InterruptedException {
+        List<CommandInput> workload = new ArrayList<>();
+        Application app = ServerLoadGenerator.setUp(new WorkloadGenerator(spec), workload);
+        Client[] clients = new Client[connections];
+        for (int c = 0; c < connections; c++) {
+            clients[c] = new Client(json);
+        }
+        for (int i = 0; i < workload.size(); i++) {
+            clients[i % connections].add(workload.get(i));
+        }
+
+        try (BinaryCommandServer server = new BinaryCommandServer(app,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.start();
+            long start = System.nanoTime();
+            List<Thread> threads = new ArrayList<>();
+            for (Client client : clients) {
+                client.connect(server.getPort());
+                threads.add(Thread.ofPlatform().start(client::send));
+                threads.add(Thread.ofPlatform().start(client::receive));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+
+            long failed = 0;
+            long bytes = 0;
+            for (Client client : clients) {
+                failed += client.failed;
+                bytes += client.sent();
+                client.channel.close();
+            }
+            double rate = workload.size() / seconds;
+            System.out.printf("%-6s %,d commands in %.2f s: %,.0f commands/s, %.1f bytes per "
+                            + "command, %,d failed, peak RSS %s%n", json ? "json" : "binary",
+                    workload.size(), seconds, rate, (double) bytes / workload.size(), failed,
+                    InputStreamingProbe.peakRss());
+            return rate;
+        }
+    }
+
+    /**
+     * The commands of one connection, encoded up front, and the counts of its responses.
+     */
+    private static final class Client {
+        private static final ObjectMapper MAPPER = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+
+        private final boolean json;
+        private final BinaryEncoder encoder = new BinaryEncoder();
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer chunk = ByteBuffer.allocate(BUFFER);
+        private SocketChannel channel;
+        private int commands;
+        private long failed;
+
+        Client(final boolean json) {
+            this.json = json;
+        }
+
+        void add(final CommandInput command) throws IOException {
+            boolean written = json
+                    ? BinaryEncoder.encodeJson(MAPPER.writeValueAsBytes(command), chunk)
+                    : encoder.encode(command, chunk);
+            if (!written) {
+                chunks.add(chunk.flip());
+                chunk = ByteBuffer.allocate(BUFFER);
+                add(command);
+                return;
+            }
+            commands++;
+        }
+
+        long sent() {
+            long bytes = 0;
+            for (ByteBuffer buffer : chunks) {
+                bytes += buffer.limit();
+            }
+            return bytes;
+        }
+
+        void connect(final int port) throws IOException {
+            chunks.add(chunk.flip());
+            channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    port));
+        }
+
+        void send() {
+            try {
+                for (ByteBuffer buffer : chunks) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void receive() {
+            ByteBuffer in = ByteBuffer.allocateDirect(BUFFER);
+            int answered = 0;
+            try {
+                while (answered < commands) {
+                    if (channel.read(in) < 0) {
+                        throw new IOException("Connection closed after " + answered
+                                + " responses");
+                    }
+                    in.flip();
+                    while (in.remaining() >= BinaryProtocol.HEADER
+                            && in.remaining() >= BinaryProtocol.HEADER + in.getInt(in.position())) {
+                        int length = in.getInt();
+                        if (in.get(in.position()) == BinaryProtocol.FAILED) {
+                            failed++;
+                        }
+                        in.position(in.position() + length);
+                        answered++;
+                    }
+                    if (in.remaining() > 0 && in.position() == 0 && in.limit() == in.capacity()) {
+                        // a response larger than the buffer, only counted
+                        in = ByteBuffer.allocateDirect(in.capacity() * 2).put(in);
+                    } else {
+                        in.compact();
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.commands.Command;
+import org.poo.commands.CommandFactory;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the command hot paths on a bank of {@code users} users, each owning
+ * {@code accountsPerUser} classic accounts with one card, after every account went through
+ * {@code history} payments and transfers. User 0 also owns a business account, on which up
+ * to ten associates deposit and pay.
+ * <p>
+ * The bank is rebuilt for every iteration, so the payments and transfers measured do not keep
+ * growing the histories across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class CommandBenchmark {
+    private static final int COMMERCIANTS = 8;
+    private static final int ASSOCIATES = 10;
+    private static final double FUNDS = 1_000_000_000;
+    private static final double DEPOSIT = 100;
+    private static final double MAX_PAYMENT = 100;
+    private static final double TRANSFER = 1;
+    private static final double SPLIT = 10;
+    private static final String CURRENCY = "RON";
+
+    @Param({"100", "1000"})
+    private int users;
+
+    @Param({"1", "5"})
+    private int accountsPerUser;
+
+    @Param({"10", "100"})
+    private int history;
+
+    private Application app;
+    private ObjectInput input;
+    private String[] emails;
+    private String[] ibans;
+    private String[] owners;
+    private String[] cards;
+    private String[] commerciants;
+    private String business;
+    private CommandInput[] mix;
+    private Random random;
+    private int timestamp;
+    private int next;
+
+    /**
+     * Builds the bank and replays the history of every account.
+     */
+    @Setup(Level.Iteration)
+    public void setup() {
+        random = new Random(Fixtures.SEED);
+        timestamp = 0;
+        input = new ObjectInput();
+        UserInput[] userInputs = new UserInput[users];
+        emails = new String[users];
+        for (int i = 0; i < users; i++) {
+            userInputs[i] = Fixtures.user(i);
+            emails[i] = userInputs[i].getEmail();
+        }
+        commerciants = new String[COMMERCIANTS];
+        CommerciantInput[] commerciantInputs = new CommerciantInput[COMMERCIANTS];
+        for (int i = 0; i < COMMERCIANTS; i++) {
+            commerciants[i] = "Shop" + i;
+            commerciantInputs[i] = Fixtures.commerciant(commerciants[i], i,
+                    String.format("RO%02dPOOB%016d", i, i));
+        }
+        input.setUsers(userInputs);
+        input.setCommerciants(commerciantInputs);
+        input.setExchangeRates(new ExchangeInput[] {Fixtures.rate("EUR", CURRENCY, 1)});
+
+        List<CommandInput> accounts = new ArrayList<>();
+        for (String email : emails) {
+            for (int j = 0; j < accountsPerUser; j++) {
+                accounts.add(Fixtures.addAccount(email, CURRENCY));
+            }
+        }
+        CommandInput businessAccount = Fixtures.addAccount(emails[0], CURRENCY);
+        businessAccount.setAccountType("business");
+        accounts.add(businessAccount);
+        input.setCommands(stamp(accounts));
+        app = new Application(input);
+        app.resetAll();
+        app.runApplication();
+        collectAccounts();
+
+        List<CommandInput> setup = new ArrayList<>();
+        for (int i = 0; i < ibans.length; i++) {
+            setup.add(Fixtures.addFunds(ibans[i], owners[i], FUNDS));
+            setup.add(Fixtures.createCard(ibans[i], owners[i]));
+        }
+        setup.add(Fixtures.addFunds(business, emails[0], FUNDS));
+        int associates = Math.min(ASSOCIATES, users - 1);
+        for (int i = 1; i <= associates; i++) {
+            CommandInput associate = new CommandInput();
+            associate.setCommand("addNewBusinessAssociate");
+            associate.setAccount(business);
+            associate.setEmail(emails[i]);
+            associate.setRole(i % 2 == 0 ? "manager" : "employee");
+            setup.add(associate);
+            setup.add(Fixtures.createCard(business, emails[i]));
+        }
+        replay(setup);
+        collectCards();
+
+        List<CommandInput> replayed = new ArrayList<>();
+        for (int h = 0; h < history; h++) {
+            for (int i = 0; i < ibans.length; i++) {
+                if (h % 2 == 0) {
+                    replayed.add(Fixtures.payOnline(cards[i], owners[i], payment(),
+                            commerciant()));
+                } else {
+                    replayed.add(Fixtures.sendMoney(ibans[i], ibans[(i + 1) % ibans.length],
+                            owners[i], TRANSFER));
+                }
+            }
+            for (Card associate : businessCards()) {
+                replayed.add(Fixtures.addFunds(business, associate.email(), DEPOSIT));
+                replayed.add(Fixtures.payOnline(associate.number(), associate.email(),
+                        payment(), commerciant()));
+            }
+        }
+        replay(replayed);
+        mix = stamp(List.of(
+                Fixtures.payOnline(cards[0], owners[0], MAX_PAYMENT, commerciants[0]),
+                Fixtures.sendMoney(ibans[0], ibans[ibans.length - 1], owners[0], TRANSFER),
+                Fixtures.addFunds(ibans[0], owners[0], DEPOSIT),
+                Fixtures.createCard(ibans[0], owners[0]),
+                command("printTransactions"),
+                command("report"),
+                command("spendingsReport"),
+                command("businessReport"),
+                command("acceptSplitPayment"),
+                command("checkCardStatus")));
+        next = 0;
+    }
+
+    /**
+     * @return the command created for the next input of a fixed mix of commands
+     */
+    @Benchmark
+    public Command createCommand() {
+        CommandInput command = mix[next];
+        next = next + 1 == mix.length ? 0 : next + 1;
+        return CommandFactory.getInstance().createCommand(command, app);
+    }
+
+    /**
+     * @return the error of a card payment, if any
+     */
+    @Benchmark
+    public ObjectNode payOnline() {
+        int account = nextAccount();
+        return app.payOnline(cards[account], payment(), app.getExchangeRates()
+                        .getDefaultCurrencyId(), ++timestamp, commerciant(), owners[account]);
+    }
+
+    /**
+     * @return the error of a transfer to the next account, if any
+     */
+    @Benchmark
+    public ObjectNode sendMoney() {
+        int account = nextAccount();
+        return app.sendMoney(ibans[account], ibans[(account + 1) % ibans.length], TRANSFER,
+                "bench", ++timestamp);
+    }
+
+    /**
+     * @return the error of the last acceptance of an equal split between two users, if any
+     */
+    @Benchmark
+    public ObjectNode splitPaymentAccept() {
+        int account = nextAccount();
+        int other = (account + accountsPerUser) % ibans.length;
+        app.splitPayment("equal", List.of(ibans[account], ibans[other]), CURRENCY, SPLIT, null,
+                ++timestamp, timestamp);
+        app.acceptSplitPayment(owners[account], timestamp, "equal");
+        return app.acceptSplitPayment(owners[other], timestamp, "equal");
+    }
+
+    /**
+     * @return the error of the rejection of an equal split between two users, if any
+     */
+    @Benchmark
+    public ObjectNode splitPaymentReject() {
+        int account = nextAccount();
+        int other = (account + accountsPerUser) % ibans.length;
+        app.splitPayment("equal", List.of(ibans[account], ibans[other]), CURRENCY, SPLIT, null,
+                ++timestamp, timestamp);
+        return app.rejectSplitPayment(owners[other], timestamp, "equal");
+    }
+
+    /**
+     * @return the report of an account over its whole history
+     */
+    @Benchmark
+    public ObjectNode report() {
+        return app.getReport(ibans[nextAccount()], 0, timestamp, timestamp);
+    }
+
+    /**
+     * @return the transaction report of the business account over its whole history
+     */
+    @Benchmark
+    public ObjectNode businessReport() {
+        return app.businessReport("transaction", 0, timestamp, business, timestamp);
+    }
+
+    /**
+     * @return the commerciant report of the business account over its whole history
+     */
+    @Benchmark
+    public ObjectNode businessCommerciantReport() {
+        return app.businessReport("commerciant", 0, timestamp, business, timestamp);
+    }
+
+    /**
+     * @return the history of a user
+     */
+    @Benchmark
+    public ArrayNode printTransactions() {
+        return app.printTransactions(owners[nextAccount()]);
+    }
+
+    private void replay(final List<CommandInput> commands) {
+        input.setCommands(stamp(commands));
+        app.parseCommands();
+    }
+
+    private CommandInput[] stamp(final List<CommandInput> commands) {
+        for (CommandInput command : commands) {
+            command.setTimestamp(++timestamp);
+        }
+        return commands.toArray(new CommandInput[0]);
+    }
+
+    private CommandInput command(final String name) {
+        CommandInput command = new CommandInput();
+        command.setCommand(name);
+        command.setEmail(owners[0]);
+        command.setAccount(ibans[0]);
+        command.setCardNumber(cards[0]);
+        command.setType("transaction");
+        command.setSplitPaymentType("equal");
+        command.setEndTimestamp(timestamp);
+        return command;
+    }
+
+    private void collectAccounts() {
+        List<String> classic = new ArrayList<>();
+        List<String> classicOwners = new ArrayList<>();
+        for (User user : app.getUsers()) {
+            for (Account account : user.getAccounts()) {
+                if (account.isBusinessAccount()) {
+                    business = account.getIban();
+                } else {
+                    classic.add(account.getIban());
+                    classicOwners.add(user.getEmail());
+                }
+            }
+        }
+        ibans = classic.toArray(new String[0]);
+        owners = classicOwners.toArray(new String[0]);
+    }
+
+    private void collectCards() {
+        cards = new String[ibans.length];
+        for (int i = 0; i < ibans.length; i++) {
+            cards[i] = app.getRegistry().getAccount(ibans[i]).getCards().get(0).getCardNumber();
+        }
+    }
+
+    private List<Card> businessCards() {
+        List<Card> associates = new ArrayList<>();
+        Account account = app.getRegistry().getAccount(business);
+        for (int i = 0; i < account.getCards().size(); i++) {
+            associates.add(new Card(account.getCards().get(i).getCardNumber(), emails[i + 1]));
+        }
+        return associates;
+    }
+
+    private int nextAccount() {
+        next = next + 1 == ibans.length ? 0 : next + 1;
+        return next;
+    }
+
+    private double payment() {
+        return 1 + random.nextDouble() * MAX_PAYMENT;
+    }
+
+    private String commerciant() {
+        return commerciants[random.nextInt(COMMERCIANTS)];
+    }
+
+    /**
+     * A card of the business account and the associate it was issued to.
+     */
+    private record Card(String number, String email) {
+    }
+}
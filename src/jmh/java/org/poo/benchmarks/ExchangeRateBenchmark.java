@@ -0,0 +1,109 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.ExchangeRate;
+import org.poo.main.ExchangeRatesGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ExchangeRatesGraph#getRate(int, int)} on interned ids with
+ * {@link ExchangeRatesGraph#getRate(String, String)}, which resolves both codes first, and
+ * measures {@link ExchangeRatesGraph#makeGraph(List)} over the same rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+public class ExchangeRateBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"10", "50", "200"})
+    private int currencies;
+
+    private List<ExchangeRate> rates;
+    private ExchangeRatesGraph graph;
+    private String[] fromCodes;
+    private String[] toCodes;
+    private int[] fromIds;
+    private int[] toIds;
+    private int next;
+
+    /**
+     * Builds a chain of rates over the requested number of currencies and picks random pairs.
+     */
+    @Setup
+    public void setup() {
+        rates = new ArrayList<>();
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 1; i < currencies; i++) {
+            double rate = 1 + random.nextDouble();
+            rates.add(new ExchangeRate(Fixtures.rate(code(i - 1), code(i), rate)));
+        }
+        graph = new ExchangeRatesGraph(rates);
+        graph.makeGraph(rates);
+
+        fromCodes = new String[PAIRS];
+        toCodes = new String[PAIRS];
+        fromIds = new int[PAIRS];
+        toIds = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            fromCodes[i] = code(random.nextInt(currencies));
+            toCodes[i] = code(random.nextInt(currencies));
+            fromIds[i] = graph.getCurrencyId(fromCodes[i]);
+            toIds[i] = graph.getCurrencyId(toCodes[i]);
+        }
+    }
+
+    /**
+     * @return the rate between two interned currencies
+     */
+    @Benchmark
+    public double byId() {
+        int pair = nextPair();
+        return graph.getRate(fromIds[pair], toIds[pair]);
+    }
+
+    /**
+     * @return the rate between two currency codes
+     */
+    @Benchmark
+    public double byCode() {
+        int pair = nextPair();
+        return graph.getRate(fromCodes[pair], toCodes[pair]);
+    }
+
+    /**
+     * @return a graph built from scratch over every rate
+     */
+    @Benchmark
+    public ExchangeRatesGraph makeGraph() {
+        ExchangeRatesGraph built = new ExchangeRatesGraph(rates);
+        built.makeGraph(rates);
+        return built;
+    }
+
+    private int nextPair() {
+        next = (next + 1) & (PAIRS - 1);
+        return next;
+    }
+
+    private static String code(final int index) {
+        return "C" + index;
+    }
+}
@@ -0,0 +1,126 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.ExchangeRate;
+import org.poo.main.ExchangeRatesGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many rate ticks per second {@link ExchangeRatesGraph#applyTick} sustains,
+ * compared with rebuilding the whole graph for every tick. The feed quotes every currency
+ * against the default one, as market data feeds do, and every tick moves one quote by up to
+ * one percent. A score above 1000 ops/s means a feed of 1000 ticks per second is absorbed.
+ * <p>
+ * The {@code live} group runs a tick writer next to three readers converting amounts,
+ * to check that readers are not slowed down by the ticks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+public class ExchangeRateTickBenchmark {
+    private static final double MAX_MOVE = 0.01;
+    private static final int READERS = 3;
+
+    @Param({"200"})
+    private int currencies;
+
+    private volatile ExchangeRatesGraph graph;
+    private List<ExchangeRate> quotes;
+    private Random random;
+
+    /**
+     * Quotes every currency against the default one.
+     */
+    @Setup
+    public void setup() {
+        random = new Random(Fixtures.SEED);
+        quotes = new ArrayList<>();
+        for (int i = 1; i < currencies; i++) {
+            double rate = 1 + random.nextDouble();
+            quotes.add(new ExchangeRate(Fixtures.rate(code(i), "RON", rate)));
+        }
+        graph = new ExchangeRatesGraph(quotes);
+        graph.makeGraph(quotes);
+    }
+
+    /**
+     * @return the graph after an incremental tick
+     */
+    @Benchmark
+    public ExchangeRatesGraph tick() {
+        ExchangeRate quote = nextQuote();
+        graph = graph.applyTick(quote.getFrom(), quote.getTo(), quote.getRate());
+        return graph;
+    }
+
+    /**
+     * @return the graph rebuilt from every quote after a tick
+     */
+    @Benchmark
+    public ExchangeRatesGraph rebuild() {
+        nextQuote();
+        ExchangeRatesGraph rebuilt = new ExchangeRatesGraph(quotes);
+        rebuilt.makeGraph(quotes);
+        return rebuilt;
+    }
+
+    /**
+     * @return the graph after an incremental tick, applied while readers convert amounts
+     */
+    @Benchmark
+    @Group("live")
+    @GroupThreads(1)
+    public ExchangeRatesGraph liveTick() {
+        return tick();
+    }
+
+    /**
+     * @param reader the state of the reading thread
+     * @return a rate read from the current graph while ticks are applied
+     */
+    @Benchmark
+    @Group("live")
+    @GroupThreads(READERS)
+    public double liveRead(final Reader reader) {
+        ExchangeRatesGraph current = graph;
+        reader.next = (reader.next + 1) % current.getSize();
+        return current.getRate(reader.next, current.getDefaultCurrencyId());
+    }
+
+    /**
+     * The currency each reader converts from next.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        private int next;
+    }
+
+    private synchronized ExchangeRate nextQuote() {
+        ExchangeRate quote = quotes.get(random.nextInt(quotes.size()));
+        quote.setRate(quote.getRate() * (1 + (random.nextDouble() * 2 - 1) * MAX_MOVE));
+        return quote;
+    }
+
+    private static String code(final int index) {
+        return "C" + index;
+    }
+}
@@ -0,0 +1,208 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds in-memory banks of a given size for the benchmarks.
+ * <p>
+ * The bank is created by replaying generated {@code addAccount} commands through
+ * {@link Application}, so every index is populated exactly as it is in production.
+ */
+public final class Fixtures {
+    public static final long SEED = 42L;
+    public static final int WARMUP_ITERATIONS = 3;
+    public static final int MEASUREMENT_ITERATIONS = 5;
+    private static final double EUR_TO_RON = 4.97;
+    private static final double USD_TO_EUR = 0.92;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a bank with the given number of users, each owning the same number
+     * of classic RON accounts.
+     *
+     * @param users           the number of users
+     * @param accountsPerUser the number of accounts opened by every user
+     * @return a ready to use {@link Application}
+     */
+    public static Application newBank(final int users, final int accountsPerUser) {
+        ObjectInput input = new ObjectInput();
+        UserInput[] userInputs = new UserInput[users];
+        CommandInput[] commands = new CommandInput[users * accountsPerUser];
+        int next = 0;
+        for (int i = 0; i < users; i++) {
+            userInputs[i] = user(i);
+            for (int j = 0; j < accountsPerUser; j++) {
+                commands[next++] = addAccount(userInputs[i].getEmail(), "RON");
+            }
+        }
+        input.setUsers(userInputs);
+        input.setCommands(commands);
+        input.setCommerciants(new CommerciantInput[0]);
+        input.setExchangeRates(new ExchangeInput[] {
+            rate("EUR", "RON", EUR_TO_RON),
+            rate("USD", "EUR", USD_TO_EUR),
+        });
+
+        Application app = new Application(input);
+        app.resetAll();
+        app.runApplication();
+        return app;
+    }
+
+    /**
+     * Collects the IBANs of every account of the bank, shuffled with a fixed seed.
+     *
+     * @param app the bank to inspect
+     * @return the shuffled IBANs
+     */
+    public static String[] shuffledIbans(final Application app) {
+        List<String> ibans = new ArrayList<>();
+        for (User user : app.getUsers()) {
+            for (Account account : user.getAccounts()) {
+                ibans.add(account.getIban());
+            }
+        }
+        Collections.shuffle(ibans, new Random(SEED));
+        return ibans.toArray(new String[0]);
+    }
+
+    /**
+     * @param index the index of the user
+     * @return a generated user, not a student
+     */
+    public static UserInput user(final int index) {
+        UserInput user = new UserInput();
+        user.setFirstName("First" + index);
+        user.setLastName("Last" + index);
+        user.setEmail("user" + index + "@bench.poo");
+        user.setBirthDate("1990-01-01");
+        user.setOccupation("engineer");
+        return user;
+    }
+
+    /**
+     * @param email    the owner of the account
+     * @param currency the currency of the account
+     * @return an {@code addAccount} command for a classic account
+     */
+    public static CommandInput addAccount(final String email, final String currency) {
+        CommandInput command = new CommandInput();
+        command.setCommand("addAccount");
+        command.setEmail(email);
+        command.setCurrency(currency);
+        command.setAccountType("classic");
+        return command;
+    }
+
+    /**
+     * @param account the IBAN of the account
+     * @param email   the user making the deposit
+     * @param amount  the amount deposited
+     * @return an {@code addFunds} command
+     */
+    public static CommandInput addFunds(final String account, final String email,
+                                        final double amount) {
+        CommandInput command = new CommandInput();
+        command.setCommand("addFunds");
+        command.setAccount(account);
+        command.setEmail(email);
+        command.setAmount(amount);
+        return command;
+    }
+
+    /**
+     * @param account the IBAN of the account
+     * @param email   the user the card is issued to
+     * @return a {@code createCard} command
+     */
+    public static CommandInput createCard(final String account, final String email) {
+        CommandInput command = new CommandInput();
+        command.setCommand("createCard");
+        command.setAccount(account);
+        command.setEmail(email);
+        return command;
+    }
+
+    /**
+     * @param card        the card number
+     * @param email       the user paying
+     * @param amount      the amount paid, in RON
+     * @param commerciant the name of the commerciant
+     * @return a {@code payOnline} command
+     */
+    public static CommandInput payOnline(final String card, final String email,
+                                         final double amount, final String commerciant) {
+        CommandInput command = new CommandInput();
+        command.setCommand("payOnline");
+        command.setCardNumber(card);
+        command.setEmail(email);
+        command.setAmount(amount);
+        command.setCurrency("RON");
+        command.setCommerciant(commerciant);
+        return command;
+    }
+
+    /**
+     * @param from   the IBAN of the sender
+     * @param to     the IBAN of the receiver
+     * @param email  the sender
+     * @param amount the amount sent
+     * @return a {@code sendMoney} command
+     */
+    public static CommandInput sendMoney(final String from, final String to, final String email,
+                                         final double amount) {
+        CommandInput command = new CommandInput();
+        command.setCommand("sendMoney");
+        command.setAccount(from);
+        command.setReceiver(to);
+        command.setEmail(email);
+        command.setAmount(amount);
+        command.setDescription("bench");
+        return command;
+    }
+
+    /**
+     * @param name    the name of the commerciant
+     * @param id      the id of the commerciant
+     * @param account the IBAN of the commerciant
+     * @return a commerciant with a spending threshold cashback
+     */
+    public static CommerciantInput commerciant(final String name, final int id,
+                                               final String account) {
+        CommerciantInput commerciant = new CommerciantInput();
+        commerciant.setCommerciant(name);
+        commerciant.setId(id);
+        commerciant.setAccount(account);
+        commerciant.setType("Food");
+        commerciant.setCashbackStrategy("spendingThreshold");
+        return commerciant;
+    }
+
+    /**
+     * @param from the source currency
+     * @param to   the target currency
+     * @param rate the exchange rate
+     * @return an exchange rate input
+     */
+    public static ExchangeInput rate(final String from, final String to, final double rate) {
+        ExchangeInput input = new ExchangeInput();
+        input.setFrom(from);
+        input.setTo(to);
+        input.setRate(rate);
+        return input;
+    }
+}
@@ -0,0 +1,102 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jol.info.GraphLayout;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ObjectInput;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.main.transactions.EventStore;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.TransactionSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Measures with JOL the heap retained by the user histories and the account reports after
+ * replaying a test, once as the {@link TransactionEvent} records kept by the bank and once
+ * rendered to the Jackson nodes they used to be stored as. Every event is rendered once and
+ * shared between the history and the reports, as the nodes were.
+ * <p>
+ * Run with:
+ * {@code mvn -Pbenchmark compile exec:exec -Dbench.main=org.poo.benchmarks.HistoryFootprint
+ * -Djmh.args=test19_large_input_part2.json}
+ */
+public final class HistoryFootprint {
+    private static final String DEFAULT_INPUT = "test19_large_input_part2.json";
+
+    private HistoryFootprint() {
+    }
+
+    /**
+     * @param args the name of the input file, under the tests directory
+     * @throws IOException if the input cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        String name = args.length > 0 && !args[0].startsWith("-") ? args[0] : DEFAULT_INPUT;
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectInput input = mapper.readValue(new File(CheckerConstants.TESTS_PATH + name),
+                ObjectInput.class);
+        Application app = new Application(input);
+        app.resetAll();
+        app.runApplication();
+
+        List<Object> typed = new ArrayList<>();
+        List<Object> json = new ArrayList<>();
+        Map<TransactionEvent, ObjectNode> nodes = new IdentityHashMap<>();
+        for (User user : app.getUsers()) {
+            List<TransactionEvent> history = user.getCommandHistory().getHistory();
+            typed.add(history);
+            ArrayNode array = JsonNodeFactory.instance.arrayNode();
+            history.forEach(event -> array.add(render(event, nodes)));
+            json.add(array);
+            for (Account account : user.getAccounts()) {
+                typed.add(account.getReport());
+                typed.add(account.getSpendingsReport());
+                json.add(render(account.getReport(), nodes));
+                json.add(render(account.getSpendingsReport(), nodes));
+            }
+        }
+
+        GraphLayout events = GraphLayout.parseInstance(typed.toArray());
+        GraphLayout rendered = GraphLayout.parseInstance(json.toArray());
+        System.out.printf("%s: %d events%n", name, nodes.size());
+        print("retained", events, rendered);
+        // the IBANs, emails and names are owned by the bank whichever way the events are kept
+        print("excluding shared strings", events.subtract(rendered), rendered.subtract(events));
+    }
+
+    private static void print(final String title, final GraphLayout events,
+                              final GraphLayout rendered) {
+        System.out.println(title);
+        System.out.printf("  records:      %,12d bytes in %,10d objects%n",
+                events.totalSize(), events.totalCount());
+        System.out.printf("  object nodes: %,12d bytes in %,10d objects%n",
+                rendered.totalSize(), rendered.totalCount());
+        System.out.printf("  reduction:    %12.1fx%n",
+                (double) rendered.totalSize() / events.totalSize());
+    }
+
+    private static TreeMap<Integer, ObjectNode> render(
+            final EventStore<? extends TransactionEvent> report,
+            final Map<TransactionEvent, ObjectNode> nodes) {
+        TreeMap<Integer, ObjectNode> rendered = new TreeMap<>();
+        report.forEach(event -> rendered.put(event.timestamp(), render(event, nodes)));
+        return rendered;
+    }
+
+    private static ObjectNode render(final TransactionEvent event,
+                                     final Map<TransactionEvent, ObjectNode> nodes) {
+        return nodes.computeIfAbsent(event, TransactionSerializer::toJson);
+    }
+}
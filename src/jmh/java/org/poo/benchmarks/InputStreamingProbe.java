@@ -0,0 +1,163 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.OutputSink;
+import org.poo.fileio.StreamingInputReader;
+import org.poo.main.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Measures the time to the first command and the peak resident set size of a replay, read
+ * either as a whole {@link ObjectInput} tree or through the {@link StreamingInputReader}.
+ * Each mode must run in its own JVM, since the peak RSS is that of the process.
+ * <p>
+ * Run with {@code -Dbench.main=org.poo.benchmarks.InputStreamingProbe} and
+ * {@code -Djmh.args="MODE ..."}, where the modes are:
+ * <ul>
+ *     <li>{@code generate SOURCE COMMANDS TARGET}: writes a replay with the users, commerciants,
+ *     rates and commands of SOURCE, padded to COMMANDS commands with card status checks</li>
+ *     <li>{@code tree FILE}: reads the file with {@code ObjectMapper.readValue}, then runs it</li>
+ *     <li>{@code stream FILE READ_AHEAD}: reads the file with the streaming reader,
+ *     then runs it</li>
+ * </ul>
+ */
+public final class InputStreamingProbe {
+    private static final int READ_AHEAD_ARG = 2;
+    private static final int TARGET_ARG = 3;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private InputStreamingProbe() {
+    }
+
+    /**
+     * @param args the mode and its arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        switch (args[0]) {
+            case "generate" -> generate(Path.of(args[1]), Long.parseLong(args[2]),
+                    Path.of(args[TARGET_ARG]));
+            case "tree" -> {
+                long start = System.nanoTime();
+                ObjectInput input = new ObjectMapper().readValue(new File(args[1]),
+                        ObjectInput.class);
+                Iterator<CommandInput> commands = Arrays.asList(input.getCommands()).iterator();
+                report("tree", start, new Application(input), commands);
+            }
+            case "stream" -> {
+                long start = System.nanoTime();
+                try (StreamingInputReader reader = new StreamingInputReader(Path.of(args[1]),
+                        Integer.parseInt(args[READ_AHEAD_ARG]))) {
+                    report("stream", start, new Application(reader.getInput()),
+                            reader.commands());
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + args[0]);
+        }
+    }
+
+    private static void report(final String mode, final long start, final Application app,
+                               final Iterator<CommandInput> commands) throws IOException {
+        app.resetAll();
+        app.parseInput();
+        CommandInput first = commands.next();
+        long firstCommand = System.nanoTime() - start;
+        Counter counter = new Counter();
+        app.parseCommands(prepend(first, commands), counter);
+        long total = System.nanoTime() - start;
+        System.out.printf("%s: first command after %,d ms, %,d outputs in %,d ms, "
+                        + "peak RSS %s%n", mode, firstCommand / NANOS_PER_MILLI, counter.outputs,
+                total / NANOS_PER_MILLI, peakRss());
+    }
+
+    private static Iterator<CommandInput> prepend(final CommandInput first,
+                                                  final Iterator<CommandInput> rest) {
+        return new Iterator<>() {
+            private boolean started;
+
+            @Override
+            public boolean hasNext() {
+                return !started || rest.hasNext();
+            }
+
+            @Override
+            public CommandInput next() {
+                if (!started) {
+                    started = true;
+                    return first;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    /**
+     * @return the peak resident set size of this process, as reported by the kernel
+     * @throws IOException if the status of the process cannot be read
+     */
+    static String peakRss() throws IOException {
+        return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                .filter(line -> line.startsWith("VmHWM:"))
+                .map(line -> line.substring("VmHWM:".length()).trim())
+                .findFirst().orElse("unknown");
+    }
+
+    private static void generate(final Path source, final long commands, final Path target)
+            throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode input = mapper.readTree(source.toFile());
+        ObjectNode check = mapper.createObjectNode();
+        check.put("command", "checkCardStatus");
+        check.put("cardNumber", "0000000000000000");
+        try (JsonGenerator out = mapper.getFactory().createGenerator(target.toFile(),
+                JsonEncoding.UTF8)) {
+            out.writeStartObject();
+            for (String section : new String[] {"users", "commerciants", "exchangeRates"}) {
+                out.writeFieldName(section);
+                mapper.writeTree(out, input.get(section));
+            }
+            out.writeArrayFieldStart("commands");
+            long written = 0;
+            for (JsonNode command : input.get("commands")) {
+                mapper.writeTree(out, command);
+                written++;
+            }
+            int timestamp = input.get("commands").size();
+            for (; written < commands; written++) {
+                check.put("timestamp", ++timestamp);
+                mapper.writeTree(out, check);
+            }
+            out.writeEndArray();
+            out.writeEndObject();
+        }
+    }
+
+    /**
+     * Counts the outputs and drops them.
+     */
+    private static final class Counter implements OutputSink {
+        private long outputs;
+
+        @Override
+        public void write(final CommandOutput output) {
+            outputs++;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
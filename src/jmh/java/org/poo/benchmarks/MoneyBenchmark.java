@@ -0,0 +1,87 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.Money;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the balance update of a card payment done with {@link Money} against the
+ * {@link BigDecimal} arithmetic it replaced. Run with {@code -prof gc} to see the allocation
+ * rate of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+    private static final int AMOUNTS = 1024;
+    private static final double MAX_AMOUNT = 500;
+    private static final double COMMISSION = 1.002;
+    private static final double CASHBACK = 0.005;
+    private static final double START_BALANCE = 1_000_000;
+
+    private double[] amounts;
+    private double balance;
+    private long balanceMicros;
+    private int next;
+
+    /**
+     * Generates the payment amounts.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(Fixtures.SEED);
+        amounts = new double[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            amounts[i] = random.nextDouble() * MAX_AMOUNT;
+        }
+        balance = START_BALANCE;
+        balanceMicros = Money.toMicros(START_BALANCE);
+    }
+
+    /**
+     * @return the balance after a payment computed with {@link BigDecimal}
+     */
+    @Benchmark
+    public double bigDecimal() {
+        double amount = nextAmount();
+        double toPay = amount * COMMISSION;
+        double cashback = amount * CASHBACK;
+        BigDecimal result = new BigDecimal(balance).subtract(new BigDecimal(toPay))
+                .add(new BigDecimal(cashback));
+        balance = result.doubleValue() + toPay - cashback;
+        return balance;
+    }
+
+    /**
+     * @return the balance after a payment computed with {@link Money}
+     */
+    @Benchmark
+    public long money() {
+        Money amount = Money.of(nextAmount(), 0);
+        Money toPay = amount.times(COMMISSION);
+        Money cashback = amount.times(CASHBACK);
+        Money result = new Money(balanceMicros, 0).minus(toPay).plus(cashback);
+        balanceMicros = result.plus(toPay).minus(cashback).micros();
+        return balanceMicros;
+    }
+
+    private double nextAmount() {
+        next = (next + 1) & (AMOUNTS - 1);
+        return amounts[next];
+    }
+}
@@ -0,0 +1,79 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a whole test input, from the parsed {@link ObjectInput} either to the serialized
+ * output, which is discarded, or to the outputs collected in memory. Run with
+ * {@code -prof gc} to see the allocation rate and the bytes allocated per replay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+    @Param({"test18_large_input_part1.json", "test19_large_input_part2.json",
+            "test20_large_input_part3.json"})
+    private String file;
+
+    private ObjectInput input;
+
+    /**
+     * Parses the input once per trial.
+     *
+     * @throws IOException if the input cannot be read
+     */
+    @Setup
+    public void setup() throws IOException {
+        input = new ObjectMapper().readValue(new File(CheckerConstants.TESTS_PATH + file),
+                ObjectInput.class);
+    }
+
+    /**
+     * @return the bank after replaying the input
+     * @throws IOException never, the output is discarded
+     */
+    @Benchmark
+    public Application replay() throws IOException {
+        Application app = new Application(input);
+        app.resetAll();
+        try (OutputSink sink = new JsonGeneratorSink(OutputStream.nullOutputStream(), false)) {
+            app.runApplication(sink);
+        }
+        return app;
+    }
+
+    /**
+     * @return the outputs of the replay, collected in memory
+     */
+    @Benchmark
+    public ArrayNode collect() {
+        Application app = new Application(input);
+        app.resetAll();
+        return app.runApplication();
+    }
+}
@@ -0,0 +1,180 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.main.Application;
+import org.poo.main.accounts.Account;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.Page;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.TransactionSerializer;
+import org.poo.persistence.TransactionJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the reports of an account with {@code history} card payments, over windows
+ * covering a {@code window} fraction of its history, placed at random: the report and the
+ * spendings report, found by navigating the timestamps, and the commerciant totals, read from
+ * the {@link org.poo.main.accounts.CommerciantTotals}. {@code fullScan} and
+ * {@code commerciantsScan} go through the whole history instead, as the reports used to.
+ * {@code reportPage} reads a page of {@value #PAGE} events from a cursor in the window, which
+ * costs the same whatever the window.
+ * <p>
+ * With {@code store=journal}, the reports are read from a {@link TransactionJournal}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ReportRangeBenchmark {
+    private static final int COMMERCIANTS = 8;
+    private static final double MAX_PAYMENT = 100;
+    private static final int WINDOWS = 1024;
+    private static final int PAGE = 100;
+
+    @Param({"1000000"})
+    private int history;
+
+    @Param({"0.0001", "0.01", "1"})
+    private double window;
+
+    @Param({"heap", "journal"})
+    private String store;
+
+    private Account account;
+    private TransactionJournal journal;
+    private int[] starts;
+    private int length;
+    private int next;
+
+    /**
+     * Builds the account and its history once per trial.
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    @Setup
+    public void setup() throws IOException {
+        Application app = Fixtures.newBank(1, 1);
+        account = app.getUsers().get(0).getAccounts().get(0);
+        if (store.equals("journal")) {
+            journal = TransactionJournal.open(Files.createTempDirectory("journal"));
+            journal.attach(account);
+        }
+        Random random = new Random(Fixtures.SEED);
+        for (int timestamp = 1; timestamp <= history; timestamp++) {
+            CardPayment payment = new CardPayment(timestamp, random.nextDouble() * MAX_PAYMENT,
+                    "Shop" + random.nextInt(COMMERCIANTS));
+            account.addToReport(payment);
+            account.addToSpendingsReport(payment);
+        }
+        length = Math.max(1, (int) (history * window));
+        starts = new int[WINDOWS];
+        for (int i = 0; i < WINDOWS; i++) {
+            starts[i] = 1 + random.nextInt(history - length + 1);
+        }
+    }
+
+    /**
+     * Deletes the journal, if any.
+     *
+     * @throws IOException if the journal cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * @return the report of a window
+     */
+    @Benchmark
+    public ArrayNode report() {
+        int start = nextStart();
+        return account.getReport(start, start + length - 1);
+    }
+
+    /**
+     * @return a page of the report, from the start of a window to the end of the history
+     */
+    @Benchmark
+    public Page<TransactionEvent> reportPage() {
+        return account.getReportPage(nextStart(), Integer.MAX_VALUE, PAGE);
+    }
+
+    /**
+     * @return the spendings report of a window
+     */
+    @Benchmark
+    public ArrayNode spendingsReport() {
+        int start = nextStart();
+        return account.getSpendingsReport(start, start + length - 1);
+    }
+
+    /**
+     * @return the commerciant totals of a window
+     */
+    @Benchmark
+    public ArrayNode commerciants() {
+        int start = nextStart();
+        return account.getCommerciants(start, start + length - 1);
+    }
+
+    /**
+     * @return the report of a window, found by going through the whole history
+     */
+    @Benchmark
+    public ArrayNode fullScan() {
+        int start = nextStart();
+        int end = start + length - 1;
+        List<TransactionEvent> events = new ArrayList<>();
+        for (TransactionEvent event : account.getReport()) {
+            if (event.timestamp() >= start && event.timestamp() <= end) {
+                events.add(event);
+            }
+        }
+        return TransactionSerializer.toJson(events);
+    }
+
+    /**
+     * @return the commerciant totals of a window, added up from the whole history
+     */
+    @Benchmark
+    public TreeMap<String, Double> commerciantsScan() {
+        int start = nextStart();
+        int end = start + length - 1;
+        TreeMap<String, Double> totals = new TreeMap<>();
+        for (CardPayment payment : account.getSpendingsReport()) {
+            if (payment.timestamp() >= start && payment.timestamp() <= end) {
+                totals.merge(payment.commerciant(), payment.amount(), Double::sum);
+            }
+        }
+        return totals;
+    }
+
+    private int nextStart() {
+        next = next + 1 == starts.length ? 0 : next + 1;
+        return starts[next];
+    }
+}
@@ -0,0 +1,174 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+import org.poo.server.BankServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the latency of the {@link BankServer} under many concurrent connections, with the
+ * server and the clients in the same process.
+ * <p>
+ * The bank is set up by the setup commands of a generated workload, see
+ * {@link WorkloadGenerator}, then {@code connections=N} clients, each on its own virtual
+ * thread, send the rest of its commands to the server as fast as they get answers. The time
+ * from sending a request to reading its whole response is recorded for every command, and
+ * the percentiles are printed once all of them are answered. Run with
+ * {@code -Dbench.main=org.poo.benchmarks.ServerLoadGenerator} and
+ * {@code -Djmh.args="connections=1000 commands=200000 zipf=1.1"}.
+ */
+public final class ServerLoadGenerator {
+    private static final int DEFAULT_CONNECTIONS = 1000;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double P50 = 0.50;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+    private static final double TARGET_P99_MILLIS = 5;
+    private static final int OK = 200;
+    private static final int NO_CONTENT = 204;
+
+    private ServerLoadGenerator() {
+    }
+
+    /**
+     * @param args {@code connections=N}, {@code partitions=N} and the settings of the workload
+     * @throws IOException          if the server cannot listen
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int connections = DEFAULT_CONNECTIONS;
+        int partitions = BankServer.DEFAULT_PARTITIONS;
+        for (String arg : args) {
+            if (arg.startsWith("connections=")) {
+                connections = Integer.parseInt(arg.substring("connections=".length()));
+            } else if (arg.startsWith("partitions=")) {
+                partitions = Integer.parseInt(arg.substring("partitions=".length()));
+            }
+        }
+
+        WorkloadSpec spec = WorkloadSpec.parse(args);
+        List<CommandInput> workload = new ArrayList<>();
+        Application app = setUp(new WorkloadGenerator(spec), workload);
+        ObjectMapper mapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+        List<String> names = new ArrayList<>();
+        List<byte[]> bodies = new ArrayList<>();
+        for (CommandInput command : workload) {
+            names.add(command.getCommand());
+            bodies.add(mapper.writeValueAsBytes(command));
+        }
+
+        try (BankServer server = new BankServer(app,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), partitions);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients).build()) {
+            server.start();
+            String base = "http://localhost:" + server.getPort() + "/";
+            long[] latencies = new long[bodies.size()];
+            AtomicInteger next = new AtomicInteger();
+            AtomicLong failed = new AtomicLong();
+            CountDownLatch done = new CountDownLatch(connections);
+            long start = System.nanoTime();
+            for (int c = 0; c < connections; c++) {
+                clients.execute(() -> {
+                    try {
+                        for (int i = next.getAndIncrement(); i < latencies.length;
+                             i = next.getAndIncrement()) {
+                            HttpRequest request = HttpRequest.newBuilder(
+                                            URI.create(base + names.get(i)))
+                                    .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get(i)))
+                                    .build();
+                            long sent = System.nanoTime();
+                            int status = client.send(request,
+                                    HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+                            latencies[i] = System.nanoTime() - sent;
+                            if (status != OK && status != NO_CONTENT) {
+                                failed.incrementAndGet();
+                            }
+                        }
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            report(spec, connections, latencies, failed.get(), seconds);
+        }
+    }
+
+    /**
+     * Runs the setup commands of a workload on a new application, and collects the others.
+     *
+     * @param generator the workload
+     * @param workload  receives the commands following the setup
+     * @return the application, with the accounts and cards of the workload
+     * @throws IOException never, the outputs are discarded
+     */
+    static Application setUp(final WorkloadGenerator generator,
+                             final List<CommandInput> workload) throws IOException {
+        Application app = new Application(generator.input());
+        List<CommandInput> setup = new ArrayList<>();
+        Iterator<CommandInput> commands = generator.commands();
+        for (int i = 0; commands.hasNext(); i++) {
+            (i < generator.setupSize() ? setup : workload).add(commands.next());
+        }
+        try (OutputSink discard = new JsonGeneratorSink(OutputStream.nullOutputStream(),
+                false)) {
+            app.resetAll();
+            app.runApplication(setup.iterator(), discard);
+        }
+        return app;
+    }
+
+    private static void report(final WorkloadSpec spec, final int connections,
+                               final long[] latencies, final long failed,
+                               final double seconds) throws IOException {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        double p99 = percentile(sorted, P99);
+        System.out.printf("%s connections=%d%n%,d requests in %.2f s: %,.0f requests/s, "
+                        + "%,d failed, peak RSS %s%n", spec, connections, sorted.length,
+                seconds, sorted.length / seconds, failed, InputStreamingProbe.peakRss());
+        System.out.printf("latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                percentile(sorted, P50), p99, percentile(sorted, P999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / NANOS_PER_MILLI);
+        System.out.printf("p99 %s the %.0f ms target%n",
+                p99 < TARGET_P99_MILLIS ? "within" : "OVER", TARGET_P99_MILLIS);
+    }
+
+    private static double percentile(final long[] sorted, final double rank) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(rank * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,170 @@
+package org.poo.benchmarks;
+
+import org.poo.commands.CommandInvoker;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.persistence.Snapshot;
+import org.poo.persistence.WriteAheadLog;
+import org.poo.server.BankServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Measures how long a bank takes to come back after a restart: restoring its latest
+ * {@link Snapshot}, then replaying the tail of its {@link WriteAheadLog}.
+ * <p>
+ * The workload of the {@link WorkloadSpec} runs with a log in {@code dir=DIR}, a new temporary
+ * directory by default. Once {@code snapshotAt=F} of its commands ran, a snapshot is written
+ * with the users spread over {@code partitions=N} blocks, and the rest of the commands go to
+ * the tail of the log, followed by a command failing as it runs, logged all the same, as the
+ * servers log it. The bank is then dropped, restored and checked against the state it was in. Run with {@code -Dbench.main=org.poo.benchmarks.SnapshotHarness} and
+ * {@code -Djmh.args="users=1000000 accountsPerUser=4 commands=1000000"}.
+ */
+public final class SnapshotHarness {
+    private static final double DEFAULT_SNAPSHOT_AT = 0.9;
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final double BYTES_PER_MEGABYTE = 1_048_576.0;
+
+    private SnapshotHarness() {
+    }
+
+    /**
+     * @param args the settings of the workload, {@code dir=DIR}, {@code snapshotAt=F} and
+     *             {@code partitions=N}
+     * @throws IOException if the log or the snapshot cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        Path dir = null;
+        double snapshotAt = DEFAULT_SNAPSHOT_AT;
+        int partitions = BankServer.DEFAULT_PARTITIONS;
+        for (String arg : args) {
+            if (arg.startsWith("dir=")) {
+                dir = Path.of(arg.substring("dir=".length()));
+            } else if (arg.startsWith("snapshotAt=")) {
+                snapshotAt = Double.parseDouble(arg.substring("snapshotAt=".length()));
+            } else if (arg.startsWith("partitions=")) {
+                partitions = Integer.parseInt(arg.substring("partitions=".length()));
+            }
+        }
+        if (dir == null) {
+            dir = Files.createTempDirectory("snapshot");
+        }
+        WorkloadSpec spec = WorkloadSpec.parse(args);
+        WorkloadGenerator generator = new WorkloadGenerator(spec);
+        long cut = generator.setupSize() + (long) (spec.getCommands() * snapshotAt);
+
+        Application app = new Application(generator.input());
+        app.resetAll();
+        app.parseInput();
+        app.setWal(WriteAheadLog.open(dir, 0));
+        Iterator<CommandInput> commands = generator.commands();
+        long start = System.nanoTime();
+        try (OutputSink sink = new JsonGeneratorSink(OutputStream.nullOutputStream(), false)) {
+            app.parseCommands(new Limited(commands, cut), sink);
+            long ran = System.nanoTime();
+
+            Path snapshot = Snapshot.write(app, dir, app.getWal().roll(), partitions);
+            long written = System.nanoTime();
+            app.parseCommands(commands, sink);
+            runFailing(app);
+            app.getWal().close();
+            System.out.printf("%s%n%s accounts: %,d commands before the snapshot in %.0f ms%n",
+                    spec, count(app), cut, (ran - start) / NANOS_PER_MILLI);
+            System.out.printf("snapshot of %.1f MB written in %.0f ms%n",
+                    Files.size(snapshot) / BYTES_PER_MEGABYTE, (written - ran) / NANOS_PER_MILLI);
+        }
+        String expected = digest(app);
+        app = null;
+        System.gc();
+
+        start = System.nanoTime();
+        Path snapshot = Snapshot.latest(dir);
+        Application restored = Snapshot.restore(snapshot);
+        long loaded = System.nanoTime();
+        long tail = WriteAheadLog.replay(dir, restored, Snapshot.segmentOf(snapshot));
+        long replayed = System.nanoTime();
+        System.out.printf("restored in %.0f ms, %,d commands of the tail replayed in %.0f ms,"
+                        + " peak RSS %s%n", (loaded - start) / NANOS_PER_MILLI, tail,
+                (replayed - loaded) / NANOS_PER_MILLI, InputStreamingProbe.peakRss());
+        if (!expected.equals(digest(restored))) {
+            throw new IllegalStateException("Restored " + digest(restored) + ", expected "
+                    + expected);
+        }
+    }
+
+    /**
+     * Runs a {@code sendMoney} naming no account, logged before it fails, as the servers do.
+     */
+    private static void runFailing(final Application app) {
+        CommandInput input = new CommandInput();
+        input.setCommand("sendMoney");
+        input.setTimestamp(Integer.MAX_VALUE);
+        boolean failed = false;
+        try {
+            new CommandInvoker().executeCommand(input, app);
+        } catch (RuntimeException e) {
+            failed = true;
+        }
+        if (!failed) {
+            throw new IllegalStateException("A sendMoney naming no account ran");
+        }
+    }
+
+    private static String count(final Application app) {
+        long accounts = 0;
+        for (User user : app.getUsers()) {
+            accounts += user.getAccounts().size();
+        }
+        return String.format("%,d users, %,d", app.getUsers().size(), accounts);
+    }
+
+    private static String digest(final Application app) {
+        long accounts = 0;
+        long balance = 0;
+        long cards = 0;
+        long events = 0;
+        for (User user : app.getUsers()) {
+            events += user.getCommandHistory().getHistory().size();
+            for (Account account : user.getAccounts()) {
+                accounts++;
+                balance += account.getBalanceCell().get();
+                cards += account.getCards().size();
+                events += account.getReport().size() + account.getSpendingsReport().size();
+            }
+        }
+        return String.format("%d accounts, %d cards, %d events, balance %d", accounts, cards,
+                events, balance);
+    }
+
+    /**
+     * Hands over the first commands of another iterator, leaving it at the next one.
+     */
+    private static final class Limited implements Iterator<CommandInput> {
+        private final Iterator<CommandInput> commands;
+        private long left;
+
+        Limited(final Iterator<CommandInput> commands, final long limit) {
+            this.commands = commands;
+            left = limit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return left > 0 && commands.hasNext();
+        }
+
+        @Override
+        public CommandInput next() {
+            left--;
+            return commands.next();
+        }
+    }
+}
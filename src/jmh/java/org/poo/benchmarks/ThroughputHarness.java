@@ -0,0 +1,160 @@
+package org.poo.benchmarks;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.OutputSink;
+import org.poo.fileio.StreamingInputReader;
+import org.poo.main.Application;
+import org.poo.persistence.TransactionJournal;
+import org.poo.persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Measures the end-to-end throughput of the bank on a generated workload: every command is
+ * decoded, run and serialized, and the output is discarded.
+ * <p>
+ * With {@code file=FILE}, the workload is read from a file written by the
+ * {@link WorkloadGenerator}, through the {@link StreamingInputReader} with the
+ * {@code readAhead=N} read-ahead. Otherwise it is generated on the fly from the settings of
+ * the {@link WorkloadSpec}, so its size is only bounded by time. Run with
+ * {@code -Dbench.main=org.poo.benchmarks.ThroughputHarness} and
+ * {@code -Djmh.args="commands=5000000 zipf=1.1"}. With {@code workers=N}, the commands are
+ * spread over N partitions of the users, see {@link org.poo.commands.PartitionedInvoker}, or
+ * with {@code scheduler=dag} replayed by N threads, see
+ * {@link org.poo.commands.DependencyScheduler}. With {@code wal=DIR}, the commands changing
+ * the state are logged to a {@link WriteAheadLog} in that directory, forcing it to the disk
+ * every {@code walSync=N} commands (0 never forces it). With {@code journal=DIR}, the reports
+ * of the accounts are kept in a {@link TransactionJournal} mapped from that directory. The heap
+ * still live at the end, the bank included, is printed after a garbage collection.
+ */
+public final class ThroughputHarness {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double BYTES_PER_MEGABYTE = 1_048_576.0;
+
+    private ThroughputHarness() {
+    }
+
+    /**
+     * @param args {@code file=FILE} and {@code readAhead=N}, or the settings of the workload,
+     *             {@code workers=N}, {@code scheduler=partitioned|dag}, {@code wal=DIR},
+     *             {@code walSync=N} and {@code journal=DIR}
+     * @throws IOException if the workload cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        String file = null;
+        int readAhead = 0;
+        int workers = 1;
+        boolean dag = false;
+        Path wal = null;
+        int walSync = 0;
+        Path journal = null;
+        for (String arg : args) {
+            if (arg.startsWith("file=")) {
+                file = arg.substring("file=".length());
+            } else if (arg.startsWith("readAhead=")) {
+                readAhead = Integer.parseInt(arg.substring("readAhead=".length()));
+            } else if (arg.startsWith("workers=")) {
+                workers = Integer.parseInt(arg.substring("workers=".length()));
+            } else if (arg.equals("scheduler=dag")) {
+                dag = true;
+            } else if (arg.startsWith("wal=")) {
+                wal = Path.of(arg.substring("wal=".length()));
+            } else if (arg.startsWith("walSync=")) {
+                walSync = Integer.parseInt(arg.substring("walSync=".length()));
+            } else if (arg.startsWith("journal=")) {
+                journal = Path.of(arg.substring("journal=".length()));
+            }
+        }
+        Options options = new Options(workers, dag, wal, walSync, journal);
+        if (file != null) {
+            try (StreamingInputReader reader = new StreamingInputReader(Path.of(file),
+                    readAhead)) {
+                run(file, new Application(reader.getInput()), reader.commands(), options);
+            }
+        } else {
+            WorkloadSpec spec = WorkloadSpec.parse(args);
+            WorkloadGenerator generator = new WorkloadGenerator(spec);
+            run(spec + " " + options, new Application(generator.input()),
+                    generator.commands(), options);
+        }
+    }
+
+    private static void run(final String workload, final Application app,
+                            final Iterator<CommandInput> commands, final Options options)
+            throws IOException {
+        Counting counting = new Counting(commands);
+        if (options.wal() != null) {
+            app.setWal(WriteAheadLog.open(options.wal(), options.walSync()));
+        }
+        long start = System.nanoTime();
+        try (OutputSink sink = new JsonGeneratorSink(OutputStream.nullOutputStream(), false);
+             TransactionJournal journal = options.journal() == null ? null
+                     : TransactionJournal.open(options.journal())) {
+            app.resetAll();
+            if (journal != null) {
+                app.useJournal(journal);
+            }
+            if (options.dag()) {
+                app.parseInput();
+                app.replayCommands(counting, sink, options.workers());
+            } else {
+                app.runApplication(counting, sink, options.workers());
+            }
+            if (app.getWal() != null) {
+                app.getWal().close();
+            }
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("%s%n%,d commands in %.2f s: %,.0f commands/s, peak RSS %s,"
+                            + " live heap %.1f MB%n", workload, counting.count, seconds,
+                    counting.count / seconds, InputStreamingProbe.peakRss(),
+                    (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MEGABYTE);
+        }
+    }
+
+    /**
+     * How the commands are run.
+     *
+     * @param workers the number of workers or threads
+     * @param dag     whether the commands are replayed by the dependency scheduler
+     * @param wal     the directory of the log, or {@code null} for none
+     * @param walSync the number of commands forced to the disk together
+     * @param journal the directory of the journal, or {@code null} for none
+     */
+    private record Options(int workers, boolean dag, Path wal, int walSync, Path journal) {
+        @Override
+        public String toString() {
+            return "workers=" + workers + (dag ? " scheduler=dag" : "")
+                    + (wal != null ? " wal=" + wal + " walSync=" + walSync : "")
+                    + (journal != null ? " journal=" + journal : "");
+        }
+    }
+
+    /**
+     * Counts the commands handed over by another iterator.
+     */
+    private static final class Counting implements Iterator<CommandInput> {
+        private final Iterator<CommandInput> commands;
+        private long count;
+
+        Counting(final Iterator<CommandInput> commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return commands.hasNext();
+        }
+
+        @Override
+        public CommandInput next() {
+            count++;
+            return commands.next();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a workload of the {@link WorkloadGenerator}, generated once per trial, from the
+ * setup of the bank to the serialized output, which is discarded. The accounts are picked
+ * uniformly with a {@code zipf} of 0, and more and more skewed above it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = Fixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = Fixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class WorkloadBenchmark {
+    @Param({"1000"})
+    private int users;
+
+    @Param({"100000"})
+    private long commands;
+
+    @Param({"0", "1.1"})
+    private double zipf;
+
+    private ObjectInput input;
+
+    /**
+     * Generates the workload.
+     */
+    @Setup
+    public void setup() {
+        WorkloadSpec spec = new WorkloadSpec();
+        spec.setUsers(users);
+        spec.setCommands(commands);
+        spec.setZipf(zipf);
+        input = new WorkloadGenerator(spec).toInput();
+    }
+
+    /**
+     * @return the bank after replaying the workload
+     * @throws IOException never, the output is discarded
+     */
+    @Benchmark
+    public Application replay() throws IOException {
+        Application app = new Application(input);
+        app.resetAll();
+        try (OutputSink sink = new JsonGeneratorSink(OutputStream.nullOutputStream(), false)) {
+            app.runApplication(sink);
+        }
+        return app;
+    }
+}
@@ -0,0 +1,430 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.UserInput;
+import org.poo.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Random;
+
+/**
+ * Generates synthetic workloads of any size, shaped by a {@link WorkloadSpec}.
+ * <p>
+ * The commands start with the setup of the bank: every user opens its accounts, in random
+ * currencies, funds them and gets a card for each of them, then the business accounts get
+ * their associates, who get their own cards. The {@code commands} commands of the workload
+ * follow, drawn from the mix. The accounts they act on are drawn with a Zipf distribution,
+ * so a few hot accounts take most of the traffic.
+ * <p>
+ * The IBANs and card numbers are predicted from the seeded sequences of {@link Utils}, in the
+ * order the setup creates them, so the commands must be run by an application that starts
+ * from {@link org.poo.main.Application#resetAll()}, as {@code Main} does. The same settings
+ * always give the same workload.
+ * <p>
+ * The workload is either written to an input file with {@link #write(Path)}, or handed over
+ * directly with {@link #input()} and {@link #commands()}, without ever being materialized.
+ * Run with {@code -Dbench.main=org.poo.benchmarks.WorkloadGenerator} and
+ * {@code -Djmh.args="out=FILE commands=5000000 zipf=1.1 ..."}.
+ */
+public final class WorkloadGenerator {
+    private static final String[] CODES = {"RON", "EUR", "USD", "GBP", "CHF", "JPY", "CAD",
+        "AUD"};
+    private static final String[] COMMERCIANT_TYPES = {"Food", "Clothes", "Tech"};
+    private static final String[] CASHBACK = {"nrOfTransactions", "spendingThreshold"};
+    private static final String[] OCCUPATIONS = {"student", "engineer", "doctor", "teacher",
+        "designer"};
+    private static final int FIRST_BIRTH_YEAR = 1950;
+    private static final int BIRTH_YEARS = 55;
+    private static final int MONTHS = 12;
+    private static final int DAYS = 28;
+    private static final double MIN_RATE = 0.1;
+    private static final double RATE_SPREAD = 5;
+    private static final double FUNDS = 10_000_000;
+    private static final double MEDIAN_AMOUNT = 40;
+    private static final double MAX_AMOUNT = 2_000;
+    private static final double CENTS = 100;
+    private static final int MAX_SPLIT = 4;
+    private static final int REPORT_WINDOW = 10_000;
+    private static final String DEFAULT_CURRENCY = "RON";
+
+    private final WorkloadSpec spec;
+    private final UserInput[] users;
+    private final CommerciantInput[] commerciants;
+    private final ExchangeInput[] rates;
+    private final String[] currencies;
+    private final String[] ibans;
+    private final String[] owners;
+    private final int[][] accountCards;
+    private final String[] cardNumbers;
+    private final String[] cardHolders;
+    private final int[] businessAccounts;
+    private final List<CommandInput> setup;
+
+    /**
+     * Lays out the bank described by the settings.
+     *
+     * @param spec the settings of the workload
+     */
+    public WorkloadGenerator(final WorkloadSpec spec) {
+        this.spec = spec;
+        Random random = new Random(spec.getSeed());
+        currencies = new String[Math.max(1, spec.getCurrencies())];
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = i < CODES.length ? CODES[i] : "C" + i;
+        }
+        rates = new ExchangeInput[currencies.length - 1];
+        for (int i = 1; i < currencies.length; i++) {
+            rates[i - 1] = Fixtures.rate(currencies[i], DEFAULT_CURRENCY,
+                    MIN_RATE + random.nextDouble() * RATE_SPREAD);
+        }
+        users = new UserInput[spec.getUsers()];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = Fixtures.user(i);
+            users[i].setOccupation(OCCUPATIONS[random.nextInt(OCCUPATIONS.length)]);
+            users[i].setBirthDate(String.format("%d-%02d-%02d",
+                    FIRST_BIRTH_YEAR + random.nextInt(BIRTH_YEARS), 1 + random.nextInt(MONTHS),
+                    1 + random.nextInt(DAYS)));
+        }
+
+        int classic = users.length * spec.getAccountsPerUser();
+        int business = Math.min(spec.getBusinessAccounts(), users.length);
+        int associates = Math.min(spec.getAssociates(), users.length - 1);
+        ibans = new String[classic + business];
+        owners = new String[ibans.length];
+        accountCards = new int[ibans.length][];
+        businessAccounts = new int[business];
+        cardNumbers = new String[ibans.length + business * associates];
+        cardHolders = new String[cardNumbers.length];
+        Utils.resetRandom();
+        for (int i = 0; i < ibans.length; i++) {
+            ibans[i] = Utils.generateIBAN();
+        }
+        for (int i = 0; i < cardNumbers.length; i++) {
+            cardNumbers[i] = Utils.generateCardNumber();
+        }
+        Utils.resetRandom();
+
+        commerciants = new CommerciantInput[spec.getCommerciants()];
+        for (int i = 0; i < commerciants.length; i++) {
+            commerciants[i] = Fixtures.commerciant("Commerciant" + i, i,
+                    String.format("RO00POOC%016d", i));
+            commerciants[i].setType(COMMERCIANT_TYPES[random.nextInt(COMMERCIANT_TYPES.length)]);
+            commerciants[i].setCashbackStrategy(CASHBACK[random.nextInt(CASHBACK.length)]);
+        }
+
+        setup = new ArrayList<>();
+        List<CommandInput> funds = new ArrayList<>();
+        List<CommandInput> cards = new ArrayList<>();
+        List<CommandInput> roles = new ArrayList<>();
+        for (int account = 0; account < ibans.length; account++) {
+            boolean isBusiness = account >= classic;
+            int owner = isBusiness ? (account - classic) * users.length / Math.max(1, business)
+                    : account / spec.getAccountsPerUser();
+            owners[account] = users[owner].getEmail();
+            String currency = isBusiness ? DEFAULT_CURRENCY
+                    : currencies[random.nextInt(currencies.length)];
+            CommandInput open = Fixtures.addAccount(owners[account], currency);
+            if (isBusiness) {
+                open.setAccountType("business");
+                businessAccounts[account - classic] = account;
+            }
+            setup.add(open);
+            funds.add(Fixtures.addFunds(ibans[account], owners[account], FUNDS));
+            cards.add(Fixtures.createCard(ibans[account], owners[account]));
+            cardHolders[account] = owners[account];
+            accountCards[account] = new int[] {account};
+        }
+        int card = ibans.length;
+        for (int account : businessAccounts) {
+            int owner = (account - classic) * users.length / business;
+            int[] issued = new int[associates + 1];
+            issued[0] = account;
+            for (int i = 1; i <= associates; i++) {
+                String email = users[(owner + i) % users.length].getEmail();
+                CommandInput role = new CommandInput();
+                role.setCommand("addNewBusinessAssociate");
+                role.setAccount(ibans[account]);
+                role.setEmail(email);
+                role.setRole(i % 2 == 0 ? "manager" : "employee");
+                roles.add(role);
+                cards.add(Fixtures.createCard(ibans[account], email));
+                cardHolders[card] = email;
+                issued[i] = card++;
+            }
+            accountCards[account] = issued;
+        }
+        setup.addAll(funds);
+        setup.addAll(roles);
+        setup.addAll(cards);
+        int timestamp = 0;
+        for (CommandInput command : setup) {
+            command.setTimestamp(++timestamp);
+        }
+    }
+
+    /**
+     * Writes the workload to a file, read back as an {@link ObjectInput}. The commands are
+     * streamed to the file, so workloads of any size can be written.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(final Path file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_DEFAULT);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+             JsonGenerator generator = mapper.getFactory().createGenerator(out,
+                     JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeFieldName("users");
+            mapper.writeValue(generator, users);
+            generator.writeFieldName("exchangeRates");
+            mapper.writeValue(generator, rates);
+            generator.writeFieldName("commerciants");
+            mapper.writeValue(generator, commerciants);
+            generator.writeArrayFieldStart("commands");
+            for (Iterator<CommandInput> commands = commands(); commands.hasNext();) {
+                mapper.writeValue(generator, commands.next());
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @return the users, commerciants and exchange rates of the workload, with no commands
+     */
+    public ObjectInput input() {
+        ObjectInput input = new ObjectInput();
+        input.setUsers(users);
+        input.setCommerciants(commerciants);
+        input.setExchangeRates(rates);
+        input.setCommands(new CommandInput[0]);
+        return input;
+    }
+
+    /**
+     * @return the whole workload, with every command materialized
+     */
+    public ObjectInput toInput() {
+        List<CommandInput> commands = new ArrayList<>();
+        commands().forEachRemaining(commands::add);
+        ObjectInput input = input();
+        input.setCommands(commands.toArray(new CommandInput[0]));
+        return input;
+    }
+
+    /**
+     * Returns the commands of the workload, generated as they are requested. Every call
+     * starts over and returns the same commands.
+     *
+     * @return the setup commands followed by the commands of the workload
+     */
+    public Iterator<CommandInput> commands() {
+        return new Commands();
+    }
+
+    /**
+     * @return the number of setup commands the {@link #commands()} start with
+     */
+    public int setupSize() {
+        return setup.size();
+    }
+
+    /**
+     * Writes a workload to a file.
+     *
+     * @param args {@code out=FILE} followed by the settings of the {@link WorkloadSpec}
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        String out = null;
+        for (String arg : args) {
+            if (arg.startsWith("out=")) {
+                out = arg.substring("out=".length());
+            }
+        }
+        if (out == null) {
+            throw new IllegalArgumentException("Missing out=FILE");
+        }
+        WorkloadSpec spec = WorkloadSpec.parse(args);
+        new WorkloadGenerator(spec).write(Path.of(out));
+        System.out.printf("wrote %s: %s%n", out, spec);
+    }
+
+    /**
+     * Draws the commands of the workload with generators seeded from the settings.
+     */
+    private final class Commands implements Iterator<CommandInput> {
+        private final Random random = new Random(spec.getSeed() + 1);
+        private final ZipfSampler accounts = new ZipfSampler(ibans.length, spec.getZipf(),
+                spec.getSeed() + 2);
+        private final ZipfSampler shops = new ZipfSampler(Math.max(1, commerciants.length),
+                spec.getZipf(), spec.getSeed() + 3);
+        private final String[] kinds;
+        private final double[] cumulative;
+        private final Queue<CommandInput> pending = new ArrayDeque<>();
+        private int setupIndex;
+        private long drawn;
+        private int timestamp = setup.size();
+
+        Commands() {
+            Map<String, Integer> mix = spec.getMix();
+            kinds = mix.keySet().toArray(new String[0]);
+            cumulative = new double[kinds.length];
+            double total = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                total += mix.get(kinds[i]);
+                cumulative[i] = total;
+            }
+            for (int i = 0; i < kinds.length; i++) {
+                cumulative[i] /= total;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return setupIndex < setup.size() || !pending.isEmpty() || drawn < spec.getCommands();
+        }
+
+        @Override
+        public CommandInput next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (setupIndex < setup.size()) {
+                return setup.get(setupIndex++);
+            }
+            CommandInput command;
+            if (!pending.isEmpty()) {
+                command = pending.poll();
+            } else {
+                drawn++;
+                command = random.nextDouble() < spec.getSplitRate() ? splitPayment() : draw();
+            }
+            command.setTimestamp(++timestamp);
+            return command;
+        }
+
+        private CommandInput draw() {
+            double pick = random.nextDouble();
+            int kind = 0;
+            while (kind < kinds.length - 1 && cumulative[kind] <= pick) {
+                kind++;
+            }
+            int account = accounts.next();
+            int card = accountCards[account][random.nextInt(accountCards[account].length)];
+            CommandInput command = new CommandInput();
+            command.setCommand(kinds[kind]);
+            switch (kinds[kind]) {
+                case "payOnline" -> {
+                    command = Fixtures.payOnline(cardNumbers[card], cardHolders[card], amount(),
+                            commerciants[shops.next()].getCommerciant());
+                    command.setCurrency(currency());
+                }
+                case "sendMoney" -> command = Fixtures.sendMoney(ibans[account],
+                        ibans[random.nextInt(ibans.length)], owners[account], amount());
+                case "addFunds" -> command = Fixtures.addFunds(ibans[account],
+                        cardHolders[card], amount());
+                case "cashWithdrawal" -> {
+                    command.setCardNumber(cardNumbers[card]);
+                    command.setEmail(cardHolders[card]);
+                    command.setAmount(amount());
+                    command.setLocation("Bucharest");
+                }
+                case "checkCardStatus", "deleteCard" -> {
+                    command.setCardNumber(cardNumbers[card]);
+                    command.setEmail(cardHolders[card]);
+                }
+                case "report", "spendingsReport" -> {
+                    command.setAccount(ibans[account]);
+                    command.setStartTimestamp(Math.max(0, timestamp - REPORT_WINDOW));
+                    command.setEndTimestamp(timestamp + 1);
+                }
+                case "businessReport" -> {
+                    int target = businessAccounts.length == 0 ? account
+                            : businessAccounts[random.nextInt(businessAccounts.length)];
+                    command.setAccount(ibans[target]);
+                    command.setType(random.nextBoolean() ? "transaction" : "commerciant");
+                    command.setStartTimestamp(Math.max(0, timestamp - REPORT_WINDOW));
+                    command.setEndTimestamp(timestamp + 1);
+                }
+                default -> {
+                    command.setEmail(owners[account]);
+                    command.setAccount(ibans[account]);
+                }
+            }
+            return command;
+        }
+
+        /**
+         * Draws a split payment between distinct hot accounts and queues the acceptance of
+         * every user involved.
+         */
+        private CommandInput splitPayment() {
+            int size = Math.min(ibans.length, 2 + random.nextInt(MAX_SPLIT - 1));
+            List<Integer> involved = new ArrayList<>();
+            while (involved.size() < size) {
+                int account = accounts.next();
+                if (!involved.contains(account)) {
+                    involved.add(account);
+                }
+            }
+            String type = random.nextBoolean() ? "equal" : "custom";
+            CommandInput command = new CommandInput();
+            command.setCommand("splitPayment");
+            command.setSplitPaymentType(type);
+            command.setCurrency(currency());
+            List<String> splitAccounts = new ArrayList<>();
+            List<Double> amounts = new ArrayList<>();
+            double total = 0;
+            for (int account : involved) {
+                splitAccounts.add(ibans[account]);
+                double amount = amount();
+                amounts.add(amount);
+                total += amount;
+                CommandInput accept = new CommandInput();
+                accept.setCommand("acceptSplitPayment");
+                accept.setEmail(owners[account]);
+                accept.setSplitPaymentType(type);
+                pending.add(accept);
+            }
+            command.setAccounts(splitAccounts);
+            command.setAmount(Math.round(total * CENTS) / CENTS);
+            if (type.equals("custom")) {
+                command.setAmountForUsers(amounts);
+            }
+            return command;
+        }
+
+        /**
+         * @return a log-normal amount around the median, with two decimals
+         */
+        private double amount() {
+            double amount = Math.min(MAX_AMOUNT, MEDIAN_AMOUNT * Math.exp(random.nextGaussian()));
+            return Math.max(1, Math.round(amount * CENTS)) / CENTS;
+        }
+
+        private String currency() {
+            return currencies[random.nextInt(currencies.length)];
+        }
+    }
+}
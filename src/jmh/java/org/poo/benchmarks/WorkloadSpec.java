@@ -0,0 +1,103 @@
+package org.poo.benchmarks;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The shape of a workload produced by the {@link WorkloadGenerator}.
+ * <p>
+ * Every setting has a default and can be overridden from the command line with
+ * {@code key=value} arguments, see {@link #parse(String[])}. The command mix is given as
+ * {@code mix=payOnline:50,sendMoney:20,...}, where each weight is relative to the sum of all
+ * of them. Split payments are drawn separately, with the {@code splitRate} probability, and
+ * are followed by the acceptance of every user involved.
+ */
+@Getter
+@Setter
+public final class WorkloadSpec {
+    private static final String DEFAULT_MIX = "payOnline:50,sendMoney:20,addFunds:10,"
+            + "checkCardStatus:5,cashWithdrawal:5,report:4,spendingsReport:2,"
+            + "printTransactions:2,businessReport:2";
+    private static final int DEFAULT_USERS = 1000;
+    private static final int DEFAULT_COMMERCIANTS = 20;
+    private static final int DEFAULT_BUSINESS_ACCOUNTS = 10;
+    private static final int DEFAULT_ASSOCIATES = 5;
+    private static final int DEFAULT_CURRENCIES = 4;
+    private static final long DEFAULT_COMMANDS = 100_000;
+    private static final double DEFAULT_SPLIT_RATE = 0.01;
+
+    private long seed = Fixtures.SEED;
+    private int users = DEFAULT_USERS;
+    private int accountsPerUser = 2;
+    private int currencies = DEFAULT_CURRENCIES;
+    private int commerciants = DEFAULT_COMMERCIANTS;
+    private int businessAccounts = DEFAULT_BUSINESS_ACCOUNTS;
+    private int associates = DEFAULT_ASSOCIATES;
+    private long commands = DEFAULT_COMMANDS;
+    private double splitRate = DEFAULT_SPLIT_RATE;
+    // 0 picks the accounts uniformly, around 1 gives a few very hot accounts
+    private double zipf = 1.0;
+    private Map<String, Integer> mix = parseMix(DEFAULT_MIX);
+
+    /**
+     * Reads the settings given as {@code key=value}, keeping the defaults of the others.
+     * Other arguments and unknown keys are ignored, so the caller can take its own.
+     *
+     * @param args the arguments
+     * @return the settings
+     * @throws IllegalArgumentException if a value cannot be parsed
+     */
+    public static WorkloadSpec parse(final String[] args) {
+        WorkloadSpec spec = new WorkloadSpec();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split < 0) {
+                continue;
+            }
+            String value = arg.substring(split + 1);
+            switch (arg.substring(0, split)) {
+                case "seed" -> spec.setSeed(Long.parseLong(value));
+                case "users" -> spec.setUsers(Integer.parseInt(value));
+                case "accountsPerUser" -> spec.setAccountsPerUser(Integer.parseInt(value));
+                case "currencies" -> spec.setCurrencies(Integer.parseInt(value));
+                case "commerciants" -> spec.setCommerciants(Integer.parseInt(value));
+                case "businessAccounts" -> spec.setBusinessAccounts(Integer.parseInt(value));
+                case "associates" -> spec.setAssociates(Integer.parseInt(value));
+                case "commands" -> spec.setCommands(Long.parseLong(value));
+                case "splitRate" -> spec.setSplitRate(Double.parseDouble(value));
+                case "zipf" -> spec.setZipf(Double.parseDouble(value));
+                case "mix" -> spec.setMix(parseMix(value));
+                default -> { }
+            }
+        }
+        return spec;
+    }
+
+    /**
+     * @param mix the weights, as {@code command:weight} pairs separated by commas
+     * @return the weight of every command, in the order given
+     */
+    public static Map<String, Integer> parseMix(final String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected command:weight, got " + entry);
+            }
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "seed=" + seed + " users=" + users + " accountsPerUser=" + accountsPerUser
+                + " currencies=" + currencies + " commerciants=" + commerciants
+                + " businessAccounts=" + businessAccounts + " associates=" + associates
+                + " commands=" + commands + " splitRate=" + splitRate + " zipf=" + zipf
+                + " mix=" + mix;
+    }
+}
@@ -0,0 +1,62 @@
+package org.poo.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws indexes in {@code [0, size)} with a Zipf distribution: the index of rank {@code k}
+ * is drawn with a probability proportional to {@code 1 / k^exponent}. An exponent of 0 draws
+ * uniformly.
+ * <p>
+ * The ranks are shuffled over the indexes with the sampler's own seed, so the hot indexes
+ * are spread over the whole range instead of being the first ones.
+ */
+final class ZipfSampler {
+    private final Random random;
+    private final double[] cumulative;
+    private final int[] indexes;
+
+    /**
+     * @param size     the number of indexes
+     * @param exponent the skew of the distribution, 0 for a uniform one
+     * @param seed     the seed of the draws and of the placement of the ranks
+     */
+    ZipfSampler(final int size, final double exponent, final long seed) {
+        random = new Random(seed);
+        indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = indexes[i];
+            indexes[i] = indexes[j];
+            indexes[j] = swap;
+        }
+        if (exponent == 0) {
+            cumulative = null;
+            return;
+        }
+        cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    /**
+     * @return the next index
+     */
+    int next() {
+        if (cumulative == null) {
+            return random.nextInt(indexes.length);
+        }
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        rank = rank < 0 ? -rank - 1 : rank;
+        return indexes[Math.min(rank, indexes.length - 1)];
+    }
+}
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -31,11 +32,11 @@ public class AcceptSplitPayment implements Command {
     /**
      * Executes the accept split payment command.
      *
-     * @return an {@link ObjectNode} containing the result of the command execution,
+     * @return a {@link CommandOutput} containing the result of the command execution,
      *         or {@code null} if the operation was successful
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.acceptSplitPayment(email, timestamp, type);
         if (inner != null) {
             return Output.getCommand("acceptSplitPayment", inner, timestamp);
@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.accounts.Account;
 import org.poo.main.accounts.AccountFactory;
 import org.poo.main.accounts.SavingsAccount;
@@ -52,7 +52,7 @@ public class AddAccount implements Command {
      * @return {@code null}, as the result of the command is handled by the application logic
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         application.addAccount(email, account, timestamp);
         return null;
     }
@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 
 /**
@@ -45,7 +45,7 @@ public class AddFunds implements Command {
      * internally in the application logic
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.addFunds(account, amount, email, timestamp);
         return null;
     }
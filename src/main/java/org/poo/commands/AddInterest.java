@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -40,11 +41,11 @@ public class AddInterest implements Command {
      * including the timestamp and details.
      * If the operation is not successful, {@code null} is returned.
      *
-     * @return an {@link ObjectNode} containing the result of the operation,
+     * @return a {@link CommandOutput} containing the result of the operation,
      * or {@code null} if the operation fails
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.addInterest(account, timestamp);
         if (inner != null) {
             return Output.getCommand("addInterest", inner, timestamp);
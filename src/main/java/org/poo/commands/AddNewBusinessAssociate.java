@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 
 /**
@@ -35,7 +35,7 @@ public class AddNewBusinessAssociate implements Command {
      * @return {@code null} as this command does not produce a specific output
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.addNewBussinessAssociate(account, role, email, timestamp);
         return null;
     }
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -36,10 +37,10 @@ public class BusinessReport implements Command {
     /**
      * Executes the business report command.
      *
-     * @return an {@link ObjectNode} containing the generated business report details
+     * @return a {@link CommandOutput} containing the generated business report details
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.businessReport(type, startTimestamp, endTimestamp,
                                                 account, timestamp);
         return Output.getCommand("businessReport", inner, timestamp);
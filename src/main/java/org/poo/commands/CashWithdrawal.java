@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -36,11 +37,11 @@ public class CashWithdrawal implements Command {
     /**
      * Executes the cash withdrawal command.
      *
-     * @return an {@link ObjectNode} containing the result of the withdrawal operation,
+     * @return a {@link CommandOutput} containing the result of the withdrawal operation,
      *         or {@code null} if the operation was unsuccessful
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.cashWithdrawal(cardNumber, amount, email, timestamp);
         if (inner != null) {
             return Output.getCommand("cashWithdrawal", inner, timestamp);
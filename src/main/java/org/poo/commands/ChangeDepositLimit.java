@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -33,11 +34,11 @@ public class ChangeDepositLimit implements Command {
     /**
      * Executes the change deposit limit command.
      *
-     * @return an {@link ObjectNode} containing the result of the operation,
+     * @return a {@link CommandOutput} containing the result of the operation,
      *         or {@code null} if the operation was unsuccessful
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.changeDepositLimit(email, account, amount, timestamp);
         if (inner != null) {
             return Output.getCommand("changeDepositLimit", inner, timestamp);
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -37,11 +38,11 @@ public class ChangeInterestRate implements Command {
      * Executes the change interest rate command by updating the interest rate
      * for the specified account.
      *
-     * @return an {@link ObjectNode} containing the result of the operation,
+     * @return a {@link CommandOutput} containing the result of the operation,
      *         or {@code null} if the operation fails
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.changeInterestRate(newInterestRate, account, timestamp);
         if (inner != null) {
             return Output.getCommand("changeInterestRate", inner, timestamp);
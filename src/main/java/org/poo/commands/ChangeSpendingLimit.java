@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -34,14 +35,14 @@ public class ChangeSpendingLimit implements Command {
      * Executes the change spending limit command by updating the spending limit
      * for the specified account and user.
      * <p>
-     * If the operation fails, an {@link ObjectNode} containing error details is returned.
+     * If the operation fails, a {@link CommandOutput} containing error details is returned.
      * If the operation is successful, {@code null} is returned.
      *
-     * @return an {@link ObjectNode} with the result of the operation on failure,
+     * @return a {@link CommandOutput} with the result of the operation on failure,
      *         or {@code null} if the operation is successful
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.changeSpendingLimit(email, account, amount, timestamp);
         if (inner != null) {
             return Output.getCommand("changeSpendingLimit", inner, timestamp);
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -38,10 +39,10 @@ public class CheckCardStatus implements Command {
      * {@link Application#checkCardStatus(String, int)} method.
      * <p>
      * If the operation is successful, {@code null} is returned.
-     * If the operation fails, an {@link ObjectNode} containing the error details is returned.
+     * If the operation fails, a {@link CommandOutput} containing the error details is returned.
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.checkCardStatus(cardNumber, timestamp);
         if (inner != null) {
             return Output.getCommand("checkCardStatus", inner, timestamp);
@@ -1,26 +1,27 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandOutput;
 
 /**
  * Represents a command in the system that can be executed.
  * <p>
  * This interface defines a common structure for all command classes in the application.
  * Any command class that implements this interface must define the {@link #execute()} method,
- * which encapsulates the logic for performing the command's action and returning the result
- * in the form of a JSON object.
+ * which encapsulates the logic for performing the command's action and returning its result.
+ * Every call builds a new result, which is only turned into JSON by the output sink.
  */
 public interface Command {
 
     /**
-     * Executes the command and returns the result in the form of a JSON object.
+     * Executes the command and returns its result.
      * <p>
      * This method is responsible for performing the specific action of the command
      * (e.g., adding funds, creating an account, etc.). The result of the operation is returned
-     * as a JSON object that can be used to communicate the outcome of the operation to other
-     * components or layers of the application.
+     * as a {@link CommandOutput} that can be used to communicate the outcome of the operation
+     * to other components or layers of the application.
      *
-     * @return an {@link ObjectNode} containing the result of the operation
+     * @return a {@link CommandOutput} containing the result of the operation,
+     *         or {@code null} if the command has no output
      */
-    ObjectNode execute();
+    CommandOutput execute();
 }
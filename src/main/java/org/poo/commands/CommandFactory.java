@@ -65,6 +65,7 @@ public final class CommandFactory {
             case "changeSpendingLimit" -> new ChangeSpendingLimit(app, input);
             case "changeDepositLimit" -> new ChangeDepositLimit(app, input);
             case "businessReport" -> new BusinessReport(app, input);
+            case "updateExchangeRate" -> new UpdateExchangeRate(app, input);
             default -> null;
         };
     }
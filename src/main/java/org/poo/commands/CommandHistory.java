@@ -1,42 +1,108 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import lombok.Getter;
+import org.poo.main.transactions.Cursor;
+import org.poo.main.transactions.Page;
+import org.poo.main.transactions.TransactionEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents the history of commands executed in the application.
  * <p>
- * This class stores a list of commands that have been executed, represented as JSON objects.
- * The history is stored as an array of {@link ObjectNode} instances, where each node contains
- * details about a specific command's execution.
- * It allows for adding new commands to the history and retrieving the list of executed commands.
+ * This class stores the transactions a user took part in, as {@link TransactionEvent} records.
+ * The records are only rendered to JSON when the history is printed.
+ * It allows for adding new transactions to the history and retrieving the list of them.
+ * <p>
+ * The history is kept in timestamp order as it grows, the transactions with the same
+ * timestamp in the order they were added, so it is printed as it is, a page at a time if need
+ * be. A transaction is appended, unless it comes later than a transaction with a larger
+ * timestamp, in which case it is inserted after the last transaction not larger than it.
  */
-@Getter
 public class CommandHistory {
-    private final ArrayNode history;
+    // changed only through addToHistory, which keeps it in timestamp order
+    private final List<TransactionEvent> history;
 
     /**
-     * Constructs a {@link CommandHistory} object and initializes the history array.
-     * The history array will store the details of each command that is executed in the application
+     * Constructs an empty {@link CommandHistory}.
      */
     public CommandHistory() {
-        ObjectMapper mapper = new ObjectMapper();
-        history = mapper.createArrayNode();
+        history = new ArrayList<>();
+    }
+
+    /**
+     * @return a read-only view of the transactions, in timestamp order
+     */
+    public List<TransactionEvent> getHistory() {
+        return Collections.unmodifiableList(history);
     }
 
     /**
-     * Adds a new command to the history.
+     * Adds a new transaction to the history.
      * <p>
-     * This method takes a JSON object representing a command and adds it to the history array.
-     * If the provided node is not {@code null}, it will be added to the history.
+     * If the provided event is not {@code null}, it will be added to the history.
      *
-     * @param node the {@link ObjectNode} containing the details of the command to add
+     * @param event the {@link TransactionEvent} to add
      */
-    public void addToHistory(final ObjectNode node) {
-        if (node != null) {
-            history.add(node);
+    public void addToHistory(final TransactionEvent event) {
+        if (event == null) {
+            return;
+        }
+        int size = history.size();
+        if (size == 0 || history.get(size - 1).timestamp() <= event.timestamp()) {
+            history.add(event);
+            return;
+        }
+        history.add(lowerBound(event.timestamp() + 1L), event);
+    }
+
+    /**
+     * Retrieves a page of the history.
+     *
+     * @param offset the position of the first transaction of the page
+     * @param limit  the largest number of transactions of the page
+     * @return a read-only view of the transactions of the page, in timestamp order, empty if
+     *         the history ends before the offset
+     */
+    public List<TransactionEvent> page(final int offset, final int limit) {
+        int from = Math.min(Math.max(offset, 0), history.size());
+        return Collections.unmodifiableList(history.subList(from,
+                from + Math.min(Math.max(limit, 0), history.size() - from)));
+    }
+
+    /**
+     * Retrieves the page of the history a cursor points to. The cursor is found by its
+     * timestamp, so transactions added before it since it was handed out do not move it.
+     *
+     * @param cursor where the page starts
+     * @param limit  the largest number of transactions of the page
+     * @return the transactions of the page, and where the next page starts, if the history
+     *         goes on
+     */
+    public Page<TransactionEvent> page(final Cursor cursor, final int limit) {
+        int start = (int) Math.min(lowerBound(cursor.timestamp()) + (long) cursor.skip(),
+                history.size());
+        List<TransactionEvent> events = page(start, limit);
+        int end = start + events.size();
+        if (events.isEmpty() || end == history.size()) {
+            return new Page<>(events, null);
+        }
+        int timestamp = history.get(end).timestamp();
+        return new Page<>(events, new Cursor(timestamp, end - lowerBound(timestamp)));
+    }
+
+    private int lowerBound(final long timestamp) {
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (history.get(middle).timestamp() < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
+        return low;
     }
 }
@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 
 /**
@@ -9,8 +9,8 @@ import org.poo.main.Application;
  * <p>
  * This class acts as an intermediary between the input data and the command execution process.
  * It uses the {@link CommandFactory} to create the appropriate command based on the input and then
- * executes the command. The result of the command execution is returned as an {@link ObjectNode},
- * which contains the output of the executed command.
+ * executes the command. The result of the command execution is returned as a
+ * {@link CommandOutput}, which contains the output of the executed command.
  */
 public class CommandInvoker {
     private final CommandFactory commandFactory;
@@ -26,17 +26,41 @@ public class CommandInvoker {
     /**
      * Executes a command based on the given {@link CommandInput} and {@link Application} instance.
      * <p>
-     * This method uses the {@link CommandFactory} to create the appropriate command object,
+     * This method resolves the currency of the input to its interned id, then uses the
+     * {@link CommandFactory} to create the appropriate command object,
      * and then it calls the {@link Command#execute()} method to execute the command.
-     * The result of the execution is returned as an {@link ObjectNode}.
+     * The result of the execution is returned as a {@link CommandOutput}.
      *
      * @param input the {@link CommandInput} containing the details needed to
      *              create and execute the command
      * @param app the {@link Application} instance to interact with the application logic
-     * @return an {@link ObjectNode} containing the result of the command execution
+     * @return a {@link CommandOutput} containing the result of the command execution
      */
-    public ObjectNode executeCommand(final CommandInput input, final Application app) {
-        Command cmd = commandFactory.createCommand(input, app);
-        return cmd.execute();
+    public CommandOutput executeCommand(final CommandInput input, final Application app) {
+        return prepare(input, app).execute();
+    }
+
+    /**
+     * Creates the command for the given {@link CommandInput} without executing it.
+     * <p>
+     * The currency of the input is resolved to its interned id and the command is created by
+     * the {@link CommandFactory}. The commands drawing from the seeded sequences of
+     * {@link org.poo.utils.Utils} draw in their constructor, so the commands must be prepared
+     * in the order of the input, even when they are executed later. If the application has a
+     * {@link org.poo.persistence.WriteAheadLog}, the commands changing its state are logged
+     * in the order they are created.
+     *
+     * @param input the {@link CommandInput} containing the details needed to create the command
+     * @param app the {@link Application} instance the command will interact with
+     * @return the command, ready to be executed
+     */
+    public Command prepare(final CommandInput input, final Application app) {
+        if (input.getCurrency() != null && app.getExchangeRates() != null) {
+            input.setCurrencyId(app.getExchangeRates().getCurrencyId(input.getCurrency()));
+        }
+        if (app.getWal() != null) {
+            return app.getWal().log(input, () -> commandFactory.createCommand(input, app));
+        }
+        return commandFactory.createCommand(input, app);
     }
 }
@@ -0,0 +1,221 @@
+package org.poo.commands;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.AccountRegistry;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.BusinessAccount;
+import org.poo.main.cardTypes.Card;
+import org.poo.main.cardTypes.OneTimeCard;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Maps every command to the users it touches, and to their partitions, for the
+ * {@link PartitionedInvoker} and the {@link DependencyScheduler}.
+ * <p>
+ * Every user belongs to one partition, picked from the hash of its email. A command touches
+ * the users it names by email and the owners of the accounts and cards it names, so it only
+ * has to be ordered against the commands of their partitions. Some commands cannot be routed
+ * this way:
+ * <ul>
+ *     <li>the commands that change the registry, the exchange rates or the seeded sequences
+ *     of IBANs and card numbers run alone, see {@link #EXCLUSIVE_COMMANDS}; so do the
+ *     payments with a one-time card, which replace the card</li>
+ *     <li>accepting or rejecting a split payment may complete it, which pays from the
+ *     accounts of every user involved, and {@code printUsers} reads every user, so they are
+ *     ordered against every partition; so are the commands naming nothing that exists</li>
+ * </ul>
+ * The router reads the registry while the workers run, which is safe since it only changes
+ * while a command runs alone.
+ */
+public final class CommandRouter {
+    /**
+     * The commands that must run alone, once every earlier command is done.
+     */
+    public static final Set<String> EXCLUSIVE_COMMANDS = Set.of("addAccount", "createCard",
+            "createOneTimeCard", "deleteCard", "deleteAccount", "setAlias",
+            "addNewBusinessAssociate", "updateExchangeRate");
+
+    private static final Set<String> ALL_PARTITIONS_COMMANDS = Set.of("acceptSplitPayment",
+            "rejectSplitPayment", "printUsers");
+
+    private final AccountRegistry registry;
+    private final int partitions;
+    private final int[] all;
+    private final boolean[] touched;
+    private int count;
+
+    /**
+     * How far the effects of a command reach.
+     */
+    public enum Scope {
+        /** The command must run alone, once every earlier command is done. */
+        ALONE,
+        /** The command must be ordered against the commands of every user. */
+        EVERYONE,
+        /** The command only has to be ordered against the commands of the users it names. */
+        USERS
+    }
+
+    /**
+     * Creates a router that only resolves the users of the commands, see
+     * {@link #resolve(CommandInput, Consumer)}.
+     *
+     * @param registry the registry of the application the commands run on
+     */
+    public CommandRouter(final AccountRegistry registry) {
+        this(registry, 1);
+    }
+
+    /**
+     * @param registry   the registry of the application the commands run on
+     * @param partitions the number of partitions
+     */
+    public CommandRouter(final AccountRegistry registry, final int partitions) {
+        this.registry = registry;
+        this.partitions = partitions;
+        all = new int[partitions];
+        Arrays.setAll(all, i -> i);
+        touched = new boolean[partitions];
+    }
+
+    /**
+     * Returns the partitions a command must be ordered against.
+     *
+     * @param input the command
+     * @return the partitions, in increasing order, or {@code null} if the command must run
+     *         alone
+     */
+    public int[] route(final CommandInput input) {
+        Arrays.fill(touched, false);
+        count = 0;
+        Scope scope = resolve(input, this::touch);
+        if (scope == Scope.ALONE) {
+            return null;
+        }
+        if (scope == Scope.EVERYONE) {
+            return all;
+        }
+        int[] route = new int[count];
+        for (int partition = 0, next = 0; next < count; partition++) {
+            if (touched[partition]) {
+                route[next++] = partition;
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Hands the users a command touches to the consumer, the same user possibly several
+     * times, and tells how far the effects of the command reach. The users are only given
+     * for the {@link Scope#USERS} scope.
+     *
+     * @param input the command
+     * @param users receives the users touched by the command
+     * @return the scope of the command
+     */
+    public Scope resolve(final CommandInput input, final Consumer<User> users) {
+        String command = input.getCommand();
+        if (command == null || EXCLUSIVE_COMMANDS.contains(command)) {
+            return Scope.ALONE;
+        }
+        if (ALL_PARTITIONS_COMMANDS.contains(command)) {
+            return Scope.EVERYONE;
+        }
+        Card card = null;
+        if (input.getCardNumber() != null) {
+            card = registry.getCards().get(input.getCardNumber());
+            if (card instanceof OneTimeCard) {
+                return Scope.ALONE;
+            }
+        }
+        return offerNamed(input, card, users) ? Scope.USERS : Scope.EVERYONE;
+    }
+
+    /**
+     * Hands the users a command changes to the consumer, whatever its scope, the same user
+     * possibly several times. Updating an exchange rate changes no user.
+     *
+     * @param input the command
+     * @param users receives the users changed by the command
+     * @return {@code false} if the command may change users it does not name, such as the
+     *         commands of the {@link Scope#EVERYONE} scope
+     */
+    public boolean changed(final CommandInput input, final Consumer<User> users) {
+        String command = input.getCommand();
+        if (command == null || ALL_PARTITIONS_COMMANDS.contains(command)) {
+            return false;
+        }
+        if ("updateExchangeRate".equals(command)) {
+            return true;
+        }
+        Card card = input.getCardNumber() == null ? null
+                : registry.getCards().get(input.getCardNumber());
+        if (!offerNamed(input, card, users) && !EXCLUSIVE_COMMANDS.contains(command)) {
+            return false;
+        }
+        // a business account is deleted from whichever of its holders comes first
+        if ("deleteAccount".equals(command) && input.getAccount() != null
+                && registry.getAccount(input.getAccount()) instanceof BusinessAccount business) {
+            business.getManagers().keySet().forEach(email -> offer(users,
+                    registry.getUser(email)));
+            business.getEmployees().keySet().forEach(email -> offer(users,
+                    registry.getUser(email)));
+        }
+        return true;
+    }
+
+    private boolean offerNamed(final CommandInput input, final Card card,
+                               final Consumer<User> users) {
+        boolean any = offer(users, card == null ? null : card.getAccountBelonging().getOwner());
+        if (input.getEmail() != null) {
+            any |= offer(users, registry.getUser(input.getEmail()));
+        }
+        any |= offer(users, ownerOf(input.getAccount()));
+        any |= offer(users, ownerOf(input.getReceiver()));
+        if (input.getAccounts() != null) {
+            for (String account : input.getAccounts()) {
+                any |= offer(users, ownerOf(account));
+            }
+        }
+        return any;
+    }
+
+    /**
+     * @param user the user
+     * @return the partition of the user
+     */
+    public int partitionOf(final User user) {
+        return Math.floorMod(user.getEmail().hashCode(), partitions);
+    }
+
+    private User ownerOf(final String account) {
+        if (account == null) {
+            return null;
+        }
+        Account found = registry.getAccount(account);
+        if (found == null) {
+            found = registry.getAccountByAlias(account);
+        }
+        return found == null ? null : found.getOwner();
+    }
+
+    private static boolean offer(final Consumer<User> users, final User user) {
+        if (user == null) {
+            return false;
+        }
+        users.accept(user);
+        return true;
+    }
+
+    private void touch(final User user) {
+        int partition = partitionOf(user);
+        if (!touched[partition]) {
+            touched[partition] = true;
+            count++;
+        }
+    }
+}
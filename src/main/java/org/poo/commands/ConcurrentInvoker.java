@@ -0,0 +1,173 @@
+package org.poo.commands;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.main.Application;
+import org.poo.persistence.SnapshotWriter;
+import org.poo.persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Executes commands arriving from many threads at once, such as the requests of the
+ * {@link org.poo.server.BankServer}, with the same results as some serial order of them.
+ * <p>
+ * The users are split in partitions as for the {@link PartitionedInvoker}, each with its own
+ * lock. A command holds the locks of the partitions the {@link CommandRouter} maps it to, taken
+ * in increasing order so two commands cannot wait for each other, while sharing the read lock
+ * of the registry. The commands that must run alone take the write lock of the registry
+ * instead, so they wait for every running command and keep the others out, and the registry
+ * never changes under the router.
+ * <p>
+ * The locks are never held by {@code synchronized} blocks, so the virtual threads waiting for
+ * them release their carrier thread.
+ * <p>
+ * A {@link #checkpoint()} takes a snapshot of the application while the commands keep
+ * running: the cut is taken under the write lock, then every partition is saved by the first
+ * command about to change it, or else by the checkpoint itself, see {@link SnapshotWriter}.
+ */
+public final class ConcurrentInvoker {
+    private final Application app;
+    private final CommandInvoker invoker = new CommandInvoker();
+    private final int partitions;
+    private final ReentrantLock[] locks;
+    private final ReentrantReadWriteLock registryLock = new ReentrantReadWriteLock();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    // the snapshot being written, whose partitions must be saved before they change
+    private volatile SnapshotWriter checkpoint;
+
+    /**
+     * @param app        the application the commands run on
+     * @param partitions the number of partitions of the users
+     */
+    public ConcurrentInvoker(final Application app, final int partitions) {
+        this.app = app;
+        this.partitions = partitions;
+        locks = new ReentrantLock[partitions];
+        for (int i = 0; i < partitions; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Executes a command, waiting for the running commands touching the same users.
+     *
+     * @param input the command
+     * @return the result of the command, or {@code null} if it has none
+     * @throws UnknownCommandException if the command is unknown
+     */
+    public CommandOutput execute(final CommandInput input) {
+        Lock shared = registryLock.readLock();
+        shared.lock();
+        try {
+            int[] route = new CommandRouter(app.getRegistry(), partitions).route(input);
+            if (route != null) {
+                return executeOn(route, input);
+            }
+        } finally {
+            shared.unlock();
+        }
+        Lock exclusive = registryLock.writeLock();
+        exclusive.lock();
+        try {
+            SnapshotWriter writer = checkpoint;
+            if (writer != null) {
+                CommandRouter router = new CommandRouter(app.getRegistry(), partitions);
+                if (!router.changed(input, user -> writer.save(router.partitionOf(user)))) {
+                    writer.saveAll();
+                }
+            }
+            return run(input);
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    private CommandOutput executeOn(final int[] route, final CommandInput input) {
+        for (int partition : route) {
+            locks[partition].lock();
+        }
+        try {
+            SnapshotWriter writer = checkpoint;
+            if (writer != null && !WriteAheadLog.READ_ONLY.contains(input.getCommand())) {
+                for (int partition : route) {
+                    writer.save(partition);
+                }
+            }
+            return run(input);
+        } finally {
+            for (int i = route.length - 1; i >= 0; i--) {
+                locks[route[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the application to the directory of its log, without stopping the
+     * commands for longer than it takes to roll the log, see {@link SnapshotWriter}. Once the
+     * snapshot is complete, the older ones and the segments of the log it holds are deleted.
+     * Only one snapshot is written at a time.
+     *
+     * @return the snapshot
+     * @throws IOException           if the snapshot cannot be written
+     * @throws IllegalStateException if the application has no log
+     */
+    public Path checkpoint() throws IOException {
+        WriteAheadLog wal = app.getWal();
+        if (wal == null) {
+            throw new IllegalStateException("A snapshot needs a write-ahead log");
+        }
+        checkpointLock.lock();
+        try {
+            CommandRouter router = new CommandRouter(app.getRegistry(), partitions);
+            SnapshotWriter writer = new SnapshotWriter(app, wal.getDirectory(), partitions,
+                    router::partitionOf);
+            try {
+                Lock exclusive = registryLock.writeLock();
+                exclusive.lock();
+                try {
+                    writer.begin(wal.roll());
+                    checkpoint = writer;
+                } finally {
+                    exclusive.unlock();
+                }
+                for (int partition = 0; partition < partitions; partition++) {
+                    savePartition(writer, partition);
+                    writer.drain();
+                }
+            } catch (IOException | RuntimeException e) {
+                writer.abandon();
+                throw e;
+            } finally {
+                checkpoint = null;
+            }
+            return writer.finish();
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    private void savePartition(final SnapshotWriter writer, final int partition) {
+        Lock shared = registryLock.readLock();
+        shared.lock();
+        locks[partition].lock();
+        try {
+            writer.save(partition);
+        } finally {
+            locks[partition].unlock();
+            shared.unlock();
+        }
+    }
+
+    private CommandOutput run(final CommandInput input) {
+        Command command = invoker.prepare(input, app);
+        if (command == null) {
+            throw new UnknownCommandException(input.getCommand());
+        }
+        return command.execute();
+    }
+}
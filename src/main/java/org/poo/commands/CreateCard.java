@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.main.cardTypes.Card;
 import org.poo.main.cardTypes.OneTimeCard;
@@ -51,7 +51,7 @@ public class CreateCard implements Command {
      * @return {@code null}; the result of the command is handled in the application logic
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.createCard(email, card, timestamp);
         return null;
     }
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -42,10 +43,10 @@ public class DeleteAccount implements Command {
      * The command returns the result of the deletion process in JSON format,
      * which includes a success or error message along with the timestamp of the operation.
      *
-     * @return an {@link ObjectNode} containing the result of the deletion command
+     * @return a {@link CommandOutput} containing the result of the deletion command
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.deleteAccount(email, account, timestamp);
         return Output.getCommand("deleteAccount", inner, timestamp);
     }
@@ -0,0 +1,225 @@
+package org.poo.commands;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+import org.poo.main.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replays commands in a {@link ForkJoinPool}, running the commands that do not depend on each
+ * other at the same time, with the same outputs, in the same order, as the
+ * {@link CommandInvoker} running them one after the other.
+ * <p>
+ * The commands are read in segments, ended by a command that must run alone or against
+ * every user (see {@link CommandRouter.Scope}) or after {@link #SEGMENT} commands. Since the
+ * registry only changes in the commands that run alone, the accounts, cards and emails the
+ * commands of a segment name are resolved to their owners before it runs. Every user is a
+ * key of the dependency graph of the segment: a command reading the state of a user depends
+ * on the last earlier command writing it, and a command writing it also depends on the
+ * earlier commands reading it since. So the commands of every user run in the order of the
+ * input, while the others run in parallel. Only the reports, see {@link #READ_COMMANDS}, are
+ * reads; every other command is a write of every user it touches.
+ * <p>
+ * Once every command of the segment is done, the outputs are handed to the sink in the order
+ * of the input, then the command ending the segment runs on the calling thread.
+ */
+public final class DependencyScheduler {
+    /**
+     * The maximum number of commands of a segment.
+     */
+    public static final int SEGMENT = 65_536;
+
+    /**
+     * The commands that only read the state of the users they touch.
+     */
+    public static final Set<String> READ_COMMANDS = Set.of("report", "spendingsReport",
+            "businessReport");
+
+    private final Application app;
+    private final int parallelism;
+    private final CommandInvoker invoker = new CommandInvoker();
+    private final CommandRouter router;
+    private final List<Node> segment = new ArrayList<>();
+    private final Map<User, Key> keys = new HashMap<>();
+
+    /**
+     * @param app         the application the commands run on
+     * @param parallelism the number of threads running the commands
+     */
+    public DependencyScheduler(final Application app, final int parallelism) {
+        this.app = app;
+        this.parallelism = parallelism;
+        router = new CommandRouter(app.getRegistry());
+    }
+
+    /**
+     * Runs the commands, handing the result of each one to the sink in the order of the input.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void run(final Iterator<CommandInput> commands, final OutputSink sink)
+            throws IOException {
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            while (commands.hasNext()) {
+                CommandInput input = commands.next();
+                Node node = new Node(READ_COMMANDS.contains(input.getCommand()));
+                CommandRouter.Scope scope = router.resolve(input, node::touch);
+                if (scope != CommandRouter.Scope.USERS) {
+                    flush(pool, sink);
+                    write(sink, invoker.executeCommand(input, app));
+                    continue;
+                }
+                // created in the order of the input, for the seeded sequences of the commands
+                node.command = invoker.prepare(input, app);
+                add(node);
+                if (segment.size() == SEGMENT) {
+                    flush(pool, sink);
+                }
+            }
+            flush(pool, sink);
+        }
+    }
+
+    /**
+     * Links a command to the last commands of the users it touches.
+     */
+    private void add(final Node node) {
+        for (User user : node.users) {
+            Key key = keys.computeIfAbsent(user, u -> new Key());
+            if (key.writer != null) {
+                key.writer.then(node);
+            }
+            if (node.read) {
+                key.readers.add(node);
+                continue;
+            }
+            for (Node reader : key.readers) {
+                reader.then(node);
+            }
+            key.readers.clear();
+            key.writer = node;
+        }
+        segment.add(node);
+    }
+
+    /**
+     * Runs the commands of the segment, then writes their outputs in order.
+     */
+    private void flush(final ForkJoinPool pool, final OutputSink sink) throws IOException {
+        if (segment.isEmpty()) {
+            return;
+        }
+        CountDownLatch done = new CountDownLatch(segment.size());
+        List<Node> roots = new ArrayList<>();
+        for (Node node : segment) {
+            node.pool = pool;
+            node.done = done;
+            // picked before any runs, the others are started by the last command they follow
+            if (node.pending.get() == 0) {
+                roots.add(node);
+            }
+        }
+        roots.forEach(pool::execute);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying the commands", e);
+        }
+        List<Node> nodes = new ArrayList<>(segment);
+        segment.clear();
+        keys.clear();
+        for (Node node : nodes) {
+            if (node.failure instanceof Error error) {
+                throw error;
+            }
+            if (node.failure != null) {
+                throw (RuntimeException) node.failure;
+            }
+            write(sink, node.output);
+        }
+    }
+
+    private static void write(final OutputSink sink, final CommandOutput output)
+            throws IOException {
+        if (output != null) {
+            sink.write(output);
+        }
+    }
+
+    /**
+     * The last commands of a user in the segment: the last one writing its state and the ones
+     * reading it since.
+     */
+    private static final class Key {
+        private Node writer;
+        private final List<Node> readers = new ArrayList<>();
+    }
+
+    /**
+     * A command of the segment, with the commands depending on it.
+     */
+    private static final class Node implements Runnable {
+        private final boolean read;
+        private final List<User> users = new ArrayList<>(2);
+        private final List<Node> dependents = new ArrayList<>(2);
+        private final AtomicInteger pending = new AtomicInteger();
+        private Command command;
+        private ForkJoinPool pool;
+        private CountDownLatch done;
+        private CommandOutput output;
+        private Throwable failure;
+
+        Node(final boolean read) {
+            this.read = read;
+        }
+
+        private void touch(final User user) {
+            if (!users.contains(user)) {
+                users.add(user);
+            }
+        }
+
+        /**
+         * Makes the given command wait for this one.
+         */
+        private void then(final Node dependent) {
+            // a command touching several users can follow this one through several of them
+            if (!dependents.isEmpty() && dependents.get(dependents.size() - 1) == dependent) {
+                return;
+            }
+            dependents.add(dependent);
+            dependent.pending.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            try {
+                output = command.execute();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                for (Node dependent : dependents) {
+                    if (dependent.pending.decrementAndGet() == 0) {
+                        pool.execute(dependent);
+                    }
+                }
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.poo.commands;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.fileio.OutputSink;
+import org.poo.main.Application;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the commands on a pool of workers, one per partition of the users, with the same
+ * outputs, in the same order, as the {@link CommandInvoker} running them one after the other.
+ * <p>
+ * The calling thread reads the commands, routes each one with the {@link CommandRouter} and
+ * creates it, so the constructors drawing from the seeded sequences of {@link
+ * org.poo.utils.Utils} run in order. A command touching a single partition is queued to its
+ * worker. A command touching several partitions is queued to all of them and runs once every
+ * one of them reached it, while the others wait, so it is ordered against the commands of
+ * each of them. Since every queue is in the order of the input, these commands cannot wait
+ * on each other in a cycle. A command that must run alone waits for every earlier command,
+ * then runs on the calling thread.
+ * <p>
+ * The outputs are handed to the sink by the calling thread, in the order of the input, as
+ * soon as every earlier command is done. At most {@link #WINDOW} commands are in flight.
+ */
+public final class PartitionedInvoker {
+    /**
+     * The maximum number of commands queued or running ahead of the oldest one not done.
+     */
+    public static final int WINDOW = 4096;
+
+    private static final Task STOP = new Task(null, 0);
+
+    private final Application app;
+    private final CommandInvoker invoker = new CommandInvoker();
+    private final CommandRouter router;
+    private final Worker[] workers;
+    private final ArrayDeque<Task> inFlight = new ArrayDeque<>();
+    private final Thread caller;
+    private volatile boolean waiting;
+
+    /**
+     * @param app     the application the commands run on
+     * @param workers the number of workers, and of partitions of the users
+     */
+    public PartitionedInvoker(final Application app, final int workers) {
+        this.app = app;
+        router = new CommandRouter(app.getRegistry(), workers);
+        this.workers = new Worker[workers];
+        caller = Thread.currentThread();
+    }
+
+    /**
+     * Runs the commands in order, handing the result of each one to the sink, then stops the
+     * workers. It must be called by the thread that created the invoker.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void run(final Iterator<CommandInput> commands, final OutputSink sink)
+            throws IOException {
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+            workers[i].thread = Thread.ofPlatform().name("partition-" + i).daemon()
+                    .start(workers[i]);
+        }
+        try {
+            while (commands.hasNext()) {
+                CommandInput input = commands.next();
+                int[] route = router.route(input);
+                if (route == null) {
+                    drain(sink, 0);
+                    CommandOutput output = invoker.executeCommand(input, app);
+                    if (output != null) {
+                        sink.write(output);
+                    }
+                    continue;
+                }
+                Task task = new Task(invoker.prepare(input, app), route.length);
+                for (int partition : route) {
+                    workers[partition].queue.add(task);
+                }
+                inFlight.add(task);
+                drain(sink, WINDOW - 1);
+            }
+            drain(sink, 0);
+        } finally {
+            for (Worker worker : workers) {
+                worker.queue.add(STOP);
+            }
+            for (Worker worker : workers) {
+                try {
+                    worker.thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the outputs of the oldest commands done, waiting for them until at most
+     * {@code limit} commands are in flight. A command that failed on its worker fails the
+     * run here, the same way it would have failed {@link CommandInvoker#executeCommand}.
+     */
+    private void drain(final OutputSink sink, final int limit) throws IOException {
+        while (!inFlight.isEmpty()) {
+            Task head = inFlight.peek();
+            if (!head.done) {
+                if (inFlight.size() <= limit) {
+                    return;
+                }
+                await(head);
+            }
+            inFlight.poll();
+            if (head.failure instanceof Error error) {
+                throw error;
+            }
+            if (head.failure != null) {
+                throw (RuntimeException) head.failure;
+            }
+            if (head.output != null) {
+                sink.write(head.output);
+            }
+        }
+    }
+
+    private void await(final Task task) {
+        waiting = true;
+        while (!task.done) {
+            LockSupport.park(this);
+        }
+        waiting = false;
+    }
+
+    /**
+     * A command queued to the workers of the partitions it touches.
+     */
+    private static final class Task {
+        private final Command command;
+        private final AtomicInteger missing;
+        private final CountDownLatch finished;
+        private CommandOutput output;
+        // a RuntimeException or an Error, thrown again by the calling thread
+        private Throwable failure;
+        private volatile boolean done;
+
+        Task(final Command command, final int partitions) {
+            this.command = command;
+            missing = new AtomicInteger(partitions);
+            finished = partitions > 1 ? new CountDownLatch(1) : null;
+        }
+    }
+
+    /**
+     * Runs the commands of one partition, in order.
+     */
+    private final class Worker implements Runnable {
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private Thread thread;
+
+        @Override
+        public void run() {
+            try {
+                for (Task task = queue.take(); task != STOP; task = queue.take()) {
+                    if (task.missing.decrementAndGet() > 0) {
+                        // another partition of the command runs it, this one waits until then
+                        task.finished.await();
+                        continue;
+                    }
+                    try {
+                        task.output = task.command == null ? null : task.command.execute();
+                    } catch (RuntimeException | Error e) {
+                        task.failure = e;
+                    } finally {
+                        task.done = true;
+                        if (task.finished != null) {
+                            task.finished.countDown();
+                        }
+                        if (waiting) {
+                            LockSupport.unpark(caller);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
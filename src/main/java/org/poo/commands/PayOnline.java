@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -16,7 +17,7 @@ public class PayOnline implements Command {
     private final Application app;
     private final String cardNumber;
     private final double amount;
-    private final String currency;
+    private final int currency;
     private String commerciant;
     private final int timestamp;
     private final String email;
@@ -33,7 +34,7 @@ public class PayOnline implements Command {
         this.app = app;
         cardNumber = input.getCardNumber();
         amount = input.getAmount();
-        currency = input.getCurrency();
+        currency = input.getCurrencyId();
         timestamp = input.getTimestamp();
         commerciant = input.getCommerciant();
         email = input.getEmail();
@@ -41,7 +42,7 @@ public class PayOnline implements Command {
 
     /**
      * Executes the online payment command by calling the
-     * {@link Application#payOnline(String, double, String, int, String, String)}
+     * {@link Application#payOnline(String, double, int, int, String, String)}
      * method to process the payment for the specified card and amount.
      * <p>
      * If the payment is successful, the result is returned in JSON format,
@@ -49,11 +50,11 @@ public class PayOnline implements Command {
      * If the payment fails (e.g., due to insufficient funds or invalid card),
      * {@code null} is returned.
      *
-     * @return an {@link ObjectNode} containing the result of the payment
+     * @return a {@link CommandOutput} containing the result of the payment
      *         or {@code null} if the payment is not successful
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         if (amount == 0) {
             return null;
         }
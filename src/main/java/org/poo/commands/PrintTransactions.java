@@ -3,6 +3,7 @@ package org.poo.commands;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -16,6 +17,8 @@ public class PrintTransactions implements Command {
     private final Application app;
     private final int timestamp;
     private final String email;
+    private final String cursor;
+    private final int limit;
 
     /**
      * Constructs a {@link PrintTransactions} command using the provided
@@ -29,6 +32,8 @@ public class PrintTransactions implements Command {
         this.app = app;
         this.email = input.getEmail();
         this.timestamp = input.getTimestamp();
+        this.cursor = input.getCursor();
+        this.limit = input.getLimit();
     }
 
     /**
@@ -36,13 +41,18 @@ public class PrintTransactions implements Command {
      * for the specified user. The transaction details are returned as a JSON array.
      * <p>
      * If the user exists, the transaction history is returned in JSON format;
-     * otherwise, an empty response is returned.
+     * otherwise, an empty response is returned. With a cursor or a limit, only a page of the
+     * history is returned, as an object holding the transactions and the token of the next page.
      *
-     * @return an {@link ObjectNode} containing the result of the command,
+     * @return a {@link CommandOutput} containing the result of the command,
      * including the transaction history and timestamp
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
+        if (cursor != null || limit > 0) {
+            ObjectNode page = app.printTransactions(email, cursor, limit, timestamp);
+            return Output.getCommand("printTransactions", page, timestamp);
+        }
         ArrayNode inner = app.printTransactions(email);
         return Output.getCommand("printTransactions", inner, timestamp);
     }
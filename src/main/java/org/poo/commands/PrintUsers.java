@@ -1,8 +1,8 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -36,10 +36,10 @@ public class PrintUsers implements Command {
      * The command returns the user data in JSON format,
      * including the timestamp and command details.
      *
-     * @return an {@link ObjectNode} containing the result of the command
+     * @return a {@link CommandOutput} containing the result of the command
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ArrayNode inner = app.printUsers();
         return Output.getCommand("printUsers", inner, timestamp);
     }
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.Getter;
 import lombok.Setter;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -20,6 +21,8 @@ public class Report implements Command {
     private int startTimestamp;
     private int endTimestamp;
     private int timestamp;
+    private String cursor;
+    private int limit;
 
     /**
      * Constructs a {@link Report} command using the provided
@@ -35,6 +38,8 @@ public class Report implements Command {
         startTimestamp = input.getStartTimestamp();
         endTimestamp = input.getEndTimestamp();
         timestamp = input.getTimestamp();
+        cursor = input.getCursor();
+        limit = input.getLimit();
     }
 
     /**
@@ -44,11 +49,19 @@ public class Report implements Command {
      * for the specified account within the given time range.
      * <p>
      * If the account is found, the report is returned; otherwise, an error message is returned.
+     * With a cursor or a limit, only a page of the report is returned, through
+     * {@link Application#getReport(String, int, int, String, int, int)}, with the token of the
+     * next page.
      *
-     * @return an {@link ObjectNode} containing the result of the command
+     * @return a {@link CommandOutput} containing the result of the command
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
+        if (cursor != null || limit > 0) {
+            ObjectNode page = app.getReport(account, startTimestamp, endTimestamp, cursor, limit,
+                    timestamp);
+            return Output.getCommand("report", page, timestamp);
+        }
         ObjectNode inner = app.getReport(account, startTimestamp, endTimestamp, timestamp);
         return Output.getCommand("report", inner, timestamp);
     }
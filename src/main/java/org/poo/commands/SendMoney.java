@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -48,7 +49,7 @@ public class SendMoney implements Command {
      * @return {@code null}, as the result of the command is handled internally
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.sendMoney(sender, receiver, amount, description, timestamp);
         if (inner != null) {
             return Output.getCommand("sendMoney", inner, timestamp);
@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 
 /**
@@ -39,7 +39,7 @@ public class SetMinBalance implements Command {
      * @return {@code null}, as the result of the command is handled within the application logic
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.setMinBalance(account, amount);
         return null;
     }
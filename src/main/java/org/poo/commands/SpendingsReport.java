@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.Getter;
 import lombok.Setter;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -21,6 +22,8 @@ public class SpendingsReport implements Command {
     private int endTimestamp;
     private int timestamp;
     private String account;
+    private String cursor;
+    private int limit;
 
     /**
      * Constructs a {@link SpendingsReport} command using the provided
@@ -36,6 +39,8 @@ public class SpendingsReport implements Command {
         endTimestamp = input.getEndTimestamp();
         timestamp = input.getTimestamp();
         account = input.getAccount();
+        cursor = input.getCursor();
+        limit = input.getLimit();
     }
 
     /**
@@ -45,11 +50,19 @@ public class SpendingsReport implements Command {
      * <p>
      * If the account is found, the report is returned;
      * otherwise, an error message is returned in JSON format.
+     * With a cursor or a limit, only a page of the report is returned, through
+     * {@link Application#getSpendingsReport(String, int, int, String, int, int)}, with the token
+     * of the next page.
      *
-     * @return an {@link ObjectNode} containing the result of the command
+     * @return a {@link CommandOutput} containing the result of the command
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
+        if (cursor != null || limit > 0) {
+            ObjectNode page = app.getSpendingsReport(account, startTimestamp, endTimestamp,
+                    cursor, limit, timestamp);
+            return Output.getCommand("spendingsReport", page, timestamp);
+        }
         ObjectNode inner = app.getSpendingsReport(account, startTimestamp, endTimestamp, timestamp);
         return Output.getCommand("spendingsReport", inner, timestamp);
     }
@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Utils;
 
@@ -51,7 +51,7 @@ public class SplitPayment implements Command {
      * @return {@code null}, as the result of the command is handled within the application logic
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.splitPayment(type, accounts, currency, amount, amountForUsers, timestamp, id);
         return null;
     }
@@ -0,0 +1,15 @@
+package org.poo.commands;
+
+/**
+ * Thrown when a command is not one the {@link CommandFactory} can create, so it was never run.
+ */
+public final class UnknownCommandException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param command the name of the command
+     */
+    public UnknownCommandException(final String command) {
+        super("Unknown command " + command);
+    }
+}
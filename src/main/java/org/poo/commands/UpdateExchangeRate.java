@@ -0,0 +1,55 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.main.Application;
+import org.poo.utils.Output;
+
+/**
+ * Represents a command to update the exchange rate between two currencies.
+ * <p>
+ * This command applies a live rate tick through the {@link Application} class. The best rates
+ * between every pair of currencies are updated, and the new rates are used by every
+ * following command.
+ */
+public class UpdateExchangeRate implements Command {
+    private final Application app;
+    private final String from;
+    private final String to;
+    private final double rate;
+    private final int timestamp;
+
+    /**
+     * Constructs an {@link UpdateExchangeRate} command using the provided
+     * {@link Application} and {@link CommandInput}.
+     * Initializes the currency pair, the rate and the timestamp based on the input data.
+     *
+     * @param app the {@link Application} instance to interact with the application logic
+     * @param input the {@link CommandInput} containing the currency pair and the rate
+     */
+    public UpdateExchangeRate(final Application app, final CommandInput input) {
+        this.app = app;
+        from = input.getFrom();
+        to = input.getTo();
+        rate = input.getRate();
+        timestamp = input.getTimestamp();
+    }
+
+    /**
+     * Executes the update exchange rate command by calling the
+     * {@link Application#updateExchangeRate(String, String, double, int)} method.
+     * <p>
+     * If the rate is invalid, an error is returned.
+     *
+     * @return a {@link CommandOutput} with the error, or {@code null} if the rate was applied
+     */
+    @Override
+    public CommandOutput execute() {
+        ObjectNode inner = app.updateExchangeRate(from, to, rate, timestamp);
+        if (inner != null) {
+            return Output.getCommand("updateExchangeRate", inner, timestamp);
+        }
+        return null;
+    }
+}
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 import org.poo.utils.Output;
 
@@ -39,11 +40,11 @@ public class UpgradePlan implements Command {
      * {@link Application#upgradePlan(String, String, int)} method.
      * <p>
      * If the operation is successful, {@code null} is returned.
-     * If the operation fails, an {@link ObjectNode} containing the error details is returned.
+     * If the operation fails, a {@link CommandOutput} containing the error details is returned.
      *
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         ObjectNode inner = app.upgradePlan(account, newPlanType, timestamp);
         if (inner != null) {
             return Output.getCommand("upgradePlan", inner, timestamp);
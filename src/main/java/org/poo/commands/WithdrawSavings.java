@@ -1,7 +1,7 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.main.Application;
 
 /**
@@ -45,7 +45,7 @@ public class WithdrawSavings implements Command {
      * @return {@code null} as this command does not produce any output
      */
     @Override
-    public ObjectNode execute() {
+    public CommandOutput execute() {
         app.withdrawSavings(account, amount, currency, timestamp);
         return null;
     }
@@ -0,0 +1,24 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import lombok.Getter;
+
+/**
+ * An {@link OutputSink} that keeps every output in memory, in an {@link ArrayNode}.
+ * <p>
+ * Each result is turned into its own JSON object once, when it is written.
+ */
+@Getter
+public final class ArrayNodeSink implements OutputSink {
+    private final ArrayNode outputs = JsonNodeFactory.instance.arrayNode();
+
+    @Override
+    public void write(final CommandOutput output) {
+        outputs.add(output.toJson());
+    }
+
+    @Override
+    public void close() {
+    }
+}
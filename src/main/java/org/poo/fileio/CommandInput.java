@@ -1,5 +1,6 @@
 package org.poo.fileio;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -24,6 +25,9 @@ public final class CommandInput {
     private String splitPaymentType;
     private String type;
     private String location;
+    private String from;
+    private String to;
+    private double rate;
     private int timestamp;
     private int startTimestamp;
     private int endTimestamp;
@@ -34,4 +38,9 @@ public final class CommandInput {
     private double minBalance;
     private List<String> accounts;
     private List<Double> amountForUsers;
+    private String cursor;
+    private int limit;
+    // interned id of currency, resolved by the CommandInvoker before execution
+    @JsonIgnore
+    private int currencyId = -1;
 }
@@ -0,0 +1,34 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The result of a command, as handed to an {@link OutputSink}.
+ * <p>
+ * Each command builds a new result, so a sink may keep it after
+ * {@link OutputSink#write(CommandOutput)} returns. It is only turned into JSON by the sink.
+ * <p>
+ * The output node is neither copied nor read-only: {@link #toJson()} wraps it as it is, so
+ * the results kept by a sink share it, and it must not be changed once the command returned.
+ *
+ * @param command   the name of the command
+ * @param output    the output of the command, or {@code null} if it has none
+ * @param timestamp the timestamp of the command
+ */
+public record CommandOutput(String command, JsonNode output, int timestamp) {
+
+    /**
+     * Builds the JSON object of the result, listing the command, its output and the timestamp.
+     *
+     * @return a new {@link ObjectNode} holding the result
+     */
+    public ObjectNode toJson() {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("command", command);
+        node.set("output", output);
+        node.put("timestamp", timestamp);
+        return node;
+    }
+}
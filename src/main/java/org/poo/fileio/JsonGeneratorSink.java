@@ -0,0 +1,85 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link OutputSink} that streams the outputs to a file as a JSON array.
+ * <p>
+ * Every result is serialized by a Jackson {@link JsonGenerator} as soon as it is written,
+ * through a buffer over the file channel, so the memory used does not grow with the number
+ * of commands. The wrapping object is written field by field, so no node is built for it.
+ * The array is closed when the sink is closed.
+ */
+public final class JsonGeneratorSink implements OutputSink {
+    private static final int BUFFER_SIZE = 65_536;
+
+    private final ObjectMapper mapper;
+    private final JsonGenerator generator;
+
+    /**
+     * Opens the file, replacing its content, and starts the array.
+     *
+     * @param file   the file to write to
+     * @param pretty {@code true} to indent the output as the default pretty printer does
+     * @throws IOException if the file cannot be opened
+     */
+    public JsonGeneratorSink(final Path file, final boolean pretty) throws IOException {
+        this(new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)), BUFFER_SIZE), pretty);
+    }
+
+    /**
+     * Starts the array on a stream, which is closed with the sink.
+     *
+     * @param out    the stream to write to
+     * @param pretty {@code true} to indent the output as the default pretty printer does
+     * @throws IOException if the stream cannot be written
+     */
+    public JsonGeneratorSink(final OutputStream out, final boolean pretty) throws IOException {
+        mapper = new ObjectMapper();
+        generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        if (pretty) {
+            generator.useDefaultPrettyPrinter();
+        }
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void write(final CommandOutput output) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("command", output.command());
+        generator.writeFieldName("output");
+        if (output.output() == null) {
+            generator.writeNull();
+        } else {
+            mapper.writeTree(generator, output.output());
+        }
+        generator.writeNumberField("timestamp", output.timestamp());
+        generator.writeEndObject();
+    }
+
+    /**
+     * Ends the array, flushes the buffer and closes the file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.poo.fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the output of every command, in the order the commands are executed.
+ * <p>
+ * Every result is built for a single command and is never modified afterwards, so a sink
+ * may keep it or serialize it right away. Closing the sink ends the output.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes the output of a command.
+     *
+     * @param output the result of the command
+     * @throws IOException if the output cannot be written
+     */
+    void write(CommandOutput output) throws IOException;
+}
@@ -0,0 +1,256 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads an input file with a Jackson {@link JsonParser}, without materializing the commands.
+ * <p>
+ * The users, commerciants and exchange rates are read eagerly into {@link #getInput()}, then
+ * the commands are decoded one at a time while {@link #commands()} is iterated. With a
+ * read-ahead, a decoder thread keeps up to that many commands decoded in advance, so the
+ * next commands are parsed while the current one runs. They are handed over in batches,
+ * to keep the synchronization off the per-command path.
+ * <p>
+ * The inputs list the commands last. If the commands come before the users, the
+ * commerciants or the exchange rates, they are read eagerly, since they cannot run before
+ * those are known, and the fields after them are read as well.
+ */
+public final class StreamingInputReader implements Closeable {
+    private static final CommandInput END = new CommandInput();
+    private static final int MAX_BATCH = 256;
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    @Getter
+    private final ObjectInput input;
+    private final int readAhead;
+    private boolean streaming;
+    private boolean iterated;
+    // the commands, when they had to be read eagerly
+    private Iterator<CommandInput> pending;
+    private Thread decoder;
+    private volatile Throwable failure;
+
+    /**
+     * Opens the file and reads everything but the commands.
+     *
+     * @param file      the input file
+     * @param readAhead the number of commands decoded in advance by a separate thread,
+     *                  or 0 to decode them on the thread iterating them
+     * @throws IOException if the file cannot be read or is not an input object
+     */
+    public StreamingInputReader(final Path file, final int readAhead) throws IOException {
+        mapper = new ObjectMapper();
+        parser = mapper.getFactory().createParser(file.toFile());
+        input = new ObjectInput();
+        this.readAhead = readAhead;
+        try {
+            readSections();
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    private void readSections() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an input object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "users" -> input.setUsers(mapper.readValue(parser, UserInput[].class));
+                case "commerciants" -> input.setCommerciants(
+                        mapper.readValue(parser, CommerciantInput[].class));
+                case "exchangeRates" -> input.setExchangeRates(
+                        mapper.readValue(parser, ExchangeInput[].class));
+                case "commands" -> {
+                    if (input.getUsers() != null && input.getCommerciants() != null
+                            && input.getExchangeRates() != null
+                            && parser.currentToken() == JsonToken.START_ARRAY) {
+                        streaming = true;
+                        return;
+                    }
+                    input.setCommands(mapper.readValue(parser, CommandInput[].class));
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Returns the commands, in order. It can only be called once.
+     *
+     * @return an iterator decoding the commands as they are requested
+     * @throws IllegalStateException if the commands were already requested
+     * @throws UncheckedIOException from the iterator if a command cannot be decoded; a
+     *                              runtime exception or error of the decoder thread is
+     *                              rethrown as is
+     */
+    public Iterator<CommandInput> commands() {
+        if (iterated) {
+            throw new IllegalStateException("The commands can only be read once");
+        }
+        iterated = true;
+        if (readAhead <= 0) {
+            return new CommandIterator(this::decodeNext);
+        }
+        int batch = Math.min(readAhead, MAX_BATCH);
+        BlockingQueue<CommandInput[]> queue =
+                new ArrayBlockingQueue<>(Math.max(1, readAhead / batch));
+        decoder = Thread.ofPlatform().name("input-decoder").daemon()
+                .start(() -> decodeInto(queue, batch));
+        return new CommandIterator(new BatchSource(queue));
+    }
+
+    private CommandInput decodeNext() throws IOException {
+        if (pending == null && input.getCommands() != null) {
+            pending = Arrays.asList(input.getCommands()).iterator();
+        }
+        if (pending != null) {
+            return pending.hasNext() ? pending.next() : END;
+        }
+        if (!streaming || parser.nextToken() != JsonToken.START_OBJECT) {
+            streaming = false;
+            return END;
+        }
+        return mapper.readValue(parser, CommandInput.class);
+    }
+
+    /**
+     * Decodes the commands into batches, the last one ending with {@link #END}.
+     */
+    private void decodeInto(final BlockingQueue<CommandInput[]> queue, final int batchSize) {
+        try {
+            boolean done = false;
+            while (!done) {
+                CommandInput[] batch = new CommandInput[batchSize];
+                for (int i = 0; i < batchSize && !done; i++) {
+                    try {
+                        batch[i] = decodeNext();
+                    } catch (IOException | RuntimeException | Error e) {
+                        failure = e;
+                        batch[i] = END;
+                    }
+                    done = batch[i] == END;
+                }
+                queue.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the decoder thread, if any, and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (decoder != null) {
+            decoder.interrupt();
+            try {
+                decoder.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        parser.close();
+    }
+
+    /**
+     * Decodes the next command, or returns {@link #END} when there are no more.
+     */
+    @FunctionalInterface
+    private interface Source {
+        CommandInput next() throws IOException;
+    }
+
+    /**
+     * Takes the commands from the batches filled by the decoder thread.
+     */
+    private final class BatchSource implements Source {
+        private final BlockingQueue<CommandInput[]> queue;
+        private CommandInput[] batch = new CommandInput[0];
+        private int index;
+
+        BatchSource(final BlockingQueue<CommandInput[]> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public CommandInput next() throws IOException {
+            if (index == batch.length) {
+                try {
+                    batch = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading the commands");
+                }
+                index = 0;
+            }
+            CommandInput next = batch[index++];
+            if (next == END && failure != null) {
+                rethrow(failure);
+            }
+            return next;
+        }
+
+        private static void rethrow(final Throwable t) throws IOException {
+            if (t instanceof IOException e) {
+                throw e;
+            }
+            if (t instanceof RuntimeException e) {
+                throw e;
+            }
+            throw (Error) t;
+        }
+    }
+
+    private static final class CommandIterator implements Iterator<CommandInput> {
+        private final Source source;
+        private CommandInput next;
+
+        CommandIterator(final Source source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = source.next();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != END;
+        }
+
+        @Override
+        public CommandInput next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CommandInput current = next;
+            next = null;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.poo.main;
+
+import org.poo.main.accounts.Account;
+import org.poo.main.cardTypes.Card;
+import org.poo.main.cardTypes.CardIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash-based index over the users, accounts and commerciants of an {@link Application}.
+ * <p>
+ * The registry replaces the linear scans over every user and every account with constant
+ * time lookups. It is kept in sync by {@link User} and {@link Application} whenever an account
+ * is added to or removed from a user's list, or when an alias is set. It also owns the global
+ * {@link CardIndex}, which {@link Account} updates as cards are created and destroyed.
+ * An account can appear in several users' lists (business associates), so the registry
+ * keeps the lists holding it and only forgets the account when the last one drops it.
+ * <p>
+ * Several accounts can share an alias, so the registry keeps every account holding it, and
+ * finds the one the scan over the lists of the users, in order, would have found first. Every
+ * place of an account in a list has a key: the position of the user, then a number counting
+ * the accounts added to any list, since an account is always added at the end of a list. The
+ * first holder of an alias is the one with the smallest key, found among the holders alone.
+ */
+public class AccountRegistry {
+    private final Map<String, User> usersByEmail = new HashMap<>();
+    // the position of every user in the order they were registered
+    private final Map<User, Integer> userOrder = new IdentityHashMap<>();
+    private final Map<String, Account> accountsByIban = new HashMap<>();
+    private final Map<String, List<Account>> accountsByAlias = new HashMap<>();
+    private final Map<Account, Holders> holders = new IdentityHashMap<>();
+    private int added;
+    private final Map<String, Commerciant> commerciantsByName = new HashMap<>();
+    private final Map<String, Commerciant> commerciantsByIban = new HashMap<>();
+    private final CardIndex cards = new CardIndex();
+
+    /**
+     * Registers a user. If two users share the same email, the first one is found by email.
+     *
+     * @param user the user to register
+     */
+    public void addUser(final User user) {
+        usersByEmail.putIfAbsent(user.getEmail(), user);
+        userOrder.putIfAbsent(user, userOrder.size());
+    }
+
+    /**
+     * Registers a commerciant by both its name and its IBAN.
+     *
+     * @param commerciant the commerciant to register
+     */
+    public void addCommerciant(final Commerciant commerciant) {
+        commerciantsByName.putIfAbsent(commerciant.getName(), commerciant);
+        commerciantsByIban.putIfAbsent(commerciant.getAccount(), commerciant);
+    }
+
+    /**
+     * Records that an account was added at the end of a user's list of accounts.
+     *
+     * @param user    the user whose list it was added to
+     * @param account the account that was added
+     */
+    public void addAccount(final User user, final Account account) {
+        long key = (long) userOrder.getOrDefault(user, Integer.MAX_VALUE) << Integer.SIZE
+                | Integer.toUnsignedLong(added++);
+        holders.computeIfAbsent(account, a -> new Holders()).add(key);
+        accountsByIban.putIfAbsent(account.getIban(), account);
+    }
+
+    /**
+     * Records that an account was removed from a user's list of accounts, where it was
+     * first. The account is only unregistered once no user holds it anymore.
+     *
+     * @param user    the user whose list it was removed from
+     * @param account the account that was removed
+     */
+    public void removeAccount(final User user, final Account account) {
+        Holders places = holders.get(account);
+        if (places == null) {
+            return;
+        }
+        places.remove(userOrder.getOrDefault(user, Integer.MAX_VALUE));
+        if (places.size > 0) {
+            return;
+        }
+        holders.remove(account);
+        accountsByIban.remove(account.getIban(), account);
+        dropAlias(account);
+        for (Card card : account.getCards()) {
+            cards.remove(card);
+        }
+    }
+
+    /**
+     * Moves an account from its current alias to a new one, which other accounts may hold too.
+     *
+     * @param account the account being renamed
+     * @param alias   the new alias
+     */
+    public void setAlias(final Account account, final String alias) {
+        dropAlias(account);
+        if (holders.containsKey(account)) {
+            accountsByAlias.computeIfAbsent(alias, a -> new ArrayList<>(1)).add(account);
+        }
+    }
+
+    private void dropAlias(final Account account) {
+        List<Account> accounts = accountsByAlias.get(account.getAlias());
+        if (accounts != null && accounts.remove(account) && accounts.isEmpty()) {
+            accountsByAlias.remove(account.getAlias());
+        }
+    }
+
+    /**
+     * Adds an account to the holders of an alias as they were when a snapshot was taken,
+     * without the checks of {@link #setAlias(Account, String)}.
+     *
+     * @param alias   the alias
+     * @param account an account holding it
+     */
+    public void restoreAlias(final String alias, final Account account) {
+        accountsByAlias.computeIfAbsent(alias, a -> new ArrayList<>(1)).add(account);
+    }
+
+    /**
+     * @return the number of pairs given by {@link #forEachAlias(BiConsumer)}
+     */
+    public int aliasCount() {
+        int count = 0;
+        for (List<Account> accounts : accountsByAlias.values()) {
+            count += accounts.size();
+        }
+        return count;
+    }
+
+    /**
+     * Goes through the aliases, with every account holding each of them.
+     *
+     * @param action takes an alias and an account holding it
+     */
+    public void forEachAlias(final BiConsumer<String, Account> action) {
+        accountsByAlias.forEach((alias, accounts) -> accounts.forEach(
+                account -> action.accept(alias, account)));
+    }
+
+    /**
+     * @param email the email of the user
+     * @return the user with the given email, or {@code null} if there is none
+     */
+    public User getUser(final String email) {
+        return usersByEmail.get(email);
+    }
+
+    /**
+     * @param iban the IBAN of the account
+     * @return the account with the given IBAN, or {@code null} if there is none
+     */
+    public Account getAccount(final String iban) {
+        return accountsByIban.get(iban);
+    }
+
+    /**
+     * @param alias the alias of the account
+     * @return the account with the given alias, or {@code null} if there is none
+     */
+    public Account getAccountByAlias(final String alias) {
+        List<Account> accounts = accountsByAlias.get(alias);
+        if (accounts == null) {
+            return null;
+        }
+        Account first = accounts.get(0);
+        long firstKey = firstKey(first);
+        for (int i = 1; i < accounts.size(); i++) {
+            long key = firstKey(accounts.get(i));
+            if (key < firstKey) {
+                first = accounts.get(i);
+                firstKey = key;
+            }
+        }
+        return first;
+    }
+
+    private long firstKey(final Account account) {
+        Holders places = holders.get(account);
+        return places == null ? Long.MAX_VALUE : places.first();
+    }
+
+    /**
+     * @return the global index of live cards
+     */
+    public CardIndex getCards() {
+        return cards;
+    }
+
+    /**
+     * @param name the name of the commerciant
+     * @return the commerciant with the given name, or {@code null} if there is none
+     */
+    public Commerciant getCommerciantByName(final String name) {
+        return commerciantsByName.get(name);
+    }
+
+    /**
+     * @param iban the IBAN of the commerciant
+     * @return the commerciant with the given IBAN, or {@code null} if there is none
+     */
+    public Commerciant getCommerciantByIban(final String iban) {
+        return commerciantsByIban.get(iban);
+    }
+
+    /**
+     * Forgets every user, account and commerciant.
+     */
+    public void clear() {
+        usersByEmail.clear();
+        userOrder.clear();
+        added = 0;
+        accountsByIban.clear();
+        accountsByAlias.clear();
+        holders.clear();
+        commerciantsByName.clear();
+        commerciantsByIban.clear();
+        cards.clear();
+    }
+
+    /**
+     * The keys of the places of an account in the lists of the users, in the order they were
+     * added; an account is usually in one list, a business account in a few.
+     */
+    private static final class Holders {
+        private long[] keys = new long[1];
+        private int size;
+
+        private void add(final long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        /**
+         * Removes the first place of the account in the list of a user.
+         */
+        private void remove(final int user) {
+            for (int i = 0; i < size; i++) {
+                if ((int) (keys[i] >>> Integer.SIZE) == user) {
+                    System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        private long first() {
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                first = Math.min(first, keys[i]);
+            }
+            return first;
+        }
+    }
+}
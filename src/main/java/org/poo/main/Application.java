@@ -1,24 +1,43 @@
 package org.poo.main;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.Getter;
 import lombok.Setter;
 import org.poo.commands.CommandInvoker;
+import org.poo.commands.DependencyScheduler;
+import org.poo.commands.PartitionedInvoker;
+import org.poo.fileio.ArrayNodeSink;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
 import org.poo.fileio.ObjectInput;
+import org.poo.fileio.OutputSink;
 import org.poo.main.accounts.Account;
 import org.poo.main.cardTypes.Card;
 import org.poo.main.splitPayment.SplitPayment;
 import org.poo.main.splitPayment.SplitPaymentInfo;
 import org.poo.main.splitPayment.SplitPaymentStatus;
+import org.poo.main.transactions.CardFrozen;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.Cursor;
+import org.poo.main.transactions.InterestRateChanged;
+import org.poo.main.transactions.Page;
+import org.poo.main.transactions.PlanUpgrade;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.TransactionSerializer;
+import org.poo.persistence.TransactionJournal;
+import org.poo.persistence.WriteAheadLog;
 import org.poo.utils.Errors;
 import org.poo.utils.Utils;
 import org.poo.utils.Search;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -32,7 +51,12 @@ public class Application {
     private final ObjectInput input;
     private List<User> users;
     private List<Commerciant> commerciants;
-    private ExchangeRatesGraph exchangeRates;
+    private volatile ExchangeRatesGraph exchangeRates;
+    private final AccountRegistry registry;
+    // logs the commands changing the state, when they must survive a restart
+    private WriteAheadLog wal;
+    // holds the reports of the accounts off the heap, when set
+    private TransactionJournal journal;
 
     /**
      * Constructs an {@link Application} instance with the specified ObjectMapper and ObjectInput.
@@ -43,6 +67,25 @@ public class Application {
         this.input = input;
         users = new ArrayList<>();
         commerciants = new ArrayList<>();
+        registry = new AccountRegistry();
+    }
+
+    /**
+     * Moves the reports of every account to a journal, along with the reports of the accounts
+     * created from now on.
+     *
+     * @param transactionJournal the journal
+     */
+    public void useJournal(final TransactionJournal transactionJournal) {
+        journal = transactionJournal;
+        for (User user : users) {
+            for (Account account : user.getAccounts()) {
+                if (account != null) {
+                    journal.attach(account);
+                }
+            }
+            user.getDetachedAccounts().forEach(journal::attach);
+        }
     }
 
     /**
@@ -51,8 +94,33 @@ public class Application {
      * @param rates the list of {@link ExchangeRate} objects to parse
      */
     public void parseExchangeRates(final List<ExchangeRate> rates) {
-        exchangeRates = new ExchangeRatesGraph(rates);
-        exchangeRates.makeGraph(rates);
+        ExchangeRatesGraph graph = new ExchangeRatesGraph(rates);
+        graph.makeGraph(rates);
+        exchangeRates = graph;
+    }
+
+    /**
+     * Applies a live exchange rate tick. The updated graph replaces the current one,
+     * so a payment that already holds the previous graph finishes with the old rates.
+     *
+     * @param from      the currency to convert from
+     * @param to        the currency to convert to
+     * @param rate      the new exchange rate
+     * @param timestamp the timestamp of the tick
+     * @return {@code null} on success, or an error if the rate is invalid
+     */
+    public ObjectNode updateExchangeRate(final String from, final String to, final double rate,
+                                         final int timestamp) {
+        ExchangeRatesGraph current = exchangeRates;
+        if (current == null) {
+            current = new ExchangeRatesGraph(new ArrayList<>());
+        }
+        try {
+            exchangeRates = current.applyTick(from, to, rate);
+        } catch (IllegalArgumentException e) {
+            return Errors.invalidExchangeRate(timestamp);
+        }
+        return null;
     }
 
     /**
@@ -62,11 +130,15 @@ public class Application {
      */
     public void parseInput() {
         for (var userInput : input.getUsers()) {
-            users.add(new User(userInput, this));
+            User user = new User(userInput, this);
+            users.add(user);
+            registry.addUser(user);
         }
 
         for (var commerciantInput : input.getCommerciants()) {
-            commerciants.add(new Commerciant(commerciantInput));
+            Commerciant commerciant = new Commerciant(commerciantInput);
+            commerciants.add(commerciant);
+            registry.addCommerciant(commerciant);
         }
 
         if (input.getExchangeRates() != null) {
@@ -84,16 +156,79 @@ public class Application {
      * @return an {@link ArrayNode} containing the results of the executed commands
      */
     public ArrayNode parseCommands() {
-        ArrayNode outputArray = JsonNodeFactory.instance.arrayNode();
+        ArrayNodeSink sink = new ArrayNodeSink();
+        try {
+            parseCommands(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sink.getOutputs();
+    }
+
+    /**
+     * Executes commands parsed from the input, handing the result of each one to the sink
+     * as soon as the command finishes.
+     *
+     * @param sink the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void parseCommands(final OutputSink sink) throws IOException {
+        parseCommands(Arrays.asList(input.getCommands()).iterator(), sink);
+    }
+
+    /**
+     * Executes the given commands in order, handing the result of each one to the sink
+     * as soon as the command finishes. The commands are only requested from the iterator
+     * one at a time, so they can be decoded while the previous ones run.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void parseCommands(final Iterator<CommandInput> commands, final OutputSink sink)
+            throws IOException {
         CommandInvoker invoker = new CommandInvoker();
 
-        for (var commandInput : input.getCommands()) {
-            ObjectNode output = invoker.executeCommand(commandInput, this);
+        while (commands.hasNext()) {
+            CommandOutput output = invoker.executeCommand(commands.next(), this);
             if (output != null) {
-                outputArray.add(output.deepCopy());
+                sink.write(output);
             }
         }
-        return outputArray;
+    }
+
+    /**
+     * Executes the given commands like {@link #parseCommands(Iterator, OutputSink)}, spreading
+     * them over workers that each own a partition of the users, see {@link PartitionedInvoker}.
+     * The results are the same, handed to the sink in the same order.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @param workers  the number of workers, 1 or less to run the commands on this thread
+     * @throws IOException if the sink cannot write a result
+     */
+    public void parseCommands(final Iterator<CommandInput> commands, final OutputSink sink,
+                              final int workers) throws IOException {
+        if (workers <= 1) {
+            parseCommands(commands, sink);
+            return;
+        }
+        new PartitionedInvoker(this, workers).run(commands, sink);
+    }
+
+    /**
+     * Replays the given commands like {@link #parseCommands(Iterator, OutputSink)}, running
+     * the commands of different users at the same time, see {@link DependencyScheduler}.
+     * The results are the same, handed to the sink in the same order.
+     *
+     * @param commands    the commands to execute
+     * @param sink        the {@link OutputSink} receiving the results
+     * @param parallelism the number of threads running the commands
+     * @throws IOException if the sink cannot write a result
+     */
+    public void replayCommands(final Iterator<CommandInput> commands, final OutputSink sink,
+                               final int parallelism) throws IOException {
+        new DependencyScheduler(this, parallelism).run(commands, sink);
     }
 
     /**
@@ -104,7 +239,7 @@ public class Application {
      * @param timestamp the timestamp of the action
      */
     public void addAccount(final String email, final Account account, final int timestamp) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user != null) {
             user.addAccount(account, timestamp);
             account.setOwner(user);
@@ -123,7 +258,7 @@ public class Application {
     public ObjectNode deleteAccount(final String email, final String account,
                                     final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return null;
         }
@@ -146,7 +281,7 @@ public class Application {
      * @param timestamp the timestamp of the card creation
      */
     public void createCard(final String email, final Card card, final int timestamp) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user != null) {
             card.setCardNumber(Utils.generateCardNumber());
             user.addCard(card, timestamp);
@@ -160,7 +295,7 @@ public class Application {
      * @param timestamp the timestamp of the deletion
      */
     public void deleteCard(final String cardNumber, final int timestamp, final String email) {
-        Account acc = Search.getAccountByCard(users, cardNumber);
+        Account acc = Search.getAccountByCard(registry, cardNumber);
         if (acc != null) {
             acc.deleteCard(cardNumber, timestamp, email);
         }
@@ -176,11 +311,53 @@ public class Application {
         return parseCommands();
     }
 
+    /**
+     * Runs the entire application, streaming the results of the commands to the sink.
+     *
+     * @param sink the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void runApplication(final OutputSink sink) throws IOException {
+        parseInput();
+        parseCommands(sink);
+    }
+
+    /**
+     * Runs the entire application on commands given separately from the input,
+     * streaming their results to the sink.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @throws IOException if the sink cannot write a result
+     */
+    public void runApplication(final Iterator<CommandInput> commands, final OutputSink sink)
+            throws IOException {
+        parseInput();
+        parseCommands(commands, sink);
+    }
+
+    /**
+     * Runs the entire application on commands given separately from the input, spreading
+     * them over the given number of workers, see
+     * {@link #parseCommands(Iterator, OutputSink, int)}.
+     *
+     * @param commands the commands to execute
+     * @param sink     the {@link OutputSink} receiving the results
+     * @param workers  the number of workers, 1 or less to run the commands on this thread
+     * @throws IOException if the sink cannot write a result
+     */
+    public void runApplication(final Iterator<CommandInput> commands, final OutputSink sink,
+                               final int workers) throws IOException {
+        parseInput();
+        parseCommands(commands, sink, workers);
+    }
+
     /**
      * Resets the application by clearing users and resetting random generators.
      */
     public void resetAll() {
         users.clear();
+        registry.clear();
         Utils.resetRandom();
     }
 
@@ -192,7 +369,7 @@ public class Application {
      */
     public void addFunds(final String account, final double amount, final String email,
                          final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc != null) {
             acc.addFunds(amount, email, timestamp);
         }
@@ -205,7 +382,7 @@ public class Application {
      * @param amount the minimum balance to be set
      */
     public void setMinBalance(final String account, final double amount) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc != null) {
             acc.setMinBalance(amount);
         }
@@ -216,35 +393,38 @@ public class Application {
      *
      * @param cardNumber the card number used for the payment
      * @param amount the amount to be paid
-     * @param currency the currency of the payment
+     * @param currency the interned id of the currency of the payment
      * @param timestamp the timestamp of the transaction
      * @param commerciant the merchant name for the transaction
      * @return an {@link ObjectNode} representing the result of the payment
      */
-    public ObjectNode payOnline(final String cardNumber, double amount, final String currency,
+    public ObjectNode payOnline(final String cardNumber, double amount, final int currency,
                                 final int timestamp, final String commerciant,
                                 final String email) {
-        Card card = Search.getCardByNumber(users, cardNumber);
+        // read once, so the payment and the upgrade check see the same rates
+        ExchangeRatesGraph rates = exchangeRates;
+        Card card = Search.getCardByNumber(registry, cardNumber);
         if (card == null) {
             return Errors.cardNotFound(timestamp);
         }
 
-        if (Search.getCommerciantByName(commerciants, commerciant) == null) {
+        if (Search.getCommerciantByName(registry, commerciant) == null) {
             return Errors.commerciantNotFound(timestamp);
         }
 
-        ObjectNode node = card.getAccountBelonging()
-                .makePayment(card, amount, currency, exchangeRates, timestamp, commerciant, email);
+        TransactionEvent event = card.getAccountBelonging()
+                .makePayment(card, amount, currency, rates, timestamp, commerciant, email);
 
-        if (node.equals(Errors.cardNotFound(timestamp))) {
+        if (event instanceof TransactionError error
+                && Errors.CARD_NOT_FOUND.equals(error.description())) {
             return Errors.cardNotFound(timestamp);
         }
 
-        card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(node);
-        if (node.has("amount")) {
+        card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(event);
+        if (event instanceof CardPayment) {
             card.madePayment(timestamp);
-            ObjectNode upgrade = card.getAccountBelonging().checkForGold(amount,
-                                exchangeRates, timestamp);
+            PlanUpgrade upgrade = card.getAccountBelonging().checkForGold(amount, rates,
+                    timestamp);
             if (upgrade != null) {
                 card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(upgrade);
             }
@@ -261,20 +441,22 @@ public class Application {
      * @param description a description for the transaction
      * @param timestamp the timestamp of the transaction
      */
-    public ObjectNode sendMoney(final String fromAccount, final String toAccount, double amount,
-                          final String description, final int timestamp) {
+    public ObjectNode sendMoney(final String fromAccount, final String toAccount,
+                                final double amount, final String description,
+                                final int timestamp) {
+        ExchangeRatesGraph rates = exchangeRates;
         if (!isIBAN(fromAccount)) {
             return null;
         }
-        Account from = Search.getAccountByIBAN(users, fromAccount);
-        Account to = isIBAN(toAccount) ? Search.getAccountByIBAN(users, toAccount)
-                                        : Search.getAccountByAlias(users, toAccount);
+        Account from = Search.getAccountByIBAN(registry, fromAccount);
+        Account to = isIBAN(toAccount) ? Search.getAccountByIBAN(registry, toAccount)
+                                        : Search.getAccountByAlias(registry, toAccount);
 
         if (to == null) {
-            Commerciant comm = Search.getCommerciantByIban(commerciants, toAccount);
+            Commerciant comm = Search.getCommerciantByIban(registry, toAccount);
             if (comm != null && from != null) {
                 //transfer bancar catre comerciant
-                from.sendMoneyToCommerciant(amount, exchangeRates, comm, description, timestamp);
+                from.sendMoneyToCommerciant(amount, rates, comm, description, timestamp);
                 return null;
             }
         }
@@ -283,28 +465,30 @@ public class Application {
             return Errors.userNotFound(timestamp);
         }
 
-        double ronAmount = amount
-                * exchangeRates.getRate(from.getCurrency(), Utils.DEFAULT_CURRENCY);
-        double commission = from.getOwner().getCommission(ronAmount);
-        double newAmount = amount * commission;
+        int own = from.getCurrencyId();
+        Money sent = Money.of(amount, own);
+        Money ronAmount = sent.convert(rates.getRate(own, rates.getDefaultCurrencyId()),
+                rates.getDefaultCurrencyId());
+        double commission = from.getOwner().getCommission(ronAmount.toDouble());
+        Money toPay = sent.times(commission);
+
+        Money received = sent.convert(rates.getRate(own, to.getCurrencyId()),
+                to.getCurrencyId());
 
-        if (from.getBalance() < newAmount) {
-            ObjectNode node = Errors.insufficientFunds(timestamp);
-            from.getOwner().getCommandHistory().addToHistory(node);
-            from.addToReport(node);
+        if (!from.transferTo(to, toPay, received)) {
+            TransactionError error = new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
+            from.getOwner().getCommandHistory().addToHistory(error);
+            from.addToReport(error);
             return null;
         }
 
-        from.sendMoney(toAccount, amount, commission, description, timestamp);
-        ObjectNode result = from.checkForGold(newAmount, exchangeRates, timestamp);
-        amount *= exchangeRates.getRate(from.getCurrency(), to.getCurrency());
-        to.receiveMoney(fromAccount, amount, description, timestamp);
+        from.sendMoney(toAccount, sent, description, timestamp);
+        PlanUpgrade result = from.checkForGold(toPay.toDouble(), rates, timestamp);
+        to.receiveMoney(fromAccount, received, description, timestamp);
 
         if (result != null) {
             from.getOwner().getCommandHistory().addToHistory(result);
         }
-        from.setBalance(from.getBalance());
-        to.setBalance(to.getBalance());
         return null;
     }
 
@@ -315,8 +499,9 @@ public class Application {
      * @param alias the alias to be set
      */
     public void setAlias(final String account, final String alias) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc != null) {
+            registry.setAlias(acc, alias);
             acc.setAlias(alias);
         }
     }
@@ -328,21 +513,61 @@ public class Application {
      * @return an {@link ArrayNode} containing the user's transaction history
      */
     public ArrayNode printTransactions(final String email) {
-        User user = Search.getUserByEmail(users, email);
-        if (user != null) {
-            ArrayNode array = user.getCommandHistory().getHistory();
-            List<JsonNode> list = new ArrayList<>();
-            array.forEach(list::add);
-
-            list.sort(Comparator.comparingLong(node -> node.get("timestamp").asLong()));
+        return printTransactions(email, 0, Integer.MAX_VALUE);
+    }
 
-            array.removeAll();
-            list.forEach(array::add);
-            return array;
+    /**
+     * Prints a page of the transaction history for a user identified by email. The history is
+     * kept in timestamp order, so the page is printed as it is, without going through the rest
+     * of the history.
+     *
+     * @param email  the email of the user
+     * @param offset the position in the history of the first transaction printed
+     * @param limit  the largest number of transactions printed
+     * @return an {@link ArrayNode} containing the transactions of the page
+     */
+    public ArrayNode printTransactions(final String email, final int offset, final int limit) {
+        User user = Search.getUserByEmail(registry, email);
+        if (user != null) {
+            return TransactionSerializer.toJson(user.getCommandHistory().page(offset, limit));
         }
         return null;
     }
 
+    /**
+     * Prints the page of the transaction history for a user a cursor points to. The page is
+     * found in O(log n) and printed as it is, without going through the rest of the history.
+     * The cursor must come from an earlier page of the history of the same user.
+     *
+     * @param email     the email of the user
+     * @param cursor    the token of the page, or {@code null} for the first page
+     * @param limit     the largest number of transactions printed, all of them if not positive
+     * @param timestamp the timestamp of the action
+     * @return an {@link ObjectNode} containing the transactions of the page and the token of
+     *         the next page, if the history goes on
+     */
+    public ObjectNode printTransactions(final String email, final String cursor, final int limit,
+                                       final int timestamp) {
+        User user = Search.getUserByEmail(registry, email);
+        if (user == null) {
+            return null;
+        }
+        Cursor.Scope scope = new Cursor.Scope("printTransactions", user.getEmail(),
+                Integer.MIN_VALUE, Integer.MAX_VALUE);
+        Cursor start;
+        try {
+            start = cursor == null ? new Cursor(Integer.MIN_VALUE, 0)
+                    : Cursor.decode(cursor, scope);
+        } catch (IllegalArgumentException e) {
+            return Errors.invalidCursor(timestamp);
+        }
+        Page<TransactionEvent> page = user.getCommandHistory().page(start, pageSize(limit));
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.set("transactions", TransactionSerializer.toJson(page.events()));
+        putNextCursor(node, page, scope);
+        return node;
+    }
+
     /**
      * Checks the status of a card, and freezes it if the balance is below the minimum threshold.
      *
@@ -351,7 +576,7 @@ public class Application {
      * @return an {@link ObjectNode} representing the result of the action
      */
     public ObjectNode checkCardStatus(final String cardNumber, final int timestamp) {
-        Card card = Search.getCardByNumber(users, cardNumber);
+        Card card = Search.getCardByNumber(registry, cardNumber);
         if (card == null) {
             return Errors.cardNotFound(timestamp);
         }
@@ -359,11 +584,7 @@ public class Application {
         Account account = card.getAccountBelonging();
         if (account.getBalance() <= account.getMinBalance()) {
             card.blockCard();
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("timestamp", timestamp);
-            node.put("description",
-                    "You have reached the minimum amount of funds, the card will be frozen");
-            account.getOwner().getCommandHistory().addToHistory(node);
+            account.getOwner().getCommandHistory().addToHistory(new CardFrozen(timestamp));
         }
         return null;
     }
@@ -378,17 +599,15 @@ public class Application {
      */
     public ObjectNode changeInterestRate(final double newInterestRate, final String account,
                                          final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
         try {
             acc.setInterestRate(newInterestRate);
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("description", "Interest rate of the account changed to " + newInterestRate);
-            node.put("timestamp", timestamp);
-            acc.getOwner().getCommandHistory().addToHistory(node);
-            acc.addToReport(node);
+            InterestRateChanged event = new InterestRateChanged(timestamp, newInterestRate);
+            acc.getOwner().getCommandHistory().addToHistory(event);
+            acc.addToReport(event);
         } catch (UnsupportedOperationException e) {
             return Errors.notSavingsAccount(timestamp);
         }
@@ -403,15 +622,16 @@ public class Application {
      * @return an {@link ObjectNode} with the result of the operation
      */
     public ObjectNode addInterest(final String account, final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
         try {
-            ObjectNode node = acc.addInterest();
-            node.put("timestamp", timestamp);
-            acc.getOwner().getCommandHistory().addToHistory(node);
-            acc.addToReport(node);
+            TransactionEvent event = acc.addInterest(timestamp);
+            if (event != null) {
+                acc.getOwner().getCommandHistory().addToHistory(event);
+                acc.addToReport(event);
+            }
         } catch (UnsupportedOperationException e) {
             return Errors.notSavingsAccount(timestamp);
         }
@@ -435,10 +655,11 @@ public class Application {
                                    final String currency, final double amount,
                                    final List<Double> amountForUsers, final int timestamp,
                                    final int id) {
+        ExchangeRatesGraph rates = exchangeRates;
         SplitPayment splitPayment = new SplitPayment(type, accounts, amount, currency,
-                amountForUsers, exchangeRates, timestamp);
+                amountForUsers, rates, timestamp);
         for (String account : accounts) {
-            Account acc = Search.getAccountByIBAN(users, account);
+            Account acc = Search.getAccountByIBAN(registry, account);
             if (acc == null) {
                 return Errors.invalidAccountForSplit(timestamp);
             }
@@ -446,7 +667,7 @@ public class Application {
         }
 
         for (String account : accounts) {
-            Account acc = Search.getAccountByIBAN(users, account);
+            Account acc = Search.getAccountByIBAN(registry, account);
             User user = acc.getOwner();
             splitPayment.getUserStatuses().put(acc, SplitPaymentStatus.PENDING);
             SplitPaymentInfo splitPaymentInfo = new SplitPaymentInfo(splitPayment, acc, id);
@@ -465,7 +686,7 @@ public class Application {
      */
     public ObjectNode getReport(final String account, final int startTimestamp,
                                 final int endTimestamp, final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
@@ -478,6 +699,45 @@ public class Application {
         return node;
     }
 
+    /**
+     * Retrieves the page of a report a cursor points to, going only through the transactions
+     * of the page. The cursor must come from an earlier page of the same report.
+     *
+     * @param account the IBAN of the account
+     * @param startTimestamp the start timestamp of the report period
+     * @param endTimestamp the end timestamp of the report period
+     * @param cursor the token of the page, or {@code null} for the first page
+     * @param limit the largest number of transactions of the page, all of them if not positive
+     * @param timestamp the timestamp of the action
+     * @return an {@link ObjectNode} representing the page of the account's report, with the
+     *         token of the next page, if the report goes on
+     */
+    public ObjectNode getReport(final String account, final int startTimestamp,
+                                final int endTimestamp, final String cursor, final int limit,
+                                final int timestamp) {
+        Account acc = Search.getAccountByIBAN(registry, account);
+        if (acc == null) {
+            return Errors.accountNotFound(timestamp);
+        }
+        Cursor.Scope scope = new Cursor.Scope("report", acc.getIban(), startTimestamp,
+                endTimestamp);
+        int start;
+        try {
+            start = pageStart(startTimestamp, cursor, scope);
+        } catch (IllegalArgumentException e) {
+            return Errors.invalidCursor(timestamp);
+        }
+
+        Page<TransactionEvent> page = acc.getReportPage(start, endTimestamp, pageSize(limit));
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("IBAN", acc.getIban());
+        node.put("balance", acc.getBalance());
+        node.put("currency", acc.getCurrency());
+        node.set("transactions", TransactionSerializer.toJson(page.events()));
+        putNextCursor(node, page, scope);
+        return node;
+    }
+
     /**
      * Retrieves a report of an account's spending activity within a specific time range.
      *
@@ -489,7 +749,7 @@ public class Application {
     public ObjectNode getSpendingsReport(final String account, final int startTimestamp,
                                          final int endTimestamp, final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
@@ -506,6 +766,71 @@ public class Application {
         return node;
     }
 
+    /**
+     * Retrieves the page of a spending report a cursor points to. The commerciants are those
+     * of the payments of the page, so the page costs no more than its payments. The cursor must
+     * come from an earlier page of the same spending report.
+     *
+     * @param account the IBAN of the account
+     * @param startTimestamp the start timestamp of the report period
+     * @param endTimestamp the end timestamp of the report period
+     * @param cursor the token of the page, or {@code null} for the first page
+     * @param limit the largest number of payments of the page, all of them if not positive
+     * @param timestamp the timestamp of the action
+     * @return an {@link ObjectNode} representing the page of the account's spending report,
+     *         with the token of the next page, if the report goes on
+     */
+    public ObjectNode getSpendingsReport(final String account, final int startTimestamp,
+                                         final int endTimestamp, final String cursor,
+                                         final int limit, final int timestamp) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        Account acc = Search.getAccountByIBAN(registry, account);
+        if (acc == null) {
+            return Errors.accountNotFound(timestamp);
+        }
+        Cursor.Scope scope = new Cursor.Scope("spendingsReport", acc.getIban(), startTimestamp,
+                endTimestamp);
+        int start;
+        try {
+            start = pageStart(startTimestamp, cursor, scope);
+        } catch (IllegalArgumentException e) {
+            return Errors.invalidCursor(timestamp);
+        }
+        try {
+            Page<CardPayment> page = acc.getSpendingsReportPage(start, endTimestamp,
+                    pageSize(limit));
+            List<CardPayment> payments = page.events();
+            node.put("IBAN", acc.getIban());
+            node.put("balance", acc.getBalance());
+            node.put("currency", acc.getCurrency());
+            node.set("transactions", TransactionSerializer.toJson(payments));
+            node.set("commerciants", payments.isEmpty() ? JsonNodeFactory.instance.arrayNode()
+                    : acc.getCommerciants(payments.get(0).timestamp(),
+                            payments.get(payments.size() - 1).timestamp()));
+            putNextCursor(node, page, scope);
+        } catch (UnsupportedOperationException e) {
+            node.put("error", "This kind of report is not supported for a saving account");
+        }
+        return node;
+    }
+
+    private static int pageSize(final int limit) {
+        return limit > 0 ? limit : Integer.MAX_VALUE;
+    }
+
+    private static int pageStart(final int startTimestamp, final String cursor,
+                                 final Cursor.Scope scope) {
+        return cursor == null ? startTimestamp
+                : Math.max(startTimestamp, Cursor.decode(cursor, scope).timestamp());
+    }
+
+    private static void putNextCursor(final ObjectNode node, final Page<?> page,
+                                      final Cursor.Scope scope) {
+        if (page.next() != null) {
+            node.put("nextCursor", page.next().encode(scope));
+        }
+    }
+
     /**
      * Checks if a string is a valid IBAN.
      *
@@ -526,12 +851,13 @@ public class Application {
      */
     public void withdrawSavings(final String account, double amount, final String currency,
                                 final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        ExchangeRatesGraph rates = exchangeRates;
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return;
         }
-        amount *= exchangeRates.getRate(currency, acc.getCurrency());
-        acc.getOwner().withdrawSavings(acc, amount, currency, timestamp);
+        amount *= rates.getRate(currency, acc.getCurrency());
+        acc.getOwner().withdrawSavings(acc, amount, currency, rates, timestamp);
     }
 
     /**
@@ -545,11 +871,12 @@ public class Application {
      */
     public ObjectNode upgradePlan(final String account, final String newPlanType,
                                   final int timestamp) {
-       Account acc = Search.getAccountByIBAN(users, account);
+       ExchangeRatesGraph rates = exchangeRates;
+       Account acc = Search.getAccountByIBAN(registry, account);
        if (acc == null) {
            return Errors.accountNotFound(timestamp);
        }
-       double rate = exchangeRates.getRate(Utils.DEFAULT_CURRENCY, acc.getCurrency());
+       double rate = rates.getRate(rates.getDefaultCurrencyId(), acc.getCurrencyId());
        acc.getOwner().upgradePlan(acc, ServicePlan.valueOf(newPlanType.toUpperCase()),
                                     rate, timestamp);
          return null;
@@ -567,18 +894,18 @@ public class Application {
      */
     public ObjectNode cashWithdrawal(final String cardNumber, final double amount,
                                      final String email, final int timestamp) {
-        User user = Search.getUserByEmail(users, email);
+        ExchangeRatesGraph rates = exchangeRates;
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return Errors.userNotFound(timestamp);
         }
-        Card card = Search.getCardByNumber(users, cardNumber);
+        Card card = Search.getCardByNumber(registry, cardNumber);
         if (card == null || !card.getAccountBelonging().getOwner().getEmail().equals(email)) {
             return Errors.cardNotFound(timestamp);
         }
 
-        ObjectNode inner = card.getAccountBelonging().cashWithdrawal(card,
-                amount, timestamp, exchangeRates);
-        card.getAccountBelonging().setBalance(card.getAccountBelonging().getBalance());
+        TransactionEvent inner = card.getAccountBelonging().cashWithdrawal(card,
+                amount, timestamp, rates);
         card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(inner);
         return null;
     }
@@ -607,7 +934,7 @@ public class Application {
      */
     public ObjectNode acceptSplitPayment(final String email, final int timestamp,
                                          final String type) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return Errors.userNotFound(timestamp);
         }
@@ -626,7 +953,7 @@ public class Application {
      */
     public ObjectNode rejectSplitPayment(final String email, final int timestamp,
                                          final String type) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return Errors.userNotFound(timestamp);
         }
@@ -644,7 +971,7 @@ public class Application {
      */
     public void addNewBussinessAssociate(final String account, final String role,
                                          final String email, final int timestamp) {
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return;
         }
@@ -663,11 +990,11 @@ public class Application {
      */
     public ObjectNode changeSpendingLimit(final String email, final String account,
                                           final double amount, final int timestamp) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return Errors.userNotFound(timestamp);
         }
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
@@ -690,11 +1017,11 @@ public class Application {
      */
     public ObjectNode changeDepositLimit(final String email, final String account,
                                          final double amount, final int timestamp) {
-        User user = Search.getUserByEmail(users, email);
+        User user = Search.getUserByEmail(registry, email);
         if (user == null) {
             return Errors.userNotFound(timestamp);
         }
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
@@ -720,7 +1047,7 @@ public class Application {
                                      final int endTimestamp, final String account,
                                      final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
-        Account acc = Search.getAccountByIBAN(users, account);
+        Account acc = Search.getAccountByIBAN(registry, account);
         if (acc == null) {
             return Errors.accountNotFound(timestamp);
         }
@@ -735,6 +1062,10 @@ public class Application {
 
     /**
      * Removes the specified account from the user who owns it.
+     * <p>
+     * The account is taken off the first user holding it. If that is its owner while its
+     * associates still hold it, the owner keeps track of it as a detached account, so that
+     * a snapshot still saves it along with the owner.
      *
      * @param a the {@link Account} to remove
      */
@@ -742,6 +1073,10 @@ public class Application {
         for (User u : users) {
             if (u.getAccounts().contains(a)) {
                 u.getAccounts().remove(a);
+                registry.removeAccount(u, a);
+                if (u == a.getOwner() && registry.getAccount(a.getIban()) == a) {
+                    u.getDetachedAccounts().add(a);
+                }
                 return;
             }
         }
@@ -1,5 +1,8 @@
 package org.poo.main;
 
+import lombok.Getter;
+import lombok.Setter;
+import org.poo.utils.Search;
 import org.poo.utils.Utils;
 
 import java.util.HashMap;
@@ -13,10 +16,15 @@ import java.util.Map;
  */
 public class CashbackService {
     private final Application app;
+    @Getter
     private final Map<String, Integer> nrOfTransactions = new HashMap<>();
-    private double totalAmount = 0;
+    // total spent at spendingThreshold commerciants, in RON micro-units
+    @Getter @Setter
+    private long totalAmount = 0;
+    @Getter
     private final Map<String, Double> availableCashback = new HashMap<>();
-    private final Map<String, Double> usedCashback = new HashMap<>();
+    @Getter
+    private final Map<String, Money> usedCashback = new HashMap<>();
 
     /**
      * Constructs a {@code CashbackService} for the given application.
@@ -34,12 +42,7 @@ public class CashbackService {
      * @return the {@link Commerciant} if found, otherwise {@code null}
      */
     public Commerciant getCommerciant(final String name) {
-        for (Commerciant commerciant : app.getCommerciants()) {
-            if (commerciant.getName().equals(name)) {
-                return commerciant;
-            }
-        }
-        return null;
+        return Search.getCommerciantByName(app.getRegistry(), name);
     }
 
     /**
@@ -54,19 +57,19 @@ public class CashbackService {
     /**
      * Adds the specified amount to the total spending tracked by the service.
      *
-     * @param amount the amount to add
+     * @param amount the amount to add, in RON
      */
-    public void incrementAmount(final double amount) {
-        totalAmount += amount;
+    public void incrementAmount(final Money amount) {
+        totalAmount = Math.addExact(totalAmount, amount.micros());
     }
 
     /**
      * Adds a transaction to a commerciant and checks for cashback eligibility.
      *
      * @param commerciant the name of the commerciant
-     * @param amount      the transaction amount
+     * @param amount      the transaction amount, in RON
      */
-    public void addTransactionToCommerciant(final String commerciant, final double amount) {
+    public void addTransactionToCommerciant(final String commerciant, final Money amount) {
         Commerciant c = getCommerciant(commerciant);
         if (c == null) {
             return;
@@ -119,26 +122,55 @@ public class CashbackService {
         return usedCashback.size() == Utils.TOTAL_DISCOUNTS;
     }
 
+    /**
+     * Records a payment to a commerciant and grants the cashback it earns, both for the number
+     * of transactions and for the spending threshold of the commerciant.
+     * <p>
+     * It is synchronized, since the payments of an account may run on several threads while
+     * the state of the service depends on their order.
+     *
+     * @param commerciant the name of the commerciant
+     * @param paid        the amount paid, in the currency of the account
+     * @param ronAmount   the amount paid, in RON
+     * @param plan        the plan of the owner of the account
+     * @param toAccount   the exchange rate from RON to the currency of the account
+     * @return the cashback granted, in the currency of the account
+     */
+    public synchronized Money cashbackFor(final String commerciant, final Money paid,
+                                          final Money ronAmount, final ServicePlan plan,
+                                          final double toAccount) {
+        int ron = ronAmount.currency();
+        Money cashback = giveCashbackForTransactions(commerciant, paid);
+
+        addTransactionToCommerciant(commerciant, ronAmount);
+
+        // the cashback already granted is taken off the RON amount as is, without converting it
+        Money newCashback = giveCashbackForAmount(commerciant,
+                ronAmount.minus(new Money(cashback.micros(), ron)), plan);
+        return cashback.plus(newCashback.convert(toAccount, paid.currency()));
+    }
+
     /**
      * Grants cashback based on the number of transactions for a commerciant.
      *
      * @param name   the name of the commerciant
      * @param amount the transaction amount
-     * @return the granted cashback amount, or {@code 0} if no cashback is available
+     * @return the granted cashback amount in the currency of the transaction,
+     *         or zero if no cashback is available
      */
-    public double giveCashbackForTransactions(final String name, final double amount) {
+    public Money giveCashbackForTransactions(final String name, final Money amount) {
         Commerciant commerciant = getCommerciant(name);
         if (commerciant == null) {
-            return 0;
+            return Money.zero(amount.currency());
         }
 
         if (availableCashback.containsKey(commerciant.getType())) {
-            double cashback = amount * availableCashback.get(commerciant.getType());
+            Money cashback = amount.times(availableCashback.get(commerciant.getType()));
             usedCashback.put(commerciant.getType(), cashback);
             availableCashback.remove(commerciant.getType());
             return cashback;
         }
-        return 0;
+        return Money.zero(amount.currency());
     }
 
     /**
@@ -147,44 +179,48 @@ public class CashbackService {
      * @param name   the name of the commerciant
      * @param amount the transaction amount
      * @param type   the user's {@link ServicePlan}
-     * @return the granted cashback amount, or {@code 0} if no cashback is eligible
+     * @return the granted cashback amount in the currency of the transaction,
+     *         or zero if no cashback is eligible
      */
-    public double giveCashbackForAmount(final String name, final double amount,
-                                        final ServicePlan type) {
+    public Money giveCashbackForAmount(final String name, final Money amount,
+                                       final ServicePlan type) {
         Commerciant commerciant = getCommerciant(name);
         if (commerciant == null
                 || !"spendingThreshold".equals(commerciant.getCashbackStrategy())) {
-            return 0;
+            return Money.zero(amount.currency());
         }
+        long big = Utils.THRESHOLD_500 * Money.MICROS_PER_UNIT;
+        long medium = Utils.THRESHOLD_300 * Money.MICROS_PER_UNIT;
+        long small = Utils.THRESHOLD_100 * Money.MICROS_PER_UNIT;
 
         switch (type) {
             case STUDENT:
             case STANDARD:
-                if (totalAmount >= Utils.THRESHOLD_500) {
-                    return amount * Utils.BIG_CASHBACK_STD;
-                } else if (totalAmount >= Utils.THRESHOLD_300) {
-                    return amount * Utils.MED_CASHBACK_STD;
-                } else if (totalAmount >= Utils.THRESHOLD_100) {
-                    return amount * Utils.SMALL_CASHBACK_STD;
+                if (totalAmount >= big) {
+                    return amount.times(Utils.BIG_CASHBACK_STD);
+                } else if (totalAmount >= medium) {
+                    return amount.times(Utils.MED_CASHBACK_STD);
+                } else if (totalAmount >= small) {
+                    return amount.times(Utils.SMALL_CASHBACK_STD);
                 }
             case SILVER:
-                if (totalAmount >= Utils.THRESHOLD_500) {
-                    return amount * Utils.BIG_CASHBACK_SILVER;
-                } else if (totalAmount >= Utils.THRESHOLD_300) {
-                    return amount * Utils.MED_CASHBACK_SILVER;
-                } else if (totalAmount >= Utils.THRESHOLD_100) {
-                    return amount * Utils.SMALL_CASHBACK_SILVER;
+                if (totalAmount >= big) {
+                    return amount.times(Utils.BIG_CASHBACK_SILVER);
+                } else if (totalAmount >= medium) {
+                    return amount.times(Utils.MED_CASHBACK_SILVER);
+                } else if (totalAmount >= small) {
+                    return amount.times(Utils.SMALL_CASHBACK_SILVER);
                 }
             case GOLD:
-                if (totalAmount >= Utils.THRESHOLD_500) {
-                    return amount * Utils.BIG_CASHBACK_GOLD;
-                } else if (totalAmount >= Utils.THRESHOLD_300) {
-                    return amount * Utils.MED_CASHBACK_GOLD;
-                } else if (totalAmount >= Utils.THRESHOLD_100) {
-                    return amount * Utils.SMALL_CASHBACK_GOLD;
+                if (totalAmount >= big) {
+                    return amount.times(Utils.BIG_CASHBACK_GOLD);
+                } else if (totalAmount >= medium) {
+                    return amount.times(Utils.MED_CASHBACK_GOLD);
+                } else if (totalAmount >= small) {
+                    return amount.times(Utils.SMALL_CASHBACK_GOLD);
                 }
             default:
         }
-        return 0;
+        return Money.zero(amount.currency());
     }
 }
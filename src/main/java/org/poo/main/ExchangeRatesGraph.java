@@ -1,10 +1,14 @@
 package org.poo.main;
 
 import lombok.Getter;
-import lombok.Setter;
+import org.poo.utils.Utils;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -13,11 +17,27 @@ import java.util.Set;
  * This class stores the exchange rates between currencies in a graph (as an adjacency matrix),
  * and provides methods to calculate the rates between any two currencies,
  * including indirect conversions using the Floyd-Warshall algorithm.
+ * <p>
+ * Every currency is interned into a dense id, its index in {@link #getCurrencies()}.
+ * The matrix is flattened row by row, so {@link #getRate(int, int)} is a single array load.
+ * <p>
+ * Once built, a graph is never modified. {@link #applyTick(String, String, double)} returns a
+ * copy holding the new rate, so a reader that holds a graph keeps a consistent view of every
+ * rate while the {@link Application} swaps in the updated one. Ids are only ever appended,
+ * so an id resolved against an older graph stays valid in the newer ones.
  */
-@Getter @Setter
-public class ExchangeRatesGraph {
+@Getter
+public final class ExchangeRatesGraph {
+    public static final int UNKNOWN_CURRENCY = -1;
+
     private final List<String> currencies;
-    private double[][] graph;
+    private final Map<String, Integer> currencyIds;
+    private final int size;
+    private final int defaultCurrencyId;
+    // the rates given directly in the input or by ticks, 0 where a pair is not quoted
+    private final double[] edges;
+    // the best rate between every pair of currencies
+    private final double[] rates;
 
     /**
      * Constructs an {@link ExchangeRatesGraph} from a list of {@link ExchangeRate} objects.
@@ -27,8 +47,35 @@ public class ExchangeRatesGraph {
      * @param exchangeRates a list of exchange rates between currencies
      */
     public ExchangeRatesGraph(final List<ExchangeRate> exchangeRates) {
-        this.currencies = new ArrayList<>(getCurrencies(exchangeRates));
-        graph = new double[currencies.size()][currencies.size()];
+        this(getCurrencies(exchangeRates).toArray(new String[0]));
+    }
+
+    private ExchangeRatesGraph(final String[] currencies) {
+        this.currencies = List.of(currencies);
+        size = currencies.length;
+        currencyIds = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            currencyIds.put(currencies[i], i);
+        }
+        defaultCurrencyId = getCurrencyId(Utils.DEFAULT_CURRENCY);
+        edges = new double[size * size];
+        rates = new double[size * size];
+    }
+
+    /**
+     * Rebuilds a graph from its currencies and rates, as saved in a snapshot.
+     *
+     * @param currencies the currencies, in the order of their ids
+     * @param edges      the direct rates, flattened row by row
+     * @param rates      the best rates, flattened row by row
+     * @return the graph
+     */
+    public static ExchangeRatesGraph of(final List<String> currencies, final double[] edges,
+                                        final double[] rates) {
+        ExchangeRatesGraph graph = new ExchangeRatesGraph(currencies.toArray(new String[0]));
+        System.arraycopy(edges, 0, graph.edges, 0, graph.edges.length);
+        System.arraycopy(rates, 0, graph.rates, 0, graph.rates.length);
+        return graph;
     }
 
     /**
@@ -37,7 +84,7 @@ public class ExchangeRatesGraph {
      * @param exchangeRates a list of exchange rates
      * @return a set of unique currencies used in the exchange rates
      */
-    private Set<String> getCurrencies(final List<ExchangeRate> exchangeRates) {
+    private static Set<String> getCurrencies(final List<ExchangeRate> exchangeRates) {
         Set<String> currenciesSet = new HashSet<>();
         for (ExchangeRate rate : exchangeRates) {
             currenciesSet.add(rate.getFrom());
@@ -58,14 +105,14 @@ public class ExchangeRatesGraph {
      */
     public void makeGraph(final List<ExchangeRate> exchangeRates) {
         for (ExchangeRate rate : exchangeRates) {
-            int fromIndex = currencies.indexOf(rate.getFrom());
-            int toIndex = currencies.indexOf(rate.getTo());
-            graph[fromIndex][toIndex] = rate.getRate();
-            graph[toIndex][fromIndex] = 1 / rate.getRate();
+            int fromIndex = getCurrencyId(rate.getFrom());
+            int toIndex = getCurrencyId(rate.getTo());
+            edges[fromIndex * size + toIndex] = rate.getRate();
+            edges[toIndex * size + fromIndex] = 1 / rate.getRate();
         }
 
-        for (int i = 0; i < currencies.size(); i++) {
-            graph[i][i] = 1;
+        for (int i = 0; i < size; i++) {
+            edges[i * size + i] = 1;
         }
 
         floydWarshall();
@@ -76,17 +123,140 @@ public class ExchangeRatesGraph {
      * between all pairs of currencies. This ensures that indirect exchange rates are calculated.
      */
     public void floydWarshall() {
-        for (int k = 0; k < currencies.size(); k++) {
-            for (int i = 0; i < currencies.size(); i++) {
-                for (int j = 0; j < currencies.size(); j++) {
-                    if (graph[i][j] < graph[i][k] * graph[k][j]) {
-                        graph[i][j] = graph[i][k] * graph[k][j];
+        System.arraycopy(edges, 0, rates, 0, edges.length);
+        for (int k = 0; k < size; k++) {
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    double viaK = rates[i * size + k] * rates[k * size + j];
+                    if (rates[i * size + j] < viaK) {
+                        rates[i * size + j] = viaK;
                     }
                 }
             }
         }
     }
 
+    /**
+     * Returns a copy of this graph in which {@code from} converts to {@code to} at the given
+     * rate, and {@code to} converts back at its reciprocal. Currencies that were not known yet
+     * are appended with new ids.
+     * <p>
+     * When the quoted pair is the only link between the currencies on its two sides, every best
+     * rate crossing it goes through the pair, so only those rates are recomputed, in
+     * O(n<sup>2</sup>). When the pair closes a cycle, the closure is rebuilt from the direct
+     * rates with {@link #floydWarshall()}.
+     *
+     * @param from the currency to convert from
+     * @param to the currency to convert to
+     * @param rate the new exchange rate
+     * @return the updated graph
+     * @throws IllegalArgumentException if the currencies are the same or the rate is not positive
+     */
+    public ExchangeRatesGraph applyTick(final String from, final String to, final double rate) {
+        if (from == null || to == null || from.equals(to) || !(rate > 0)
+                || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Invalid exchange rate");
+        }
+        List<String> newCurrencies = new ArrayList<>(currencies);
+        for (String currency : List.of(from, to)) {
+            if (!currencyIds.containsKey(currency)) {
+                newCurrencies.add(currency);
+            }
+        }
+
+        ExchangeRatesGraph next = new ExchangeRatesGraph(newCurrencies.toArray(new String[0]));
+        next.copyFrom(this);
+        int n = next.size;
+        int u = next.getCurrencyId(from);
+        int v = next.getCurrencyId(to);
+        double back = 1 / rate;
+        next.edges[u * n + v] = rate;
+        next.edges[v * n + u] = back;
+
+        boolean[] fromSide = next.reachableWithout(u, u, v);
+        if (fromSide[v]) {
+            next.floydWarshall();
+            return next;
+        }
+        boolean[] toSide = next.reachableWithout(v, u, v);
+        for (int i = 0; i < n; i++) {
+            if (!fromSide[i]) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                if (toSide[j]) {
+                    next.rates[i * n + j] = next.rates[i * n + u] * rate * next.rates[v * n + j];
+                    next.rates[j * n + i] = next.rates[j * n + v] * back * next.rates[u * n + i];
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Copies the direct and best rates of a graph whose currencies are a prefix of these.
+     */
+    private void copyFrom(final ExchangeRatesGraph previous) {
+        int old = previous.size;
+        for (int i = 0; i < old; i++) {
+            System.arraycopy(previous.edges, i * old, edges, i * size, old);
+            System.arraycopy(previous.rates, i * old, rates, i * size, old);
+        }
+        for (int i = old; i < size; i++) {
+            edges[i * size + i] = 1;
+            rates[i * size + i] = 1;
+        }
+    }
+
+    /**
+     * Finds the currencies reachable from {@code start} through direct rates,
+     * without using the pair {@code a}-{@code b}.
+     */
+    private boolean[] reachableWithout(final int start, final int a, final int b) {
+        boolean[] seen = new boolean[size];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        seen[start] = true;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            for (int j = 0; j < size; j++) {
+                if (seen[j] || edges[i * size + j] == 0
+                        || (i == a && j == b) || (i == b && j == a)) {
+                    continue;
+                }
+                seen[j] = true;
+                queue.add(j);
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Resolves a currency to its interned id.
+     *
+     * @param currency the currency code
+     * @return the id of the currency, or {@link #UNKNOWN_CURRENCY} if it has no rates
+     */
+    public int getCurrencyId(final String currency) {
+        Integer id = currencyIds.get(currency);
+        return id == null ? UNKNOWN_CURRENCY : id;
+    }
+
+    /**
+     * Retrieves the exchange rate between two interned currencies.
+     *
+     * @param from the id of the currency to convert from
+     * @param to the id of the currency to convert to
+     * @return the exchange rate from the "from" currency to the "to" currency
+     * @throws IllegalArgumentException if either currency is unknown
+     */
+    public double getRate(final int from, final int to) {
+        if (from < 0 || to < 0 || from >= size || to >= size) {
+            throw new IllegalArgumentException("Unknown currency");
+        }
+        return rates[from * size + to];
+    }
+
     /**
      * Retrieves the exchange rate between two currencies.
      *
@@ -95,8 +265,6 @@ public class ExchangeRatesGraph {
      * @return the exchange rate from the "from" currency to the "to" currency
      */
     public double getRate(final String from, final String to) {
-        int fromIndex = currencies.indexOf(from);
-        int toIndex = currencies.indexOf(to);
-        return graph[fromIndex][toIndex];
+        return getRate(getCurrencyId(from), getCurrencyId(to));
     }
 }
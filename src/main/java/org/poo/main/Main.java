@@ -1,11 +1,11 @@
 package org.poo.main;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
-import org.poo.fileio.ObjectInput;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.OutputSink;
+import org.poo.fileio.StreamingInputReader;
+import org.poo.persistence.TransactionJournal;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,6 +20,12 @@ import java.util.Objects;
  * The entry point to this homework. It runs the checker that tests your implementation.
  */
 public final class Main {
+    private static final int READ_AHEAD = 1024;
+    // -Dworkers=N spreads the commands of every test over N partitions of the users
+    private static final int WORKERS = Integer.getInteger("workers", 1);
+    // -Djournal=DIR keeps the reports of the accounts in a journal mapped from DIR
+    private static final String JOURNAL = System.getProperty("journal");
+
     /**
      * for coding style
      */
@@ -68,17 +74,21 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
-
-        Application application = new Application(inputData);
-        application.resetAll();
-        ArrayNode outputArray = application.runApplication();
-        application.resetAll();
-
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), outputArray);
+        Path file = Path.of(CheckerConstants.TESTS_PATH + filePath1);
+        // decoding ahead only pays off when the decoder gets a core of its own
+        int readAhead = Runtime.getRuntime().availableProcessors() > 1 ? READ_AHEAD : 0;
+        try (StreamingInputReader reader = new StreamingInputReader(file, readAhead);
+             OutputSink sink = new JsonGeneratorSink(Path.of(filePath2), true);
+             TransactionJournal journal = JOURNAL == null ? null
+                     : TransactionJournal.open(Path.of(JOURNAL))) {
+            Application application = new Application(reader.getInput());
+            application.resetAll();
+            if (journal != null) {
+                application.useJournal(journal);
+            }
+            application.runApplication(reader.commands(), sink, WORKERS);
+            application.resetAll();
+        }
     }
 
     /**
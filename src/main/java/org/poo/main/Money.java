@@ -0,0 +1,122 @@
+package org.poo.main;
+
+/**
+ * An amount of money in a given currency, stored as a whole number of micro-units.
+ * <p>
+ * Sums and differences are exact. Multiplying by a rate, a commission or a cashback percentage
+ * rounds the result to the nearest micro-unit, half to even, so the rounding happens in one
+ * visible place instead of drifting through a chain of {@code double} operations.
+ * <p>
+ * The value is a small record of two primitives: the JIT scalar-replaces the instances created
+ * on the payment paths, and accounts keep their balance as a plain {@code long}, so no money
+ * arithmetic leaves garbage behind.
+ *
+ * @param micros   the amount, in millionths of a unit of the currency
+ * @param currency the interned id of the currency, as given by {@link ExchangeRatesGraph}
+ */
+public record Money(long micros, int currency) {
+    public static final long MICROS_PER_UNIT = 1_000_000L;
+
+    /**
+     * Converts an amount given as a {@code double} to micro-units.
+     *
+     * @param amount the amount, in units
+     * @return the amount rounded to the nearest micro-unit, half to even
+     */
+    public static long toMicros(final double amount) {
+        return (long) Math.rint(amount * MICROS_PER_UNIT);
+    }
+
+    /**
+     * Converts an amount given in micro-units back to a {@code double}, for the JSON output.
+     *
+     * @param micros the amount, in micro-units
+     * @return the amount, in units
+     */
+    public static double toDouble(final long micros) {
+        return (double) micros / MICROS_PER_UNIT;
+    }
+
+    /**
+     * @param amount   the amount, in units
+     * @param currency the interned id of the currency
+     * @return the amount rounded to the nearest micro-unit
+     */
+    public static Money of(final double amount, final int currency) {
+        return new Money(toMicros(amount), currency);
+    }
+
+    /**
+     * @param currency the interned id of the currency
+     * @return no money, in the given currency
+     */
+    public static Money zero(final int currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * @param other an amount in the same currency
+     * @return the exact sum of the two amounts
+     * @throws IllegalArgumentException if the currencies differ
+     * @throws ArithmeticException if the sum overflows
+     */
+    public Money plus(final Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(micros, other.micros), currency);
+    }
+
+    /**
+     * @param other an amount in the same currency
+     * @return the exact difference of the two amounts
+     * @throws IllegalArgumentException if the currencies differ
+     * @throws ArithmeticException if the difference overflows
+     */
+    public Money minus(final Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(micros, other.micros), currency);
+    }
+
+    /**
+     * Multiplies the amount by a factor such as a commission or a cashback percentage.
+     *
+     * @param factor the factor
+     * @return the product, rounded to the nearest micro-unit, half to even
+     */
+    public Money times(final double factor) {
+        return new Money((long) Math.rint(micros * factor), currency);
+    }
+
+    /**
+     * Converts the amount to another currency.
+     *
+     * @param rate   the exchange rate from this currency to the target one
+     * @param target the interned id of the target currency
+     * @return the converted amount, rounded to the nearest micro-unit, half to even
+     */
+    public Money convert(final double rate, final int target) {
+        return new Money((long) Math.rint(micros * rate), target);
+    }
+
+    /**
+     * @param other an amount in the same currency
+     * @return {@code true} if this amount is strictly smaller than the other one
+     * @throws IllegalArgumentException if the currencies differ
+     */
+    public boolean lessThan(final Money other) {
+        checkCurrency(other);
+        return micros < other.micros;
+    }
+
+    /**
+     * @return the amount, in units
+     */
+    public double toDouble() {
+        return toDouble(micros);
+    }
+
+    private void checkCurrency(final Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Currency mismatch");
+        }
+    }
+}
@@ -8,12 +8,20 @@ import lombok.Setter;
 import org.poo.commands.CommandHistory;
 import org.poo.fileio.UserInput;
 import org.poo.main.accounts.Account;
+import org.poo.main.accounts.BalanceLocks;
 import org.poo.main.accounts.BusinessAccount;
 import org.poo.main.cardTypes.Card;
 import org.poo.main.splitPayment.Observer;
 import org.poo.main.splitPayment.SplitPayment;
 import org.poo.main.splitPayment.SplitPaymentInfo;
 import org.poo.main.splitPayment.SplitPaymentStatus;
+import org.poo.main.transactions.AccountCreated;
+import org.poo.main.transactions.CardCreated;
+import org.poo.main.transactions.PlanUpgrade;
+import org.poo.main.transactions.SavingsWithdrawal;
+import org.poo.main.transactions.SplitPaymentEvent;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
 import org.poo.utils.Errors;
 import org.poo.utils.Utils;
 
@@ -38,6 +46,8 @@ public class User implements Observer {
     private final String occupation;
     private ServicePlan plan;
     private List<Account> accounts;
+    // the business accounts of the user it deleted while its associates still hold them
+    private final List<Account> detachedAccounts = new ArrayList<>();
     private CommandHistory commandHistory;
     private boolean hasClassicAccount;
     private Queue<SplitPaymentInfo> splitPaymentQueue;
@@ -98,7 +108,11 @@ public class User implements Observer {
      * @param timestamp the timestamp when the account was added
      */
     public void addAccount(final Account account, final int timestamp) {
+        if (app.getJournal() != null) {
+            app.getJournal().attach(account);
+        }
         accounts.add(account);
+        app.getRegistry().addAccount(this, account);
         if (account.isClassicAccount()) {
             hasClassicAccount = true;
         }
@@ -106,14 +120,12 @@ public class User implements Observer {
         if (account.isBusinessAccount()) {
             account.addUser(email, "owner", this);
         }
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
-        node.put("description", "New account created");
+        AccountCreated event = new AccountCreated(timestamp);
 
         if (!accounts.isEmpty()) {
-            account.addToReport(node);
+            account.addToReport(event);
         }
-        commandHistory.addToHistory(node);
+        commandHistory.addToHistory(event);
     }
 
     /**
@@ -122,6 +134,7 @@ public class User implements Observer {
      */
     public void addBussinessAccount(final BusinessAccount account) {
         accounts.add(account);
+        app.getRegistry().addAccount(this, account);
     }
 
     /**
@@ -147,13 +160,13 @@ public class User implements Observer {
                         }
                     }
                     accounts.remove(a);
+                    app.getRegistry().removeAccount(this, a);
                     return 1;
                 }
             }
         }
 
-        ObjectNode node = Errors.fundsRemaining(timestamp);
-        getCommandHistory().addToHistory(node);
+        getCommandHistory().addToHistory(new TransactionError(timestamp, Errors.FUNDS_REMAINING));
         return 0;
     }
 
@@ -165,19 +178,15 @@ public class User implements Observer {
      * @param timestamp the timestamp when the card was created
      */
     public void addCard(final Card card, final int timestamp) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
-        node.put("description", "New card created");
-        node.put("card", card.getCardNumber());
-        node.put("cardHolder", email);
-        node.put("account", card.getAccount());
+        CardCreated event = new CardCreated(timestamp, card.getCardNumber(), email,
+                card.getAccount());
 
-        commandHistory.addToHistory(node);
+        commandHistory.addToHistory(event);
 
         for (Account acc : accounts) {
             if (acc.getIban().equals(card.getAccount())) {
                 acc.addCard(card, email);
-                acc.addToReport(node);
+                acc.addToReport(event);
             }
         }
     }
@@ -203,26 +212,26 @@ public class User implements Observer {
      * @param acc the account to deposit from
      * @param amount the amount to deposit
      * @param currency the currency of the amount
+     * @param rates the exchange rates the withdrawal is made with
      * @param timestamp the timestamp when the deposit occurred
      */
     public void withdrawSavings(final Account acc, final double amount, final String currency,
-                                final int timestamp) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
+                                final ExchangeRatesGraph rates, final int timestamp) {
+        TransactionEvent event;
         if (getFirstClassicAccount(currency) == null) {
-            node.put("description", "You do not have a classic account.");
+            event = new TransactionError(timestamp, Errors.NO_CLASSIC_ACCOUNT);
         } else if (getAge() < Utils.MIN_AGE) {
-            node.put("description", "You don't have the minimum age required.");
+            event = new TransactionError(timestamp, Errors.MINIMUM_AGE);
         } else if (!acc.isSavingsAccount()) {
-            node.put("description", "Account is not of type savings.");
+            event = new TransactionError(timestamp, Errors.NOT_SAVINGS_TYPE);
         } else {
             Account to = getFirstClassicAccount(currency);
-            node = makeSavingsWithdrawal(acc, to, amount, currency, timestamp);
+            event = makeSavingsWithdrawal(acc, to, amount, currency, rates, timestamp);
         }
-        getCommandHistory().addToHistory(node);
-        acc.addToReport(node);
-        if (node.has("amount")) {
-            getCommandHistory().addToHistory(node);
+        getCommandHistory().addToHistory(event);
+        acc.addToReport(event);
+        if (event instanceof SavingsWithdrawal) {
+            getCommandHistory().addToHistory(event);
         }
     }
 
@@ -246,28 +255,31 @@ public class User implements Observer {
      * @param to the account to deposit to
      * @param amount the amount to withdraw
      * @param currency the currency of the amount
+     * @param rates the exchange rates the withdrawal is made with
      * @param timestamp the timestamp when the withdrawal occurred
-     * @return a JSON object representing the withdrawal operation
+     * @return the {@link SavingsWithdrawal}, or a {@link TransactionError} if it failed
      */
-    public ObjectNode makeSavingsWithdrawal(final Account from, final Account to,
-                                            final double amount, final String currency,
-                                            final int timestamp) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        double newAmount = amount * app.getExchangeRates().getRate(currency, from.getCurrency());
-
-        if (from.getBalance() >= newAmount) {
-            from.setBalance(from.getBalance() - newAmount);
-            to.setBalance(to.getBalance() + amount);
-            node.put("amount", amount);
-            node.put("classicAccountIBAN", to.getIban());
-            node.put("description", "Savings withdrawal");
-            node.put("savingsAccountIBAN", from.getIban());
-            node.put("timestamp", timestamp);
+    public TransactionEvent makeSavingsWithdrawal(final Account from, final Account to,
+                                                  final double amount, final String currency,
+                                                  final ExchangeRatesGraph rates,
+                                                  final int timestamp) {
+        double newAmount = amount * rates.getRate(currency, from.getCurrency());
 
-        } else {
-            node = Errors.insufficientFunds(timestamp);
+        BalanceLocks.lock(from, to);
+        try {
+            long balance;
+            do {
+                balance = from.getBalanceMicros();
+                if (Money.toDouble(balance) < newAmount) {
+                    return new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
+                }
+            } while (!from.getBalanceCell().compareAndSet(balance,
+                    Money.toMicros(Money.toDouble(balance) - newAmount)));
+            to.getBalanceCell().update(micros -> Money.toMicros(Money.toDouble(micros) + amount));
+            return new SavingsWithdrawal(timestamp, amount, to.getIban(), from.getIban());
+        } finally {
+            BalanceLocks.unlock(from, to);
         }
-        return node;
     }
 
     /**
@@ -279,16 +291,17 @@ public class User implements Observer {
      */
     public void upgradePlan(final Account acc, final ServicePlan newPlanType, final double rate,
                             final int timestamp) {
-        ObjectNode node;
+        TransactionEvent event;
         if (newPlanType == plan) {
-            node = Errors.alreadyOwnedPlan(timestamp, newPlanType.toString().toLowerCase());
+            event = new TransactionError(timestamp,
+                    Errors.alreadyOwnedPlanDescription(newPlanType.toString().toLowerCase()));
         } else if (newPlanType.ordinal() < plan.ordinal()) {
-            node = Errors.downgradePlan(timestamp);
+            event = new TransactionError(timestamp, Errors.DOWNGRADE_PLAN);
         } else {
-            node = changePlan(newPlanType, acc, rate, timestamp);
+            event = changePlan(newPlanType, acc, rate, timestamp);
         }
-        getCommandHistory().addToHistory(node);
-        acc.addToReport(node);
+        getCommandHistory().addToHistory(event);
+        acc.addToReport(event);
     }
 
     /**
@@ -297,9 +310,9 @@ public class User implements Observer {
      * @param acc the account that makes the payment
      * @param rate the exchange rate
      * @param timestamp the timestamp when the change occurred
-     * @return a JSON object representing the plan change operation
+     * @return the {@link PlanUpgrade}, or a {@link TransactionError} if it failed
      */
-    private ObjectNode changePlan(final ServicePlan newPlanType, final Account acc,
+    private TransactionEvent changePlan(final ServicePlan newPlanType, final Account acc,
                                   final double rate, final int timestamp) {
         double amount = 0;
         if ((plan == ServicePlan.STUDENT || plan == ServicePlan.STANDARD)
@@ -314,15 +327,10 @@ public class User implements Observer {
         amount = Math.round(amount * Utils.ROUNDING_HELPER) / Utils.ROUNDING_HELPER;
         try {
             acc.deductFee(amount);
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("timestamp", timestamp);
-            node.put("description", "Upgrade plan");
-            node.put("accountIBAN", acc.getIban());
-            node.put("newPlanType", newPlanType.toString().toLowerCase());
             plan = newPlanType;
-            return node;
+            return new PlanUpgrade(timestamp, acc.getIban(), newPlanType.toString().toLowerCase());
         } catch (Exception e) {
-            return Errors.insufficientFunds(timestamp);
+            return new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
         }
     }
 
@@ -361,56 +369,47 @@ public class User implements Observer {
         Account acc = currentOp.getAccount();
 
         if (currentOp.getSplitPayment().isRejected()) {
-
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("timestamp", splitPayment.getTimestamp());
-            String formatted = String.format("%.2f", splitPayment.getTotalAmount());
-            node.put("description", "Split payment of " + formatted + " "
-                    + splitPayment.getCurrency());
-            node.put("splitPaymentType", splitPayment.getSplitPaymentType());
-            node.put("currency", splitPayment.getCurrency());
-            node.set("amountForUsers", splitPayment.getAmountsArray());
-            node.set("involvedAccounts", splitPayment.getAccountsArray());
-            node.put("error", "One user rejected the payment.");
-            acc.addToReport(node);
-            getCommandHistory().addToHistory(node);
+            SplitPaymentEvent event = splitPaymentError(splitPayment, SplitPaymentEvent.REJECTED);
+            acc.addToReport(event);
+            getCommandHistory().addToHistory(event);
             return;
         }
 
         if (splitPayment.getAccountToBlame().isEmpty()) {
             double amount = splitPayment.getAmountForUser().get(splitPayment.getAccounts()
                     .indexOf(acc.getIban()));
-            double newAmount = amount * app.getExchangeRates().getRate(splitPayment.getCurrency(),
-                    acc.getCurrency());
-            acc.setBalance(acc.getBalance() - newAmount);
-            ArrayNode accountsArray = splitPayment.getAccountsArray();
-            ArrayNode amountsArray = splitPayment.getAmountsArray();
-            ObjectNode node = acc.addSplitTransaction(accountsArray, splitPayment.getCurrency(),
-                    splitPayment.getTotalAmount(), splitPayment.getTimestamp(), amountsArray,
+            double newAmount = amount * app.getExchangeRates().getRate(
+                    splitPayment.getCurrencyId(), acc.getCurrencyId());
+            acc.getBalanceCell().update(
+                    micros -> Money.toMicros(Money.toDouble(micros) - newAmount));
+            SplitPaymentEvent event = acc.addSplitTransaction(splitPayment.getAccounts(),
+                    splitPayment.getCurrency(), splitPayment.getTotalAmount(),
+                    splitPayment.getTimestamp(), splitPayment.getAmountForUser(),
                     splitPayment.getSplitPaymentType());
-            getCommandHistory().addToHistory(node);
+            getCommandHistory().addToHistory(event);
         } else {
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            if (splitPayment.getSplitPaymentType().equals("custom")) {
-                node.set("amountForUsers", splitPayment.getAmountsArray());
-            } else {
-                node.put("amount", splitPayment.getAmountForUser().getFirst());
-            }
-            node.put("currency", splitPayment.getCurrency());
-            String formatted = String.format("%.2f", splitPayment.getTotalAmount());
-            node.put("description", "Split payment of " + formatted + " "
-                    + splitPayment.getCurrency());
-            node.put("error",
-                    "Account " + splitPayment.getAccountToBlame()
-                            + " has insufficient funds for a split payment.");
-            node.set("involvedAccounts", splitPayment.getAccountsArray());
-            node.put("splitPaymentType", splitPayment.getSplitPaymentType());
-            node.put("timestamp", splitPayment.getTimestamp());
-            acc.addToReport(node);
-            getCommandHistory().addToHistory(node);
+            SplitPaymentEvent event = splitPaymentError(splitPayment, "Account "
+                    + splitPayment.getAccountToBlame()
+                    + " has insufficient funds for a split payment.");
+            acc.addToReport(event);
+            getCommandHistory().addToHistory(event);
         }
     }
 
+    /**
+     * Creates the event recorded when a split payment fails.
+     * @param splitPayment the payment that failed
+     * @param error the reason it failed
+     * @return the failed {@link SplitPaymentEvent}
+     */
+    private SplitPaymentEvent splitPaymentError(final SplitPayment splitPayment,
+                                                final String error) {
+        return new SplitPaymentEvent(splitPayment.getTimestamp(),
+                splitPayment.getSplitPaymentType(), splitPayment.getCurrency(),
+                splitPayment.getTotalAmount(), splitPayment.getAmountForUser(),
+                splitPayment.getAccounts(), error);
+    }
+
     /**
      * Updates the status of a split payment based on the payment status and type.
      * @param status the new status of the payment
@@ -9,15 +9,27 @@ import org.poo.fileio.CommandInput;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TreeMap;
 
 import org.poo.main.Application;
 import org.poo.main.Commerciant;
 import org.poo.main.ServicePlan;
 import org.poo.main.cardTypes.Card;
 import org.poo.main.ExchangeRatesGraph;
+import org.poo.main.Money;
 import org.poo.main.CashbackService;
 import org.poo.main.User;
+import org.poo.main.transactions.CardDestroyed;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.CashWithdrawal;
+import org.poo.main.transactions.EventStore;
+import org.poo.main.transactions.HeapEventStore;
+import org.poo.main.transactions.Page;
+import org.poo.main.transactions.PlanUpgrade;
+import org.poo.main.transactions.SplitPaymentEvent;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.TransactionSerializer;
+import org.poo.main.transactions.Transfer;
 import org.poo.utils.Errors;
 import org.poo.utils.Utils;
 
@@ -31,12 +43,15 @@ import org.poo.utils.Utils;
 public abstract class Account {
     private final String iban;
     private String alias = " ";
-    private double balance;
+    // the balance in micro-units of the account's currency, see Money
+    private final BalanceCell balanceCell = new BalanceCell();
     private double minBalance;
     private String currency;
+    private int currencyId;
     private List<Card> cards;
-    private TreeMap<Integer, ObjectNode> report;
-    private TreeMap<Integer, ObjectNode> spendingsReport;
+    private EventStore<TransactionEvent> report;
+    private EventStore<CardPayment> spendingsReport;
+    private final CommerciantTotals commerciantTotals = new CommerciantTotals();
     private CashbackService cashbackService;
     private User owner;
 
@@ -49,15 +64,82 @@ public abstract class Account {
      * @param input the {@link CommandInput} containing the account data
      */
     public Account(final CommandInput input) {
-        this.balance = 0;
         this.minBalance = 0;
         this.currency = input.getCurrency();
+        this.currencyId = input.getCurrencyId();
         cards = new ArrayList<>();
-        report = new TreeMap<>();
-        spendingsReport = new TreeMap<>();
+        report = new HeapEventStore<>();
+        spendingsReport = new HeapEventStore<>();
         iban = Utils.generateIBAN();
     }
 
+    /**
+     * Constructs an empty {@link Account} with a known IBAN, when it is restored from a
+     * snapshot. Unlike {@link #Account(CommandInput)}, it draws nothing from the seeded
+     * sequences of {@link Utils}.
+     *
+     * @param iban       the IBAN of the account
+     * @param currency   the currency of the account
+     * @param currencyId the interned id of the currency
+     */
+    protected Account(final String iban, final String currency, final int currencyId) {
+        this.currency = currency;
+        this.currencyId = currencyId;
+        cards = new ArrayList<>();
+        report = new HeapEventStore<>();
+        spendingsReport = new HeapEventStore<>();
+        this.iban = iban;
+    }
+
+    /**
+     * @return the balance of the account, in units of its currency
+     */
+    public double getBalance() {
+        return Money.toDouble(balanceCell.get());
+    }
+
+    /**
+     * @param balance the new balance of the account, in units of its currency
+     */
+    public void setBalance(final double balance) {
+        balanceCell.set(Money.toMicros(balance));
+    }
+
+    /**
+     * @return the balance of the account, in micro-units of its currency
+     */
+    public long getBalanceMicros() {
+        return balanceCell.get();
+    }
+
+    /**
+     * @return the balance of the account, in its currency
+     */
+    public Money getBalanceMoney() {
+        return new Money(balanceCell.get(), getCurrencyId());
+    }
+
+    /**
+     * @param balance the new balance of the account, in its currency
+     */
+    public void setBalanceMoney(final Money balance) {
+        balanceCell.set(balance.micros());
+    }
+
+    /**
+     * Returns the interned id of the account's currency. A currency that had no exchange rates
+     * when the account was opened is resolved again, since ticks can introduce it later.
+     *
+     * @return the id of the currency, or {@link ExchangeRatesGraph#UNKNOWN_CURRENCY}
+     */
+    public int getCurrencyId() {
+        if (currencyId == ExchangeRatesGraph.UNKNOWN_CURRENCY && owner != null
+                && owner.getApp().getExchangeRates() != null) {
+            currencyId = owner.getApp().getExchangeRates().getCurrencyId(currency);
+        }
+        return currencyId;
+    }
+
     /**
      * Converts the account to a JSON object.
      * The resulting JSON includes the IBAN, balance, currency, account type, and associated cards.
@@ -77,6 +159,7 @@ public abstract class Account {
     public void addCard(final Card card, final String email) {
         cards.add(card);
         card.setAccountBelonging(this);
+        owner.getApp().getRegistry().getCards().add(card);
     }
 
     /**
@@ -102,87 +185,125 @@ public abstract class Account {
      *
      * @param card          the card used for the payment
      * @param amount        the amount to be paid
-     * @param payCurrency   the currency of the payment
+     * @param payCurrency   the interned id of the currency of the payment
      * @param exchangeRates the exchange rates used for payCurrency conversion
      * @param timestamp     the timestamp of the payment
      * @param commerciant   the merchant name for the payment
-     * @return an {@link ObjectNode} containing the payment result, or an error if payment fails
+     * @return the {@link CardPayment}, or a {@link TransactionError} if the payment fails
      */
-    public ObjectNode makePayment(final Card card, double amount, final String payCurrency,
-                                  final ExchangeRatesGraph exchangeRates, final int timestamp,
-                                  final String commerciant, final String email) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
+    public TransactionEvent makePayment(final Card card, final double amount,
+                                        final int payCurrency,
+                                        final ExchangeRatesGraph exchangeRates,
+                                        final int timestamp, final String commerciant,
+                                        final String email) {
         if (card.getStatus().equals("frozen")) {
-            return Errors.frozenCard(timestamp);
+            return new TransactionError(timestamp, Errors.FROZEN_CARD);
         }
 
         if (!card.getAccountBelonging().getOwner().getEmail().equals(email)) {
-            return Errors.cardNotFound(timestamp);
+            return new TransactionError(timestamp, Errors.CARD_NOT_FOUND);
         }
 
-        amount *= exchangeRates.getRate(payCurrency, currency);
-        double ronAmount = amount * exchangeRates.getRate(currency, Utils.DEFAULT_CURRENCY);
-        double newAmount = amount * getOwner().getCommission(ronAmount);
+        int ron = exchangeRates.getDefaultCurrencyId();
+        int own = getCurrencyId();
+        Money paid = Money.of(amount * exchangeRates.getRate(payCurrency, own), own);
+        Money ronAmount = paid.convert(exchangeRates.getRate(own, ron), ron);
+        Money toPay = paid.times(getOwner().getCommission(ronAmount.toDouble()));
 
-        if (balance < newAmount) {
-            return Errors.insufficientFunds(timestamp);
+        if (!withdraw(toPay)) {
+            return new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
         }
 
-        double cashback = cashbackService.giveCashbackForTransactions(commerciant, amount);
+        deposit(cashbackService.cashbackFor(commerciant, paid, ronAmount, getOwner().getPlan(),
+                exchangeRates.getRate(ron, own)));
+        CardPayment payment = new CardPayment(timestamp, paid.toDouble(), commerciant);
 
-        cashbackService.addTransactionToCommerciant(commerciant, ronAmount);
+        card.getAccountBelonging().addToReport(payment);
+        card.getAccountBelonging().addToSpendingsReport(payment);
+        return payment;
+    }
 
-        double newCashback = cashbackService.giveCashbackForAmount(commerciant,
-                ronAmount - cashback, getOwner().getPlan());
-        newCashback = newCashback * exchangeRates.getRate(Utils.DEFAULT_CURRENCY, currency);
-        cashback += newCashback;
+    /**
+     * Takes an amount off the balance, if the account has enough funds. The check and the
+     * change are made at once, without locks, see {@link BalanceCell}.
+     *
+     * @param amount the amount, in the currency of the account
+     * @return whether the account had enough funds
+     */
+    public boolean withdraw(final Money amount) {
+        return balanceCell.withdraw(amount.micros(), 0);
+    }
 
-        balance = Utils.bigDecimalPrecision(balance, newAmount, cashback);
-        node.put("timestamp", timestamp);
-        node.put("description", "Card payment");
-        node.put("amount", amount);
-        node.put("commerciant", commerciant);
+    /**
+     * Adds an amount to the balance, without locks, see {@link BalanceCell}.
+     *
+     * @param amount the amount, in the currency of the account
+     */
+    public void deposit(final Money amount) {
+        if (amount.micros() != 0) {
+            balanceCell.add(amount.micros());
+        }
+    }
 
-        card.getAccountBelonging().addToReport(node);
-        card.getAccountBelonging().addToSpendingsReport(node);
-        return node;
+    /**
+     * Moves money from the account to another one, if the account has enough funds. Both
+     * balances change while holding the locks of both accounts, so the transfers between
+     * them happen one at a time.
+     *
+     * @param to     the recipient account
+     * @param debit  the amount taken from this account, in its currency
+     * @param credit the amount given to the recipient, in its currency
+     * @return whether the account had enough funds
+     */
+    public boolean transferTo(final Account to, final Money debit, final Money credit) {
+        BalanceLocks.lock(this, to);
+        try {
+            if (!withdraw(debit)) {
+                return false;
+            }
+            to.deposit(credit);
+            return true;
+        } finally {
+            BalanceLocks.unlock(this, to);
+        }
     }
 
     /**
-     * Sends money from the account to another account, deducting the amount from the balance.
+     * Records the money sent from the account to another account, once it was moved by
+     * {@link #transferTo(Account, Money, Money)}.
      * A transaction is recorded in the account's report.
      *
      * @param toAccount   the IBAN of the recipient account
-     * @param amount      the amount to send
-     * @param commission  the commission to be deducted from the amount
+     * @param amount      the amount sent
      * @param description a description for the transaction
      * @param timestamp   the timestamp of the transaction
      */
-    public void sendMoney(final String toAccount, final double amount, final double commission,
-                          final String description, final int timestamp) {
-        balance -= amount * commission;
-        ObjectNode node = addTransaction(iban, toAccount, amount, description, timestamp);
+    public void sendMoney(final String toAccount, final Money amount, final String description,
+                          final int timestamp) {
+        Transfer transfer = addTransaction(iban, toAccount, amount.toDouble(), description,
+                timestamp);
         if (owner != null) {
-            owner.getCommandHistory().addToHistory(node);
+            owner.getCommandHistory().addToHistory(transfer);
         }
-        addToReport(node);
+        addToReport(transfer);
     }
 
     /**
-     * Receives money from another account, adding the amount to the balance.
+     * Records the money received from another account, once it was moved by
+     * {@link #transferTo(Account, Money, Money)}.
      * A transaction is recorded in the account's report.
      *
      * @param fromAccount the IBAN of the sender account
-     * @param amount      the amount to receive
+     * @param amount      the amount received
      * @param description a description for the transaction
      * @param timestamp   the timestamp of the transaction
      */
-    public void receiveMoney(final String fromAccount, final double amount,
+    public void receiveMoney(final String fromAccount, final Money amount,
                              final String description, final int timestamp) {
-        balance += amount;
-        ObjectNode node = addTransaction(fromAccount, iban, amount, description, timestamp);
-        owner.getCommandHistory().addToHistory(node);
-        addToReport(node);
+        Transfer transfer = addTransaction(fromAccount, iban, amount.toDouble(), description,
+                timestamp);
+        owner.getCommandHistory().addToHistory(transfer);
+        addToReport(transfer);
     }
 
     /**
@@ -193,51 +314,32 @@ public abstract class Account {
      * @param amount      the transaction amount
      * @param description a description for the transaction
      * @param timestamp   the timestamp of the transaction
-     * @return an {@link ObjectNode} representing the transaction
-     */
-    public ObjectNode addTransaction(final String fromAccount, final String toAccount,
-                                     final double amount, final String description,
-                                     final int timestamp) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
-        node.put("description", description);
-        node.put("senderIBAN", fromAccount);
-        node.put("receiverIBAN", toAccount);
-        String amountStr = amount + " " + currency;
-        node.put("amount", amountStr);
-        if (iban.equals(fromAccount)) {
-            node.put("transferType", "sent");
-        } else {
-            node.put("transferType", "received");
-        }
-        return node;
+     * @return the {@link Transfer}, seen from this account
+     */
+    public Transfer addTransaction(final String fromAccount, final String toAccount,
+                                   final double amount, final String description,
+                                   final int timestamp) {
+        return new Transfer(timestamp, description, fromAccount, toAccount, amount, currency,
+                iban.equals(fromAccount));
     }
 
     /**
      * Creates a split payment transaction across multiple accounts.
      *
-     * @param array       a list of accounts involved in the split payment
+     * @param accounts    the accounts involved in the split payment
      * @param payCurrency the currency of the split payment
      * @param amount      the total amount of the payment
      * @param timestamp   the timestamp of the transaction
-     * @return an {@link ObjectNode} representing the split transaction
-     */
-    public ObjectNode addSplitTransaction(final ArrayNode array, final String payCurrency,
-                                          final double amount, final int timestamp,
-                                          final ArrayNode amountsArray, final String type) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        if (type.equals("custom")) {
-            node.set("amountForUsers", amountsArray);
-        } else {
-            node.put("amount", amountsArray.get(0).asDouble());
-        }
-        node.put("currency", payCurrency);
-        String formatted = String.format("%.2f", amount);
-        node.put("description", "Split payment of " + formatted + " " + payCurrency);
-        node.set("involvedAccounts", array);
-        node.put("splitPaymentType", type);
-        node.put("timestamp", timestamp);
-        return node;
+     * @param amounts     the amount paid by each involved account
+     * @param type        the type of the split payment
+     * @return a {@link SplitPaymentEvent} representing the split transaction
+     */
+    public SplitPaymentEvent addSplitTransaction(final List<String> accounts,
+                                                 final String payCurrency, final double amount,
+                                                 final int timestamp, final List<Double> amounts,
+                                                 final String type) {
+        return new SplitPaymentEvent(timestamp, type, payCurrency, amount, amounts, accounts,
+                null);
     }
 
     /**
@@ -252,8 +354,11 @@ public abstract class Account {
      * Adds interest to the account.
      * <p>
      * It is overridden by subclasses to add interest to the specific account type.
+     *
+     * @param timestamp the timestamp of the action
+     * @return the recorded income
      */
-    public ObjectNode addInterest() {
+    public TransactionEvent addInterest(final int timestamp) {
         return null;
     }
 
@@ -265,23 +370,32 @@ public abstract class Account {
      * @return an {@link ArrayNode} containing the transactions within the time range
      */
     public ArrayNode getReport(final int startTimestamp, final int endTimestamp) {
-        ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        for (ObjectNode reportNode : report.values()) {
-            int timestamp = reportNode.get("timestamp").asInt();
-            if (timestamp >= startTimestamp && timestamp <= endTimestamp) {
-                array.add(reportNode);
-            }
+        if (startTimestamp > endTimestamp) {
+            return JsonNodeFactory.instance.arrayNode();
         }
-        return array;
+        return TransactionSerializer.toJson(report.range(startTimestamp, endTimestamp));
+    }
+
+    /**
+     * Retrieves a page of the transaction history for the account within a specified time range.
+     *
+     * @param startTimestamp the timestamp of the first transaction of the page
+     * @param endTimestamp   the end timestamp of the range
+     * @param limit          the largest number of transactions of the page
+     * @return the transactions of the page, and where the next page starts
+     */
+    public Page<TransactionEvent> getReportPage(final int startTimestamp, final int endTimestamp,
+                                                final int limit) {
+        return report.page(startTimestamp, endTimestamp, limit);
     }
 
     /**
      * Adds a transaction to the account's report.
      *
-     * @param node the transaction to be added
+     * @param event the transaction to be added
      */
-    public void addToReport(final ObjectNode node) {
-        report.put(node.get("timestamp").asInt(), node);
+    public void addToReport(final TransactionEvent event) {
+        report.put(event);
     }
 
     /**
@@ -292,27 +406,42 @@ public abstract class Account {
      * @return an {@link ArrayNode} containing the spending transactions within the time range
      */
     public ArrayNode getSpendingsReport(final int startTimestamp, final int endTimestamp) {
-        ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        for (ObjectNode reportNode : spendingsReport.values()) {
-            int timestamp = reportNode.get("timestamp").asInt();
-            if (timestamp >= startTimestamp && timestamp <= endTimestamp) {
-                array.add(reportNode);
-            }
+        if (startTimestamp > endTimestamp) {
+            return JsonNodeFactory.instance.arrayNode();
         }
-        return array;
+        return TransactionSerializer.toJson(spendingsReport.range(startTimestamp, endTimestamp));
+    }
+
+    /**
+     * Retrieves a page of the spending report for the account within a specified time range.
+     *
+     * @param startTimestamp the timestamp of the first payment of the page
+     * @param endTimestamp   the end timestamp of the range
+     * @param limit          the largest number of payments of the page
+     * @return the payments of the page, and where the next page starts
+     */
+    public Page<CardPayment> getSpendingsReportPage(final int startTimestamp,
+                                                    final int endTimestamp, final int limit) {
+        return spendingsReport.page(startTimestamp, endTimestamp, limit);
     }
 
     /**
-     * Adds a spending transaction to the account's spendings report.
+     * Adds a card payment to the account's spendings report.
      *
-     * @param node the transaction to be added
+     * @param payment the payment to be added
      */
-    public void addToSpendingsReport(final ObjectNode node) {
-        spendingsReport.put(node.get("timestamp").asInt(), node);
+    public void addToSpendingsReport(final CardPayment payment) {
+        for (CardPayment replaced : spendingsReport.range(payment.timestamp(),
+                payment.timestamp())) {
+            commerciantTotals.remove(replaced);
+        }
+        spendingsReport.put(payment);
+        commerciantTotals.add(payment);
     }
 
     /**
      * Retrieves the commerciants involved in the account's spending within a specified time range.
+     * The totals come from the {@link CommerciantTotals} of the account, not from the payments.
      *
      * @param startTimestamp the start timestamp of the range
      * @param endTimestamp   the end timestamp of the range
@@ -320,21 +449,15 @@ public abstract class Account {
      */
     public ArrayNode getCommerciants(final int startTimestamp, final int endTimestamp) {
         ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        TreeMap<String, Double> commerchants = new TreeMap<>();
-        for (ObjectNode reportNode : spendingsReport.values()) {
-            int timestamp = reportNode.get("timestamp").asInt();
-            if (timestamp >= startTimestamp && timestamp <= endTimestamp) {
-                String commerciant = reportNode.get("commerciant").asText();
-                double amount = reportNode.get("amount").asDouble();
-                commerchants.put(commerciant, commerchants.getOrDefault(commerciant, 0.0) + amount);
-            }
+        if (startTimestamp > endTimestamp) {
+            return array;
         }
-        for (String commerciant : commerchants.keySet()) {
+        commerciantTotals.forEach(startTimestamp, endTimestamp, (commerciant, total) -> {
             ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("total", commerchants.get(commerciant));
+            node.put("total", total);
             node.put("commerciant", commerciant);
             array.add(node);
-        }
+        });
         return array;
     }
 
@@ -351,17 +474,13 @@ public abstract class Account {
         if (card == null || !getOwner().getEmail().equals(email)) {
             return;
         }
-        if (balance > 0) {
+        if (balanceCell.get() > 0) {
             return;
         }
         cards.remove(card);
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
-        node.put("description", "The card has been destroyed");
-        node.put("card", cardNumber);
-        node.put("cardHolder", getOwner().getEmail());
-        node.put("account", getIban());
-        getOwner().getCommandHistory().addToHistory(node);
+        owner.getApp().getRegistry().getCards().remove(card);
+        getOwner().getCommandHistory().addToHistory(new CardDestroyed(timestamp, cardNumber,
+                getOwner().getEmail(), getIban()));
     }
 
     /**
@@ -396,10 +515,9 @@ public abstract class Account {
      * If the account balance is insufficient, an exception is thrown.
      */
     public void deductFee(final double amount) throws Exception {
-        if (balance < amount) {
+        Money fee = Money.of(amount, getCurrencyId());
+        if (!withdraw(fee)) {
             throw new Exception("Insufficient funds");
-        } else {
-            balance -= amount;
         }
     }
 
@@ -412,34 +530,30 @@ public abstract class Account {
      * @param amount        the amount to withdraw
      * @param timestamp     the timestamp of the withdrawal transaction
      * @param exchangeRates the {@link ExchangeRatesGraph} used for currency conversion
-     * @return {@code null} if the operation is successful, or an {@link ObjectNode} containing
-     *         error details if the operation fails
+     * @return {@code null} if the operation is successful, or a {@link TransactionError}
+     *         if the operation fails
      */
-    public ObjectNode cashWithdrawal(final Card card, final double amount, final int timestamp,
-                                     final ExchangeRatesGraph exchangeRates) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
+    public TransactionEvent cashWithdrawal(final Card card, final double amount,
+                                           final int timestamp,
+                                           final ExchangeRatesGraph exchangeRates) {
         if (card == null) {
-            return Errors.cardNotFound(timestamp);
+            return new TransactionError(timestamp, Errors.CARD_NOT_FOUND);
         }
         if (card.getStatus().equals("frozen")) {
-            return Errors.frozenCard(timestamp);
+            return new TransactionError(timestamp, Errors.FROZEN_CARD);
         }
 
-        double newAmount = amount * getOwner().getCommission(amount)
-                * exchangeRates.getRate(Utils.DEFAULT_CURRENCY,
-                card.getAccountBelonging().getCurrency());
-
-        if (balance < newAmount) {
-            return Errors.insufficientFunds(timestamp);
+        int own = card.getAccountBelonging().getCurrencyId();
+        Money withdrawn = Money.of(amount, exchangeRates.getDefaultCurrencyId())
+                .times(getOwner().getCommission(amount))
+                .convert(exchangeRates.getRate(exchangeRates.getDefaultCurrencyId(), own), own);
+        if (!withdraw(withdrawn)) {
+            return new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
         }
+        CashWithdrawal withdrawal = new CashWithdrawal(timestamp, amount);
 
-        balance -= newAmount;
-        node.put("timestamp", timestamp);
-        node.put("description", "Cash withdrawal of " + amount);
-        node.put("amount", amount);
-
-        card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(node);
-        card.getAccountBelonging().addToReport(node);
+        card.getAccountBelonging().getOwner().getCommandHistory().addToHistory(withdrawal);
+        card.getAccountBelonging().addToReport(withdrawal);
         return null;
     }
 
@@ -455,33 +569,26 @@ public abstract class Account {
     public void sendMoneyToCommerciant(final double amount, final ExchangeRatesGraph exchangeRates,
                                        final Commerciant comm, final String description,
                                        final int timestamp) {
-        double ronAmount = amount * exchangeRates.getRate(currency, Utils.DEFAULT_CURRENCY);
-        double commission = getOwner().getCommission(ronAmount);
-        double newAmount = amount * commission;
-
-        if (balance < newAmount) {
-            ObjectNode node = Errors.insufficientFunds(timestamp);
-            getOwner().getCommandHistory().addToHistory(node);
-            addToReport(node);
+        int ron = exchangeRates.getDefaultCurrencyId();
+        int own = getCurrencyId();
+        Money sent = Money.of(amount, own);
+        Money ronAmount = sent.convert(exchangeRates.getRate(own, ron), ron);
+        Money toPay = sent.times(getOwner().getCommission(ronAmount.toDouble()));
+        if (!withdraw(toPay)) {
+            TransactionError error = new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
+            getOwner().getCommandHistory().addToHistory(error);
+            addToReport(error);
             return;
         }
 
-        double cashback = cashbackService.giveCashbackForTransactions(comm.getName(), amount);
-
-        cashbackService.addTransactionToCommerciant(comm.getName(), ronAmount);
-
-        double newCashback = cashbackService.giveCashbackForAmount(comm.getName(),
-                ronAmount - cashback, getOwner().getPlan());
-        newCashback = newCashback * exchangeRates.getRate(Utils.DEFAULT_CURRENCY, currency);
-        cashback += newCashback;
-
-        balance -= (newAmount - cashback);
-        ObjectNode node = addTransaction(iban, comm.getAccount(), amount, description, timestamp);
+        deposit(cashbackService.cashbackFor(comm.getName(), sent, ronAmount,
+                getOwner().getPlan(), exchangeRates.getRate(ron, own)));
+        Transfer transfer = addTransaction(iban, comm.getAccount(), amount, description, timestamp);
 
         if (owner != null) {
-            owner.getCommandHistory().addToHistory(node);
+            owner.getCommandHistory().addToHistory(transfer);
         }
-        addToReport(node);
+        addToReport(transfer);
     }
 
     /**
@@ -490,23 +597,19 @@ public abstract class Account {
      * @param amount        the transaction amount to evaluate
      * @param exchangeRates the exchange rates for currency conversion
      * @param timestamp     the transaction timestamp
-     * @return an {@link ObjectNode} with plan upgrade details if conditions are met,
+     * @return a {@link PlanUpgrade} if conditions are met,
      *         or {@code null} if no upgrade is performed
      */
-    public ObjectNode checkForGold(final double amount, final ExchangeRatesGraph exchangeRates,
-                                   final int timestamp) {
-        double ronAmount = amount * exchangeRates.getRate(currency, Utils.DEFAULT_CURRENCY);
+    public PlanUpgrade checkForGold(final double amount, final ExchangeRatesGraph exchangeRates,
+                                    final int timestamp) {
+        double ronAmount = amount
+                * exchangeRates.getRate(getCurrencyId(), exchangeRates.getDefaultCurrencyId());
         if (ronAmount > Utils.THRESHOLD_300) {
             if (getOwner().getPlan() == ServicePlan.SILVER) {
                 getOwner().setNumPayments(getOwner().getNumPayments() + 1);
                 if (getOwner().getNumPayments() >= Utils.NUM_PAYMENTS_FOR_GOLD) {
                     getOwner().setPlan(ServicePlan.GOLD);
-                    ObjectNode node = JsonNodeFactory.instance.objectNode();
-                    node.put("timestamp", timestamp);
-                    node.put("description", "Upgrade plan");
-                    node.put("accountIBAN", iban);
-                    node.put("newPlanType", "gold");
-                    return node;
+                    return new PlanUpgrade(timestamp, iban, "gold");
                 }
             }
         }
@@ -583,7 +686,7 @@ public abstract class Account {
      * @param timestamp the timestamp of the transaction
      */
     public void addFunds(final double amount, final String email, final int timestamp) {
-        balance += amount;
+        deposit(Money.of(amount, getCurrencyId()));
     }
 
     /**
@@ -599,12 +702,8 @@ public abstract class Account {
         }
 
         cards.remove(card);
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-        node.put("timestamp", timestamp);
-        node.put("description", "The card has been destroyed");
-        node.put("card", cardNumber);
-        node.put("cardHolder", getOwner().getEmail());
-        node.put("account", getIban());
-        getOwner().getCommandHistory().addToHistory(node);
+        owner.getApp().getRegistry().getCards().remove(card);
+        getOwner().getCommandHistory().addToHistory(new CardDestroyed(timestamp, cardNumber,
+                getOwner().getEmail(), getIban()));
     }
 }
@@ -40,4 +40,26 @@ public final class AccountFactory {
         }
         return null;
     }
+
+    /**
+     * Creates an empty account with a known IBAN, when it is restored from a snapshot. Unlike
+     * {@link #getAccount(String, CommandInput, Application)}, it draws no IBAN.
+     *
+     * @param accountType the type of account to create ("savings", "classic" or "business")
+     * @param iban        the IBAN of the account
+     * @param currency    the currency of the account
+     * @param currencyId  the interned id of the currency
+     * @return the created {@link Account} object, or {@code null} if the type is invalid
+     */
+    public Account restoreAccount(final String accountType, final String iban,
+                                  final String currency, final int currencyId) {
+        if (accountType.equalsIgnoreCase("SAVINGS")) {
+            return new SavingsAccount(iban, currency, currencyId);
+        } else if (accountType.equalsIgnoreCase("CLASSIC")) {
+            return new ClassicAccount(iban, currency, currencyId);
+        } else if (accountType.equalsIgnoreCase("BUSINESS")) {
+            return new BusinessAccount(iban, currency, currencyId);
+        }
+        return null;
+    }
 }
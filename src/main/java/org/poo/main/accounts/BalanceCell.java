@@ -0,0 +1,107 @@
+package org.poo.main.accounts;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The balance of an account, in micro-units of its currency (see {@link org.poo.main.Money}),
+ * changed without locks through compare-and-set.
+ * <p>
+ * Every change reads the balance, computes the new one and publishes it only if no other
+ * thread changed it in between, retrying otherwise, so concurrent changes of the same account
+ * are never lost. The checks a change depends on, like having enough funds, are made inside
+ * the same loop, on the value the change replaces.
+ */
+public final class BalanceCell {
+    private static final VarHandle MICROS;
+
+    static {
+        try {
+            MICROS = MethodHandles.lookup().findVarHandle(BalanceCell.class, "micros",
+                    long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long micros;
+
+    /**
+     * @return the balance, in micro-units
+     */
+    public long get() {
+        return micros;
+    }
+
+    /**
+     * Replaces the balance, whatever it is.
+     *
+     * @param value the new balance, in micro-units
+     */
+    public void set(final long value) {
+        micros = value;
+    }
+
+    /**
+     * Replaces the balance if it is still the expected one.
+     *
+     * @param expected the balance read before
+     * @param value    the new balance, in micro-units
+     * @return whether the balance was replaced
+     */
+    public boolean compareAndSet(final long expected, final long value) {
+        return MICROS.compareAndSet(this, expected, value);
+    }
+
+    /**
+     * Adds an amount to the balance.
+     *
+     * @param amount the amount, in micro-units, negative to take it off
+     * @return the new balance
+     * @throws ArithmeticException if the balance overflows
+     */
+    public long add(final long amount) {
+        long current;
+        long next;
+        do {
+            current = micros;
+            next = Math.addExact(current, amount);
+        } while (!MICROS.weakCompareAndSet(this, current, next));
+        return next;
+    }
+
+    /**
+     * Takes an amount off the balance, unless it would leave less than the floor.
+     *
+     * @param amount the amount, in micro-units
+     * @param floor  the lowest balance allowed once the amount is taken off
+     * @return whether the amount was taken off
+     */
+    public boolean withdraw(final long amount, final long floor) {
+        long current;
+        do {
+            current = micros;
+            if (current - amount < floor) {
+                return false;
+            }
+        } while (!MICROS.weakCompareAndSet(this, current, current - amount));
+        return true;
+    }
+
+    /**
+     * Replaces the balance by a function of it.
+     *
+     * @param update computes the new balance from the current one; it may run several times
+     * @return the new balance
+     */
+    public long update(final LongUnaryOperator update) {
+        long current;
+        long next;
+        do {
+            current = micros;
+            next = update.applyAsLong(current);
+        } while (!MICROS.weakCompareAndSet(this, current, next));
+        return next;
+    }
+}
@@ -0,0 +1,86 @@
+package org.poo.main.accounts;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The striped lock table ordering the changes of two balances at once.
+ * <p>
+ * The balance of a single account changes without locks, see {@link BalanceCell}. A change of
+ * two balances (a transfer, a savings withdrawal) also holds the locks of the stripes of both
+ * accounts, picked from the hash of their IBANs, so the changes of the same pair of accounts
+ * happen one at a time. Accounts sharing a stripe share its lock, which only costs some
+ * contention, so the table stays the same size however many accounts there are.
+ * <p>
+ * Both locks are always taken in the order of the stripes, so two transfers between the same
+ * accounts in opposite directions cannot wait for each other. The locks are reentrant.
+ */
+public final class BalanceLocks {
+    /**
+     * The number of stripes, a power of 2.
+     */
+    public static final int STRIPES = 1024;
+
+    private static final int HALF_BITS = 16;
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * for coding style
+     */
+    private BalanceLocks() {
+    }
+
+    /**
+     * Returns the lock of the stripe of an account. Holding it does not stop the lock-free
+     * changes of the balance, so the balance must still be changed through its
+     * {@link BalanceCell}.
+     *
+     * @param account the account
+     * @return the lock of the stripe of the account
+     */
+    public static ReentrantLock lockFor(final Account account) {
+        return LOCKS[stripe(account)];
+    }
+
+    /**
+     * Takes the locks guarding the balances of two accounts, in the order of their stripes.
+     * They must be released with {@link #unlock(Account, Account)}.
+     *
+     * @param first  an account
+     * @param second another account, possibly the same one
+     */
+    public static void lock(final Account first, final Account second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        LOCKS[Math.min(a, b)].lock();
+        if (a != b) {
+            LOCKS[Math.max(a, b)].lock();
+        }
+    }
+
+    /**
+     * Releases the locks taken by {@link #lock(Account, Account)}.
+     *
+     * @param first  an account
+     * @param second another account, possibly the same one
+     */
+    public static void unlock(final Account first, final Account second) {
+        int a = stripe(first);
+        int b = stripe(second);
+        if (a != b) {
+            LOCKS[Math.max(a, b)].unlock();
+        }
+        LOCKS[Math.min(a, b)].unlock();
+    }
+
+    private static int stripe(final Account account) {
+        int hash = account.getIban().hashCode();
+        // spreads the high bits, the IBANs of a bank share a long prefix
+        return (hash ^ (hash >>> HALF_BITS)) & (STRIPES - 1);
+    }
+}
@@ -2,10 +2,12 @@ package org.poo.main.accounts;
 
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -14,26 +16,50 @@ import java.util.TreeMap;
  * Represents a user associated with a business account.
  * <p>
  * This class tracks the user's cards, transactions, and deposits within the business account.
+ * The amounts spent and deposited are also kept as {@link RunningTotals}, which the totals of
+ * the business reports are read from.
  */
 @Getter
 @Setter
 public class BusinessAccUser {
     private final String name;
+    // the order the associate joined the account in, among the managers or the employees
+    private int position;
     private List<String> cards;
-    private Map<Integer, Transaction> transactions;
-    private Map<Integer, Double> deposits;
+    // changed only through addTransaction and addDeposit, which keep the maps and their running
+    // totals in step
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Transaction> transactions = new TreeMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, Double> deposits = new TreeMap<>();
+    @Getter(AccessLevel.NONE)
+    private final RunningTotals spentTotals = new RunningTotals();
+    @Getter(AccessLevel.NONE)
+    private final RunningTotals depositTotals = new RunningTotals();
 
     /**
      * Constructs a {@code BusinessAccUser} with the specified name.
-     * Initializes empty lists and maps for cards, transactions, and deposits.
+     * Initializes an empty list of cards.
      *
      * @param name the name of the user
      */
     public BusinessAccUser(final String name) {
         this.name = name;
         cards = new ArrayList<>();
-        transactions = new TreeMap<>();
-        deposits = new TreeMap<>();
+    }
+
+    /**
+     * @return a read-only view of the transactions of the user, by timestamp
+     */
+    public Map<Integer, Transaction> getTransactions() {
+        return Collections.unmodifiableMap(transactions);
+    }
+
+    /**
+     * @return a read-only view of the deposits of the user, by timestamp
+     */
+    public Map<Integer, Double> getDeposits() {
+        return Collections.unmodifiableMap(deposits);
     }
 
     /**
@@ -44,13 +70,7 @@ public class BusinessAccUser {
      * @return the total amount spent within the time range
      */
     public double getSpentAmount(final int startTime, final int endTimestamp) {
-        double spent = 0;
-        for (Map.Entry<Integer, Transaction> entry : transactions.entrySet()) {
-            if (entry.getKey() >= startTime && entry.getKey() <= endTimestamp) {
-                spent += entry.getValue().getAmount();
-            }
-        }
-        return spent;
+        return spentTotals.total(startTime, endTimestamp);
     }
 
     /**
@@ -61,35 +81,30 @@ public class BusinessAccUser {
      * @return the total amount deposited within the time range
      */
     public double getDepositAmount(final int startTime, final int endTimestamp) {
-        double spent = 0;
-        for (Map.Entry<Integer, Double> entry : deposits.entrySet()) {
-            if (entry.getKey() >= startTime && entry.getKey() <= endTimestamp) {
-                spent += entry.getValue();
-            }
-        }
-        return spent;
+        return depositTotals.total(startTime, endTimestamp);
     }
 
     /**
-     * Calculates the total amount spent by the user at a specific commerciant
-     * within the specified time range.
+     * Records a transaction of the user, replacing the one with the same timestamp, if any.
      *
-     * @param startTimestamp the start timestamp of the range
-     * @param endTimestamp   the end timestamp of the range
-     * @param commerciant    the name of the commerciant
-     * @return the total amount spent at the commerciant within the time range
+     * @param timestamp   the timestamp of the transaction
+     * @param transaction the transaction
+     * @return the transaction replaced, or {@code null} if there is none
+     */
+    public Transaction addTransaction(final int timestamp, final Transaction transaction) {
+        spentTotals.put(timestamp, transaction.getAmount());
+        return transactions.put(timestamp, transaction);
+    }
+
+    /**
+     * Records a deposit of the user, replacing the one with the same timestamp, if any.
+     *
+     * @param timestamp the timestamp of the deposit
+     * @param amount    the amount deposited
      */
-    public double getTotalSpentByCommerciant(final int startTimestamp, final int endTimestamp,
-                                             final String commerciant) {
-        double spent = 0;
-        for (Map.Entry<Integer, Transaction> entry : transactions.entrySet()) {
-            if (entry.getKey() >= startTimestamp && entry.getKey() <= endTimestamp) {
-                if (entry.getValue().getCommerciant().equals(commerciant)) {
-                    spent += entry.getValue().getAmount();
-                }
-            }
-        }
-        return spent;
+    public void addDeposit(final int timestamp, final double amount) {
+        deposits.put(timestamp, amount);
+        depositTotals.put(timestamp, amount);
     }
 
     /**
@@ -4,29 +4,40 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.poo.fileio.CommandInput;
 import org.poo.main.Application;
 import org.poo.main.ExchangeRatesGraph;
+import org.poo.main.Money;
 import org.poo.main.cardTypes.Card;
 import org.poo.main.User;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
 import org.poo.utils.Errors;
 import org.poo.utils.Search;
 import org.poo.utils.Utils;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Comparator;
 
-@Getter @Setter
+@Getter
 public class BusinessAccount extends Account {
-    private Map<String, BusinessAccUser> managers;
-    private Map<String, BusinessAccUser> employees;
+    // changed only through the methods of the account, which keep the commerciant index in step
+    private final Map<String, BusinessAccUser> managers = new LinkedHashMap<>();
+    private final Map<String, BusinessAccUser> employees = new LinkedHashMap<>();
+    @Setter
     private double spendingLimit;
+    @Setter
     private double depositLimit;
-    private List<String> commerciants;
+    private final List<String> commerciants = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final BusinessCommerciants commerciantIndex = new BusinessCommerciants();
 
     /**
      * Constructs a {@link BusinessAccount} using the provided {@link CommandInput}.
@@ -38,13 +49,47 @@ public class BusinessAccount extends Account {
      */
     public BusinessAccount(final CommandInput input, final Application app) {
         super(input);
-        managers = new LinkedHashMap<>();
-        employees = new LinkedHashMap<>();
-        commerciants = new ArrayList<>();
-        depositLimit = app.getExchangeRates().getRate(Utils.DEFAULT_CURRENCY,
-                input.getCurrency()) * Utils.THRESHOLD_500;
-        spendingLimit = app.getExchangeRates().getRate(Utils.DEFAULT_CURRENCY,
-                input.getCurrency()) * Utils.THRESHOLD_500;
+        ExchangeRatesGraph rates = app.getExchangeRates();
+        double limit = rates.getRate(rates.getDefaultCurrencyId(), input.getCurrencyId())
+                * Utils.THRESHOLD_500;
+        depositLimit = limit;
+        spendingLimit = limit;
+    }
+
+    /**
+     * Constructs an empty {@link BusinessAccount} with a known IBAN, with no associates and no
+     * limits, see {@link AccountFactory#restoreAccount(String, String, String, int)}.
+     *
+     * @param iban       the IBAN of the account
+     * @param currency   the currency of the account
+     * @param currencyId the interned id of the currency
+     */
+    public BusinessAccount(final String iban, final String currency, final int currencyId) {
+        super(iban, currency, currencyId);
+    }
+
+    /**
+     * @return a read-only view of the managers of the account, by email, in the order they
+     * joined it
+     */
+    public Map<String, BusinessAccUser> getManagers() {
+        return Collections.unmodifiableMap(managers);
+    }
+
+    /**
+     * @return a read-only view of the employees of the account, by email, in the order they
+     * joined it
+     */
+    public Map<String, BusinessAccUser> getEmployees() {
+        return Collections.unmodifiableMap(employees);
+    }
+
+    /**
+     * @return a read-only view of the commerciants paid from the account, in the order they
+     * were first paid
+     */
+    public List<String> getCommerciants() {
+        return Collections.unmodifiableList(commerciants);
     }
 
     /**
@@ -61,12 +106,14 @@ public class BusinessAccount extends Account {
             case "manager" -> {
                 BusinessAccUser newUser = new BusinessAccUser(user.getLastName()
                         + " " + user.getFirstName());
+                newUser.setPosition(managers.size());
                 managers.put(email, newUser);
                 user.addBussinessAccount(this);
             }
             case "employee" -> {
                 BusinessAccUser newUser = new BusinessAccUser(user.getLastName()
                         + " " + user.getFirstName());
+                newUser.setPosition(employees.size());
                 employees.put(email, newUser);
                 user.addBussinessAccount(this);
             }
@@ -95,7 +142,7 @@ public class BusinessAccount extends Account {
     @Override
     public void addNewBusinessAssociate(final String email, final String role, final int timestamp,
                                         final Application app) {
-        User userToAdd = Search.getUserByEmail(app.getUsers(), email);
+        User userToAdd = Search.getUserByEmail(app.getRegistry(), email);
         if (userToAdd == null) {
             return;
         }
@@ -172,7 +219,8 @@ public class BusinessAccount extends Account {
     }
 
     /**
-     * Retrieves an array of commerciants with their total received amounts and associated users.
+     * Retrieves an array of commerciants with their total received amounts and associated users,
+     * from the {@link BusinessCommerciants} index kept up to date by the payments.
      *
      * @param startTimestamp the start of the time range
      * @param endTimestamp   the end of the time range
@@ -180,17 +228,7 @@ public class BusinessAccount extends Account {
      * and the managers and employees who transacted with them
      */
     private JsonNode getCommerciantsArray(final int startTimestamp, final int endTimestamp) {
-        ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        for (String commerciant : commerciants) {
-            ObjectNode node = JsonNodeFactory.instance.objectNode();
-            node.put("commerciant", commerciant);
-            node.put("total received",
-                    getTotalCommerciant(startTimestamp, endTimestamp, commerciant));
-            node.set("managers", getManagersForCommerciant(commerciant));
-            node.set("employees", getEmployeesForCommerciant(commerciant));
-            array.add(node);
-        }
-        return sortArrayNodeByStringField(array, "commerciant");
+        return commerciantIndex.getReport(startTimestamp, endTimestamp);
     }
 
     /**
@@ -230,18 +268,9 @@ public class BusinessAccount extends Account {
      * @return an {@link ArrayNode} containing the names of employees
      */
     public ArrayNode getEmployeesForCommerciant(final String commerciant) {
-        ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        for (BusinessAccUser user : employees.values()) {
-            for (Map.Entry<Integer, Transaction> entry : user.getTransactions().entrySet()) {
-                if (entry.getValue().getCommerciant().equals(commerciant)) {
-                    array.add(user.getName());
-                }
-            }
-        }
-        return array;
+        return commerciantIndex.getPayers(commerciant, false);
     }
 
-
     /**
      * Retrieves a list of managers who have made transactions with a specified commerciant.
      *
@@ -249,15 +278,7 @@ public class BusinessAccount extends Account {
      * @return an {@link ArrayNode} containing the names of managers who made transactions
      */
     public ArrayNode getManagersForCommerciant(final String commerciant) {
-        ArrayNode array = JsonNodeFactory.instance.arrayNode();
-        for (BusinessAccUser user : managers.values()) {
-            for (Map.Entry<Integer, Transaction> entry : user.getTransactions().entrySet()) {
-                if (entry.getValue().getCommerciant().equals(commerciant)) {
-                    array.add(user.getName());
-                }
-            }
-        }
-        return array;
+        return commerciantIndex.getPayers(commerciant, true);
     }
 
     /**
@@ -268,8 +289,7 @@ public class BusinessAccount extends Account {
      */
     @Override
     public void addCard(final Card card, final String email) {
-        getCards().add(card);
-        card.setAccountBelonging(this);
+        super.addCard(card, email);
         if (employees.containsKey(email)) {
             employees.get(email).addCard(card.getCardNumber());
         }
@@ -294,11 +314,11 @@ public class BusinessAccount extends Account {
                 return;
             }
         }
-        setBalance(getBalance() + amount);
+        getBalanceCell().update(micros -> Money.toMicros(Money.toDouble(micros) + amount));
         if (isEmployee(email)) {
-            employees.get(email).getDeposits().put(timestamp, amount);
+            employees.get(email).addDeposit(timestamp, amount);
         } else if (managers.containsKey(email)) {
-            managers.get(email).getDeposits().put(timestamp, amount);
+            managers.get(email).addDeposit(timestamp, amount);
         }
     }
 
@@ -307,63 +327,54 @@ public class BusinessAccount extends Account {
      * <p>
      * @param card          the {@link Card} used for the payment
      * @param amount        the payment amount in the specified payment currency
-     * @param payCurrency   the currency in which the payment is made
+     * @param payCurrency   the interned id of the currency in which the payment is made
      * @param exchangeRates the {@link ExchangeRatesGraph} used for currency conversion
      * @param timestamp     the timestamp of the payment
      * @param commerciant   the name of the commerciant where the payment was made
      * @param email         the email of the user initiating the payment
-     * @return an {@link ObjectNode} containing the payment details if successful,
-     * or an error message if the payment fails
+     * @return the {@link CardPayment} if successful,
+     * or a {@link TransactionError} if the payment fails
      */
     @Override
-    public ObjectNode makePayment(final Card card, double amount, final String payCurrency,
-                                  final ExchangeRatesGraph exchangeRates, final int timestamp,
-                                  final String commerciant, final String email) {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
+    public TransactionEvent makePayment(final Card card, double amount, final int payCurrency,
+                                        final ExchangeRatesGraph exchangeRates,
+                                        final int timestamp, final String commerciant,
+                                        final String email) {
         if (!employees.containsKey(email) && !managers.containsKey(email)
                 && !getOwner().getEmail().equals(email)) {
-            return Errors.cardNotFound(timestamp);
+            return new TransactionError(timestamp, Errors.CARD_NOT_FOUND);
         }
 
         if (card.getStatus().equals("frozen")) {
-            return Errors.frozenCard(timestamp);
+            return new TransactionError(timestamp, Errors.FROZEN_CARD);
         }
 
-        amount *= exchangeRates.getRate(payCurrency, card.getAccountBelonging().getCurrency());
-        double ronAmount = amount * exchangeRates.getRate(getCurrency(), Utils.DEFAULT_CURRENCY);
-        double newAmount = amount * getOwner().getCommission(ronAmount);
-
-        if (getBalance() < newAmount) {
-            return Errors.insufficientFunds(timestamp);
+        int ron = exchangeRates.getDefaultCurrencyId();
+        int own = getCurrencyId();
+        Money paid = Money.of(amount * exchangeRates.getRate(payCurrency, own), own);
+        amount = paid.toDouble();
+        Money ronAmount = paid.convert(exchangeRates.getRate(own, ron), ron);
+        Money toPay = paid.times(getOwner().getCommission(ronAmount.toDouble()));
+        if (isEmployee(email) && spendingLimit < toPay.toDouble()) {
+            // the lack of funds is reported first
+            return new TransactionError(timestamp, getBalanceMoney().lessThan(toPay)
+                    ? Errors.INSUFFICIENT_FUNDS : Errors.USER_NOT_FOUND);
         }
 
-        if (isEmployee(email)) {
-            if (spendingLimit < newAmount) {
-                return Errors.userNotFound(timestamp);
-            }
+        if (!withdraw(toPay)) {
+            return new TransactionError(timestamp, Errors.INSUFFICIENT_FUNDS);
         }
 
-        double cashback = getCashbackService().giveCashbackForTransactions(commerciant, amount);
-        getCashbackService().addTransactionToCommerciant(commerciant, ronAmount);
-        double newCashback = getCashbackService().giveCashbackForAmount(commerciant,
-                ronAmount - cashback, getOwner().getPlan());
-        newCashback = newCashback * exchangeRates.getRate(Utils.DEFAULT_CURRENCY, getCurrency());
-        cashback += newCashback;
+        deposit(getCashbackService().cashbackFor(commerciant, paid, ronAmount,
+                getOwner().getPlan(), exchangeRates.getRate(ron, own)));
+        CardPayment payment = new CardPayment(timestamp, amount, commerciant);
 
-        setBalance(getBalance() - newAmount + cashback);
-        node.put("timestamp", timestamp);
-        node.put("description", "Card payment");
-        node.put("amount", amount);
-        node.put("commerciant", commerciant);
+        card.getAccountBelonging().addToReport(payment);
+        card.getAccountBelonging().addToSpendingsReport(payment);
 
-        card.getAccountBelonging().addToReport(node);
-        card.getAccountBelonging().addToSpendingsReport(node);
-
-        if (!commerciants.contains(commerciant)) {
-            commerciants.add(commerciant);
-        }
+        listCommerciant(commerciant);
         addSpending(email, amount, timestamp, commerciant);
-        return node;
+        return payment;
     }
 
     /**
@@ -386,10 +397,50 @@ public class BusinessAccount extends Account {
     public void addSpending(final String email, final double amount, final int timestamp,
                             final String commerciant) {
         Transaction transaction = new Transaction(commerciant, amount);
-        if (employees.containsKey(email)) {
-            employees.get(email).getTransactions().put(timestamp, transaction);
-        } else if (managers.containsKey(email)) {
-            managers.get(email).getTransactions().put(timestamp, transaction);
+        BusinessAccUser associate = employees.get(email);
+        boolean manager = associate == null;
+        if (manager) {
+            associate = managers.get(email);
+        }
+        if (associate == null) {
+            return;
+        }
+        listCommerciant(commerciant);
+        commerciantIndex.addPayment(associate, manager, timestamp, transaction,
+                associate.addTransaction(timestamp, transaction));
+    }
+
+    private void listCommerciant(final String commerciant) {
+        if (commerciantIndex.add(commerciant)) {
+            commerciants.add(commerciant);
+        }
+    }
+
+    /**
+     * Restores the commerciants and the associates of the account as they were when a
+     * snapshot was taken, then rebuilds the {@link BusinessCommerciants} index from them.
+     *
+     * @param listed            the commerciants paid from the account, in the order they were
+     *                          first paid
+     * @param restoredManagers  the managers, by email, in the order they joined the account
+     * @param restoredEmployees the employees, by email, in the order they joined the account
+     */
+    public void restore(final List<String> listed,
+                        final Map<String, BusinessAccUser> restoredManagers,
+                        final Map<String, BusinessAccUser> restoredEmployees) {
+        commerciants.addAll(listed);
+        managers.putAll(restoredManagers);
+        employees.putAll(restoredEmployees);
+        commerciants.forEach(commerciantIndex::add);
+        indexPayments(managers, true);
+        indexPayments(employees, false);
+    }
+
+    private void indexPayments(final Map<String, BusinessAccUser> associates,
+                               final boolean manager) {
+        for (BusinessAccUser associate : associates.values()) {
+            associate.getTransactions().forEach((timestamp, transaction) -> commerciantIndex
+                    .addPayment(associate, manager, timestamp, transaction, null));
         }
     }
 
@@ -442,14 +493,7 @@ public class BusinessAccount extends Account {
      */
     public double getTotalCommerciant(final int startTimestamp, final int endTimestamp,
                                       final String commerciant) {
-        double total = 0;
-        for (BusinessAccUser user : managers.values()) {
-            total += user.getTotalSpentByCommerciant(startTimestamp, endTimestamp, commerciant);
-        }
-        for (BusinessAccUser user : employees.values()) {
-            total += user.getTotalSpentByCommerciant(startTimestamp, endTimestamp, commerciant);
-        }
-        return total;
+        return commerciantIndex.getTotal(commerciant, startTimestamp, endTimestamp);
     }
 
     /**
@@ -0,0 +1,146 @@
+package org.poo.main.accounts;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The commerciants paid from a business account, in the order of their names, each with the
+ * managers and the employees who paid it, in the order they joined the account, and the
+ * {@link RunningTotals} of what each of them paid it.
+ * <p>
+ * It is kept up to date as the payments are made, so the commerciant report of the account
+ * only goes through what it prints: the commerciants, and for each of them the associates who
+ * paid it.
+ */
+public final class BusinessCommerciants {
+    private final TreeMap<String, Payers> commerciants = new TreeMap<>();
+
+    /**
+     * The associates who paid a commerciant, by the order they joined the account in.
+     */
+    private static final class Payers {
+        private final TreeMap<Integer, Payer> managers = new TreeMap<>();
+        private final TreeMap<Integer, Payer> employees = new TreeMap<>();
+    }
+
+    /**
+     * An associate who paid a commerciant, and what they paid it.
+     */
+    private record Payer(String name, RunningTotals payments) {
+    }
+
+    /**
+     * Lists a commerciant, even if no associate paid it.
+     *
+     * @param commerciant the name of the commerciant
+     * @return whether the commerciant was not listed yet
+     */
+    public boolean add(final String commerciant) {
+        if (commerciants.containsKey(commerciant)) {
+            return false;
+        }
+        commerciants.put(commerciant, new Payers());
+        return true;
+    }
+
+    /**
+     * Records a payment of an associate, replacing the one they made at the same timestamp.
+     *
+     * @param associate the associate
+     * @param manager   whether the associate is a manager
+     * @param timestamp the timestamp of the payment
+     * @param payment   the payment
+     * @param replaced  the payment it replaces, or {@code null} if there is none
+     */
+    public void addPayment(final BusinessAccUser associate, final boolean manager,
+                           final int timestamp, final Transaction payment,
+                           final Transaction replaced) {
+        if (replaced != null) {
+            Payers payers = commerciants.get(replaced.getCommerciant());
+            TreeMap<Integer, Payer> byRole = payers == null ? null
+                    : manager ? payers.managers : payers.employees;
+            Payer payer = byRole == null ? null : byRole.get(associate.getPosition());
+            if (payer != null && payer.payments().remove(timestamp)
+                    && payer.payments().size() == 0) {
+                byRole.remove(associate.getPosition());
+            }
+        }
+        add(payment.getCommerciant());
+        Payers payers = commerciants.get(payment.getCommerciant());
+        (manager ? payers.managers : payers.employees)
+                .computeIfAbsent(associate.getPosition(),
+                        position -> new Payer(associate.getName(), new RunningTotals()))
+                .payments().put(timestamp, payment.getAmount());
+    }
+
+    /**
+     * @param commerciant    the name of the commerciant
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     * @return what the managers, then the employees, paid the commerciant during the window
+     */
+    public double getTotal(final String commerciant, final int startTimestamp,
+                           final int endTimestamp) {
+        Payers payers = commerciants.get(commerciant);
+        return payers == null ? 0 : total(payers, startTimestamp, endTimestamp);
+    }
+
+    private static double total(final Payers payers, final int startTimestamp,
+                                final int endTimestamp) {
+        double total = 0;
+        for (Payer payer : payers.managers.values()) {
+            total += payer.payments().total(startTimestamp, endTimestamp);
+        }
+        for (Payer payer : payers.employees.values()) {
+            total += payer.payments().total(startTimestamp, endTimestamp);
+        }
+        return total;
+    }
+
+    /**
+     * @param commerciant the name of the commerciant
+     * @param managers    whether the managers are listed, or the employees
+     * @return the name of the associate of every payment to the commerciant, in the order the
+     *         associates joined the account
+     */
+    public ArrayNode getPayers(final String commerciant, final boolean managers) {
+        Payers payers = commerciants.get(commerciant);
+        if (payers == null) {
+            return JsonNodeFactory.instance.arrayNode();
+        }
+        return names(managers ? payers.managers : payers.employees);
+    }
+
+    private static ArrayNode names(final TreeMap<Integer, Payer> payers) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        for (Payer payer : payers.values()) {
+            for (int i = 0; i < payer.payments().size(); i++) {
+                array.add(payer.name());
+            }
+        }
+        return array;
+    }
+
+    /**
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     * @return every commerciant, in the order of their names, with what was paid to it during
+     *         the window and the associates who paid it
+     */
+    public ArrayNode getReport(final int startTimestamp, final int endTimestamp) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        for (Map.Entry<String, Payers> entry : commerciants.entrySet()) {
+            ObjectNode node = JsonNodeFactory.instance.objectNode();
+            node.put("commerciant", entry.getKey());
+            node.put("total received", total(entry.getValue(), startTimestamp, endTimestamp));
+            node.set("managers", names(entry.getValue().managers));
+            node.set("employees", names(entry.getValue().employees));
+            array.add(node);
+        }
+        return array;
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.CommandInput;
 import org.poo.main.cardTypes.Card;
+import org.poo.main.transactions.TransactionEvent;
 
 /**
  * Represents a classic bank account that extends the {@link Account} class.
@@ -22,6 +23,18 @@ public class ClassicAccount extends Account {
         super(input);
     }
 
+    /**
+     * Constructs an empty {@link ClassicAccount} with a known IBAN, see
+     * {@link AccountFactory#restoreAccount(String, String, String, int)}.
+     *
+     * @param iban       the IBAN of the account
+     * @param currency   the currency of the account
+     * @param currencyId the interned id of the currency
+     */
+    public ClassicAccount(final String iban, final String currency, final int currencyId) {
+        super(iban, currency, currencyId);
+    }
+
     /**
      * Converts the account to a JSON object representation.
      * Includes the account's IBAN, balance, currency, type, and associated cards.
@@ -60,11 +73,12 @@ public class ClassicAccount extends Account {
      * Adds interest to the account.
      * This operation is not supported for classic accounts.
      *
+     * @param timestamp the timestamp of the action
      * @return nothing, as this operation is not supported
      * @throws UnsupportedOperationException always
      */
     @Override
-    public ObjectNode addInterest() {
+    public TransactionEvent addInterest(final int timestamp) {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
@@ -0,0 +1,55 @@
+package org.poo.main.accounts;
+
+import org.poo.main.transactions.CardPayment;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * The card payments of an account, grouped by commerciant, with the {@link RunningTotals} of
+ * each commerciant, so the total paid to every commerciant over a window of time is found
+ * without going through the payments of the window.
+ */
+public final class CommerciantTotals {
+    private final TreeMap<String, RunningTotals> series = new TreeMap<>();
+
+    /**
+     * Adds a payment, which must not share its timestamp with another payment of the account.
+     *
+     * @param payment the payment
+     */
+    public void add(final CardPayment payment) {
+        series.computeIfAbsent(payment.commerciant(), commerciant -> new RunningTotals())
+                .put(payment.timestamp(), payment.amount());
+    }
+
+    /**
+     * Removes a payment added before.
+     *
+     * @param payment the payment
+     */
+    public void remove(final CardPayment payment) {
+        RunningTotals payments = series.get(payment.commerciant());
+        if (payments != null && payments.remove(payment.timestamp()) && payments.size() == 0) {
+            series.remove(payment.commerciant());
+        }
+    }
+
+    /**
+     * Goes through the commerciants paid during a window, in the order of their names.
+     *
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     * @param action         takes every commerciant with the total paid to it in the window
+     */
+    public void forEach(final int startTimestamp, final int endTimestamp,
+                        final ObjDoubleConsumer<String> action) {
+        for (Map.Entry<String, RunningTotals> entry : series.entrySet()) {
+            if (entry.getValue().count(startTimestamp, endTimestamp) > 0) {
+                action.accept(entry.getKey(),
+                        entry.getValue().total(startTimestamp, endTimestamp));
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.poo.main.accounts;
+
+import org.poo.main.Money;
+
+import java.util.Arrays;
+
+/**
+ * Amounts keyed by timestamp, at most one per timestamp, kept in timestamp order along with
+ * their prefix sums, so the total of a window of time is found without going through the
+ * amounts of the window.
+ * <p>
+ * The amounts are kept in micro-units, see {@link Money}, so their sums are exact and the
+ * total of any window is the difference of two prefix sums. The prefix sums are held in a
+ * Fenwick tree: a window, an amount added after the others or an amount replaced costs
+ * O(log n). An amount added out of order, or removed, shifts the amounts after it, and the
+ * tree is built again in the same linear pass.
+ */
+public final class RunningTotals {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    // 1-based: tree[i] holds the sum of the amounts (i - lowbit(i), i]
+    private long[] tree = new long[INITIAL_CAPACITY + 1];
+    private int size;
+
+    /**
+     * Records an amount, replacing the one with the same timestamp, if any.
+     *
+     * @param timestamp the timestamp of the amount
+     * @param amount    the amount
+     */
+    public void put(final int timestamp, final double amount) {
+        long micros = Money.toMicros(amount);
+        int index = size > 0 && timestamps[size - 1] >= timestamp ? lowerBound(timestamp) : size;
+        if (index < size && timestamps[index] == timestamp) {
+            long delta = micros - amounts[index];
+            amounts[index] = micros;
+            for (int i = index + 1; i <= size; i += i & -i) {
+                tree[i] += delta;
+            }
+            return;
+        }
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+            tree = Arrays.copyOf(tree, size * 2 + 1);
+        }
+        if (index == size) {
+            timestamps[size] = timestamp;
+            amounts[size] = micros;
+            size++;
+            tree[size] = micros + prefix(size - 1) - prefix(size - (size & -size));
+            return;
+        }
+        System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+        System.arraycopy(amounts, index, amounts, index + 1, size - index);
+        timestamps[index] = timestamp;
+        amounts[index] = micros;
+        size++;
+        rebuild();
+    }
+
+    /**
+     * Removes the amount with a timestamp, if any.
+     *
+     * @param timestamp the timestamp of the amount
+     * @return whether there was an amount with that timestamp
+     */
+    public boolean remove(final int timestamp) {
+        int index = lowerBound(timestamp);
+        if (index == size || timestamps[index] != timestamp) {
+            return false;
+        }
+        System.arraycopy(timestamps, index + 1, timestamps, index, size - index - 1);
+        System.arraycopy(amounts, index + 1, amounts, index, size - index - 1);
+        size--;
+        rebuild();
+        return true;
+    }
+
+    private void rebuild() {
+        System.arraycopy(amounts, 0, tree, 1, size);
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * @return the sum of the first {@code count} amounts, in micro-units
+     */
+    private long prefix(final int count) {
+        long total = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            total += tree[i];
+        }
+        return total;
+    }
+
+    /**
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     * @return the number of amounts of the window
+     */
+    public int count(final int startTimestamp, final int endTimestamp) {
+        return Math.max(0, lowerBound(endTimestamp + 1L) - lowerBound(startTimestamp));
+    }
+
+    /**
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     * @return the exact sum of the amounts of the window, zero if there is none
+     */
+    public double total(final int startTimestamp, final int endTimestamp) {
+        int from = lowerBound(startTimestamp);
+        int to = lowerBound(endTimestamp + 1L);
+        if (from >= to) {
+            return 0.0;
+        }
+        return Money.toDouble(prefix(to) - prefix(from));
+    }
+
+    /**
+     * @return the number of amounts
+     */
+    public int size() {
+        return size;
+    }
+
+    private int lowerBound(final long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
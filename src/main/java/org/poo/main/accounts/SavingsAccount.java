@@ -7,6 +7,11 @@ import lombok.Getter;
 import lombok.Setter;
 import org.poo.fileio.CommandInput;
 import org.poo.main.cardTypes.Card;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.InterestIncome;
+import org.poo.main.Money;
+import org.poo.main.transactions.Page;
+import org.poo.main.transactions.TransactionEvent;
 
 /**
  * Represents a savings account that extends from the {@link Account} class.
@@ -27,6 +32,18 @@ public class SavingsAccount extends Account {
         this.interestRate = input.getInterestRate();
     }
 
+    /**
+     * Constructs an empty {@link SavingsAccount} with a known IBAN, see
+     * {@link AccountFactory#restoreAccount(String, String, String, int)}.
+     *
+     * @param iban       the IBAN of the account
+     * @param currency   the currency of the account
+     * @param currencyId the interned id of the currency
+     */
+    public SavingsAccount(final String iban, final String currency, final int currencyId) {
+        super(iban, currency, currencyId);
+    }
+
     /**
      * Converts the savings account to a JSON object.
      * The resulting JSON includes all the account data, as well as
@@ -53,17 +70,21 @@ public class SavingsAccount extends Account {
     /**
      * Adds interest to the savings account balance based on the interest rate.
      * The interest is calculated using the current balance and the interest rate.
+     *
+     * @param timestamp the timestamp of the action
+     * @return the recorded {@link InterestIncome}
      */
-    public ObjectNode addInterest() {
-        ObjectNode node = JsonNodeFactory.instance.objectNode();
-
-        double interest = getBalance() * interestRate;
-        setBalance(getBalance() + interest);
-
-        node.put("amount", interest);
-        node.put("currency", getCurrency());
-        node.put("description", "Interest rate income");
-        return node;
+    @Override
+    public TransactionEvent addInterest(final int timestamp) {
+        BalanceCell balance = getBalanceCell();
+        long current;
+        double interest;
+        do {
+            current = balance.get();
+            interest = Money.toDouble(current) * interestRate;
+        } while (!balance.compareAndSet(current,
+                Money.toMicros(Money.toDouble(current) + interest)));
+        return new InterestIncome(timestamp, interest, getCurrency());
     }
 
     /**
@@ -76,6 +97,17 @@ public class SavingsAccount extends Account {
         throw new UnsupportedOperationException("Savings accounts do not have a spendings report");
     }
 
+    /**
+     * {@inheritDoc}
+     * Savings accounts do not have a spending report, so this method throws an
+     * {@link UnsupportedOperationException}.
+     */
+    @Override
+    public Page<CardPayment> getSpendingsReportPage(final int startTimestamp,
+                                                    final int endTimestamp, final int limit) {
+        throw new UnsupportedOperationException("Savings accounts do not have a spendings report");
+    }
+
     /**
      * Changes the deposit limit for the account.
      * This operation is not supported for this account type.
@@ -0,0 +1,184 @@
+package org.poo.main.cardTypes;
+
+import java.util.Arrays;
+
+/**
+ * Global index from card numbers to {@link Card}s.
+ * <p>
+ * Card numbers are always sixteen decimal digits, so they fit in a {@code long}.
+ * The index stores them as primitive keys in an open-addressing table with linear probing
+ * instead of a {@code String}-keyed map, which keeps a million live cards at a few tens of
+ * megabytes and resolves a lookup with a single probe in the common case.
+ * Removals use backward-shift deletion, so the table never accumulates tombstones.
+ */
+public class CardIndex {
+    private static final int CARD_DIGITS = 16;
+    private static final int DECIMAL_BASE = 10;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long EMPTY = -1L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int HASH_SHIFT = 32;
+
+    private long[] keys;
+    private Card[] cards;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs an empty {@link CardIndex}.
+     */
+    public CardIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Converts a card number to its primitive key.
+     *
+     * @param cardNumber the card number
+     * @return the numeric key, or {@code -1} if the string is not a valid card number
+     */
+    public static long toKey(final String cardNumber) {
+        if (cardNumber == null || cardNumber.length() != CARD_DIGITS) {
+            return EMPTY;
+        }
+        long key = 0;
+        for (int i = 0; i < CARD_DIGITS; i++) {
+            int digit = cardNumber.charAt(i) - '0';
+            if (digit < 0 || digit >= DECIMAL_BASE) {
+                return EMPTY;
+            }
+            key = key * DECIMAL_BASE + digit;
+        }
+        return key;
+    }
+
+    /**
+     * Indexes a card by its number. A number that is already indexed keeps its card.
+     *
+     * @param card the card to index
+     */
+    public void add(final Card card) {
+        long key = toKey(card.getCardNumber());
+        if (key == EMPTY) {
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        cards[slot] = card;
+        size++;
+    }
+
+    /**
+     * Removes a card from the index, if it is the card indexed under its number.
+     *
+     * @param card the card to remove
+     */
+    public void remove(final Card card) {
+        long key = toKey(card.getCardNumber());
+        if (key == EMPTY) {
+            return;
+        }
+        int slot = find(key);
+        if (slot < 0 || cards[slot] != card) {
+            return;
+        }
+        size--;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                cards[hole] = cards[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        cards[hole] = null;
+    }
+
+    /**
+     * @param cardNumber the card number
+     * @return the card with the given number, or {@code null} if there is none
+     */
+    public Card get(final String cardNumber) {
+        return get(toKey(cardNumber));
+    }
+
+    /**
+     * @param key the numeric card number
+     * @return the card with the given number, or {@code null} if there is none
+     */
+    public Card get(final long key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        int slot = find(key);
+        return slot < 0 ? null : cards[slot];
+    }
+
+    /**
+     * @return the number of indexed cards
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every card from the index.
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private int find(final long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slot(final long key) {
+        long hash = key * GOLDEN_RATIO;
+        return (int) (hash ^ (hash >>> HASH_SHIFT)) & mask;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        cards = new Card[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void rehash(final int capacity) {
+        long[] oldKeys = keys;
+        Card[] oldCards = cards;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                cards[slot] = oldCards[i];
+                size++;
+            }
+        }
+    }
+}
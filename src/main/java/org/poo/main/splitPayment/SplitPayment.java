@@ -1,8 +1,7 @@
 package org.poo.main.splitPayment;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import lombok.Getter;
+import lombok.Setter;
 import org.poo.main.ExchangeRatesGraph;
 import org.poo.main.accounts.Account;
 
@@ -21,15 +20,19 @@ import java.util.Map;
 public class SplitPayment {
     private final List<Observer> observers = new ArrayList<>();
     private final Map<Account, SplitPaymentStatus> userStatuses = new HashMap<>();
+    @Setter
     private boolean allAccepted = false;
+    @Setter
     private boolean rejected = false;
 
     private final String splitPaymentType;
     private final List<String> accounts;
     private final double totalAmount;
     private final String currency;
+    private final int currencyId;
     private final List<Double> amountForUser;
     private final ExchangeRatesGraph exchangeRates;
+    @Setter
     private String accountToBlame = "";
     private final int timestamp;
 
@@ -52,6 +55,7 @@ public class SplitPayment {
         this.accounts = accounts;
         this.totalAmount = amount;
         this.currency = currency;
+        this.currencyId = exchangeRates.getCurrencyId(currency);
         this.amountForUser = initialiseAmountForUser(amountForUser);
         this.exchangeRates = exchangeRates;
         this.timestamp = timestamp;
@@ -118,7 +122,8 @@ public class SplitPayment {
         for (String accountIban : accounts) {
             Account account = getAccountByIban(accountIban);
             double amount = amountForUser.get(i++);
-            double newAmount = amount * exchangeRates.getRate(currency, account.getCurrency());
+            double newAmount = amount * exchangeRates.getRate(currencyId,
+                    account.getCurrencyId());
 
             if (account.getBalance() < newAmount) {
                 return account.getIban();
@@ -148,26 +153,6 @@ public class SplitPayment {
         return amounts;
     }
 
-    /**
-     * Converts the list of account IBANs to an {@link ArrayNode}.
-     *
-     * @return an {@link ArrayNode} containing the account IBANs
-     */
-    public ArrayNode getAccountsArray() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.valueToTree(accounts);
-    }
-
-    /**
-     * Converts the list of user amounts to an {@link ArrayNode}.
-     *
-     * @return an {@link ArrayNode} containing the amounts for each user
-     */
-    public ArrayNode getAmountsArray() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.valueToTree(amountForUser);
-    }
-
     /**
      * Retrieves an account by its IBAN.
      *
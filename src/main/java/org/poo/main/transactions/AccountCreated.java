@@ -0,0 +1,9 @@
+package org.poo.main.transactions;
+
+/**
+ * A new account was opened.
+ *
+ * @param timestamp the timestamp of the event
+ */
+public record AccountCreated(int timestamp) implements TransactionEvent {
+}
@@ -0,0 +1,13 @@
+package org.poo.main.transactions;
+
+/**
+ * A new card was created.
+ *
+ * @param timestamp  the timestamp of the event
+ * @param card       the number of the card
+ * @param cardHolder the email of the user holding the card
+ * @param account    the IBAN of the account of the card
+ */
+public record CardCreated(int timestamp, String card, String cardHolder, String account)
+        implements TransactionEvent {
+}
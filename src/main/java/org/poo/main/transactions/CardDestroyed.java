@@ -0,0 +1,13 @@
+package org.poo.main.transactions;
+
+/**
+ * A card was destroyed, either by the user or after a one-time payment.
+ *
+ * @param timestamp  the timestamp of the event
+ * @param card       the number of the card
+ * @param cardHolder the email of the user holding the card
+ * @param account    the IBAN of the account of the card
+ */
+public record CardDestroyed(int timestamp, String card, String cardHolder, String account)
+        implements TransactionEvent {
+}
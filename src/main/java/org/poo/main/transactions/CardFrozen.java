@@ -0,0 +1,9 @@
+package org.poo.main.transactions;
+
+/**
+ * A card was frozen because its account reached the minimum balance.
+ *
+ * @param timestamp the timestamp of the event
+ */
+public record CardFrozen(int timestamp) implements TransactionEvent {
+}
@@ -0,0 +1,12 @@
+package org.poo.main.transactions;
+
+/**
+ * A successful card payment to a commerciant.
+ *
+ * @param timestamp   the timestamp of the event
+ * @param amount      the amount paid, in the currency of the account
+ * @param commerciant the name of the commerciant
+ */
+public record CardPayment(int timestamp, double amount, String commerciant)
+        implements TransactionEvent {
+}
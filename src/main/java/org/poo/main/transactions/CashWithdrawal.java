@@ -0,0 +1,10 @@
+package org.poo.main.transactions;
+
+/**
+ * A successful cash withdrawal.
+ *
+ * @param timestamp the timestamp of the event
+ * @param amount    the amount withdrawn, in RON
+ */
+public record CashWithdrawal(int timestamp, double amount) implements TransactionEvent {
+}
@@ -0,0 +1,74 @@
+package org.poo.main.transactions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Where the next page of a history or a report starts: at the events of a timestamp, after
+ * skipping the first {@code skip} of them.
+ * <p>
+ * It is handed to the clients as an opaque token, the URL-safe Base64 of the two numbers
+ * followed by the {@link Scope} of the pages, and is found again in the history in O(log n),
+ * however far into it the page is. A token is only accepted for the scope it was made for.
+ *
+ * @param timestamp the timestamp of the first event of the page
+ * @param skip      the number of events with that timestamp before the page
+ */
+public record Cursor(int timestamp, int skip) {
+    private static final int POSITION_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * The pages a cursor walks through: those of a command, on a user or an account, over a
+     * window of time.
+     *
+     * @param command        the command printing the pages
+     * @param owner          the email of the user or the IBAN of the account
+     * @param startTimestamp the first timestamp of the window
+     * @param endTimestamp   the last timestamp of the window, included
+     */
+    public record Scope(String command, String owner, int startTimestamp, int endTimestamp) {
+        private byte[] toBytes() {
+            byte[] name = command.getBytes(StandardCharsets.UTF_8);
+            byte[] id = owner.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(2 * Integer.BYTES + Short.BYTES + name.length + id.length)
+                    .putInt(startTimestamp).putInt(endTimestamp)
+                    .putShort((short) name.length).put(name).put(id).array();
+        }
+    }
+
+    /**
+     * @param scope the pages the cursor walks through
+     * @return the token handed to the clients
+     */
+    public String encode(final Scope scope) {
+        byte[] rest = scope.toBytes();
+        byte[] bytes = ByteBuffer.allocate(POSITION_BYTES + rest.length).putInt(timestamp)
+                .putInt(skip).put(rest).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @param token a token handed to a client
+     * @param scope the pages the token is given for
+     * @return the cursor of the token
+     * @throws IllegalArgumentException if the token was not made by {@link #encode(Scope)}
+     *                                  for the same scope
+     */
+    public static Cursor decode(final String token, final Scope scope) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        byte[] expected = scope.toBytes();
+        if (bytes.length != POSITION_BYTES + expected.length || !Arrays.equals(bytes,
+                POSITION_BYTES, bytes.length, expected, 0, expected.length)) {
+            throw new IllegalArgumentException("Invalid cursor " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int timestamp = buffer.getInt();
+        int skip = buffer.getInt();
+        if (skip < 0) {
+            throw new IllegalArgumentException("Invalid cursor " + token);
+        }
+        return new Cursor(timestamp, skip);
+    }
+}
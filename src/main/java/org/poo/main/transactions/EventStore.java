@@ -0,0 +1,54 @@
+package org.poo.main.transactions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The events of an account's report, one per timestamp, in timestamp order.
+ * <p>
+ * The events are kept on the heap by a {@link HeapEventStore}, or written to a
+ * {@link org.poo.persistence.TransactionJournal} with only their index on the heap.
+ *
+ * @param <E> the type of the events
+ */
+public interface EventStore<E extends TransactionEvent> extends Iterable<E> {
+    /**
+     * Records an event, replacing the one with the same timestamp, if any.
+     *
+     * @param event the event
+     */
+    void put(E event);
+
+    /**
+     * @param startTimestamp the first timestamp of the range
+     * @param endTimestamp   the last timestamp of the range, included
+     * @return a view of the events of the range, in timestamp order, empty if the range
+     *         starts after it ends
+     */
+    Collection<E> range(int startTimestamp, int endTimestamp);
+
+    /**
+     * Reads a page of a range, going only through the events of the page, and the one after it.
+     *
+     * @param startTimestamp the first timestamp of the page
+     * @param endTimestamp   the last timestamp of the range, included
+     * @param limit          the largest number of events of the page
+     * @return the events of the page, and where the next page starts, if the range goes on
+     */
+    default Page<E> page(final int startTimestamp, final int endTimestamp, final int limit) {
+        List<E> events = new ArrayList<>();
+        Iterator<E> iterator = range(startTimestamp, endTimestamp).iterator();
+        while (events.size() < limit && iterator.hasNext()) {
+            events.add(iterator.next());
+        }
+        Cursor next = iterator.hasNext() ? new Cursor(iterator.next().timestamp(), 0) : null;
+        return new Page<>(events, next);
+    }
+
+    /**
+     * @return the number of events
+     */
+    int size();
+}
@@ -0,0 +1,38 @@
+package org.poo.main.transactions;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Keeps the events of a report on the heap, in a tree keyed by timestamp.
+ *
+ * @param <E> the type of the events
+ */
+public final class HeapEventStore<E extends TransactionEvent> implements EventStore<E> {
+    private final TreeMap<Integer, E> events = new TreeMap<>();
+
+    @Override
+    public void put(final E event) {
+        events.put(event.timestamp(), event);
+    }
+
+    @Override
+    public Collection<E> range(final int startTimestamp, final int endTimestamp) {
+        if (startTimestamp > endTimestamp) {
+            return List.of();
+        }
+        return events.subMap(startTimestamp, true, endTimestamp, true).values();
+    }
+
+    @Override
+    public int size() {
+        return events.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return events.values().iterator();
+    }
+}
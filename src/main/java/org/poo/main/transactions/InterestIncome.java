@@ -0,0 +1,12 @@
+package org.poo.main.transactions;
+
+/**
+ * Interest was added to a savings account.
+ *
+ * @param timestamp the timestamp of the event
+ * @param amount    the interest added
+ * @param currency  the currency of the account
+ */
+public record InterestIncome(int timestamp, double amount, String currency)
+        implements TransactionEvent {
+}
@@ -0,0 +1,11 @@
+package org.poo.main.transactions;
+
+/**
+ * The interest rate of a savings account was changed.
+ *
+ * @param timestamp    the timestamp of the event
+ * @param interestRate the new interest rate
+ */
+public record InterestRateChanged(int timestamp, double interestRate)
+        implements TransactionEvent {
+}
@@ -0,0 +1,13 @@
+package org.poo.main.transactions;
+
+import java.util.List;
+
+/**
+ * A page of a history or a report.
+ *
+ * @param events the events of the page, in timestamp order
+ * @param next   where the next page starts, or {@code null} if this is the last one
+ * @param <E>    the type of the events
+ */
+public record Page<E extends TransactionEvent>(List<E> events, Cursor next) {
+}
@@ -0,0 +1,12 @@
+package org.poo.main.transactions;
+
+/**
+ * A user's service plan was upgraded.
+ *
+ * @param timestamp   the timestamp of the event
+ * @param accountIBAN the IBAN of the account that paid for the upgrade
+ * @param newPlanType the new plan, in lower case
+ */
+public record PlanUpgrade(int timestamp, String accountIBAN, String newPlanType)
+        implements TransactionEvent {
+}
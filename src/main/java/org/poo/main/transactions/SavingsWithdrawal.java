@@ -0,0 +1,13 @@
+package org.poo.main.transactions;
+
+/**
+ * Money was moved from a savings account to a classic account.
+ *
+ * @param timestamp          the timestamp of the event
+ * @param amount             the amount received by the classic account
+ * @param classicAccountIBAN the IBAN of the classic account
+ * @param savingsAccountIBAN the IBAN of the savings account
+ */
+public record SavingsWithdrawal(int timestamp, double amount, String classicAccountIBAN,
+                                String savingsAccountIBAN) implements TransactionEvent {
+}
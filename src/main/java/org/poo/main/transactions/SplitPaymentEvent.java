@@ -0,0 +1,33 @@
+package org.poo.main.transactions;
+
+import java.util.List;
+
+/**
+ * The outcome of a split payment, as seen by one of the involved accounts.
+ * <p>
+ * Every involved account shares the same lists of accounts and amounts.
+ *
+ * @param timestamp        the timestamp of the split payment
+ * @param splitPaymentType the type of the split, "equal" or "custom"
+ * @param currency         the currency of the payment
+ * @param totalAmount      the total amount of the payment
+ * @param amountForUsers   the amount paid by each involved account
+ * @param involvedAccounts the IBANs of the involved accounts
+ * @param error            the reason the payment failed, or {@code null} if it succeeded
+ */
+public record SplitPaymentEvent(int timestamp, String splitPaymentType, String currency,
+                                double totalAmount, List<Double> amountForUsers,
+                                List<String> involvedAccounts, String error)
+        implements TransactionEvent {
+    public static final String REJECTED = "One user rejected the payment.";
+
+    /**
+     * A payment is reported with every user's amount when it is a custom split or when it was
+     * rejected, and with the single shared amount otherwise.
+     *
+     * @return {@code true} if the amount of every user is reported
+     */
+    public boolean listsEveryAmount() {
+        return "custom".equals(splitPaymentType) || REJECTED.equals(error);
+    }
+}
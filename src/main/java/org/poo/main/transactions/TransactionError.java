@@ -0,0 +1,10 @@
+package org.poo.main.transactions;
+
+/**
+ * An operation that failed, or was refused, with the reason shown to the user.
+ *
+ * @param timestamp   the timestamp of the event
+ * @param description the reason
+ */
+public record TransactionError(int timestamp, String description) implements TransactionEvent {
+}
@@ -0,0 +1,18 @@
+package org.poo.main.transactions;
+
+/**
+ * An event recorded in a user's history or in an account's report.
+ * <p>
+ * Events are compact immutable records. They are only turned into JSON by the
+ * {@link TransactionSerializer} when a command prints them.
+ */
+public sealed interface TransactionEvent
+        permits AccountCreated, CardCreated, CardDestroyed, CardFrozen, CardPayment,
+        CashWithdrawal, InterestIncome, InterestRateChanged, PlanUpgrade, SavingsWithdrawal,
+        SplitPaymentEvent, TransactionError, Transfer {
+
+    /**
+     * @return the timestamp of the command that produced the event
+     */
+    int timestamp();
+}
@@ -0,0 +1,164 @@
+package org.poo.main.transactions;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Utility class that renders {@link TransactionEvent}s to the JSON shown by
+ * {@code printTransactions}, {@code report} and {@code spendingsReport}.
+ * <p>
+ * The JSON is built on every call and is not kept, so the events are the only copy of a
+ * history that stays on the heap.
+ * <p>
+ * This class cannot be instantiated as its constructor is private.
+ */
+public final class TransactionSerializer {
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private TransactionSerializer() {
+    }
+
+    /**
+     * Renders a list of events, in order.
+     *
+     * @param events the events to render
+     * @return a JSON array with one object per event
+     */
+    public static ArrayNode toJson(final Iterable<? extends TransactionEvent> events) {
+        ArrayNode array = JsonNodeFactory.instance.arrayNode();
+        for (TransactionEvent event : events) {
+            array.add(toJson(event));
+        }
+        return array;
+    }
+
+    /**
+     * Renders a single event, with its fields in the order the bank has always printed them:
+     * most events start with the timestamp and the description, while interest income, interest
+     * rate changes, savings withdrawals and split payments that went through or lacked funds
+     * list their fields by name, with the timestamp last.
+     *
+     * @param event the event to render
+     * @return a JSON object with the timestamp, the description and the details of the event
+     */
+    public static ObjectNode toJson(final TransactionEvent event) {
+        return switch (event) {
+            case AccountCreated e -> header(e, "New account created");
+            case CardCreated e -> {
+                ObjectNode node = header(e, "New card created");
+                node.put("card", e.card());
+                node.put("cardHolder", e.cardHolder());
+                node.put("account", e.account());
+                yield node;
+            }
+            case CardDestroyed e -> {
+                ObjectNode node = header(e, "The card has been destroyed");
+                node.put("card", e.card());
+                node.put("cardHolder", e.cardHolder());
+                node.put("account", e.account());
+                yield node;
+            }
+            case CardFrozen e -> header(e,
+                    "You have reached the minimum amount of funds, the card will be frozen");
+            case CardPayment e -> {
+                ObjectNode node = header(e, "Card payment");
+                node.put("amount", e.amount());
+                node.put("commerciant", e.commerciant());
+                yield node;
+            }
+            case CashWithdrawal e -> {
+                ObjectNode node = header(e, "Cash withdrawal of " + e.amount());
+                node.put("amount", e.amount());
+                yield node;
+            }
+            case InterestIncome e -> {
+                ObjectNode node = JsonNodeFactory.instance.objectNode();
+                node.put("amount", e.amount());
+                node.put("currency", e.currency());
+                node.put("description", "Interest rate income");
+                node.put("timestamp", e.timestamp());
+                yield node;
+            }
+            case InterestRateChanged e -> {
+                ObjectNode node = JsonNodeFactory.instance.objectNode();
+                node.put("description",
+                        "Interest rate of the account changed to " + e.interestRate());
+                node.put("timestamp", e.timestamp());
+                yield node;
+            }
+            case PlanUpgrade e -> {
+                ObjectNode node = header(e, "Upgrade plan");
+                node.put("accountIBAN", e.accountIBAN());
+                node.put("newPlanType", e.newPlanType());
+                yield node;
+            }
+            case SavingsWithdrawal e -> {
+                ObjectNode node = JsonNodeFactory.instance.objectNode();
+                node.put("amount", e.amount());
+                node.put("classicAccountIBAN", e.classicAccountIBAN());
+                node.put("description", "Savings withdrawal");
+                node.put("savingsAccountIBAN", e.savingsAccountIBAN());
+                node.put("timestamp", e.timestamp());
+                yield node;
+            }
+            case SplitPaymentEvent e -> SplitPaymentEvent.REJECTED.equals(e.error())
+                    ? rejectedSplitPayment(e) : splitPayment(e);
+            case TransactionError e -> header(e, e.description());
+            case Transfer e -> {
+                ObjectNode node = header(e, e.description());
+                node.put("senderIBAN", e.senderIBAN());
+                node.put("receiverIBAN", e.receiverIBAN());
+                node.put("amount", e.amount() + " " + e.currency());
+                node.put("transferType", e.sent() ? "sent" : "received");
+                yield node;
+            }
+        };
+    }
+
+    private static ObjectNode header(final TransactionEvent event, final String description) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("timestamp", event.timestamp());
+        node.put("description", description);
+        return node;
+    }
+
+    private static String splitDescription(final SplitPaymentEvent event) {
+        String formatted = String.format("%.2f", event.totalAmount());
+        return "Split payment of " + formatted + " " + event.currency();
+    }
+
+    private static ObjectNode rejectedSplitPayment(final SplitPaymentEvent event) {
+        ObjectNode node = header(event, splitDescription(event));
+        node.put("splitPaymentType", event.splitPaymentType());
+        node.put("currency", event.currency());
+        ArrayNode amounts = node.putArray("amountForUsers");
+        event.amountForUsers().forEach(amounts::add);
+        ArrayNode accounts = node.putArray("involvedAccounts");
+        event.involvedAccounts().forEach(accounts::add);
+        node.put("error", event.error());
+        return node;
+    }
+
+    private static ObjectNode splitPayment(final SplitPaymentEvent event) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        if (event.listsEveryAmount()) {
+            ArrayNode amounts = node.putArray("amountForUsers");
+            event.amountForUsers().forEach(amounts::add);
+        } else {
+            node.put("amount", event.amountForUsers().getFirst());
+        }
+        node.put("currency", event.currency());
+        node.put("description", splitDescription(event));
+        if (event.error() != null) {
+            node.put("error", event.error());
+        }
+        ArrayNode accounts = node.putArray("involvedAccounts");
+        event.involvedAccounts().forEach(accounts::add);
+        node.put("splitPaymentType", event.splitPaymentType());
+        node.put("timestamp", event.timestamp());
+        return node;
+    }
+}
@@ -0,0 +1,17 @@
+package org.poo.main.transactions;
+
+/**
+ * A bank transfer, seen from the sending or the receiving account.
+ *
+ * @param timestamp    the timestamp of the event
+ * @param description  the description given by the sender
+ * @param senderIBAN   the IBAN of the sending account
+ * @param receiverIBAN the IBAN of the receiving account, or of the commerciant
+ * @param amount       the amount, in {@code currency}
+ * @param currency     the currency of the account that recorded the event
+ * @param sent         {@code true} for the sender's copy, {@code false} for the receiver's
+ */
+public record Transfer(int timestamp, String description, String senderIBAN,
+                       String receiverIBAN, double amount, String currency, boolean sent)
+        implements TransactionEvent {
+}
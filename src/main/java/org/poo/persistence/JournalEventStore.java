@@ -0,0 +1,124 @@
+package org.poo.persistence;
+
+import org.poo.main.transactions.EventStore;
+import org.poo.main.transactions.TransactionEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The events of a report, written to a {@link TransactionJournal}: the heap only holds their
+ * timestamps and positions in the journal, sorted by timestamp, 12 bytes for every event. The
+ * events are decoded from the journal every time they are read.
+ *
+ * @param <E> the type of the events
+ */
+final class JournalEventStore<E extends TransactionEvent> implements EventStore<E> {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final TransactionJournal journal;
+    private final int shard;
+    private final Class<E> type;
+    private int[] timestamps = new int[INITIAL_CAPACITY];
+    private long[] positions = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * The events of a range, decoded as they are read.
+     */
+    private final class Range extends AbstractList<E> {
+        private final int from;
+        private final int to;
+
+        Range(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public E get(final int index) {
+            return type.cast(journal.read(positions[from + index]));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * @param journal the journal the events are written to
+     * @param shard   the shard of the journal
+     * @param type    the type of the events
+     */
+    JournalEventStore(final TransactionJournal journal, final int shard, final Class<E> type) {
+        this.journal = journal;
+        this.shard = shard;
+        this.type = type;
+    }
+
+    @Override
+    public void put(final E event) {
+        long position;
+        try {
+            position = journal.append(shard, event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int timestamp = event.timestamp();
+        // the events mostly come in timestamp order
+        int index = size > 0 && timestamps[size - 1] < timestamp ? -size - 1
+                : Arrays.binarySearch(timestamps, 0, size, timestamp);
+        if (index >= 0) {
+            positions[index] = position;
+            return;
+        }
+        index = -index - 1;
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+        System.arraycopy(positions, index, positions, index + 1, size - index);
+        timestamps[index] = timestamp;
+        positions[index] = position;
+        size++;
+    }
+
+    @Override
+    public Collection<E> range(final int startTimestamp, final int endTimestamp) {
+        if (startTimestamp > endTimestamp) {
+            return List.of();
+        }
+        return new Range(lowerBound(startTimestamp), lowerBound(endTimestamp + 1L));
+    }
+
+    private int lowerBound(final long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Range(0, size).iterator();
+    }
+}
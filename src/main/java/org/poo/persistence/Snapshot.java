@@ -0,0 +1,221 @@
+package org.poo.persistence;
+
+import org.poo.fileio.ObjectInput;
+import org.poo.main.AccountRegistry;
+import org.poo.main.Application;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * A binary image of the whole state of an {@link Application}: its users, their accounts,
+ * cards, business roles, cashback, histories and pending split payments, the exchange rates and
+ * the seeded sequences. Restoring the latest snapshot, then replaying the segments of the
+ * {@link WriteAheadLog} written after it, rebuilds the application without replaying its
+ * whole history.
+ * <p>
+ * A snapshot is named after the first segment of the log it does not hold, and is made of
+ * blocks, see {@link StateEncoder}: the state shared by every user, then one block for every
+ * partition of the users, in the order they were saved by the {@link SnapshotWriter}. The
+ * file starts with a header, and ends with the table of the blocks, followed by its offset,
+ * its size and the magic number, which is only there once the file is complete.
+ * <p>
+ * The blocks are read straight from buffers mapped on the file. Every block is read into new
+ * objects on its own, the references between the blocks being resolved at the end.
+ */
+public final class Snapshot {
+    static final long MAGIC = 0x504F4F534E415053L;
+    static final int VERSION = 1;
+    static final int HEADER = Long.BYTES + 4 * Integer.BYTES;
+    static final int ENTRY = Long.BYTES + 2 * Integer.BYTES;
+    static final int TRAILER = 2 * Long.BYTES + Integer.BYTES;
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".snap";
+
+    private Snapshot() {
+    }
+
+    static String name(final int segment) {
+        return String.format("%s%08d%s", PREFIX, segment, SUFFIX);
+    }
+
+    /**
+     * @param snapshot a snapshot
+     * @return the number of the first segment of the log written after it
+     */
+    public static int segmentOf(final Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * @param directory the directory of the log and the snapshots
+     * @return the latest complete snapshot, or {@code null} if there is none
+     * @throws IOException if the directory cannot be listed
+     */
+    public static Path latest(final Path directory) throws IOException {
+        List<Path> snapshots = snapshots(directory);
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    static void prune(final Path directory, final int before) throws IOException {
+        for (Path snapshot : snapshots(directory)) {
+            if (segmentOf(snapshot) < before) {
+                Files.delete(snapshot);
+            }
+        }
+    }
+
+    private static List<Path> snapshots(final Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return snapshots;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .forEach(snapshots::add);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Writes a snapshot of an application no command runs on.
+     *
+     * @param app        the application
+     * @param directory  the directory the snapshot is written to
+     * @param segment    the number of the first segment of the log written after it
+     * @param partitions the number of blocks the users are spread over
+     * @return the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static Path write(final Application app, final Path directory, final int segment,
+                             final int partitions) throws IOException {
+        Files.createDirectories(directory);
+        SnapshotWriter writer = new SnapshotWriter(app, directory, partitions,
+                user -> Math.floorMod(user.getEmail().hashCode(), partitions));
+        try {
+            writer.begin(segment);
+            writer.saveAll();
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abandon();
+            throw e;
+        }
+    }
+
+    /**
+     * Rebuilds an application from a snapshot.
+     *
+     * @param snapshot the snapshot
+     * @return the application, in the state the snapshot was taken in, with the seeded
+     *         sequences restored
+     * @throws IOException              if the snapshot cannot be read
+     * @throws IllegalArgumentException if the snapshot is not complete
+     */
+    public static Application restore(final Path snapshot) throws IOException {
+        try (FileChannel file = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size < HEADER + TRAILER) {
+                throw new IllegalArgumentException("Incomplete snapshot " + snapshot);
+            }
+            ByteBuffer trailer = file.map(FileChannel.MapMode.READ_ONLY, size - TRAILER,
+                    TRAILER);
+            long tableOffset = trailer.getLong();
+            int count = trailer.getInt();
+            ByteBuffer header = file.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (trailer.getLong() != MAGIC || header.getLong() != MAGIC
+                    || header.getInt() != VERSION) {
+                throw new IllegalArgumentException("Incomplete snapshot " + snapshot);
+            }
+            ByteBuffer table = file.map(FileChannel.MapMode.READ_ONLY, tableOffset,
+                    (long) count * ENTRY);
+            ByteBuffer[] blocks = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                int id = table.getInt();
+                long offset = table.getLong();
+                blocks[id] = file.map(FileChannel.MapMode.READ_ONLY, offset, table.getInt());
+            }
+            return restore(blocks);
+        }
+    }
+
+    private static Application restore(final ByteBuffer[] blocks) {
+        Application app = new Application(new ObjectInput());
+        AccountRegistry registry = app.getRegistry();
+        List<String> shared = new StateDecoder(blocks[0], app).readShared();
+        User[] users = new User[Integer.parseInt(shared.get(shared.size() - 1))];
+
+        List<StateDecoder> decoders = new ArrayList<>(blocks.length - 1);
+        for (int i = 1; i < blocks.length; i++) {
+            decoders.add(new StateDecoder(blocks[i], app));
+        }
+        decoders.parallelStream().forEach(decoder -> decoder.readUsers(users));
+        Map<String, Account> unlisted = new HashMap<>();
+        for (StateDecoder decoder : decoders) {
+            unlisted.putAll(decoder.getUnlisted());
+        }
+
+        // every account listed by its owner, or held by the associates once its owner deleted
+        // it, is live; the ones listed by their owners resolve the references
+        app.getUsers().addAll(Arrays.asList(users));
+        Map<String, Account> listed = new HashMap<>();
+        Set<Account> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (User user : users) {
+            registry.addUser(user);
+            for (Account account : user.getAccounts()) {
+                if (account != null) {
+                    listed.putIfAbsent(account.getIban(), account);
+                    owned.add(account);
+                }
+            }
+        }
+        StateDecoder.Links links = new StateDecoder.Links(users, iban -> {
+            Account account = listed.get(iban);
+            return account != null ? account : unlisted.get(iban);
+        }, new HashMap<>());
+        for (StateDecoder decoder : decoders) {
+            decoder.createSplits(links);
+        }
+        for (StateDecoder decoder : decoders) {
+            decoder.link(links);
+        }
+        // registered in the order of the lists, with the cards of the accounts their owners hold
+        for (User user : users) {
+            for (Account account : user.getAccounts()) {
+                registry.addAccount(user, account);
+                if (owned.contains(account)) {
+                    account.getCards().forEach(registry.getCards()::add);
+                }
+            }
+            for (Account account : user.getDetachedAccounts()) {
+                account.getCards().forEach(registry.getCards()::add);
+            }
+        }
+
+        for (int i = 0; i + 1 < shared.size(); i += 2) {
+            Account account = links.accounts().apply(shared.get(i + 1));
+            if (account != null) {
+                registry.restoreAlias(shared.get(i), account);
+            }
+        }
+        return app;
+    }
+}
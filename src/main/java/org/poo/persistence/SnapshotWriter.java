@@ -0,0 +1,215 @@
+package org.poo.persistence;
+
+import org.poo.main.Application;
+import org.poo.main.ExchangeRatesGraph;
+import org.poo.main.User;
+import org.poo.main.splitPayment.SplitPayment;
+import org.poo.utils.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes a {@link Snapshot} of an application while its commands keep running.
+ * <p>
+ * The snapshot is the state of the application at one instant, its consistent cut, taken by
+ * {@link #begin(int)} while no command runs: it writes the state shared by every user right
+ * away, and from then on every partition of the users is saved, once, before the first
+ * command changing it runs (copy before write). The thread writing the snapshot saves the
+ * partitions no command got to in the meantime, one at a time, holding only the lock of that
+ * partition, then {@link #finish()} completes the file. So a command waits at most for the
+ * partitions it touches to be encoded, never for the disk.
+ * <p>
+ * The saved partitions are encoded in memory by the threads saving them, and copied to the
+ * file by {@link #drain()}, through a buffer mapped on the file, in the order they were saved.
+ */
+public final class SnapshotWriter {
+    private static final String TEMPORARY = ".tmp";
+
+    private final Application app;
+    private final Path directory;
+    private final int[][] members;
+    private final boolean[] saved;
+    private final Map<SplitPayment, Integer> splitIds = new IdentityHashMap<>();
+    private final Queue<Block> blocks = new ConcurrentLinkedQueue<>();
+    private final List<Entry> table = new ArrayList<>();
+    private ExchangeRatesGraph rates;
+    private FileChannel channel;
+    private Path file;
+    private int segment;
+    private long position;
+
+    /**
+     * A block encoded but not written yet: the shared state, or a partition.
+     */
+    private record Block(int id, ByteBuffer bytes) {
+    }
+
+    /**
+     * Where a block was written in the file.
+     */
+    private record Entry(int id, long offset, int length) {
+    }
+
+    /**
+     * @param app         the application
+     * @param directory   the directory the snapshot is written to
+     * @param partitions  the number of partitions of the users
+     * @param partitionOf the partition of a user
+     */
+    public SnapshotWriter(final Application app, final Path directory, final int partitions,
+                          final ToIntFunction<User> partitionOf) {
+        this.app = app;
+        this.directory = directory;
+        saved = new boolean[partitions];
+        int[] sizes = new int[partitions];
+        List<User> users = app.getUsers();
+        int[] partitionOfUser = new int[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            partitionOfUser[i] = partitionOf.applyAsInt(users.get(i));
+            sizes[partitionOfUser[i]]++;
+        }
+        members = new int[partitions][];
+        for (int partition = 0; partition < partitions; partition++) {
+            members[partition] = new int[sizes[partition]];
+            sizes[partition] = 0;
+        }
+        for (int i = 0; i < users.size(); i++) {
+            members[partitionOfUser[i]][sizes[partitionOfUser[i]]++] = i;
+        }
+    }
+
+    /**
+     * Takes the cut, while no command runs: writes the state shared by every user, after which
+     * the partitions must be saved before they change.
+     *
+     * @param firstSegment the number of the first segment of the {@link WriteAheadLog} holding
+     *                     the commands that come after the cut
+     * @throws IOException if the file cannot be created
+     */
+    public void begin(final int firstSegment) throws IOException {
+        segment = firstSegment;
+        rates = app.getExchangeRates();
+        StateEncoder encoder = new StateEncoder();
+        encoder.writeShared(Utils.saveRandom(), rates, app.getCommerciants(),
+                app.getRegistry(), app.getUsers().size());
+        blocks.add(new Block(0, encoder.block()));
+
+        file = directory.resolve(Snapshot.name(segment) + TEMPORARY);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(Snapshot.HEADER);
+        header.putLong(Snapshot.MAGIC).putInt(Snapshot.VERSION).putInt(segment)
+                .putInt(saved.length).putInt(app.getUsers().size());
+        write(header.flip());
+    }
+
+    /**
+     * Saves a partition as it is now, unless it is already saved. The caller must hold the
+     * lock of the partition, or keep every command out.
+     *
+     * @param partition the partition
+     */
+    public void save(final int partition) {
+        if (saved[partition]) {
+            return;
+        }
+        saved[partition] = true;
+        StateEncoder encoder = new StateEncoder();
+        encoder.writeUsers(app.getUsers(), members[partition], app.getRegistry(), rates,
+                this::splitId);
+        blocks.add(new Block(partition + 1, encoder.block()));
+    }
+
+    /**
+     * Saves every partition not saved yet. The caller must keep every command out.
+     */
+    public void saveAll() {
+        for (int partition = 0; partition < saved.length; partition++) {
+            save(partition);
+        }
+    }
+
+    private int splitId(final SplitPayment payment) {
+        synchronized (splitIds) {
+            return splitIds.computeIfAbsent(payment, key -> splitIds.size());
+        }
+    }
+
+    /**
+     * Copies the partitions saved so far to the file. Only called by the thread writing the
+     * snapshot.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void drain() throws IOException {
+        for (Block block = blocks.poll(); block != null; block = blocks.poll()) {
+            table.add(new Entry(block.id(), position, block.bytes().remaining()));
+            write(block.bytes());
+        }
+    }
+
+    private void write(final ByteBuffer bytes) throws IOException {
+        if (!bytes.hasRemaining()) {
+            return;
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                bytes.remaining());
+        position += bytes.remaining();
+        map.put(bytes);
+        map.force();
+    }
+
+    /**
+     * Completes the snapshot once every partition is saved: copies the last partitions and the
+     * table of the blocks to the file, forces it to the disk and gives it its name. The older
+     * snapshots, and the segments of the log the snapshot holds, are deleted.
+     *
+     * @return the snapshot
+     * @throws IOException if the file cannot be written
+     */
+    public Path finish() throws IOException {
+        drain();
+        ByteBuffer footer = ByteBuffer.allocate(table.size() * Snapshot.ENTRY + Snapshot.TRAILER);
+        for (Entry entry : table) {
+            footer.putInt(entry.id()).putLong(entry.offset()).putInt(entry.length());
+        }
+        footer.putLong(position).putInt(table.size()).putLong(Snapshot.MAGIC);
+        write(footer.flip());
+        channel.force(true);
+        channel.close();
+
+        Path snapshot = directory.resolve(Snapshot.name(segment));
+        Files.move(file, snapshot, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        Snapshot.prune(directory, segment);
+        WriteAheadLog.prune(directory, segment);
+        return snapshot;
+    }
+
+    /**
+     * Gives up the snapshot, deleting the file written so far.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    public void abandon() throws IOException {
+        if (channel != null) {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
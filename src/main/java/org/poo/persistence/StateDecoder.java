@@ -0,0 +1,516 @@
+package org.poo.persistence;
+
+import org.poo.commands.CommandHistory;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.Application;
+import org.poo.main.CashbackService;
+import org.poo.main.Commerciant;
+import org.poo.main.ExchangeRatesGraph;
+import org.poo.main.Money;
+import org.poo.main.ServicePlan;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.AccountFactory;
+import org.poo.main.accounts.BusinessAccUser;
+import org.poo.main.accounts.BusinessAccount;
+import org.poo.main.accounts.SavingsAccount;
+import org.poo.main.accounts.Transaction;
+import org.poo.main.cardTypes.Card;
+import org.poo.main.cardTypes.OneTimeCard;
+import org.poo.main.splitPayment.SplitPayment;
+import org.poo.main.splitPayment.SplitPaymentInfo;
+import org.poo.main.splitPayment.SplitPaymentStatus;
+import org.poo.main.transactions.AccountCreated;
+import org.poo.main.transactions.CardCreated;
+import org.poo.main.transactions.CardDestroyed;
+import org.poo.main.transactions.CardFrozen;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.CashWithdrawal;
+import org.poo.main.transactions.InterestIncome;
+import org.poo.main.transactions.InterestRateChanged;
+import org.poo.main.transactions.PlanUpgrade;
+import org.poo.main.transactions.SavingsWithdrawal;
+import org.poo.main.transactions.SplitPaymentEvent;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.Transfer;
+import org.poo.utils.Utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.poo.persistence.StateEncoder.BODY;
+import static org.poo.persistence.StateEncoder.NONE;
+
+/**
+ * Reads a block written by a {@link StateEncoder} back into the objects of an application.
+ * <p>
+ * A block only refers to the objects of the other blocks by their IBANs, emails and split
+ * payment numbers. Each block is read on its own into new objects, so the blocks can be read
+ * in parallel; the references are resolved once every block is read and the accounts are in
+ * the registry, by {@link #link(Links)}.
+ */
+final class StateDecoder {
+    private static final ServicePlan[] PLANS = ServicePlan.values();
+    private static final SplitPaymentStatus[] STATUSES = SplitPaymentStatus.values();
+
+    private final ByteBuffer in;
+    private final Application app;
+    // null when every string is read in place
+    private final List<String> symbols;
+    // the accounts of the block no user lists, such as the deleted ones, by IBAN
+    private final Map<String, Account> unlisted = new HashMap<>();
+    private final Map<Integer, SplitRecord> splits = new HashMap<>();
+    // the references to the other blocks, resolved by link
+    private final List<Consumer<Links>> pending = new ArrayList<>();
+
+    /**
+     * @param in  the block
+     * @param app the application the objects are created for
+     */
+    StateDecoder(final ByteBuffer in, final Application app) {
+        this(in, app, true);
+    }
+
+    /**
+     * @param in      the block, or the record
+     * @param app     the application the objects are created for, if any
+     * @param symbols whether the repeated strings were written as symbols
+     */
+    StateDecoder(final ByteBuffer in, final Application app, final boolean symbols) {
+        this.in = in;
+        this.app = app;
+        this.symbols = symbols ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Reads a single event.
+     *
+     * @return the event
+     */
+    TransactionEvent readEvent() {
+        return getEvent();
+    }
+
+    /**
+     * The objects read from every block, which the references are resolved against.
+     *
+     * @param users    the users, by position
+     * @param accounts finds an account saved in any block by its IBAN
+     * @param splits   the split payments, by number
+     */
+    record Links(User[] users, Function<String, Account> accounts,
+                 Map<Integer, SplitPayment> splits) {
+    }
+
+    /**
+     * A pending split payment, as saved along with each of the users taking part in it.
+     */
+    private record SplitRecord(String type, List<String> accounts, double total, String currency,
+                               List<Double> amounts, int timestamp, boolean allAccepted,
+                               boolean rejected, String accountToBlame, List<String> statusIbans,
+                               List<SplitPaymentStatus> statuses, List<String> observers,
+                               ExchangeRatesGraph rates) {
+    }
+
+    /**
+     * Reads the shared state, restoring the seeded sequences, the exchange rates and the
+     * commerciants of the application.
+     *
+     * @return the aliases, each followed by the IBAN of its account, then the number of users
+     *         as a string
+     */
+    List<String> readShared() {
+        byte[] random = new byte[in.getInt()];
+        in.get(random);
+        Utils.restoreRandom(random);
+        app.setExchangeRates(getGraph());
+        int commerciants = in.getInt();
+        for (int i = 0; i < commerciants; i++) {
+            CommerciantInput input = new CommerciantInput();
+            input.setCommerciant(getString());
+            input.setId(in.getInt());
+            input.setAccount(getString());
+            input.setType(getSymbol());
+            input.setCashbackStrategy(getSymbol());
+            Commerciant commerciant = new Commerciant(input);
+            app.getCommerciants().add(commerciant);
+            app.getRegistry().addCommerciant(commerciant);
+        }
+        int aliases = in.getInt();
+        List<String> shared = new ArrayList<>(2 * aliases + 1);
+        for (int i = 0; i < aliases; i++) {
+            shared.add(getString());
+            shared.add(getString());
+        }
+        shared.add(String.valueOf(in.getInt()));
+        return shared;
+    }
+
+    /**
+     * Reads the users of a partition.
+     *
+     * @param users receives the users, by position
+     */
+    void readUsers(final User[] users) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            int index = in.getInt();
+            users[index] = getUser();
+        }
+    }
+
+    /**
+     * @return the accounts of the block no user lists, such as the deleted ones, by IBAN
+     */
+    Map<String, Account> getUnlisted() {
+        return unlisted;
+    }
+
+    /**
+     * Creates the split payments saved in the block that no other block created yet.
+     *
+     * @param links the objects read from every block
+     */
+    void createSplits(final Links links) {
+        splits.forEach((id, split) -> links.splits().computeIfAbsent(id, key -> {
+            SplitPayment payment = new SplitPayment(split.type(), split.accounts(),
+                    split.total(), split.currency(), split.amounts(), split.rates() != null
+                    ? split.rates() : app.getExchangeRates(), split.timestamp());
+            payment.setAllAccepted(split.allAccepted());
+            payment.setRejected(split.rejected());
+            payment.setAccountToBlame(split.accountToBlame());
+            for (int i = 0; i < split.statusIbans().size(); i++) {
+                payment.getUserStatuses().put(links.accounts().apply(split.statusIbans().get(i)),
+                        split.statuses().get(i));
+            }
+            for (String email : split.observers()) {
+                payment.addObserver(app.getRegistry().getUser(email));
+            }
+            return payment;
+        }));
+    }
+
+    /**
+     * Resolves the references of the block to the objects of the other blocks, in the order
+     * they were read.
+     *
+     * @param links the objects read from every block
+     */
+    void link(final Links links) {
+        for (Consumer<Links> link : pending) {
+            link.accept(links);
+        }
+    }
+
+    private User getUser() {
+        UserInput input = new UserInput();
+        input.setFirstName(getString());
+        input.setLastName(getString());
+        input.setEmail(getString());
+        input.setBirthDate(getString());
+        input.setOccupation(getSymbol());
+        User user = new User(input, app);
+        user.setPlan(PLANS[in.get()]);
+        int flags = in.get();
+        user.setHasClassicAccount((flags & StateEncoder.HAS_CLASSIC) != 0);
+        user.setOwner((flags & StateEncoder.OWNER) != 0);
+        user.setManager((flags & StateEncoder.MANAGER) != 0);
+        user.setEmployee((flags & StateEncoder.EMPLOYEE) != 0);
+        user.setNumPayments(in.getInt());
+
+        // the accounts of other users are left out until the references are resolved
+        int count = in.getInt();
+        List<Account> owned = user.getAccounts();
+        for (int i = 0; i < count; i++) {
+            if (in.get() == BODY) {
+                owned.add(getAccount(user));
+            } else {
+                String iban = getString();
+                int position = owned.size();
+                owned.add(null);
+                pending.add(all -> owned.set(position, all.accounts().apply(iban)));
+            }
+        }
+        int detached = in.getInt();
+        for (int i = 0; i < detached; i++) {
+            Account account = getAccount(user);
+            unlisted.put(account.getIban(), account);
+            user.getDetachedAccounts().add(account);
+        }
+
+        getEvents(user.getCommandHistory());
+
+        int queued = in.getInt();
+        for (int i = 0; i < queued; i++) {
+            int split = in.getInt();
+            int id = in.getInt();
+            SplitPaymentStatus status = getStatus();
+            Account account = null;
+            String iban = null;
+            if (in.get() == BODY) {
+                // a deleted account, saved along with every split payment still holding it
+                account = getAccount(user);
+                Account previous = unlisted.putIfAbsent(account.getIban(), account);
+                account = previous != null ? previous : account;
+            } else {
+                iban = getString();
+            }
+            splits.putIfAbsent(split, getSplit());
+            Account own = account;
+            String ownIban = iban;
+            pending.add(all -> {
+                Account resolved = own != null ? own : all.accounts().apply(ownIban);
+                SplitPaymentInfo info = new SplitPaymentInfo(all.splits().get(split), resolved,
+                        id);
+                info.setStatus(status);
+                user.getSplitPaymentQueue().add(info);
+            });
+        }
+        return user;
+    }
+
+    private Account getAccount(final User owner) {
+        String type = switch (in.get()) {
+            case StateEncoder.SAVINGS -> "savings";
+            case StateEncoder.BUSINESS -> "business";
+            default -> "classic";
+        };
+        String iban = getString();
+        String alias = getSymbol();
+        long balance = in.getLong();
+        double minBalance = in.getDouble();
+        String currency = getSymbol();
+        Account account = AccountFactory.getInstance().restoreAccount(type, iban, currency,
+                in.getInt());
+        account.setAlias(alias);
+        account.getBalanceCell().set(balance);
+        account.setMinBalance(minBalance);
+        account.setOwner(owner);
+
+        int cards = in.getInt();
+        for (int i = 0; i < cards; i++) {
+            boolean oneTime = in.get() != 0;
+            String belonging;
+            if (in.getInt(in.position()) == StateEncoder.SAME_ACCOUNT) {
+                in.getInt();
+                belonging = iban;
+            } else {
+                belonging = getString();
+            }
+            Card card = oneTime ? new OneTimeCard(belonging) : new Card(belonging);
+            card.setStatus(getSymbol());
+            card.setCardNumber(getString());
+            card.setAccountBelonging(account);
+            account.getCards().add(card);
+        }
+        int events = in.getInt();
+        for (int i = 0; i < events; i++) {
+            TransactionEvent event = getEvent();
+            account.getReport().put(event);
+        }
+        int payments = in.getInt();
+        for (int i = 0; i < payments; i++) {
+            CardPayment payment = new CardPayment(in.getInt(), in.getDouble(), getSymbol());
+            account.addToSpendingsReport(payment);
+        }
+        if (in.get() != 0) {
+            account.setCashbackService(getCashback());
+        }
+
+        if (account instanceof SavingsAccount savings) {
+            savings.setInterestRate(in.getDouble());
+        } else if (account instanceof BusinessAccount business) {
+            business.setSpendingLimit(in.getDouble());
+            business.setDepositLimit(in.getDouble());
+            List<String> commerciants = getStrings();
+            Map<String, BusinessAccUser> managers = getAssociates();
+            business.restore(commerciants, managers, getAssociates());
+        }
+        return account;
+    }
+
+    private CashbackService getCashback() {
+        CashbackService cashback = new CashbackService(app);
+        cashback.setTotalAmount(in.getLong());
+        int transactions = in.getInt();
+        for (int i = 0; i < transactions; i++) {
+            cashback.getNrOfTransactions().put(getSymbol(), in.getInt());
+        }
+        int available = in.getInt();
+        for (int i = 0; i < available; i++) {
+            cashback.getAvailableCashback().put(getSymbol(), in.getDouble());
+        }
+        int used = in.getInt();
+        for (int i = 0; i < used; i++) {
+            cashback.getUsedCashback().put(getSymbol(), new Money(in.getLong(), in.getInt()));
+        }
+        return cashback;
+    }
+
+    private Map<String, BusinessAccUser> getAssociates() {
+        Map<String, BusinessAccUser> associates = new LinkedHashMap<>();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String email = getSymbol();
+            BusinessAccUser associate = new BusinessAccUser(getSymbol());
+            int cards = in.getInt();
+            for (int j = 0; j < cards; j++) {
+                associate.addCard(getString());
+            }
+            int spent = in.getInt();
+            for (int j = 0; j < spent; j++) {
+                int timestamp = in.getInt();
+                associate.addTransaction(timestamp, new Transaction(getSymbol(), in.getDouble()));
+            }
+            int deposits = in.getInt();
+            for (int j = 0; j < deposits; j++) {
+                associate.addDeposit(in.getInt(), in.getDouble());
+            }
+            associate.setPosition(associates.size());
+            associates.put(email, associate);
+        }
+        return associates;
+    }
+
+    private SplitRecord getSplit() {
+        String type = getSymbol();
+        List<String> involved = getStrings();
+        double total = in.getDouble();
+        String currency = getSymbol();
+        List<Double> amounts = getDoubles();
+        int timestamp = in.getInt();
+        boolean allAccepted = in.get() != 0;
+        boolean rejected = in.get() != 0;
+        String accountToBlame = getSymbol();
+        int count = in.getInt();
+        List<String> ibans = new ArrayList<>(count);
+        List<SplitPaymentStatus> statuses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ibans.add(getSymbol());
+            statuses.add(getStatus());
+        }
+        int observers = in.getInt();
+        List<String> emails = new ArrayList<>(observers);
+        for (int i = 0; i < observers; i++) {
+            emails.add(getSymbol());
+        }
+        ExchangeRatesGraph rates = in.get() != 0 ? null : getGraph();
+        return new SplitRecord(type, involved, total, currency, amounts, timestamp, allAccepted,
+                rejected, accountToBlame, ibans, statuses, emails, rates);
+    }
+
+    private void getEvents(final CommandHistory history) {
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            history.addToHistory(getEvent());
+        }
+    }
+
+    private TransactionEvent getEvent() {
+        byte tag = in.get();
+        int timestamp = in.getInt();
+        return switch (tag) {
+            case StateEncoder.ACCOUNT_CREATED -> new AccountCreated(timestamp);
+            case StateEncoder.CARD_CREATED -> new CardCreated(timestamp, getString(), getSymbol(),
+                    getSymbol());
+            case StateEncoder.CARD_DESTROYED -> new CardDestroyed(timestamp, getString(),
+                    getSymbol(), getSymbol());
+            case StateEncoder.CARD_FROZEN -> new CardFrozen(timestamp);
+            case StateEncoder.CARD_PAYMENT -> new CardPayment(timestamp, in.getDouble(),
+                    getSymbol());
+            case StateEncoder.CASH_WITHDRAWAL -> new CashWithdrawal(timestamp, in.getDouble());
+            case StateEncoder.INTEREST_INCOME -> new InterestIncome(timestamp, in.getDouble(),
+                    getSymbol());
+            case StateEncoder.INTEREST_RATE_CHANGED -> new InterestRateChanged(timestamp,
+                    in.getDouble());
+            case StateEncoder.PLAN_UPGRADE -> new PlanUpgrade(timestamp, getSymbol(),
+                    getSymbol());
+            case StateEncoder.SAVINGS_WITHDRAWAL -> new SavingsWithdrawal(timestamp,
+                    in.getDouble(), getSymbol(), getSymbol());
+            case StateEncoder.SPLIT_PAYMENT -> new SplitPaymentEvent(timestamp, getSymbol(),
+                    getSymbol(), in.getDouble(), getDoubles(), getStrings(), getSymbol());
+            case StateEncoder.TRANSACTION_ERROR -> new TransactionError(timestamp, getSymbol());
+            case StateEncoder.TRANSFER -> new Transfer(timestamp, getSymbol(), getSymbol(),
+                    getSymbol(), in.getDouble(), getSymbol(), in.get() != 0);
+            default -> throw new IllegalArgumentException("Unknown event " + tag);
+        };
+    }
+
+    private ExchangeRatesGraph getGraph() {
+        if (in.get() == 0) {
+            return null;
+        }
+        int size = in.getInt();
+        List<String> currencies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            currencies.add(getString());
+        }
+        double[] edges = new double[size * size];
+        double[] rates = new double[size * size];
+        in.asDoubleBuffer().get(edges).get(rates);
+        in.position(in.position() + 2 * Double.BYTES * edges.length);
+        return ExchangeRatesGraph.of(currencies, edges, rates);
+    }
+
+    private SplitPaymentStatus getStatus() {
+        int status = in.get();
+        return status == NONE ? null : STATUSES[status];
+    }
+
+    private List<String> getStrings() {
+        int count = in.getInt();
+        if (count == NONE) {
+            return null;
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(getSymbol());
+        }
+        return strings;
+    }
+
+    private List<Double> getDoubles() {
+        int count = in.getInt();
+        if (count == NONE) {
+            return null;
+        }
+        List<Double> doubles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            doubles.add(in.getDouble());
+        }
+        return doubles;
+    }
+
+    private String getSymbol() {
+        if (symbols == null) {
+            return getString();
+        }
+        int id = in.getInt();
+        if (id == NONE) {
+            return null;
+        }
+        if (id == symbols.size()) {
+            symbols.add(getString());
+        }
+        return symbols.get(id);
+    }
+
+    private String getString() {
+        int length = in.getInt();
+        if (length == NONE) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
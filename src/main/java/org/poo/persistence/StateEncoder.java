@@ -0,0 +1,540 @@
+package org.poo.persistence;
+
+import org.poo.main.AccountRegistry;
+import org.poo.main.CashbackService;
+import org.poo.main.Commerciant;
+import org.poo.main.ExchangeRatesGraph;
+import org.poo.main.Money;
+import org.poo.main.User;
+import org.poo.main.accounts.Account;
+import org.poo.main.accounts.BusinessAccUser;
+import org.poo.main.accounts.BusinessAccount;
+import org.poo.main.accounts.SavingsAccount;
+import org.poo.main.accounts.Transaction;
+import org.poo.main.cardTypes.Card;
+import org.poo.main.cardTypes.OneTimeCard;
+import org.poo.main.splitPayment.SplitPayment;
+import org.poo.main.splitPayment.SplitPaymentInfo;
+import org.poo.main.splitPayment.SplitPaymentStatus;
+import org.poo.main.transactions.AccountCreated;
+import org.poo.main.transactions.CardCreated;
+import org.poo.main.transactions.CardDestroyed;
+import org.poo.main.transactions.CardFrozen;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.CashWithdrawal;
+import org.poo.main.transactions.InterestIncome;
+import org.poo.main.transactions.InterestRateChanged;
+import org.poo.main.transactions.PlanUpgrade;
+import org.poo.main.transactions.SavingsWithdrawal;
+import org.poo.main.transactions.SplitPaymentEvent;
+import org.poo.main.transactions.TransactionError;
+import org.poo.main.transactions.TransactionEvent;
+import org.poo.main.transactions.Transfer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Writes the state of an application to a block of a {@link Snapshot}.
+ * <p>
+ * Numbers are written with a fixed width. The strings that are unique, such as emails, IBANs
+ * and card numbers, are written in place, as their length and their UTF-8 bytes. The ones
+ * repeated all over the histories, such as currencies, commerciants, descriptions and the
+ * IBANs of the other side of a transfer, are symbols: an id, followed by the string the first
+ * time it is used in the block. Every block has its own symbols, so the blocks can be written
+ * and read independently of each other, see {@link StateDecoder}.
+ * <p>
+ * The records of a {@link TransactionJournal} are single events written without symbols, every
+ * string in place, so each can be read on its own.
+ */
+final class StateEncoder {
+    static final byte CLASSIC = 0;
+    static final byte SAVINGS = 1;
+    static final byte BUSINESS = 2;
+    static final byte REFERENCE = 0;
+    static final byte BODY = 1;
+
+    static final byte ACCOUNT_CREATED = 0;
+    static final byte CARD_CREATED = 1;
+    static final byte CARD_DESTROYED = 2;
+    static final byte CARD_FROZEN = 3;
+    static final byte CARD_PAYMENT = 4;
+    static final byte CASH_WITHDRAWAL = 5;
+    static final byte INTEREST_INCOME = 6;
+    static final byte INTEREST_RATE_CHANGED = 7;
+    static final byte PLAN_UPGRADE = 8;
+    static final byte SAVINGS_WITHDRAWAL = 9;
+    static final byte SPLIT_PAYMENT = 10;
+    static final byte TRANSACTION_ERROR = 11;
+    static final byte TRANSFER = 12;
+
+    static final int HAS_CLASSIC = 1;
+    static final int OWNER = 2;
+    static final int MANAGER = 4;
+    static final int EMPLOYEE = 8;
+    static final int NONE = -1;
+    // in place of the account of a card, when it is the IBAN of the account holding it
+    static final int SAME_ACCOUNT = -2;
+
+    private static final int INITIAL_SIZE = 65_536;
+
+    // null when every string is written in place
+    private final Map<String, Integer> symbols;
+    private ByteBuffer out = ByteBuffer.allocate(INITIAL_SIZE);
+
+    /**
+     * Creates an encoder for a block of a snapshot.
+     */
+    StateEncoder() {
+        this(true);
+    }
+
+    /**
+     * @param symbols whether the repeated strings are written as symbols
+     */
+    StateEncoder(final boolean symbols) {
+        this.symbols = symbols ? new HashMap<>() : null;
+    }
+
+    /**
+     * Forgets what was written, keeping the symbols.
+     */
+    void clear() {
+        out.clear();
+    }
+
+    /**
+     * Writes a single event.
+     *
+     * @param event the event
+     */
+    void writeEvent(final TransactionEvent event) {
+        putEvent(event);
+    }
+
+    /**
+     * @return the block written so far, ready to be read
+     */
+    ByteBuffer block() {
+        return out.flip();
+    }
+
+    /**
+     * Writes the state shared by every user, which the commands only change while running
+     * alone: the seeded sequences, the exchange rates, the commerciants and the aliases.
+     *
+     * @param random       the state of the seeded sequences
+     * @param rates        the exchange rates, or {@code null} if there are none
+     * @param commerciants the commerciants
+     * @param registry     the registry holding the aliases
+     * @param users        the number of users
+     */
+    void writeShared(final byte[] random, final ExchangeRatesGraph rates,
+                     final List<Commerciant> commerciants, final AccountRegistry registry,
+                     final int users) {
+        putInt(random.length);
+        ensure(random.length);
+        out.put(random);
+        putGraph(rates);
+        putInt(commerciants.size());
+        for (Commerciant commerciant : commerciants) {
+            putString(commerciant.getName());
+            putInt(commerciant.getId());
+            putString(commerciant.getAccount());
+            putSymbol(commerciant.getType());
+            putSymbol(commerciant.getCashbackStrategy());
+        }
+        putInt(registry.aliasCount());
+        registry.forEachAlias((alias, account) -> {
+            putString(alias);
+            putString(account.getIban());
+        });
+        putInt(users);
+    }
+
+    /**
+     * Writes the users of a partition, with the accounts they own and their pending split
+     * payments.
+     *
+     * @param users     every user of the application
+     * @param indices   the positions of the users of the partition, each written before
+     *                  its user
+     * @param registry  the registry of the application, telling the deleted accounts apart
+     * @param rates     the exchange rates the snapshot was taken with
+     * @param splitIds  numbers the split payments, the same in every block
+     */
+    void writeUsers(final List<User> users, final int[] indices, final AccountRegistry registry,
+                    final ExchangeRatesGraph rates, final ToIntFunction<SplitPayment> splitIds) {
+        putInt(indices.length);
+        for (int index : indices) {
+            putInt(index);
+            putUser(users.get(index), registry, rates, splitIds);
+        }
+    }
+
+    private void putUser(final User user, final AccountRegistry registry,
+                         final ExchangeRatesGraph rates,
+                         final ToIntFunction<SplitPayment> splitIds) {
+        putString(user.getFirstName());
+        putString(user.getLastName());
+        putString(user.getEmail());
+        putString(user.getBirthDate());
+        putSymbol(user.getOccupation());
+        putByte(user.getPlan().ordinal());
+        putByte((user.isHasClassicAccount() ? HAS_CLASSIC : 0) | (user.isOwner() ? OWNER : 0)
+                | (user.isManager() ? MANAGER : 0) | (user.isEmployee() ? EMPLOYEE : 0));
+        putInt(user.getNumPayments());
+
+        // the accounts are saved with their owner, the only user whose commands change them
+        putInt(user.getAccounts().size());
+        for (Account account : user.getAccounts()) {
+            if (account.getOwner() == user) {
+                putByte(BODY);
+                putAccount(account);
+            } else {
+                putByte(REFERENCE);
+                putString(account.getIban());
+            }
+        }
+        int detached = 0;
+        for (Account account : user.getDetachedAccounts()) {
+            detached += registry.getAccount(account.getIban()) == account ? 1 : 0;
+        }
+        putInt(detached);
+        for (Account account : user.getDetachedAccounts()) {
+            if (registry.getAccount(account.getIban()) == account) {
+                putAccount(account);
+            }
+        }
+
+        putEvents(user.getCommandHistory().getHistory());
+
+        putInt(user.getSplitPaymentQueue().size());
+        for (SplitPaymentInfo info : user.getSplitPaymentQueue()) {
+            putInt(splitIds.applyAsInt(info.getSplitPayment()));
+            putInt(info.getId());
+            putStatus(info.getStatus());
+            Account account = info.getAccount();
+            if (registry.getAccount(account.getIban()) == account) {
+                putByte(REFERENCE);
+                putString(account.getIban());
+            } else {
+                // deleted while the payment was pending, so it only lives on in the payment
+                putByte(BODY);
+                putAccount(account);
+            }
+            putSplitPayment(info.getSplitPayment(), rates);
+        }
+    }
+
+    private void putAccount(final Account account) {
+        if (account.isBusinessAccount()) {
+            putByte(BUSINESS);
+        } else if (account.isSavingsAccount()) {
+            putByte(SAVINGS);
+        } else {
+            putByte(CLASSIC);
+        }
+        putString(account.getIban());
+        putSymbol(account.getAlias());
+        putLong(account.getBalanceMicros());
+        putDouble(account.getMinBalance());
+        putSymbol(account.getCurrency());
+        putInt(account.getCurrencyId());
+
+        putInt(account.getCards().size());
+        for (Card card : account.getCards()) {
+            putBoolean(card instanceof OneTimeCard);
+            if (account.getIban().equals(card.getAccount())) {
+                putInt(SAME_ACCOUNT);
+            } else {
+                putString(card.getAccount());
+            }
+            putSymbol(card.getStatus());
+            putString(card.getCardNumber());
+        }
+        putInt(account.getReport().size());
+        account.getReport().forEach(this::putEvent);
+        putInt(account.getSpendingsReport().size());
+        for (CardPayment payment : account.getSpendingsReport()) {
+            putInt(payment.timestamp());
+            putDouble(payment.amount());
+            putSymbol(payment.commerciant());
+        }
+        putCashback(account.getCashbackService());
+
+        if (account instanceof SavingsAccount savings) {
+            putDouble(savings.getInterestRate());
+        } else if (account instanceof BusinessAccount business) {
+            putDouble(business.getSpendingLimit());
+            putDouble(business.getDepositLimit());
+            putStrings(business.getCommerciants());
+            putAssociates(business.getManagers());
+            putAssociates(business.getEmployees());
+        }
+    }
+
+    private void putCashback(final CashbackService cashback) {
+        putBoolean(cashback != null);
+        if (cashback == null) {
+            return;
+        }
+        putLong(cashback.getTotalAmount());
+        putInt(cashback.getNrOfTransactions().size());
+        cashback.getNrOfTransactions().forEach((commerciant, count) -> {
+            putSymbol(commerciant);
+            putInt(count);
+        });
+        putInt(cashback.getAvailableCashback().size());
+        cashback.getAvailableCashback().forEach((type, rate) -> {
+            putSymbol(type);
+            putDouble(rate);
+        });
+        putInt(cashback.getUsedCashback().size());
+        cashback.getUsedCashback().forEach((type, amount) -> {
+            putSymbol(type);
+            putMoney(amount);
+        });
+    }
+
+    private void putAssociates(final Map<String, BusinessAccUser> associates) {
+        putInt(associates.size());
+        for (Map.Entry<String, BusinessAccUser> entry : associates.entrySet()) {
+            BusinessAccUser associate = entry.getValue();
+            putSymbol(entry.getKey());
+            putSymbol(associate.getName());
+            putInt(associate.getCards().size());
+            for (String card : associate.getCards()) {
+                putString(card);
+            }
+            putInt(associate.getTransactions().size());
+            for (Map.Entry<Integer, Transaction> spent : associate.getTransactions().entrySet()) {
+                putInt(spent.getKey());
+                putSymbol(spent.getValue().getCommerciant());
+                putDouble(spent.getValue().getAmount());
+            }
+            putInt(associate.getDeposits().size());
+            for (Map.Entry<Integer, Double> deposit : associate.getDeposits().entrySet()) {
+                putInt(deposit.getKey());
+                putDouble(deposit.getValue());
+            }
+        }
+    }
+
+    private void putSplitPayment(final SplitPayment payment, final ExchangeRatesGraph rates) {
+        putSymbol(payment.getSplitPaymentType());
+        putStrings(payment.getAccounts());
+        putDouble(payment.getTotalAmount());
+        putSymbol(payment.getCurrency());
+        putDoubles(payment.getAmountForUser());
+        putInt(payment.getTimestamp());
+        putBoolean(payment.isAllAccepted());
+        putBoolean(payment.isRejected());
+        putSymbol(payment.getAccountToBlame());
+        putInt(payment.getUserStatuses().size());
+        payment.getUserStatuses().forEach((account, status) -> {
+            putSymbol(account.getIban());
+            putStatus(status);
+        });
+        putInt(payment.getObservers().size());
+        payment.getObservers().forEach(observer -> putSymbol(((User) observer).getEmail()));
+        // a payment checks the funds with the rates it was made with
+        putBoolean(payment.getExchangeRates() == rates);
+        if (payment.getExchangeRates() != rates) {
+            putGraph(payment.getExchangeRates());
+        }
+    }
+
+    private void putEvents(final Collection<? extends TransactionEvent> events) {
+        putInt(events.size());
+        for (TransactionEvent event : events) {
+            putEvent(event);
+        }
+    }
+
+    private void putEvent(final TransactionEvent event) {
+        putByte(tagOf(event));
+        putInt(event.timestamp());
+        switch (event) {
+            case AccountCreated e -> { }
+            case CardCreated e -> {
+                putString(e.card());
+                putSymbol(e.cardHolder());
+                putSymbol(e.account());
+            }
+            case CardDestroyed e -> {
+                putString(e.card());
+                putSymbol(e.cardHolder());
+                putSymbol(e.account());
+            }
+            case CardFrozen e -> { }
+            case CardPayment e -> {
+                putDouble(e.amount());
+                putSymbol(e.commerciant());
+            }
+            case CashWithdrawal e -> putDouble(e.amount());
+            case InterestIncome e -> {
+                putDouble(e.amount());
+                putSymbol(e.currency());
+            }
+            case InterestRateChanged e -> putDouble(e.interestRate());
+            case PlanUpgrade e -> {
+                putSymbol(e.accountIBAN());
+                putSymbol(e.newPlanType());
+            }
+            case SavingsWithdrawal e -> {
+                putDouble(e.amount());
+                putSymbol(e.classicAccountIBAN());
+                putSymbol(e.savingsAccountIBAN());
+            }
+            case SplitPaymentEvent e -> {
+                putSymbol(e.splitPaymentType());
+                putSymbol(e.currency());
+                putDouble(e.totalAmount());
+                putDoubles(e.amountForUsers());
+                putStrings(e.involvedAccounts());
+                putSymbol(e.error());
+            }
+            case TransactionError e -> putSymbol(e.description());
+            case Transfer e -> {
+                putSymbol(e.description());
+                putSymbol(e.senderIBAN());
+                putSymbol(e.receiverIBAN());
+                putDouble(e.amount());
+                putSymbol(e.currency());
+                putBoolean(e.sent());
+            }
+        }
+    }
+
+    private static byte tagOf(final TransactionEvent event) {
+        return switch (event) {
+            case AccountCreated e -> ACCOUNT_CREATED;
+            case CardCreated e -> CARD_CREATED;
+            case CardDestroyed e -> CARD_DESTROYED;
+            case CardFrozen e -> CARD_FROZEN;
+            case CardPayment e -> CARD_PAYMENT;
+            case CashWithdrawal e -> CASH_WITHDRAWAL;
+            case InterestIncome e -> INTEREST_INCOME;
+            case InterestRateChanged e -> INTEREST_RATE_CHANGED;
+            case PlanUpgrade e -> PLAN_UPGRADE;
+            case SavingsWithdrawal e -> SAVINGS_WITHDRAWAL;
+            case SplitPaymentEvent e -> SPLIT_PAYMENT;
+            case TransactionError e -> TRANSACTION_ERROR;
+            case Transfer e -> TRANSFER;
+        };
+    }
+
+    private void putGraph(final ExchangeRatesGraph graph) {
+        putBoolean(graph != null);
+        if (graph == null) {
+            return;
+        }
+        putInt(graph.getSize());
+        for (String currency : graph.getCurrencies()) {
+            putString(currency);
+        }
+        ensure(2 * Double.BYTES * graph.getEdges().length);
+        for (double edge : graph.getEdges()) {
+            out.putDouble(edge);
+        }
+        for (double rate : graph.getRates()) {
+            out.putDouble(rate);
+        }
+    }
+
+    private void putStatus(final SplitPaymentStatus status) {
+        putByte(status == null ? NONE : status.ordinal());
+    }
+
+    private void putMoney(final Money money) {
+        putLong(money.micros());
+        putInt(money.currency());
+    }
+
+    private void putStrings(final List<String> strings) {
+        if (strings == null) {
+            putInt(NONE);
+            return;
+        }
+        putInt(strings.size());
+        for (String string : strings) {
+            putSymbol(string);
+        }
+    }
+
+    private void putDoubles(final List<Double> doubles) {
+        if (doubles == null) {
+            putInt(NONE);
+            return;
+        }
+        putInt(doubles.size());
+        ensure(Double.BYTES * doubles.size());
+        for (double value : doubles) {
+            out.putDouble(value);
+        }
+    }
+
+    private void putSymbol(final String string) {
+        if (string == null || symbols == null) {
+            putString(string);
+            return;
+        }
+        Integer id = symbols.get(string);
+        if (id != null) {
+            putInt(id);
+            return;
+        }
+        putInt(symbols.size());
+        symbols.put(string, symbols.size());
+        putString(string);
+    }
+
+    private void putString(final String string) {
+        if (string == null) {
+            putInt(NONE);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensure(bytes.length);
+        out.put(bytes);
+    }
+
+    private void putByte(final int value) {
+        ensure(Byte.BYTES);
+        out.put((byte) value);
+    }
+
+    private void putBoolean(final boolean value) {
+        putByte(value ? 1 : 0);
+    }
+
+    private void putInt(final int value) {
+        ensure(Integer.BYTES);
+        out.putInt(value);
+    }
+
+    private void putLong(final long value) {
+        ensure(Long.BYTES);
+        out.putLong(value);
+    }
+
+    private void putDouble(final double value) {
+        ensure(Double.BYTES);
+        out.putDouble(value);
+    }
+
+    private void ensure(final int bytes) {
+        if (out.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2,
+                    out.position() + bytes));
+            out = grown.put(out.flip());
+        }
+    }
+}
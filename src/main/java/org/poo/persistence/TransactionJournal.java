@@ -0,0 +1,206 @@
+package org.poo.persistence;
+
+import org.poo.main.accounts.Account;
+import org.poo.main.transactions.CardPayment;
+import org.poo.main.transactions.EventStore;
+import org.poo.main.transactions.TransactionEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the reports of the accounts off the heap, in files mapped in memory, so the heap no
+ * longer grows with the events of the reports, only with a compact index of them.
+ * <p>
+ * The journal is split in shards, each a sequence of segment files of a fixed size, mapped as a
+ * whole and filled by appending records. An account writes all its events to the shard picked
+ * by the hash of its IBAN, so the accounts of different shards never wait for each other. A
+ * record is an event as in a {@link Snapshot}, every string in place, preceded by its length;
+ * its position packs the shard, the segment and the offset in the segment. The events are read
+ * back straight from the mapped segments, by {@link JournalEventStore}, which is the report of
+ * the accounts {@link #attach(Account) attached} to the journal.
+ * <p>
+ * The journal only lives as long as the process: the state survives a restart through the
+ * {@link WriteAheadLog} and the {@link Snapshot}s, and the segments are deleted when the
+ * journal is closed. An event replaced in a report stays in its segment.
+ */
+public final class TransactionJournal implements Closeable {
+    /**
+     * The number of shards when none is given.
+     */
+    public static final int DEFAULT_SHARDS = 16;
+
+    /**
+     * The size of a segment when none is given.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 67_108_864;
+
+    private static final int SHARD_SHIFT = 48;
+    private static final int SEGMENT_SHIFT = 32;
+    private static final int SEGMENT_MASK = 0xFFFF;
+    private static final long OFFSET_MASK = 0xFFFF_FFFFL;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Shard[] shards;
+    private final List<Path> files = new ArrayList<>();
+
+    /**
+     * The segments of a shard, and the encoder of its records.
+     */
+    private final class Shard {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final StateEncoder encoder = new StateEncoder(false);
+        // replaced by a longer copy when a segment is added, so the readers need no lock
+        private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+        private int end;
+
+        Shard(final int index) {
+            this.index = index;
+        }
+
+        long append(final TransactionEvent event) throws IOException {
+            lock.lock();
+            try {
+                encoder.clear();
+                encoder.writeEvent(event);
+                ByteBuffer record = encoder.block();
+                int length = Integer.BYTES + record.remaining();
+                if (length > segmentSize) {
+                    throw new IllegalArgumentException("Event too large to journal: " + event);
+                }
+                if (segments.length == 0 || end + length > segmentSize) {
+                    addSegment();
+                }
+                MappedByteBuffer segment = segments[segments.length - 1];
+                segment.putInt(end, record.remaining());
+                segment.put(end + Integer.BYTES, record, 0, record.remaining());
+                long position = (long) index << SHARD_SHIFT
+                        | (long) (segments.length - 1) << SEGMENT_SHIFT | end;
+                end += length;
+                return position;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void addSegment() throws IOException {
+            if (segments.length > SEGMENT_MASK) {
+                throw new IllegalStateException("Shard " + index + " of the journal is full");
+            }
+            Path file = directory.resolve(String.format("journal-%02d-%05d.dat", index,
+                    segments.length));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        segmentSize);
+                synchronized (files) {
+                    files.add(file);
+                }
+                MappedByteBuffer[] grown = Arrays.copyOf(segments, segments.length + 1);
+                grown[segments.length] = segment;
+                segments = grown;
+                end = 0;
+            }
+        }
+
+        TransactionEvent read(final int segment, final int offset) {
+            MappedByteBuffer mapped = segments[segment];
+            ByteBuffer record = mapped.slice(offset + Integer.BYTES, mapped.getInt(offset));
+            return new StateDecoder(record, null, false).readEvent();
+        }
+    }
+
+    private TransactionJournal(final Path directory, final int shards, final int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Opens a journal with the default number of shards and size of the segments.
+     *
+     * @param directory the directory of the segments, created if missing
+     * @return the journal
+     * @throws IOException if the directory cannot be created
+     */
+    public static TransactionJournal open(final Path directory) throws IOException {
+        return open(directory, DEFAULT_SHARDS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a journal. The segments are created as the events arrive.
+     *
+     * @param directory   the directory of the segments, created if missing
+     * @param shards      the number of shards
+     * @param segmentSize the size of a segment, in bytes
+     * @return the journal
+     * @throws IOException if the directory cannot be created
+     */
+    public static TransactionJournal open(final Path directory, final int shards,
+                                          final int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        return new TransactionJournal(directory, shards, segmentSize);
+    }
+
+    /**
+     * Moves the reports of an account to the journal, with the events they already hold.
+     *
+     * @param account the account
+     */
+    public void attach(final Account account) {
+        Shard shard = shards[Math.floorMod(account.getIban().hashCode(), shards.length)];
+        account.setReport(moved(account.getReport(), shard, TransactionEvent.class));
+        account.setSpendingsReport(moved(account.getSpendingsReport(), shard,
+                CardPayment.class));
+    }
+
+    private <E extends TransactionEvent> EventStore<E> moved(final EventStore<E> events,
+                                                             final Shard shard,
+                                                             final Class<E> type) {
+        if (events instanceof JournalEventStore<E>) {
+            return events;
+        }
+        JournalEventStore<E> store = new JournalEventStore<>(this, shard.index, type);
+        events.forEach(store::put);
+        return store;
+    }
+
+    long append(final int shard, final TransactionEvent event) throws IOException {
+        return shards[shard].append(event);
+    }
+
+    TransactionEvent read(final long position) {
+        return shards[(int) (position >>> SHARD_SHIFT)].read(
+                (int) (position >>> SEGMENT_SHIFT) & SEGMENT_MASK, (int) (position & OFFSET_MASK));
+    }
+
+    /**
+     * Deletes the segments. The reports attached to the journal cannot be read anymore.
+     *
+     * @throws IOException if a segment cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (files) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            files.clear();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package org.poo.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.commands.Command;
+import org.poo.commands.CommandInvoker;
+import org.poo.fileio.CommandInput;
+import org.poo.main.Application;
+import org.poo.server.BinaryDecoder;
+import org.poo.server.BinaryEncoder;
+import org.poo.server.BinaryProtocol;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of the commands changing the state of an {@link Application}, so the state
+ * can be rebuilt after a crash by replaying them.
+ * <p>
+ * Every command but the read-only ones, see {@link #READ_ONLY}, is logged by the
+ * {@link CommandInvoker} when it is created, in the order the commands are created, which is
+ * the order they draw from the seeded sequences of {@link org.poo.utils.Utils}. A record is
+ * the command in the {@link BinaryProtocol} format, preceded by its length and its CRC32C, so
+ * a record torn by a crash is detected and dropped with everything after it.
+ * <p>
+ * A command is logged before it runs, so a command that fails as it runs is logged as well.
+ * The servers answer it with an error and keep serving, and the replay does the same: the
+ * command fails again, leaving the same partial effects, and the replay goes on.
+ * <p>
+ * The records are staged in memory and written to the file in batches. They are forced to
+ * the disk once {@code syncEvery} of them are waiting, and whenever {@link #commit()} is
+ * called, which returns once every record logged before the call is on the disk: the threads
+ * committing while the disk is busy are served by the next force together (group commit).
+ * With {@code syncEvery} set to 0, the records are never forced, only written to the file.
+ * <p>
+ * The log is a directory of segments, a new one being started every time the log is opened,
+ * so a segment never has to be read back before appending to it, and every time it is rolled
+ * for a {@link Snapshot}, so the segments the snapshot holds can be deleted.
+ */
+public final class WriteAheadLog implements Closeable {
+    /**
+     * The commands that change nothing, and are not logged.
+     */
+    public static final Set<String> READ_ONLY = Set.of("printUsers", "printTransactions",
+            "report", "spendingsReport", "businessReport");
+
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final int BUFFER = 1_048_576;
+
+    private final Path directory;
+    private final int syncEvery;
+    // the open segment, only replaced while both locks are held
+    private FileChannel channel;
+    private int segment;
+    // every segment binds its own symbols, so it can be replayed without the earlier ones
+    private BinaryEncoder encoder = new BinaryEncoder();
+    private final ByteBuffer staged = ByteBuffer.allocateDirect(BUFFER);
+    private final CRC32C crc = new CRC32C();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private long appended;
+    private volatile long written;
+    private volatile long durable;
+
+    private WriteAheadLog(final Path directory, final int segment, final int syncEvery)
+            throws IOException {
+        this.directory = directory;
+        this.segment = segment;
+        this.syncEvery = syncEvery;
+        channel = create(directory, segment);
+    }
+
+    /**
+     * Opens a log, starting a new segment after the existing ones.
+     *
+     * @param directory the directory of the segments, created if missing
+     * @param syncEvery the number of records forced to the disk together, or 0 to never
+     *                  force them
+     * @return the log
+     * @throws IOException if the segment cannot be created
+     */
+    public static WriteAheadLog open(final Path directory, final int syncEvery)
+            throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        int next = segments.isEmpty() ? 0 : index(segments.get(segments.size() - 1)) + 1;
+        return new WriteAheadLog(directory, next, syncEvery);
+    }
+
+    private static FileChannel create(final Path directory, final int segment)
+            throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", PREFIX, segment, SUFFIX));
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @return the directory of the segments
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Closes the open segment, forcing it to the disk unless the records are never forced, and
+     * starts the next one. The commands logged before the call are in the closed segments, the
+     * ones logged after it in the new one.
+     *
+     * @return the number of the new segment
+     * @throws IOException if the new segment cannot be created
+     */
+    public int roll() throws IOException {
+        appendLock.lock();
+        forceLock.lock();
+        try {
+            writeStaged();
+            if (syncEvery > 0) {
+                channel.force(false);
+                durable = written;
+            }
+            channel.close();
+            segment++;
+            channel = create(directory, segment);
+            encoder = new BinaryEncoder();
+            return segment;
+        } finally {
+            forceLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments before a given one, once a {@link Snapshot} holds their commands.
+     *
+     * @param directory the directory of the segments
+     * @param before    the number of the first segment to keep
+     * @throws IOException if a segment cannot be deleted
+     */
+    public static void prune(final Path directory, final int before) throws IOException {
+        for (Path segment : segments(directory)) {
+            if (index(segment) < before) {
+                Files.delete(segment);
+            }
+        }
+    }
+
+    /**
+     * Replays every segment of a log on an application, through a {@link CommandInvoker}. The
+     * application must be in the state the log was started from, and must not log the
+     * commands again. A segment ending in a torn record is cut before it.
+     *
+     * @param directory the directory of the segments
+     * @param app       the application
+     * @return the number of commands replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replay(final Path directory, final Application app) throws IOException {
+        return replay(directory, app, 0);
+    }
+
+    /**
+     * Replays the segments of a log from a given one on, such as the ones written after a
+     * {@link Snapshot} the application was restored from.
+     *
+     * @param directory the directory of the segments
+     * @param app       the application
+     * @param from      the number of the first segment to replay
+     * @return the number of commands replayed
+     * @throws IOException if a segment cannot be read
+     */
+    public static long replay(final Path directory, final Application app, final int from)
+            throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        CommandInvoker invoker = new CommandInvoker();
+        ObjectMapper mapper = new ObjectMapper();
+        long replayed = 0;
+        for (Path segment : segments(directory)) {
+            if (index(segment) < from) {
+                continue;
+            }
+            BinaryDecoder decoder = new BinaryDecoder(app.getRegistry().getCards(), mapper);
+            try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer in = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                CRC32C check = new CRC32C();
+                while (in.remaining() >= RECORD_HEADER) {
+                    int start = in.position();
+                    int length = in.getInt();
+                    int sum = in.getInt();
+                    if (length <= 0 || length > in.remaining()) {
+                        in.position(start);
+                        break;
+                    }
+                    ByteBuffer record = in.slice(in.position(), length);
+                    check.reset();
+                    check.update(record.duplicate());
+                    if ((int) check.getValue() != sum) {
+                        in.position(start);
+                        break;
+                    }
+                    replayed += replay(record, decoder, invoker, app);
+                    in.position(in.position() + length);
+                }
+                if (in.position() < file.size()) {
+                    file.truncate(in.position());
+                }
+            }
+        }
+        return replayed;
+    }
+
+    private static int replay(final ByteBuffer record, final BinaryDecoder decoder,
+                              final CommandInvoker invoker, final Application app)
+            throws IOException {
+        int commands = 0;
+        while (record.hasRemaining()) {
+            int end = record.position() + BinaryProtocol.HEADER + record.getInt(record.position());
+            record.position(record.position() + BinaryProtocol.HEADER).limit(end);
+            CommandInput input = decoder.decode(record);
+            record.limit(record.capacity()).position(end);
+            if (input != null) {
+                Command command = invoker.prepare(input, app);
+                if (command != null) {
+                    try {
+                        command.execute();
+                    } catch (RuntimeException e) {
+                        // it failed the same way when it was logged, and the server went on
+                    }
+                    commands++;
+                }
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Creates a command, logging its input if it changes the state, with no other command
+     * created in between.
+     *
+     * @param input  the input of the command
+     * @param create creates the command
+     * @return the command, or {@code null} if it is unknown, and not logged
+     */
+    public Command log(final CommandInput input, final Supplier<Command> create) {
+        if (READ_ONLY.contains(input.getCommand())) {
+            return create.get();
+        }
+        appendLock.lock();
+        try {
+            Command command = create.get();
+            if (command != null) {
+                append(input);
+            }
+            return command;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(final CommandInput input) {
+        try {
+            if (!stage(input)) {
+                writeStaged();
+                if (!stage(input)) {
+                    throw new IllegalArgumentException("Command too large to log: "
+                            + input.getCommand());
+                }
+            }
+            appended++;
+            if (syncEvery > 0 && appended - durable >= syncEvery) {
+                writeStaged();
+                force(appended);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean stage(final CommandInput input) {
+        int start = staged.position();
+        if (staged.remaining() <= RECORD_HEADER) {
+            return false;
+        }
+        staged.position(start + RECORD_HEADER);
+        if (!encoder.encode(input, staged)) {
+            staged.position(start);
+            return false;
+        }
+        int length = staged.position() - start - RECORD_HEADER;
+        crc.reset();
+        crc.update(staged.slice(start + RECORD_HEADER, length));
+        staged.putInt(start, length).putInt(start + Integer.BYTES, (int) crc.getValue());
+        return true;
+    }
+
+    private void writeStaged() throws IOException {
+        staged.flip();
+        while (staged.hasRemaining()) {
+            channel.write(staged);
+        }
+        staged.clear();
+        written = appended;
+    }
+
+    /**
+     * Waits until every command logged so far is on the disk, forcing it there if no other
+     * thread is already doing it. Only writes the commands to the file if they are never
+     * forced.
+     */
+    public void commit() {
+        long target;
+        appendLock.lock();
+        try {
+            target = appended;
+            if (written < target) {
+                writeStaged();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendLock.unlock();
+        }
+        if (syncEvery > 0 && durable < target) {
+            force(target);
+        }
+    }
+
+    private void force(final long target) {
+        forceLock.lock();
+        try {
+            if (durable >= target) {
+                return;
+            }
+            // everything written so far goes with this force, not only the target
+            long upTo = written;
+            channel.force(false);
+            durable = upTo;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Commits the logged commands and closes the segment.
+     *
+     * @throws IOException if the segment cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    private static List<Path> segments(final Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().startsWith(PREFIX)
+                            && file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static int index(final Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,316 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.poo.commands.ConcurrentInvoker;
+import org.poo.commands.UnknownCommandException;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.fileio.JsonGeneratorSink;
+import org.poo.fileio.OutputSink;
+import org.poo.fileio.StreamingInputReader;
+import org.poo.main.Application;
+import org.poo.persistence.Snapshot;
+import org.poo.persistence.TransactionJournal;
+import org.poo.persistence.WriteAheadLog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the commands of the bank over HTTP, on the server embedded in the JDK.
+ * <p>
+ * Every command is a {@code POST /<command>} endpoint, named as in the input files, taking the
+ * {@link CommandInput} as a JSON body; the command of the body, if any, is replaced by the one
+ * of the path. The response is the JSON object the command writes to the output files, or an
+ * empty {@code 204} response if the command has no output. An unknown command gets a
+ * {@code 404}; a body that cannot be read, or arguments the command rejects, a {@code 400};
+ * any other failure of the command a {@code 500}.
+ * <p>
+ * Every request runs on its own virtual thread, and the commands run through a
+ * {@link ConcurrentInvoker}, so only the commands touching the same users wait for each other.
+ * If the application has a {@link WriteAheadLog}, a command is only answered once it is on the
+ * disk, and {@link Snapshot}s of the application can be written periodically next to it, so a
+ * restart only replays the commands logged since the latest one.
+ */
+public final class BankServer implements AutoCloseable {
+    /**
+     * The port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The number of partitions of the users when none is given.
+     */
+    public static final int DEFAULT_PARTITIONS = 64;
+
+    /**
+     * The number of records of the log forced to the disk together when none is given.
+     */
+    public static final int DEFAULT_WAL_SYNC = 256;
+
+    private static final int BACKLOG = 4096;
+    private static final int OK = 200;
+    private static final int NO_CONTENT = 204;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int NOT_ALLOWED = 405;
+    private static final int SERVER_ERROR = 500;
+    private static final String NO_DELAY = "sun.net.httpserver.nodelay";
+
+    static {
+        // The headers and the body of a response are written separately, so with Nagle's
+        // algorithm the body waits for the delayed ACK of the client, about 40 ms. The JDK
+        // server reads the setting once, when the first server is created.
+        if (System.getProperty(NO_DELAY) == null) {
+            System.setProperty(NO_DELAY, "true");
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentInvoker invoker;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final WriteAheadLog wal;
+    private ScheduledExecutorService snapshots;
+
+    /**
+     * Creates a server for an application whose input is already parsed. It only accepts
+     * requests once started.
+     *
+     * @param app        the application serving the commands
+     * @param address    the address to listen on, with port 0 for any free port
+     * @param partitions the number of partitions of the users, see {@link ConcurrentInvoker}
+     * @throws IOException if the server cannot listen on the address
+     */
+    public BankServer(final Application app, final InetSocketAddress address,
+                      final int partitions) throws IOException {
+        invoker = new ConcurrentInvoker(app, partitions);
+        wal = app.getWal();
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Writes a snapshot of the application periodically, while the requests keep being
+     * served, see {@link ConcurrentInvoker#checkpoint()}.
+     *
+     * @param seconds the time between the snapshots
+     * @throws IllegalStateException if the application has no log
+     */
+    public void snapshotEvery(final long seconds) {
+        if (wal == null) {
+            throw new IllegalStateException("Snapshots need a write-ahead log");
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor();
+        snapshots.scheduleWithFixedDelay(this::snapshot, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private void snapshot() {
+        try {
+            long start = System.nanoTime();
+            Path snapshot = invoker.checkpoint();
+            System.out.printf("Wrote %s in %d ms%n", snapshot,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            // a failed snapshot leaves the log whole, the next one may succeed
+            System.err.println("Snapshot failed: " + e);
+        }
+    }
+
+    /**
+     * Stops accepting requests, and waits for the running ones.
+     */
+    @Override
+    public void close() {
+        if (snapshots != null) {
+            snapshots.close();
+        }
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, NOT_ALLOWED, "Only POST is supported");
+                return;
+            }
+            String command = exchange.getRequestURI().getPath().substring(1);
+            if (command.isEmpty() || command.contains("/")) {
+                respond(exchange, NOT_FOUND, "Unknown command " + command);
+                return;
+            }
+
+            CommandInput input;
+            try (InputStream body = exchange.getRequestBody()) {
+                input = mapper.readValue(body, CommandInput.class);
+            } catch (JsonProcessingException e) {
+                respond(exchange, BAD_REQUEST, e.getOriginalMessage());
+                return;
+            }
+            input.setCommand(command);
+
+            CommandOutput output;
+            try {
+                output = invoker.execute(input);
+                if (wal != null) {
+                    wal.commit();
+                }
+            } catch (UnknownCommandException e) {
+                respond(exchange, NOT_FOUND, e.getMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                respond(exchange, BAD_REQUEST, e.getMessage());
+                return;
+            } catch (RuntimeException e) {
+                respond(exchange, SERVER_ERROR, String.valueOf(e));
+                return;
+            }
+
+            if (output == null) {
+                exchange.sendResponseHeaders(NO_CONTENT, -1);
+                return;
+            }
+            byte[] json = mapper.writeValueAsBytes(output.toJson());
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(OK, json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final int status,
+                                final String message) throws IOException {
+        byte[] text = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, text.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(text);
+        }
+    }
+
+    /**
+     * Loads the bank from an input file, replaying its commands, then serves it until the
+     * process is stopped. With {@code wal=DIR}, the commands logged by the previous runs are
+     * replayed too, and the new ones logged, see {@link #load(Path, Path, int, Path)}; with
+     * {@code snapshotEvery=SECONDS} as well, a snapshot is written to the same directory
+     * periodically. With {@code journal=DIR}, the reports of the accounts are kept in a
+     * {@link TransactionJournal} mapped from that directory.
+     *
+     * @param args the input file, then optionally {@code port=N}, {@code partitions=N},
+     *             {@code wal=DIR}, {@code walSync=N}, {@code snapshotEvery=SECONDS} and
+     *             {@code journal=DIR}
+     * @throws IOException if the input cannot be read or the server cannot listen
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: BankServer INPUT [port=N] [partitions=N]"
+                    + " [wal=DIR] [walSync=N] [snapshotEvery=SECONDS] [journal=DIR]");
+        }
+        int port = DEFAULT_PORT;
+        int partitions = DEFAULT_PARTITIONS;
+        Path wal = null;
+        int walSync = DEFAULT_WAL_SYNC;
+        long snapshotEvery = 0;
+        Path journal = null;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("port=")) {
+                port = Integer.parseInt(args[i].substring("port=".length()));
+            } else if (args[i].startsWith("partitions=")) {
+                partitions = Integer.parseInt(args[i].substring("partitions=".length()));
+            } else if (args[i].startsWith("wal=")) {
+                wal = Path.of(args[i].substring("wal=".length()));
+            } else if (args[i].startsWith("walSync=")) {
+                walSync = Integer.parseInt(args[i].substring("walSync=".length()));
+            } else if (args[i].startsWith("snapshotEvery=")) {
+                snapshotEvery = Long.parseLong(args[i].substring("snapshotEvery=".length()));
+            } else if (args[i].startsWith("journal=")) {
+                journal = Path.of(args[i].substring("journal=".length()));
+            }
+        }
+
+        Application app = load(Path.of(args[0]), wal, walSync, journal);
+        BankServer server = new BankServer(app, new InetSocketAddress(port), partitions);
+        if (snapshotEvery > 0) {
+            server.snapshotEvery(snapshotEvery);
+        }
+        server.start();
+        System.out.printf("Serving %s on port %d%n", args[0], server.getPort());
+    }
+
+    /**
+     * Loads the bank from an input file, replaying its commands. With a log, the commands it
+     * holds are replayed next, then it is opened for the new commands. If the directory of the
+     * log holds a {@link Snapshot}, the bank is restored from it instead of the input file, and
+     * only the commands logged after it are replayed. With a journal, the reports of the
+     * accounts are moved to it before any command is replayed.
+     *
+     * @param input     the input file
+     * @param wal       the directory of the {@link WriteAheadLog}, or {@code null} for none
+     * @param syncEvery the number of records forced to the disk together
+     * @param journal   the directory of the {@link TransactionJournal}, or {@code null} to
+     *                  keep the reports on the heap
+     * @return the application
+     * @throws IOException if the input or the log cannot be read
+     */
+    static Application load(final Path input, final Path wal, final int syncEvery,
+                            final Path journal) throws IOException {
+        Path snapshot = wal == null ? null : Snapshot.latest(wal);
+        if (snapshot != null) {
+            long start = System.nanoTime();
+            Application app = Snapshot.restore(snapshot);
+            System.out.printf("Restored %s in %d ms%n", snapshot,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            if (journal != null) {
+                app.useJournal(TransactionJournal.open(journal));
+            }
+            long replayed = WriteAheadLog.replay(wal, app, Snapshot.segmentOf(snapshot));
+            System.out.printf("Replayed %d logged commands from %s%n", replayed, wal);
+            app.setWal(WriteAheadLog.open(wal, syncEvery));
+            return app;
+        }
+        Application app;
+        try (StreamingInputReader reader = new StreamingInputReader(input, 0);
+             OutputSink discard = new JsonGeneratorSink(OutputStream.nullOutputStream(), false)) {
+            app = new Application(reader.getInput());
+            app.resetAll();
+            if (journal != null) {
+                app.useJournal(TransactionJournal.open(journal));
+            }
+            app.runApplication(reader.commands(), discard);
+        }
+        if (wal != null) {
+            long replayed = WriteAheadLog.replay(wal, app);
+            System.out.printf("Replayed %d logged commands from %s%n", replayed, wal);
+            app.setWal(WriteAheadLog.open(wal, syncEvery));
+        }
+        return app;
+    }
+}
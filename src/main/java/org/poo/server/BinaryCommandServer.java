@@ -0,0 +1,315 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.commands.Command;
+import org.poo.commands.CommandInvoker;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommandOutput;
+import org.poo.main.Application;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Serves the commands of the bank over TCP, in the {@link BinaryProtocol} format.
+ * <p>
+ * A single thread accepts the connections, reads their frames into direct buffers, runs the
+ * commands and writes the responses, like {@link org.poo.main.Main} runs the commands of a
+ * file: the commands of a connection run in the order they are sent, and the commands of all
+ * the connections one at a time, so they need no locking. Clients may send many commands
+ * before reading the responses; a connection is only read again once the responses waiting
+ * for it have been mostly written. If the application has a
+ * {@link org.poo.persistence.WriteAheadLog}, the responses are only written once the commands
+ * they answer are on the disk.
+ */
+public final class BinaryCommandServer implements AutoCloseable {
+    /**
+     * The port the server listens on when none is given.
+     */
+    public static final int DEFAULT_PORT = 9090;
+
+    private static final int BUFFER = 1_048_576;
+    private static final int HIGH_WATER = BUFFER / 2;
+
+    private final Application app;
+    private final CommandInvoker invoker = new CommandInvoker();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread loop;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a server for an application whose input is already parsed. It only accepts
+     * connections once started.
+     *
+     * @param app     the application serving the commands
+     * @param address the address to listen on, with port 0 for any free port
+     * @throws IOException if the server cannot listen on the address
+     */
+    public BinaryCommandServer(final Application app, final InetSocketAddress address)
+            throws IOException {
+        this.app = app;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        loop = Thread.ofPlatform().name("binary-server").unstarted(this::run);
+    }
+
+    /**
+     * Starts accepting connections.
+     */
+    public void start() {
+        loop.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     * @throws IOException if the server is closed
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Stops the server, closing every connection.
+     *
+     * @throws IOException if a channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (loop.isAlive()) {
+            try {
+                loop.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (IOException | IllegalArgumentException e) {
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("The server stopped", e);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    /**
+     * The buffers and the symbols of a connection.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final BinaryDecoder decoder;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER);
+        private ByteBuffer out = ByteBuffer.allocateDirect(BUFFER);
+        // whether frames are left in the buffer until the responses are written
+        private boolean stalled;
+
+        Connection(final SocketChannel channel, final SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            decoder = new BinaryDecoder(app.getRegistry().getCards(), mapper);
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                key.cancel();
+                channel.close();
+                return;
+            }
+            in.flip();
+            process();
+            in.compact();
+            flush();
+        }
+
+        void flush() throws IOException {
+            write();
+            while (stalled && out.position() < HIGH_WATER) {
+                // resume the frames left in the buffer when the responses backed up
+                in.flip();
+                process();
+                in.compact();
+                write();
+            }
+            int interest = stalled ? 0 : SelectionKey.OP_READ;
+            key.interestOps(out.position() > 0 ? interest | SelectionKey.OP_WRITE : interest);
+        }
+
+        private void write() throws IOException {
+            if (app.getWal() != null && out.position() > 0) {
+                // group commit: the responses of the whole batch wait for a single force
+                app.getWal().commit();
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+
+        private void process() throws IOException {
+            stalled = false;
+            while (in.remaining() >= BinaryProtocol.HEADER) {
+                if (out.position() >= HIGH_WATER) {
+                    stalled = true;
+                    return;
+                }
+                int start = in.position();
+                int length = in.getInt(start);
+                if (length <= 0 || length > BinaryProtocol.MAX_FRAME) {
+                    throw new IllegalArgumentException("Frame of " + length + " bytes");
+                }
+                int end = start + BinaryProtocol.HEADER + length;
+                if (end > in.limit()) {
+                    return;
+                }
+                int limit = in.limit();
+                in.position(start + BinaryProtocol.HEADER).limit(end);
+                CommandInput input;
+                try {
+                    input = decoder.decode(in);
+                } catch (IOException e) {
+                    respond(BinaryProtocol.FAILED, bytes(e.getMessage()));
+                    input = null;
+                } finally {
+                    in.limit(limit).position(end);
+                }
+                if (input != null) {
+                    execute(input);
+                }
+            }
+        }
+
+        private void execute(final CommandInput input) {
+            Command command = input.getCommand() == null ? null : invoker.prepare(input, app);
+            if (command == null) {
+                respond(BinaryProtocol.FAILED, bytes("Unknown command " + input.getCommand()));
+                return;
+            }
+            CommandOutput output;
+            try {
+                output = command.execute();
+            } catch (RuntimeException e) {
+                respond(BinaryProtocol.FAILED, bytes(String.valueOf(e)));
+                return;
+            }
+            if (output == null) {
+                respond(BinaryProtocol.DONE, null);
+                return;
+            }
+            try {
+                respond(BinaryProtocol.OUTPUT, mapper.writeValueAsBytes(output.toJson()));
+            } catch (IOException e) {
+                respond(BinaryProtocol.FAILED, bytes(e.getMessage()));
+            }
+        }
+
+        private void respond(final byte status, final byte[] payload) {
+            int length = 1 + (payload == null ? 0 : payload.length);
+            if (out.remaining() < BinaryProtocol.HEADER + length) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(
+                        Math.max(out.capacity() * 2, out.position() + BinaryProtocol.HEADER
+                                + length));
+                out.flip();
+                larger.put(out);
+                out = larger;
+            }
+            out.putInt(length).put(status);
+            if (payload != null) {
+                out.put(payload);
+            }
+        }
+
+        private byte[] bytes(final String message) {
+            return String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Loads the bank from an input file, replaying its commands, then serves it until the
+     * process is stopped. With {@code wal=DIR}, the commands logged by the previous runs are
+     * replayed too, and the new ones logged.
+     *
+     * @param args the input file, then optionally {@code port=N}, {@code wal=DIR} and
+     *             {@code walSync=N}
+     * @throws IOException if the input cannot be read or the server cannot listen
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Usage: BinaryCommandServer INPUT [port=N]"
+                    + " [wal=DIR] [walSync=N]");
+        }
+        int port = DEFAULT_PORT;
+        Path wal = null;
+        int walSync = BankServer.DEFAULT_WAL_SYNC;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("port=")) {
+                port = Integer.parseInt(args[i].substring("port=".length()));
+            } else if (args[i].startsWith("wal=")) {
+                wal = Path.of(args[i].substring("wal=".length()));
+            } else if (args[i].startsWith("walSync=")) {
+                walSync = Integer.parseInt(args[i].substring("walSync=".length()));
+            }
+        }
+
+        Application app = BankServer.load(Path.of(args[0]), wal, walSync, null);
+        BinaryCommandServer server = new BinaryCommandServer(app, new InetSocketAddress(port));
+        server.start();
+        System.out.printf("Serving %s on port %d%n", args[0], server.getPort());
+    }
+}
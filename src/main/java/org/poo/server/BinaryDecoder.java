@@ -0,0 +1,236 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.CommandInput;
+import org.poo.main.cardTypes.Card;
+import org.poo.main.cardTypes.CardIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.poo.server.BinaryProtocol.ACCOUNTS;
+import static org.poo.server.BinaryProtocol.AMOUNT_FOR_USERS;
+import static org.poo.server.BinaryProtocol.CARD_NUMBER;
+import static org.poo.server.BinaryProtocol.CARD_SYMBOL;
+import static org.poo.server.BinaryProtocol.CURSOR;
+import static org.poo.server.BinaryProtocol.EMAIL;
+import static org.poo.server.BinaryProtocol.LIMIT;
+import static org.poo.server.BinaryProtocol.TO;
+
+/**
+ * Reads the frames of one connection of the {@link BinaryCommandServer}, or of one segment of
+ * the {@link org.poo.persistence.WriteAheadLog}.
+ * <p>
+ * Binary commands are decoded straight from the buffer into the same {@link CommandInput},
+ * cleared before every command: their strings are the ones bound to the symbols of the
+ * connection, and their card numbers the ones of the cards in the {@link CardIndex}, so a
+ * command allocates nothing but its lists. The commands read the input only while they are
+ * created, so the input can be reused as soon as the command is.
+ */
+public final class BinaryDecoder {
+    private static final int CARD_DIGITS = 16;
+    private static final int DECIMAL_BASE = 10;
+    private static final int INITIAL_SYMBOLS = 256;
+
+    private final CardIndex cards;
+    private final ObjectMapper mapper;
+    private final CommandInput input = new CommandInput();
+    private String[] symbols = new String[INITIAL_SYMBOLS];
+
+    /**
+     * @param cards  the cards of the bank, resolving the card numbers
+     * @param mapper reads the commands sent as JSON
+     */
+    public BinaryDecoder(final CardIndex cards, final ObjectMapper mapper) {
+        this.cards = cards;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Reads a frame.
+     *
+     * @param in the frame, positioned after its length and limited to its end
+     * @return the command, or {@code null} if the frame only binds a symbol
+     * @throws IllegalArgumentException if the frame is malformed
+     * @throws IOException              if a JSON command cannot be parsed
+     */
+    public CommandInput decode(final ByteBuffer in) throws IOException {
+        byte opcode = in.get();
+        if (opcode == BinaryProtocol.DEFINE) {
+            define(in);
+            return null;
+        }
+        if (opcode == BinaryProtocol.JSON) {
+            byte[] json = new byte[in.remaining()];
+            in.get(json);
+            return mapper.readValue(json, CommandInput.class);
+        }
+        String command = BinaryProtocol.commandOf(opcode);
+        if (command == null) {
+            throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+        clear();
+        input.setCommand(command);
+        int mask = in.getInt();
+        for (int field = EMAIL; field <= TO; field++) {
+            if (!BinaryProtocol.has(mask, field)) {
+                continue;
+            }
+            if (field == CARD_NUMBER) {
+                input.setCardNumber(cardNumber(in.getLong()));
+            } else {
+                setString(field, symbol(in.getInt()));
+            }
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.RATE)) {
+            input.setRate(in.getDouble());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.TIMESTAMP)) {
+            input.setTimestamp(in.getInt());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.START_TIMESTAMP)) {
+            input.setStartTimestamp(in.getInt());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.END_TIMESTAMP)) {
+            input.setEndTimestamp(in.getInt());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.INTEREST_RATE)) {
+            input.setInterestRate(in.getDouble());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.SPENDING_LIMIT)) {
+            input.setSpendingLimit(in.getDouble());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.DEPOSIT_LIMIT)) {
+            input.setDepositLimit(in.getDouble());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.AMOUNT)) {
+            input.setAmount(in.getDouble());
+        }
+        if (BinaryProtocol.has(mask, BinaryProtocol.MIN_BALANCE)) {
+            input.setMinBalance(in.getDouble());
+        }
+        // the lists are new for every command: a split payment keeps them until it is done
+        if (BinaryProtocol.has(mask, ACCOUNTS)) {
+            int size = in.getShort();
+            List<String> accounts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                accounts.add(symbol(in.getInt()));
+            }
+            input.setAccounts(accounts);
+        }
+        if (BinaryProtocol.has(mask, AMOUNT_FOR_USERS)) {
+            int size = in.getShort();
+            List<Double> amounts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                amounts.add(in.getDouble());
+            }
+            input.setAmountForUsers(amounts);
+        }
+        if (BinaryProtocol.has(mask, CARD_SYMBOL)) {
+            input.setCardNumber(symbol(in.getInt()));
+        }
+        if (BinaryProtocol.has(mask, CURSOR)) {
+            byte[] cursor = new byte[in.getShort()];
+            in.get(cursor);
+            input.setCursor(new String(cursor, StandardCharsets.UTF_8));
+        }
+        if (BinaryProtocol.has(mask, LIMIT)) {
+            input.setLimit(in.getInt());
+        }
+        return input;
+    }
+
+    private void define(final ByteBuffer in) {
+        int id = in.getInt();
+        if (id < 0 || id > symbols.length * 2) {
+            throw new IllegalArgumentException("Symbol " + id + " out of order");
+        }
+        if (id >= symbols.length) {
+            symbols = Arrays.copyOf(symbols, symbols.length * 2);
+        }
+        byte[] bytes = new byte[in.remaining()];
+        in.get(bytes);
+        symbols[id] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String symbol(final int id) {
+        String symbol = id >= 0 && id < symbols.length ? symbols[id] : null;
+        if (symbol == null) {
+            throw new IllegalArgumentException("Undefined symbol " + id);
+        }
+        return symbol;
+    }
+
+    private String cardNumber(final long key) {
+        Card card = cards.get(key);
+        if (card != null) {
+            return card.getCardNumber();
+        }
+        char[] digits = new char[CARD_DIGITS];
+        long rest = key;
+        for (int i = CARD_DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + rest % DECIMAL_BASE);
+            rest /= DECIMAL_BASE;
+        }
+        return new String(digits);
+    }
+
+    private void setString(final int field, final String value) {
+        switch (field) {
+            case BinaryProtocol.EMAIL -> input.setEmail(value);
+            case BinaryProtocol.ACCOUNT -> input.setAccount(value);
+            case BinaryProtocol.NEW_PLAN_TYPE -> input.setNewPlanType(value);
+            case BinaryProtocol.ROLE -> input.setRole(value);
+            case BinaryProtocol.CURRENCY -> input.setCurrency(value);
+            case BinaryProtocol.TARGET -> input.setTarget(value);
+            case BinaryProtocol.DESCRIPTION -> input.setDescription(value);
+            case BinaryProtocol.COMMERCIANT -> input.setCommerciant(value);
+            case BinaryProtocol.RECEIVER -> input.setReceiver(value);
+            case BinaryProtocol.ALIAS -> input.setAlias(value);
+            case BinaryProtocol.ACCOUNT_TYPE -> input.setAccountType(value);
+            case BinaryProtocol.SPLIT_PAYMENT_TYPE -> input.setSplitPaymentType(value);
+            case BinaryProtocol.TYPE -> input.setType(value);
+            case BinaryProtocol.LOCATION -> input.setLocation(value);
+            case BinaryProtocol.FROM -> input.setFrom(value);
+            default -> input.setTo(value);
+        }
+    }
+
+    private void clear() {
+        input.setEmail(null);
+        input.setAccount(null);
+        input.setNewPlanType(null);
+        input.setRole(null);
+        input.setCurrency(null);
+        input.setTarget(null);
+        input.setDescription(null);
+        input.setCardNumber(null);
+        input.setCommerciant(null);
+        input.setReceiver(null);
+        input.setAlias(null);
+        input.setAccountType(null);
+        input.setSplitPaymentType(null);
+        input.setType(null);
+        input.setLocation(null);
+        input.setFrom(null);
+        input.setTo(null);
+        input.setRate(0);
+        input.setTimestamp(0);
+        input.setStartTimestamp(0);
+        input.setEndTimestamp(0);
+        input.setInterestRate(0);
+        input.setSpendingLimit(0);
+        input.setDepositLimit(0);
+        input.setAmount(0);
+        input.setMinBalance(0);
+        input.setAccounts(null);
+        input.setAmountForUsers(null);
+        input.setCursor(null);
+        input.setLimit(0);
+        input.setCurrencyId(-1);
+    }
+}
@@ -0,0 +1,232 @@
+package org.poo.server;
+
+import org.poo.fileio.CommandInput;
+import org.poo.main.cardTypes.CardIndex;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.poo.server.BinaryProtocol.ACCOUNT;
+import static org.poo.server.BinaryProtocol.ACCOUNTS;
+import static org.poo.server.BinaryProtocol.ACCOUNT_TYPE;
+import static org.poo.server.BinaryProtocol.ALIAS;
+import static org.poo.server.BinaryProtocol.AMOUNT;
+import static org.poo.server.BinaryProtocol.AMOUNT_FOR_USERS;
+import static org.poo.server.BinaryProtocol.CARD_NUMBER;
+import static org.poo.server.BinaryProtocol.CARD_SYMBOL;
+import static org.poo.server.BinaryProtocol.COMMERCIANT;
+import static org.poo.server.BinaryProtocol.CURRENCY;
+import static org.poo.server.BinaryProtocol.CURSOR;
+import static org.poo.server.BinaryProtocol.DEPOSIT_LIMIT;
+import static org.poo.server.BinaryProtocol.DESCRIPTION;
+import static org.poo.server.BinaryProtocol.EMAIL;
+import static org.poo.server.BinaryProtocol.END_TIMESTAMP;
+import static org.poo.server.BinaryProtocol.FROM;
+import static org.poo.server.BinaryProtocol.HEADER;
+import static org.poo.server.BinaryProtocol.INTEREST_RATE;
+import static org.poo.server.BinaryProtocol.LIMIT;
+import static org.poo.server.BinaryProtocol.LOCATION;
+import static org.poo.server.BinaryProtocol.MIN_BALANCE;
+import static org.poo.server.BinaryProtocol.NEW_PLAN_TYPE;
+import static org.poo.server.BinaryProtocol.RATE;
+import static org.poo.server.BinaryProtocol.RECEIVER;
+import static org.poo.server.BinaryProtocol.ROLE;
+import static org.poo.server.BinaryProtocol.SPENDING_LIMIT;
+import static org.poo.server.BinaryProtocol.SPLIT_PAYMENT_TYPE;
+import static org.poo.server.BinaryProtocol.START_TIMESTAMP;
+import static org.poo.server.BinaryProtocol.TARGET;
+import static org.poo.server.BinaryProtocol.TIMESTAMP;
+import static org.poo.server.BinaryProtocol.TO;
+import static org.poo.server.BinaryProtocol.TYPE;
+
+/**
+ * Writes commands in the {@link BinaryProtocol} format, for one connection.
+ * <p>
+ * The encoder remembers the strings it has already bound to a symbol id, and writes the
+ * {@link BinaryProtocol#DEFINE} frames of the new ones right before the command using them.
+ */
+public final class BinaryEncoder {
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private final List<String> defined = new ArrayList<>();
+    private final int[] ids = new int[CARD_SYMBOL + 1];
+
+    /**
+     * Writes a command, with the symbols it needs, unless the buffer is too small for them.
+     *
+     * @param input the command
+     * @param out   the buffer, left as it was if the command does not fit
+     * @return whether the command was written
+     */
+    public boolean encode(final CommandInput input, final ByteBuffer out) {
+        int start = out.position();
+        int known = defined.size();
+        try {
+            byte opcode = BinaryProtocol.opcodeOf(input.getCommand());
+            if (opcode == BinaryProtocol.JSON) {
+                throw new IllegalArgumentException("Unknown command " + input.getCommand());
+            }
+            write(opcode, input, out);
+            return true;
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            while (defined.size() > known) {
+                symbols.remove(defined.remove(defined.size() - 1));
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Writes a command as JSON, for the servers to parse like the input files.
+     *
+     * @param json the command, as a JSON object
+     * @param out  the buffer, left as it was if the command does not fit
+     * @return whether the command was written
+     */
+    public static boolean encodeJson(final byte[] json, final ByteBuffer out) {
+        if (out.remaining() < HEADER + 1 + json.length) {
+            return false;
+        }
+        out.putInt(1 + json.length).put(BinaryProtocol.JSON).put(json);
+        return true;
+    }
+
+    private void write(final byte opcode, final CommandInput input, final ByteBuffer out) {
+        int mask = 0;
+        mask |= symbol(EMAIL, input.getEmail(), out);
+        mask |= symbol(ACCOUNT, input.getAccount(), out);
+        mask |= symbol(NEW_PLAN_TYPE, input.getNewPlanType(), out);
+        mask |= symbol(ROLE, input.getRole(), out);
+        mask |= symbol(CURRENCY, input.getCurrency(), out);
+        mask |= symbol(TARGET, input.getTarget(), out);
+        mask |= symbol(DESCRIPTION, input.getDescription(), out);
+        mask |= symbol(COMMERCIANT, input.getCommerciant(), out);
+        mask |= symbol(RECEIVER, input.getReceiver(), out);
+        mask |= symbol(ALIAS, input.getAlias(), out);
+        mask |= symbol(ACCOUNT_TYPE, input.getAccountType(), out);
+        mask |= symbol(SPLIT_PAYMENT_TYPE, input.getSplitPaymentType(), out);
+        mask |= symbol(TYPE, input.getType(), out);
+        mask |= symbol(LOCATION, input.getLocation(), out);
+        mask |= symbol(FROM, input.getFrom(), out);
+        mask |= symbol(TO, input.getTo(), out);
+        long card = CardIndex.toKey(input.getCardNumber());
+        if (card != -1) {
+            mask |= 1 << CARD_NUMBER;
+        } else {
+            mask |= symbol(CARD_SYMBOL, input.getCardNumber(), out);
+        }
+        int[] accounts = null;
+        if (input.getAccounts() != null) {
+            accounts = new int[input.getAccounts().size()];
+            for (int i = 0; i < accounts.length; i++) {
+                accounts[i] = define(input.getAccounts().get(i), out);
+            }
+            mask |= 1 << ACCOUNTS;
+        }
+        mask |= flag(RATE, input.getRate());
+        mask |= flag(TIMESTAMP, input.getTimestamp());
+        mask |= flag(START_TIMESTAMP, input.getStartTimestamp());
+        mask |= flag(END_TIMESTAMP, input.getEndTimestamp());
+        mask |= flag(INTEREST_RATE, input.getInterestRate());
+        mask |= flag(SPENDING_LIMIT, input.getSpendingLimit());
+        mask |= flag(DEPOSIT_LIMIT, input.getDepositLimit());
+        mask |= flag(AMOUNT, input.getAmount());
+        mask |= flag(MIN_BALANCE, input.getMinBalance());
+        if (input.getAmountForUsers() != null) {
+            mask |= 1 << AMOUNT_FOR_USERS;
+        }
+        byte[] cursor = null;
+        if (input.getCursor() != null) {
+            cursor = input.getCursor().getBytes(StandardCharsets.UTF_8);
+            mask |= 1 << CURSOR;
+        }
+        mask |= flag(LIMIT, input.getLimit());
+
+        int start = out.position();
+        out.putInt(0).put(opcode).putInt(mask);
+        for (int field = EMAIL; field <= TO; field++) {
+            if (!BinaryProtocol.has(mask, field)) {
+                continue;
+            }
+            if (field == CARD_NUMBER) {
+                out.putLong(card);
+            } else {
+                out.putInt(ids[field]);
+            }
+        }
+        putDouble(mask, RATE, input.getRate(), out);
+        putInt(mask, TIMESTAMP, input.getTimestamp(), out);
+        putInt(mask, START_TIMESTAMP, input.getStartTimestamp(), out);
+        putInt(mask, END_TIMESTAMP, input.getEndTimestamp(), out);
+        putDouble(mask, INTEREST_RATE, input.getInterestRate(), out);
+        putDouble(mask, SPENDING_LIMIT, input.getSpendingLimit(), out);
+        putDouble(mask, DEPOSIT_LIMIT, input.getDepositLimit(), out);
+        putDouble(mask, AMOUNT, input.getAmount(), out);
+        putDouble(mask, MIN_BALANCE, input.getMinBalance(), out);
+        if (accounts != null) {
+            out.putShort((short) accounts.length);
+            for (int id : accounts) {
+                out.putInt(id);
+            }
+        }
+        if (input.getAmountForUsers() != null) {
+            out.putShort((short) input.getAmountForUsers().size());
+            for (double amount : input.getAmountForUsers()) {
+                out.putDouble(amount);
+            }
+        }
+        if (BinaryProtocol.has(mask, CARD_SYMBOL)) {
+            out.putInt(ids[CARD_SYMBOL]);
+        }
+        if (cursor != null) {
+            out.putShort((short) cursor.length).put(cursor);
+        }
+        putInt(mask, LIMIT, input.getLimit(), out);
+        out.putInt(start, out.position() - start - HEADER);
+    }
+
+    private int symbol(final int field, final String value, final ByteBuffer out) {
+        if (value == null) {
+            return 0;
+        }
+        ids[field] = define(value, out);
+        return 1 << field;
+    }
+
+    private int define(final String value, final ByteBuffer out) {
+        Integer id = symbols.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int next = defined.size();
+        out.putInt(1 + Integer.BYTES + bytes.length).put(BinaryProtocol.DEFINE).putInt(next)
+                .put(bytes);
+        symbols.put(value, next);
+        defined.add(value);
+        return next;
+    }
+
+    private static int flag(final int field, final double value) {
+        return value != 0 ? 1 << field : 0;
+    }
+
+    private static void putDouble(final int mask, final int field, final double value,
+                                  final ByteBuffer out) {
+        if (BinaryProtocol.has(mask, field)) {
+            out.putDouble(value);
+        }
+    }
+
+    private static void putInt(final int mask, final int field, final int value,
+                               final ByteBuffer out) {
+        if (BinaryProtocol.has(mask, field)) {
+            out.putInt(value);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.poo.server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The binary wire format of the {@link BinaryCommandServer}.
+ * <p>
+ * Every frame starts with its length, a big-endian {@code int} counting the bytes after it,
+ * then an opcode byte:
+ * <ul>
+ *     <li>{@link #DEFINE}: binds a symbol id ({@code int}) to the UTF-8 string making up the
+ *     rest of the frame. Emails, IBANs, aliases, currencies, commerciants and every other
+ *     string of a command are sent once per connection, then referred to by their id.</li>
+ *     <li>{@link #JSON}: a command as the JSON object of the input files, for clients that
+ *     cannot encode the binary form.</li>
+ *     <li>one of the {@link #COMMANDS}, numbered from 1: a command, as an {@code int} mask
+ *     of the fields it carries followed by each of them, in the order of the field bits,
+ *     with a fixed width: an {@code int} symbol id for strings, an {@code int} for
+ *     timestamps, a {@code double} for amounts and rates, a {@code long} for card numbers,
+ *     and a {@code short} count followed by the elements for lists.</li>
+ * </ul>
+ * Every command frame gets a response frame, in the order of the requests: its length, a
+ * status byte, then for {@link #OUTPUT} the JSON output of the command and for
+ * {@link #FAILED} the reason as UTF-8.
+ */
+public final class BinaryProtocol {
+    /**
+     * The size of the length prefix of a frame.
+     */
+    public static final int HEADER = Integer.BYTES;
+
+    /**
+     * The longest frame accepted, without its length prefix.
+     */
+    public static final int MAX_FRAME = 65_536;
+
+    /**
+     * Opcode binding a symbol id to a string.
+     */
+    public static final byte DEFINE = 0;
+
+    /**
+     * Opcode of a command sent as JSON.
+     */
+    public static final byte JSON = 127;
+
+    /**
+     * The commands with a binary opcode, the opcode being the index plus one.
+     */
+    static final String[] COMMANDS = {
+        "printUsers", "printTransactions", "addAccount", "createCard", "createOneTimeCard",
+        "deleteAccount", "deleteCard", "addFunds", "setMinimumBalance", "checkCardStatus",
+        "payOnline", "splitPayment", "sendMoney", "setAlias", "addInterest",
+        "changeInterestRate", "report", "spendingsReport", "upgradePlan", "withdrawSavings",
+        "cashWithdrawal", "acceptSplitPayment", "rejectSplitPayment",
+        "addNewBusinessAssociate", "changeSpendingLimit", "changeDepositLimit",
+        "businessReport", "updateExchangeRate",
+    };
+
+    /**
+     * Status of a command that ran with no output.
+     */
+    public static final byte DONE = 0;
+
+    /**
+     * Status of a command that ran, followed by its output.
+     */
+    public static final byte OUTPUT = 1;
+
+    /**
+     * Status of a command that could not run, followed by the reason.
+     */
+    public static final byte FAILED = 2;
+
+    static final int EMAIL = 0;
+    static final int ACCOUNT = 1;
+    static final int NEW_PLAN_TYPE = 2;
+    static final int ROLE = 3;
+    static final int CURRENCY = 4;
+    static final int TARGET = 5;
+    static final int DESCRIPTION = 6;
+    static final int CARD_NUMBER = 7;
+    static final int COMMERCIANT = 8;
+    static final int RECEIVER = 9;
+    static final int ALIAS = 10;
+    static final int ACCOUNT_TYPE = 11;
+    static final int SPLIT_PAYMENT_TYPE = 12;
+    static final int TYPE = 13;
+    static final int LOCATION = 14;
+    static final int FROM = 15;
+    static final int TO = 16;
+    static final int RATE = 17;
+    static final int TIMESTAMP = 18;
+    static final int START_TIMESTAMP = 19;
+    static final int END_TIMESTAMP = 20;
+    static final int INTEREST_RATE = 21;
+    static final int SPENDING_LIMIT = 22;
+    static final int DEPOSIT_LIMIT = 23;
+    static final int AMOUNT = 24;
+    static final int MIN_BALANCE = 25;
+    static final int ACCOUNTS = 26;
+    static final int AMOUNT_FOR_USERS = 27;
+    // a card number that is not sixteen digits, sent as a symbol
+    static final int CARD_SYMBOL = 28;
+    // a page token, used once, so it is sent inline as a short count of UTF-8 bytes
+    static final int CURSOR = 29;
+    static final int LIMIT = 30;
+
+    private static final Map<String, Byte> OPCODES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            OPCODES.put(COMMANDS[i], (byte) (i + 1));
+        }
+    }
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * @param command the name of a command
+     * @return its opcode, or {@link #JSON} if it has no binary form
+     */
+    public static byte opcodeOf(final String command) {
+        return OPCODES.getOrDefault(command, JSON);
+    }
+
+    /**
+     * @param opcode an opcode
+     * @return the name of the command, or {@code null} if the opcode is not a command
+     */
+    static String commandOf(final byte opcode) {
+        return opcode >= 1 && opcode <= COMMANDS.length ? COMMANDS[opcode - 1] : null;
+    }
+
+    static boolean has(final int mask, final int field) {
+        return (mask & 1 << field) != 0;
+    }
+}
@@ -10,6 +10,27 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  * This class cannot be instantiated as its constructor is private.
  */
 public final class Errors {
+    public static final String INSUFFICIENT_FUNDS = "Insufficient funds";
+    public static final String ACCOUNT_NOT_FOUND = "Account not found";
+    public static final String CARD_NOT_FOUND = "Card not found";
+    public static final String USER_NOT_FOUND = "User not found";
+    public static final String FROZEN_CARD = "The card is frozen";
+    public static final String NOT_SAVINGS_ACCOUNT = "This is not a savings account";
+    public static final String FUNDS_REMAINING =
+            "Account couldn't be deleted - there are funds remaining";
+    public static final String INVALID_ACCOUNT_FOR_SPLIT = "One of the accounts is invalid";
+    public static final String COMMERCIANT_NOT_FOUND = "The commerciant is not found";
+    public static final String CHANGE_SPEND_LIMIT =
+            "You must be owner in order to change spending limit.";
+    public static final String CHANGE_DEP_LIMIT =
+            "You must be owner in order to change deposit limit.";
+    public static final String DOWNGRADE_PLAN = "You cannot downgrade your plan.";
+    public static final String NOT_BUSINESS_ACCOUNT = "This is not a business account";
+    public static final String INVALID_EXCHANGE_RATE = "Invalid exchange rate";
+    public static final String NO_CLASSIC_ACCOUNT = "You do not have a classic account.";
+    public static final String MINIMUM_AGE = "You don't have the minimum age required.";
+    public static final String NOT_SAVINGS_TYPE = "Account is not of type savings.";
+    public static final String INVALID_CURSOR = "Invalid cursor";
 
     /**
      * Private constructor to prevent instantiation of the utility class.
@@ -26,7 +47,7 @@ public final class Errors {
     public static ObjectNode insufficientFunds(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "Insufficient funds");
+        node.put("description", INSUFFICIENT_FUNDS);
         return node;
     }
 
@@ -39,7 +60,7 @@ public final class Errors {
     public static ObjectNode accountNotFound(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "Account not found");
+        node.put("description", ACCOUNT_NOT_FOUND);
         return node;
     }
 
@@ -52,7 +73,7 @@ public final class Errors {
     public static ObjectNode cardNotFound(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "Card not found");
+        node.put("description", CARD_NOT_FOUND);
         return node;
     }
 
@@ -65,7 +86,7 @@ public final class Errors {
     public static ObjectNode userNotFound(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "User not found");
+        node.put("description", USER_NOT_FOUND);
         return node;
     }
 
@@ -78,7 +99,7 @@ public final class Errors {
     public static ObjectNode frozenCard(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "The card is frozen");
+        node.put("description", FROZEN_CARD);
         return node;
     }
 
@@ -91,7 +112,7 @@ public final class Errors {
     public static ObjectNode notSavingsAccount(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "This is not a savings account");
+        node.put("description", NOT_SAVINGS_ACCOUNT);
         return node;
     }
 
@@ -104,7 +125,7 @@ public final class Errors {
     public static ObjectNode fundsRemaining(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "Account couldn't be deleted - there are funds remaining");
+        node.put("description", FUNDS_REMAINING);
         return node;
     }
 
@@ -117,7 +138,7 @@ public final class Errors {
     public static ObjectNode invalidAccountForSplit(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "One of the accounts is invalid");
+        node.put("description", INVALID_ACCOUNT_FOR_SPLIT);
         return node;
     }
 
@@ -130,7 +151,7 @@ public final class Errors {
     public static ObjectNode commerciantNotFound(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "The commerciant is not found");
+        node.put("description", COMMERCIANT_NOT_FOUND);
         return node;
     }
 
@@ -143,7 +164,7 @@ public final class Errors {
     public static ObjectNode changeSpendLimitError(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "You must be owner in order to change spending limit.");
+        node.put("description", CHANGE_SPEND_LIMIT);
         return node;
     }
 
@@ -156,7 +177,7 @@ public final class Errors {
     public static ObjectNode changeDepLimitError(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "You must be owner in order to change deposit limit.");
+        node.put("description", CHANGE_DEP_LIMIT);
         return node;
     }
 
@@ -169,7 +190,7 @@ public final class Errors {
     public static ObjectNode downgradePlan(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "You cannot downgrade your plan.");
+        node.put("description", DOWNGRADE_PLAN);
         return node;
     }
 
@@ -183,7 +204,7 @@ public final class Errors {
     public static ObjectNode alreadyOwnedPlan(final int timestamp, final String plan) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "The user already has the " + plan + " plan.");
+        node.put("description", alreadyOwnedPlanDescription(plan));
         return node;
     }
 
@@ -196,7 +217,41 @@ public final class Errors {
     public static ObjectNode notBusinessAccount(final int timestamp) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("timestamp", timestamp);
-        node.put("description", "This is not a business account");
+        node.put("description", NOT_BUSINESS_ACCOUNT);
         return node;
     }
+
+    /**
+     * Creates a JSON object representing an "Invalid exchange rate" error with a timestamp.
+     *
+     * @param timestamp the timestamp when the error occurred
+     * @return a JSON object containing the timestamp and the error description
+     */
+    public static ObjectNode invalidExchangeRate(final int timestamp) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("timestamp", timestamp);
+        node.put("description", INVALID_EXCHANGE_RATE);
+        return node;
+    }
+
+    /**
+     * Creates a JSON object representing an "Invalid cursor" error with a timestamp.
+     *
+     * @param timestamp the timestamp when the error occurred
+     * @return a JSON object containing the timestamp and the error description
+     */
+    public static ObjectNode invalidCursor(final int timestamp) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        node.put("timestamp", timestamp);
+        node.put("description", INVALID_CURSOR);
+        return node;
+    }
+
+    /**
+     * @param plan the plan that is already owned
+     * @return the description of an "Already owned plan" error
+     */
+    public static String alreadyOwnedPlanDescription(final String plan) {
+        return "The user already has the " + plan + " plan.";
+    }
 }
@@ -1,16 +1,15 @@
 package org.poo.utils;
 
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.JsonNodeFactory;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.poo.fileio.CommandOutput;
 
 /**
- * Utility class for generating JSON objects representing command outputs and specific responses.
+ * Utility class for generating the results of the commands.
  * <p>
- * This class cannot be instantiated as its constructor is private.
+ * Every call returns a new {@link CommandOutput}, so the result of a command is never shared
+ * with the next one. This class cannot be instantiated as its constructor is private.
  */
 public final class Output {
-    private static final ObjectNode NODE = JsonNodeFactory.instance.objectNode();
 
     /**
      * Private constructor to prevent instantiation of the utility class.
@@ -19,49 +18,15 @@ public final class Output {
     }
 
     /**
-     * Generates a JSON object representing the output of a command.
+     * Generates the result of a command.
      *
      * @param command   the name of the command
-     * @param output    the command's output as an {@link ObjectNode}
+     * @param output    the command's output, as an object or an array
      * @param timestamp the timestamp of the command execution
-     * @return a JSON object containing the command details
+     * @return a {@link CommandOutput} containing the command details
      */
-    public static ObjectNode getCommand(final String command, final ObjectNode output,
-                                        final int timestamp) {
-        NODE.put("command", command);
-        NODE.set("output", output);
-        NODE.put("timestamp", timestamp);
-        return NODE;
-    }
-
-    /**
-     * Generates a JSON object representing the output of a command.
-     *
-     * @param command   the name of the command
-     * @param output    the command's output as an {@link ArrayNode}
-     * @param timestamp the timestamp of the command execution
-     * @return a JSON object containing the command details
-     */
-    public static ObjectNode getCommand(final String command, final ArrayNode output,
-                                        final int timestamp) {
-        NODE.put("command", command);
-        NODE.set("output", output);
-        NODE.put("timestamp", timestamp);
-        return NODE;
-    }
-
-    /**
-     * Generates a JSON object representing a successful plan upgrade.
-     *
-     * @param timestamp the timestamp of the upgrade
-     * @param account   the IBAN of the account being upgraded
-     * @return a JSON object containing the upgrade details
-     */
-    public static ObjectNode upgradePlan(final int timestamp, final String account) {
-        NODE.put("timestamp", timestamp);
-        NODE.put("description", "Upgrade plan");
-        NODE.put("accountIBAN", account);
-        NODE.put("newPlanType", "gold");
-        return NODE;
+    public static CommandOutput getCommand(final String command, final JsonNode output,
+                                           final int timestamp) {
+        return new CommandOutput(command, output, timestamp);
     }
 }
@@ -1,11 +1,17 @@
 package org.poo.utils;
 
-import java.math.BigDecimal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.util.Random;
 
 /**
  * Utility class providing helper methods for generating IBANs, card numbers,
- * split payment IDs, and performing precise arithmetic operations.
+ * and split payment IDs.
  * <p>
  * This class cannot be instantiated as its constructor is private.
  */
@@ -100,6 +106,43 @@ public final class Utils {
         return splitPaymentRandom.nextInt(DIGIT_SPLIT);
     }
 
+    /**
+     * Captures the state of the random generators, so that an application restored from a
+     * snapshot goes on with the same IBANs, card numbers and split payment IDs, see
+     * {@link #restoreRandom(byte[])}.
+     *
+     * @return the serialized generators
+     */
+    public static byte[] saveRandom() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(ibanRandom);
+            out.writeObject(cardRandom);
+            out.writeObject(splitPaymentRandom);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Puts the random generators back in a state captured by {@link #saveRandom()}.
+     *
+     * @param state the serialized generators
+     * @throws IllegalArgumentException if the state holds anything but the generators
+     */
+    public static void restoreRandom(final byte[] state) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            in.setObjectInputFilter(ObjectInputFilter.allowFilter(Random.class::equals,
+                    ObjectInputFilter.Status.REJECTED));
+            ibanRandom = (Random) in.readObject();
+            cardRandom = (Random) in.readObject();
+            splitPaymentRandom = (Random) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("Invalid random state", e);
+        }
+    }
+
     /**
      * Resets the random generators to their initial seeds.
      * <p>
@@ -110,23 +153,4 @@ public final class Utils {
         cardRandom = new Random(CARD_SEED);
         splitPaymentRandom = new Random(SPLIT_PAYMENT_SEED);
     }
-
-    /**
-     * Performs precise arithmetic operations on balance, payment, and cashback values
-     * using {@link BigDecimal} for accuracy.
-     *
-     * @param balance  the current balance
-     * @param toPay    the amount to be paid
-     * @param cashback the cashback amount to be added
-     * @return the result of the precise arithmetic operation
-     */
-    public static double bigDecimalPrecision(final double balance, final double toPay,
-                                             final double cashback) {
-        BigDecimal b = new BigDecimal(balance);
-        BigDecimal p = new BigDecimal(toPay);
-        BigDecimal c = new BigDecimal(cashback);
-
-        BigDecimal result = b.subtract(p).add(c);
-        return result.doubleValue();
-    }
 }